@@ -0,0 +1,58 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.benchmarks.dataprovider;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * The user defined type that every row of the generated data sources is mapped into. The data members are public so
+ * that all the data providers can bind them without any further configuration.
+ */
+@XmlRootElement(name = "row")
+public class BenchmarkRow {
+
+    public String id;
+    public String name;
+    public int amount;
+    public String email;
+
+    /**
+     * Default constructor is available.
+     */
+    public BenchmarkRow() {
+        // default empty constructor
+    }
+
+    /**
+     * @param index
+     *            the 1 based position of the row in a data source.
+     * @return the row that is found at that position of every generated data source.
+     */
+    static BenchmarkRow at(int index) {
+        BenchmarkRow row = new BenchmarkRow();
+        row.id = "row" + index;
+        row.name = "Name " + index;
+        row.amount = index;
+        row.email = "user" + index + "@example.com";
+        return row;
+    }
+
+    @Override
+    public String toString() {
+        return "BenchmarkRow [id=" + id + ", name=" + name + ", amount=" + amount + ", email=" + email + "]";
+    }
+}
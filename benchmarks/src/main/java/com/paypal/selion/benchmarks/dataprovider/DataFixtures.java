@@ -0,0 +1,207 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.benchmarks.dataprovider;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import com.paypal.selion.platform.dataprovider.DataResource;
+import com.paypal.selion.platform.dataprovider.impl.FileSystemResource;
+import com.paypal.selion.platform.dataprovider.impl.XmlFileSystemResource;
+import com.paypal.selion.platform.dataprovider.pojos.KeyValueMap;
+
+/**
+ * Generates the data sources that the benchmarks read. Every data source holds the same rows, see
+ * {@link BenchmarkRow#at(int)}, in one of the supported {@link Format}s. The rows can be looked up by their id, which
+ * makes the data sources fit for {@code getDataByKeys} as well.
+ */
+final class DataFixtures implements Closeable {
+
+    /**
+     * The formats of the data sources, one per data provider that is benchmarked.
+     */
+    enum Format {
+        EXCEL("xlsx"),
+        YAML("yaml"),
+        JSON("json"),
+        XML("xml");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    private static final String[] HEADER = { "id", "name", "amount", "email" };
+
+    private final Format format;
+    private final File directory;
+    private final String fileName;
+    private final String keyedFileName;
+
+    private DataFixtures(Format format, File directory, String fileName, String keyedFileName) {
+        this.format = format;
+        this.directory = directory;
+        this.fileName = fileName;
+        this.keyedFileName = keyedFileName;
+    }
+
+    /**
+     * Writes a data source with the given number of rows to a new temporary directory.
+     *
+     * @param format
+     *            the {@link Format} of the data source.
+     * @param rows
+     *            the number of rows.
+     * @return the generated {@link DataFixtures}. {@link #close()} them to delete the data source.
+     * @throws IOException
+     */
+    static DataFixtures generate(Format format, int rows) throws IOException {
+        File directory = Files.createTempDirectory("selion-benchmarks").toFile();
+        File file = new File(directory, "rows." + format.extension);
+        File keyedFile = file;
+        switch (format) {
+        case EXCEL:
+            writeExcel(file, rows);
+            break;
+        case YAML:
+            writeYaml(file, rows);
+            break;
+        case JSON:
+            writeJson(file, rows);
+            break;
+        case XML:
+            writeXml(file, rows);
+            // the xml data provider looks up keys in a list of key value pairs only
+            keyedFile = new File(directory, "keyValuePairs.xml");
+            writeXmlKeyValuePairs(keyedFile, rows);
+            break;
+        default:
+            throw new IllegalArgumentException("Unsupported format " + format);
+        }
+        return new DataFixtures(format, directory, file.getAbsolutePath(), keyedFile.getAbsolutePath());
+    }
+
+    /**
+     * @return a new resource for the data source. The data providers may alter their resource, so every data provider
+     *         is to be given a resource of its own.
+     */
+    DataResource newResource() {
+        if (format == Format.XML) {
+            return new XmlFileSystemResource(fileName, BenchmarkRow.class);
+        }
+        return new FileSystemResource(fileName, BenchmarkRow.class);
+    }
+
+    /**
+     * @return a new resource for looking up the rows of the data source by their id.
+     */
+    DataResource newKeyedResource() {
+        if (format == Format.XML) {
+            return new XmlFileSystemResource(keyedFileName, KeyValueMap.class);
+        }
+        return newResource();
+    }
+
+    @Override
+    public void close() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    private static void writeExcel(File file, int rows) throws IOException {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        // the excel data provider reads the sheet that is named after the user defined type
+        Sheet sheet = workbook.createSheet(BenchmarkRow.class.getSimpleName());
+        writeExcelRow(sheet.createRow(0), HEADER);
+        for (int i = 1; i <= rows; i++) {
+            BenchmarkRow row = BenchmarkRow.at(i);
+            writeExcelRow(sheet.createRow(i),
+                    new String[] { row.id, row.name, Integer.toString(row.amount), row.email });
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            workbook.write(out);
+        }
+    }
+
+    private static void writeExcelRow(Row row, String[] values) {
+        for (int i = 0; i < values.length; i++) {
+            row.createCell(i).setCellValue(values[i]);
+        }
+    }
+
+    private static void writeYaml(File file, int rows) throws IOException {
+        try (Writer writer = newWriter(file)) {
+            // an associative array, so that the rows can be looked up by their id
+            for (int i = 1; i <= rows; i++) {
+                BenchmarkRow row = BenchmarkRow.at(i);
+                writer.write(row.id + ": !" + BenchmarkRow.class.getSimpleName() + " {id: '" + row.id + "', name: '"
+                        + row.name + "', amount: " + row.amount + ", email: '" + row.email + "'}\n");
+            }
+        }
+    }
+
+    private static void writeJson(File file, int rows) throws IOException {
+        try (Writer writer = newWriter(file)) {
+            writer.write("[\n");
+            for (int i = 1; i <= rows; i++) {
+                BenchmarkRow row = BenchmarkRow.at(i);
+                writer.write("{\"id\":\"" + row.id + "\",\"name\":\"" + row.name + "\",\"amount\":" + row.amount
+                        + ",\"email\":\"" + row.email + "\"}" + (i < rows ? ",\n" : "\n"));
+            }
+            writer.write("]\n");
+        }
+    }
+
+    private static void writeXml(File file, int rows) throws IOException {
+        try (Writer writer = newWriter(file)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<rows>\n");
+            for (int i = 1; i <= rows; i++) {
+                BenchmarkRow row = BenchmarkRow.at(i);
+                writer.write(" <row><id>" + row.id + "</id><name>" + row.name + "</name><amount>" + row.amount
+                        + "</amount><email>" + row.email + "</email></row>\n");
+            }
+            writer.write("</rows>\n");
+        }
+    }
+
+    private static void writeXmlKeyValuePairs(File file, int rows) throws IOException {
+        try (Writer writer = newWriter(file)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<items>\n");
+            for (int i = 1; i <= rows; i++) {
+                BenchmarkRow row = BenchmarkRow.at(i);
+                writer.write(" <item><key>" + row.id + "</key><value>" + row.name + "</value></item>\n");
+            }
+            writer.write("</items>\n");
+        }
+    }
+
+    private static Writer newWriter(File file) throws IOException {
+        return Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,137 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.benchmarks.dataprovider;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.paypal.selion.platform.dataprovider.DataProviderFactory;
+import com.paypal.selion.platform.dataprovider.DataResource;
+import com.paypal.selion.platform.dataprovider.SeLionDataProvider;
+import com.paypal.selion.platform.dataprovider.filter.DataProviderFilter;
+import com.paypal.selion.platform.dataprovider.impl.DataLoadInstrumentation;
+import com.paypal.selion.platform.dataprovider.impl.DataSourceCache;
+
+/**
+ * Measures the data providers over generated data sources of every supported format and size. Every invocation reads
+ * the data source from scratch, the way a test class that asks for its data does, so a new data provider is created for
+ * it and the {@link DataSourceCache} is cleared ahead of it, outside of the measured code. The data providers are
+ * measured without a {@link DataLoadInstrumentation} listener, so that they are not wrapped for instrumentation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class DataProviderBenchmark {
+
+    /**
+     * The number of rows that are looked up by {@link #getDataByKeys()} and {@link #getDataByIndex()}.
+     */
+    private static final int LOOKUPS = 10;
+
+    /**
+     * Selects every tenth row, after it has been mapped into a {@link BenchmarkRow}.
+     */
+    private static final DataProviderFilter EVERY_TENTH_ROW = new DataProviderFilter() {
+        @Override
+        public boolean filter(Object data) {
+            return ((BenchmarkRow) data).amount % 10 == 0;
+        }
+    };
+
+    @Param({ "EXCEL", "YAML", "JSON", "XML" })
+    public String format;
+
+    @Param({ "1000", "10000", "100000" })
+    public int rows;
+
+    private DataFixtures fixtures;
+    private String[] keys;
+    private int[] indexes;
+
+    @Setup(Level.Trial)
+    public void generateFixtures() throws IOException {
+        DataLoadInstrumentation.getInstance().setListener(null);
+        fixtures = DataFixtures.generate(DataFixtures.Format.valueOf(format), rows);
+
+        // spread the look ups evenly across the data source, up to its last row
+        keys = new String[LOOKUPS];
+        indexes = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            indexes[i] = (int) ((long) rows * (i + 1) / LOOKUPS);
+            keys[i] = BenchmarkRow.at(indexes[i]).id;
+        }
+    }
+
+    /**
+     * Every invocation costs milliseconds at the least, so the timestamps that JMH takes around this are negligible.
+     */
+    @Setup(Level.Invocation)
+    public void clearDataSourceCache() {
+        DataSourceCache.getInstance().clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFixtures() throws IOException {
+        fixtures.close();
+    }
+
+    @Benchmark
+    public Object[][] getAllData() throws IOException {
+        return newDataProvider(fixtures.newResource()).getAllData();
+    }
+
+    @Benchmark
+    public Object[][] getDataByKeys() throws IOException {
+        return newDataProvider(fixtures.newKeyedResource()).getDataByKeys(keys);
+    }
+
+    @Benchmark
+    public Object[][] getDataByIndex() throws IOException {
+        return newDataProvider(fixtures.newResource()).getDataByIndex(indexes);
+    }
+
+    @Benchmark
+    public void getDataByFilter(Blackhole blackhole) throws IOException {
+        Iterator<Object[]> filtered = newDataProvider(fixtures.newResource()).getDataByFilter(EVERY_TENTH_ROW);
+        while (filtered.hasNext()) {
+            blackhole.consume(filtered.next());
+        }
+    }
+
+    private static SeLionDataProvider newDataProvider(DataResource resource) throws IOException {
+        return DataProviderFactory.getDataProvider(resource);
+    }
+}
@@ -0,0 +1,118 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+package com.paypal.selion.platform.dataprovider;
+
+import java.util.concurrent.TimeUnit;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * Describes one call that loaded data through a {@link SeLionDataProvider}. See {@link DataLoadListener}.<br>
+ * <br>
+ * The time spent by a call is split into the time spent mapping the parsed data into user defined types, and the time
+ * spent on everything else, which is mostly reading and parsing the data source. Parsers that create the objects while
+ * parsing, such as SnakeYAML, Gson or JAXB reading straight from a file, only report parse time. Data that is served
+ * from a cache is neither read nor parsed again, which shows up as zero bytes read and zero rows parsed. An excel
+ * workbook is read when its data provider is created, which is reported as an <code>open</code> call.
+ */
+@Immutable
+public final class DataLoadEvent {
+
+    private final DataResource resource;
+    private final String providerType;
+    private final String operation;
+    private final long bytesRead;
+    private final int rowsParsed;
+    private final int rowsReturned;
+    private final long parseTimeNanos;
+    private final long mapTimeNanos;
+
+    public DataLoadEvent(DataResource resource, String providerType, String operation, long bytesRead,
+            int rowsParsed, int rowsReturned, long parseTimeNanos, long mapTimeNanos) {
+        this.resource = resource;
+        this.providerType = providerType;
+        this.operation = operation;
+        this.bytesRead = bytesRead;
+        this.rowsParsed = rowsParsed;
+        this.rowsReturned = rowsReturned;
+        this.parseTimeNanos = parseTimeNanos;
+        this.mapTimeNanos = mapTimeNanos;
+    }
+
+    /**
+     * @return the data resource that was loaded.
+     */
+    public DataResource getResource() {
+        return resource;
+    }
+
+    /**
+     * @return the simple name of the {@link SeLionDataProvider} implementation that loaded the data.
+     */
+    public String getProviderType() {
+        return providerType;
+    }
+
+    /**
+     * @return the name of the {@link SeLionDataProvider} method that was called, for e.g. <code>getAllData</code>.
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the number of bytes read from the data source.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return the number of rows, documents or elements that were parsed from the data source.
+     */
+    public int getRowsParsed() {
+        return rowsParsed;
+    }
+
+    /**
+     * @return the number of rows that were returned to the caller.
+     */
+    public int getRowsReturned() {
+        return rowsReturned;
+    }
+
+    /**
+     * @return the time spent reading and parsing the data source, in nanoseconds.
+     */
+    public long getParseTimeNanos() {
+        return parseTimeNanos;
+    }
+
+    /**
+     * @return the time spent mapping the parsed data into user defined types, in nanoseconds.
+     */
+    public long getMapTimeNanos() {
+        return mapTimeNanos;
+    }
+
+    @Override
+    public String toString() {
+        return providerType + "." + operation + " of " + resource + ": " + rowsReturned + " rows returned, "
+                + rowsParsed + " rows parsed, " + bytesRead + " bytes read, parse "
+                + TimeUnit.NANOSECONDS.toMillis(parseTimeNanos) + " ms, map "
+                + TimeUnit.NANOSECONDS.toMillis(mapTimeNanos) + " ms";
+    }
+}
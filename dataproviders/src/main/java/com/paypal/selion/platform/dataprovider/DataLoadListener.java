@@ -0,0 +1,36 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+package com.paypal.selion.platform.dataprovider;
+
+/**
+ * Gets notified about every call that loads data through a {@link SeLionDataProvider}. Register an implementation via
+ * {@link com.paypal.selion.platform.dataprovider.impl.DataLoadInstrumentation#setListener(DataLoadListener)} to find
+ * out how much time goes into loading test data.<br>
+ * <br>
+ * Implementations are called by the threads that load data, so they must be thread safe, and they should return
+ * quickly.
+ */
+public interface DataLoadListener {
+
+    /**
+     * Called after a data provider call has returned its data. For calls that return an iterator, this happens once
+     * the iterator is exhausted.
+     *
+     * @param event
+     *            what was loaded and how long it took.
+     */
+    void onDataLoaded(DataLoadEvent event);
+}
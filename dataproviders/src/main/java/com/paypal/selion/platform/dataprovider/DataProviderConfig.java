@@ -0,0 +1,179 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.apache.commons.configuration.BaseConfiguration;
+
+/**
+ * The SeLion data provider configuration.
+ * 
+ * These configuration options can be configured via SELION VM properties / environment variables. For example to
+ * specify the DATA_SOURCE_CACHE_SIZE configuration value define the VM parameter -DSELION_DATA_SOURCE_CACHE_SIZE=64<br>
+ * 
+ * When not specified then the default value below will be used.<br>
+ */
+@ThreadSafe
+public final class DataProviderConfig {
+    private static volatile BaseConfiguration config;
+
+    private DataProviderConfig() {
+        // Utility class. So hide the constructor
+    }
+
+    /**
+     * Enum which contain the SeLion data provider properties. To be used with {@link DataProviderConfig}.
+     */
+    public enum DataProviderProperties {
+        /**
+         * The maximum number of parsed data sources that are kept in memory by {@link DataProviderFactory}. The least
+         * recently used data source is evicted first. A value of 0 disables the cache.<br>
+         * Default is set to <b>16</b>
+         */
+        DATA_SOURCE_CACHE_SIZE("dataSourceCacheSize", "16"),
+
+        /**
+         * The directory in which binary snapshots of the data read from data sources are kept, for e.g.
+         * <b>selionFiles/dataSnapshots</b>. Later runs decode a snapshot in place of parsing its data source, as long as
+         * the contents of the data source have not changed. Snapshots are disabled when no directory is specified.<br>
+         * Default is set to <b>""</b> (disabled)
+         */
+        DATA_SNAPSHOT_DIR("dataSnapshotDir", ""),
+
+        /**
+         * The number of shards that the rows of every data source are split into, for e.g. the number of JVMs that run
+         * a data driven suite side by side. Every row is assigned to one shard by a stable hash of its key or index, and
+         * the data providers only return the rows of the shard given by {@link #SHARD_INDEX}.<br>
+         * Default is set to <b>1</b> (no sharding)
+         */
+        SHARD_COUNT("shardCount", "1"),
+
+        /**
+         * The 0-based index of the shard whose rows are returned by the data providers, when the rows are split into
+         * {@link #SHARD_COUNT} shards.<br>
+         * Default is set to <b>0</b>
+         */
+        SHARD_INDEX("shardIndex", "0"),
+
+        /**
+         * The maximum number of threads that load data sources at the same time, when the data of several data
+         * sources is combined, for e.g. by
+         * {@link com.paypal.selion.platform.dataprovider.impl.DataProviderHelper#getAllDataMultipleArgsFromYAML}.
+         * A value of 1 loads them one after the other.<br>
+         * Default is set to <b>4</b>
+         */
+        DATA_LOADER_THREADS("dataLoaderThreads", "4"),
+
+        /**
+         * Whether the calls made to the data providers handed out by {@link DataProviderFactory} are summarized in the
+         * SeLion log, via a {@link com.paypal.selion.platform.dataprovider.impl.LoggingDataLoadListener}.<br>
+         * Default is set to <b>false</b>
+         */
+        DATA_LOAD_LOGGING("dataLoadLogging", "false");
+
+        private final String propertyName;
+        private final String defaultValue;
+
+        DataProviderProperties(String configName, String defaultValue) {
+            this.propertyName = configName;
+            this.defaultValue = defaultValue;
+        }
+
+        public String getName() {
+            return this.propertyName;
+        }
+
+        public String getDefaultValue() {
+            return this.defaultValue;
+        }
+    }
+
+    private static BaseConfiguration getConfig() {
+        if (config != null) {
+            return config;
+        }
+        initConfig();
+        return config;
+    }
+
+    private static synchronized void initConfig() {
+        if (config != null) {
+            return;
+        }
+        BaseConfiguration newConfig = new BaseConfiguration();
+
+        // don't auto throw on missing property
+        newConfig.setThrowExceptionOnMissing(false);
+
+        /*
+         * Setup the defaults
+         */
+        for (DataProviderProperties prop : DataProviderProperties.values()) {
+            newConfig.setProperty(prop.getName(), prop.getDefaultValue());
+        }
+
+        /*
+         * Load in environment variables / System Properties (if defined)
+         */
+        for (DataProviderProperties prop : DataProviderProperties.values()) {
+            String value = System.getenv("SELION_" + prop.name());
+            if ((value != null) && (!value.equals(""))) {
+                newConfig.setProperty(prop.getName(), value);
+            }
+            // Now load system properties variables (if defined).
+            value = System.getProperty("SELION_" + prop.name());
+            if ((value != null) && (!value.equals(""))) {
+                newConfig.setProperty(prop.getName(), value);
+            }
+        }
+        config = newConfig;
+    }
+
+    /**
+     * Returns a data provider configuration property <b>String</b> value based off the {@link DataProviderProperties}
+     * 
+     * @param property
+     *            String The Property Name
+     * @return The configuration property <b>String</b> values
+     */
+    public static String getConfigProperty(DataProviderProperties property) {
+        return DataProviderConfig.getConfig().getString(property.getName());
+    }
+
+    /**
+     * Returns a data provider configuration property <b>boolean</b> value based off the {@link DataProviderProperties}
+     * 
+     * @param property
+     *            String The Property Name
+     * @return The configuration property <b>boolean</b> values
+     */
+    public static boolean getBooleanConfigProperty(DataProviderProperties property) {
+        return DataProviderConfig.getConfig().getBoolean(property.getName());
+    }
+
+    /**
+     * Returns a data provider configuration property <b>int</b> value based off the {@link DataProviderProperties}
+     * 
+     * @param property
+     *            String The Property Name
+     * @return The configuration property <b>int</b> values
+     */
+    public static int getIntConfigProperty(DataProviderProperties property) {
+        return DataProviderConfig.getConfig().getInt(property.getName());
+    }
+}
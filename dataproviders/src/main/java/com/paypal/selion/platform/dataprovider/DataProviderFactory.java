@@ -18,6 +18,9 @@ package com.paypal.selion.platform.dataprovider;
 import java.io.IOException;
 
 import com.paypal.selion.logger.SeLionLogger;
+import com.paypal.selion.platform.dataprovider.impl.CsvDataProviderImpl;
+import com.paypal.selion.platform.dataprovider.impl.DataLoadInstrumentation;
+import com.paypal.selion.platform.dataprovider.impl.DataSourceCache;
 import com.paypal.selion.platform.dataprovider.impl.ExcelDataProviderImpl;
 import com.paypal.selion.platform.dataprovider.impl.JsonDataProviderImpl;
 import com.paypal.selion.platform.dataprovider.impl.XmlDataProviderImpl;
@@ -26,6 +29,7 @@ import com.paypal.test.utilities.logging.SimpleLogger;
 
 /**
  * This factory class is responsible for providing the data provider implementation instance based on data type.
+ * Parsed data sources are shared between the data providers that read the same file via the {@link DataSourceCache}.
  *
  */
 public final class DataProviderFactory {
@@ -51,6 +55,10 @@ public final class DataProviderFactory {
             return null;
         }
 
+        return DataLoadInstrumentation.getInstance().instrument(createDataProvider(resource), resource);
+    }
+
+    private static SeLionDataProvider createDataProvider(DataResource resource) throws IOException {
         switch (resource.getType().toUpperCase()) {
         case "XML":
             return new XmlDataProviderImpl((XmlDataSource) resource);
@@ -59,9 +67,12 @@ public final class DataProviderFactory {
         case "YAML":
         case "YML":
             return new YamlDataProviderImpl(resource);
+        case "CSV":
+        case "TSV":
+            return new CsvDataProviderImpl(resource);
         case "XLSX":
         case "XLS":
-            return new ExcelDataProviderImpl(resource);
+            return new ExcelDataProviderImpl(resource, DataSourceCache.getInstance());
         default:
             return null;
         }
@@ -26,6 +26,25 @@ import com.paypal.selion.platform.dataprovider.impl.DefaultCustomType;
  */
 public interface ExcelDataProvider extends SeLionDataProvider {
 
+    /**
+     * The ways in which the rows of other sheets, that are referred to by their keys, can be reused while a single call
+     * to the data provider is being served.
+     */
+    enum NestedRowCaching {
+        /**
+         * Every reference is packed into a new object. This is the default.
+         */
+        DISABLED,
+        /**
+         * A referred row is packed into an object once, and every reference to it shares that very object.
+         */
+        SHARED_INSTANCE,
+        /**
+         * A referred row is packed into an object once, and every reference to it gets its own copy of that object.
+         */
+        COPY_ON_READ
+    }
+
     /**
      * This method fetches a specific row from an excel sheet which can be identified using a key and returns the data
      * as an Object which can be cast back into the user's actual data type.
@@ -83,4 +102,20 @@ public interface ExcelDataProvider extends SeLionDataProvider {
      *            when generating an Object that represents every row of data from the excel sheet.
      */
     void addCustomTypes(DefaultCustomType type);
+
+    /**
+     * @param caching
+     *            - A {@link NestedRowCaching} that decides whether the objects that the rows of other sheets are packed
+     *            into, are to be reused when many rows refer to the same key. The cache only lives for the duration
+     *            of a single call to the data provider.
+     * @throws UnsupportedOperationException
+     *             if the implementation cannot cache the rows of other sheets. Implementations that do not override
+     *             this method only accept {@link NestedRowCaching#DISABLED}, which is what they do anyway.
+     */
+    default void setNestedRowCaching(NestedRowCaching caching) {
+        if (caching != NestedRowCaching.DISABLED) {
+            throw new UnsupportedOperationException(getClass().getName() + " does not support " + caching
+                    + " nested row caching.");
+        }
+    }
 }
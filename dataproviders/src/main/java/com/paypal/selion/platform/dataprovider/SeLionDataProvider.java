@@ -16,8 +16,12 @@
 package com.paypal.selion.platform.dataprovider;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.paypal.selion.platform.dataprovider.filter.DataProviderFilter;
 
@@ -35,6 +39,18 @@ public interface SeLionDataProvider {
      */
     Object[][] getAllData() throws IOException;
 
+    /**
+     * Generates the same rows as {@link #getAllData()} does, but hands them over one at a time, as the returned
+     * iterator is being consumed, instead of copying all of them into a two dimensional array first. The default
+     * implementation simply iterates over {@link #getAllData()}.
+     *
+     * @return An iterator over a collection of Object Array to be used with TestNG DataProvider
+     * @throws IOException
+     */
+    default Iterator<Object[]> getAllDataIterator() throws IOException {
+        return Arrays.asList(getAllData()).iterator();
+    }
+
     /**
      * Generates an object array in iterator as TestNG DataProvider from the data filtered per {@code dataFilter}.
      * 
@@ -86,4 +102,16 @@ public interface SeLionDataProvider {
      */
     Hashtable<String, Object> getDataAsHashtable();
 
+    /**
+     * Gives out the same data as {@link #getDataAsHashtable()} does, but as a read-only {@link Map} whose look ups are
+     * not synchronized. Data providers may index the keys up front and pack the data of a key into an object only when
+     * the key is first looked up, so that tests which look up a few keys do not pay for packing every row. By default
+     * the map is a copy of {@link #getDataAsHashtable()}.
+     * 
+     * @return The data as a read-only, thread-safe {@link Map}
+     */
+    default Map<String, Object> getDataAsMap() {
+        return Collections.unmodifiableMap(new ConcurrentHashMap<>(getDataAsHashtable()));
+    }
+
 }
@@ -18,6 +18,11 @@ package com.paypal.selion.platform.dataprovider.filter;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.paypal.selion.logger.SeLionLogger;
 import com.paypal.selion.platform.dataprovider.DataProviderException;
@@ -30,11 +35,17 @@ import com.paypal.test.utilities.logging.SimpleLogger;
  * filterKeyValues.
  * 
  */
-public class CustomKeyFilter implements DataProviderFilter {
+public class CustomKeyFilter implements RawDataProviderFilter {
 
     protected static final SimpleLogger logger = SeLionLogger.getLogger();
     private final String filterKeyName;
     private final String filterKeyValues;
+    private final Set<String> keyValues;
+
+    /**
+     * The field that holds the key, per type of the data that is filtered. It is looked up once per type.
+     */
+    private final ConcurrentMap<Class<?>, Field> keyFields = new ConcurrentHashMap<>();
 
     /**
      * @param keyName   - The key name that is to be used for filtering.
@@ -47,6 +58,7 @@ public class CustomKeyFilter implements DataProviderFilter {
         checkArgument(keyValues != null, "Please specify values to use for filtering.");
         filterKeyName = keyName;
         filterKeyValues = keyValues;
+        this.keyValues = new HashSet<>(Arrays.asList(keyValues.split(",")));
     }
 
     /**
@@ -60,26 +72,55 @@ public class CustomKeyFilter implements DataProviderFilter {
     @Override
     public boolean filter(Object data) {
         logger.entering(data);
-        String[] keyValues = filterKeyValues.split(",");
-        String tempKey = null;
-        Field field;
+        boolean matches;
 
         try {
-            field = data.getClass().getDeclaredField(filterKeyName);
-            field.setAccessible(true);
-            for (String keyValue : keyValues) {
-                tempKey = keyValue;
-                if (field.get(data) != null && field.get(data).toString().trim().equals(keyValue)) {
-                    logger.exiting(true);
-                    return true;
-                }
-            }
+            Object keyValue = getKeyField(data.getClass()).get(data);
+            matches = (keyValue != null) && keyValues.contains(keyValue.toString().trim());
         } catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException e) {
-            throw new DataProviderException("Row with key '" + tempKey + "' is not found for given filter key '"
+            throw new DataProviderException("Row with key '" + filterKeyValues + "' is not found for given filter key '"
                     + filterKeyName + "'", e);
         }
-        logger.exiting(false);
-        return false;
+        logger.exiting(matches);
+        return matches;
+    }
+
+    /**
+     * Identifies whether the row could fall in the filtering criteria based on the raw text of its key. Only keys of
+     * type {@link String} are compared in their raw form, since the text of the other types can differ from the
+     * {@link Object#toString()} of their mapped value.
+     * 
+     * @param row
+     *            the {@link RawDataRow} view of a row that has not been mapped yet.
+     * @return boolean - false if the row certainly does not fall in the filter criteria.
+     */
+    @Override
+    public boolean filterRaw(RawDataRow row) {
+        if (row.getType() == null) {
+            return true;
+        }
+        Field keyField;
+        try {
+            keyField = getKeyField(row.getType());
+        } catch (NoSuchFieldException | SecurityException e) {
+            // Let filter(Object) report the missing key field.
+            return true;
+        }
+        if (!String.class.equals(keyField.getType())) {
+            return true;
+        }
+        String keyValue = row.getValue(filterKeyName);
+        return (keyValue == null) || keyValue.trim().isEmpty() || keyValues.contains(keyValue.trim());
+    }
+
+    private Field getKeyField(Class<?> type) throws NoSuchFieldException {
+        Field field = keyFields.get(type);
+        if (field == null) {
+            field = type.getDeclaredField(filterKeyName);
+            field.setAccessible(true);
+            keyFields.putIfAbsent(type, field);
+        }
+        return field;
     }
 
     public String toString() {
@@ -44,4 +44,20 @@ public interface DataProviderFilter {
      * @return boolean - true if object falls in the filter criteria.
      */
     boolean filter(Object data);
+
+    /**
+     * This function identifies whether the given object, found at the given position of the data source, falls in the
+     * injected filter criteria. The data providers always call this variant, so that filters which depend on the
+     * position of the data don't have to keep track of it on their own. By default the position is ignored and the
+     * call is delegated to {@link #filter(Object)}.
+     * 
+     * @param data
+     *            Object the object to be filtered.
+     * @param position
+     *            the 1-based position of the object in the data source.
+     * @return boolean - true if object falls in the filter criteria.
+     */
+    default boolean filter(Object data, int position) {
+        return filter(data);
+    }
 }
@@ -0,0 +1,39 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.filter;
+
+/**
+ * An optional extension of {@link DataProviderFilter} for filters that can already decide on the raw form of a row.
+ * The data providers offer every row to {@link #filterRaw(RawDataRow)} before it is mapped into an object, and skip the
+ * mapping of the rows that are rejected there. The rows that pass are mapped and handed to
+ * {@link #filter(Object, int)} as usual. <br>
+ * <br>
+ * So an implementation must only reject a row in its raw form when {@link #filter(Object, int)} would reject it too.
+ * When in doubt, e.g. when {@link RawDataRow#getValue(String)} returns <code>null</code>, it should accept the row and
+ * leave the decision to {@link #filter(Object, int)}.
+ */
+public interface RawDataProviderFilter extends DataProviderFilter {
+
+    /**
+     * This function identifies whether the given row could fall in the injected filter criteria.
+     * 
+     * @param row
+     *            the {@link RawDataRow} view of a row that has not been mapped yet.
+     * @return boolean - false if the row certainly does not fall in the filter criteria and can be skipped.
+     */
+    boolean filterRaw(RawDataRow row);
+}
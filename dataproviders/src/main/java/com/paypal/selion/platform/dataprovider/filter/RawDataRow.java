@@ -0,0 +1,48 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.filter;
+
+/**
+ * A view of a row of a data source, as it is found before it is mapped into an object. It gives a
+ * {@link RawDataProviderFilter} access to the position of the row and to the raw text of its scalar values.
+ */
+public interface RawDataRow {
+
+    /**
+     * @return the 1-based position of the row in the data source.
+     */
+    int getPosition();
+
+    /**
+     * @return the key of the row, i.e. the value of the first column of an excel sheet or a delimiter separated file,
+     *         or <code>null</code> if the rows of the data source have no keys.
+     */
+    String getKey();
+
+    /**
+     * @return the type that the row is going to be mapped into, or <code>null</code> if it is not known.
+     */
+    Class<?> getType();
+
+    /**
+     * @param name
+     *            the name of a data member, i.e. a column header, a JSON/YAML key or an XML element or attribute.
+     * @return the raw text of the named value, or <code>null</code> if the value is absent, is not a scalar or is not
+     *         available before mapping.
+     */
+    String getValue(String name);
+}
@@ -18,6 +18,10 @@ package com.paypal.selion.platform.dataprovider.filter;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.ThreadSafe;
 
 import com.paypal.selion.logger.SeLionLogger;
 import com.paypal.selion.platform.dataprovider.impl.DataProviderHelper;
@@ -32,17 +36,24 @@ import com.paypal.test.utilities.logging.SimpleLogger;
  * <li>"1, 3, 5-7, 10, 12-14" for mixing individual and range of indexes.</li>
  * </ul>
  * This filter always collects data whose data index is in given filterIndexes. The indexes corresponds to the
- * invocation sequence for the test method run for each supplied data, and so is 1-based.
+ * invocation sequence for the test method run for each supplied data, and so is 1-based. <br>
+ * <br>
+ * The data providers hand over the position of every object via {@link #filter(Object, int)}, which makes an instance
+ * of this filter free of any per-run state and so safe to share and reuse. Since no object beyond
+ * {@link #getHighestIndex()} can pass the filter, the data providers stop reading the data source once that position
+ * has been reached. And since only the position matters, the rows that are not included are not even mapped into
+ * objects.
  * 
  * @see <a
  *      href="http://testng.org/javadoc/org/testng/annotations/Test.html#invocationCount()">org.testng.annotations.Test.invocationCount</a>
  */
-public class SimpleIndexInclusionFilter implements DataProviderFilter {
+@ThreadSafe
+public class SimpleIndexInclusionFilter implements RawDataProviderFilter {
 
     protected static final SimpleLogger logger = SeLionLogger.getLogger();
-    private int invocationCount;
-    
-    private final int[] indexes;
+    private final AtomicInteger invocationCount = new AtomicInteger();
+
+    private final BitSet indexes;
 
     /**
      * Initializes indexes to be included for filter using a conforming string.
@@ -58,7 +69,7 @@ public class SimpleIndexInclusionFilter implements DataProviderFilter {
      */
     public SimpleIndexInclusionFilter(String filterIndexes) {
         checkArgument(filterIndexes != null, "Please provide valid indexes for filtering");
-        this.indexes = DataProviderHelper.parseIndexString(filterIndexes);
+        this.indexes = toBitSet(DataProviderHelper.parseIndexString(filterIndexes));
     }
     
     /**
@@ -69,12 +80,24 @@ public class SimpleIndexInclusionFilter implements DataProviderFilter {
      */
     public SimpleIndexInclusionFilter(int[] indexes) {
         checkArgument(indexes != null, "Please provide valid indexes for filtering");
-        this.indexes = indexes.clone();
+        this.indexes = toBitSet(indexes);
+    }
+
+    private static BitSet toBitSet(int[] indexes) {
+        BitSet bits = new BitSet();
+        for (int index : indexes) {
+            // Indexes are 1-based, so anything below can never match.
+            if (index > 0) {
+                bits.set(index);
+            }
+        }
+        return bits;
     }
 
     /**
      * This function identifies whether the object falls in the filtering criteria or not based on the indexes provided.
-     * For this we are using the invocation count for comparing the index.
+     * For this we are using the invocation count for comparing the index. Since the count is kept by the filter, an
+     * instance used this way can only be run over the data once. Prefer {@link #filter(Object, int)}.
      * 
      * @param data
      *            the object to be filtered.
@@ -82,25 +105,52 @@ public class SimpleIndexInclusionFilter implements DataProviderFilter {
      */
     @Override
     public boolean filter(Object data) {
+        return filter(data, invocationCount.incrementAndGet());
+    }
 
-        logger.entering(new Object[] { data });
-        invocationCount += 1;
-        
-        for (int index : this.indexes) {
-            if (invocationCount == index) {
-                logger.exiting(true);
-                return true;
-            }
-        }
-        logger.exiting(false);
-        return false;
+    /**
+     * This function identifies whether the object falls in the filtering criteria or not based on the indexes provided
+     * and the given position of the object.
+     * 
+     * @param data
+     *            the object to be filtered.
+     * @param position
+     *            the 1-based position of the object in the data source.
+     * @return boolean - true if object falls in the filter criteria.
+     */
+    @Override
+    public boolean filter(Object data, int position) {
+        logger.entering(new Object[] { data, position });
+        boolean included = position > 0 && indexes.get(position);
+        logger.exiting(included);
+        return included;
+    }
+
+    /**
+     * Identifies whether the row falls in the filtering criteria or not based on its position alone.
+     * 
+     * @param row
+     *            the {@link RawDataRow} view of a row that has not been mapped yet.
+     * @return boolean - true if the row falls in the filter criteria.
+     */
+    @Override
+    public boolean filterRaw(RawDataRow row) {
+        return row.getPosition() > 0 && indexes.get(row.getPosition());
+    }
+
+    /**
+     * @return the highest index included by this filter, or 0 when no index is included. Objects found at a position
+     *         beyond it never pass the filter.
+     */
+    public int getHighestIndex() {
+        return Math.max(indexes.length() - 1, 0);
     }
 
     /**
      * Returns a string representation of the indexes.
      */
     public String toString() {
-        return "Filter Indexes :" + Arrays.toString(this.indexes);
+        return "Filter Indexes :" + Arrays.toString(indexes.stream().toArray());
     }
 
 }
@@ -0,0 +1,187 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.paypal.selion.platform.dataprovider.impl.ReflectionUtils.ReflectionException;
+
+/**
+ * A registry of the {@link StringConverter}s that turn the String representation of a value into an object of a given
+ * type. The converter of a type is worked out once, on first use, and is shared by the data providers from then on. So
+ * converting a value does no reflective look ups.<br>
+ * <br>
+ * Primitives and their wrappers are converted directly via their <code>parseXxx</code> and <code>valueOf</code>
+ * methods. Any other type that has a public one argument constructor which accepts a {@link String} is converted via a
+ * {@link MethodHandle} for that constructor.
+ */
+final class ConverterRegistry {
+
+    /**
+     * Converts the String representation of a value into an object of a specific type. Failures are reported as a
+     * {@link ReflectionException}.
+     */
+    interface StringConverter {
+        Object convert(String value);
+    }
+
+    private static final MethodType CONVERTER_TYPE = MethodType.methodType(Object.class, String.class);
+
+    /**
+     * The converter of every type that was looked up, which is absent for the types that cannot be converted.
+     */
+    private static final ConcurrentMap<Class<?>, Optional<StringConverter>> converters = new ConcurrentHashMap<>();
+    static {
+        register(new ParsingConverter() {
+            @Override
+            Object parse(String value) {
+                return Boolean.parseBoolean(value);
+            }
+        }, boolean.class, Boolean.class);
+        register(new ParsingConverter() {
+            @Override
+            Object parse(String value) {
+                return Byte.parseByte(value);
+            }
+        }, byte.class, Byte.class);
+        register(new ParsingConverter() {
+            @Override
+            Object parse(String value) {
+                return Short.parseShort(value);
+            }
+        }, short.class, Short.class);
+        register(new ParsingConverter() {
+            @Override
+            Object parse(String value) {
+                return Integer.parseInt(value);
+            }
+        }, int.class, Integer.class);
+        register(new ParsingConverter() {
+            @Override
+            Object parse(String value) {
+                return Long.parseLong(value);
+            }
+        }, long.class, Long.class);
+        register(new ParsingConverter() {
+            @Override
+            Object parse(String value) {
+                return Float.parseFloat(value);
+            }
+        }, float.class, Float.class);
+        register(new ParsingConverter() {
+            @Override
+            Object parse(String value) {
+                return Double.parseDouble(value);
+            }
+        }, double.class, Double.class);
+        register(new ParsingConverter() {
+            @Override
+            Object parse(String value) {
+                return value;
+            }
+        }, String.class);
+    }
+
+    private ConverterRegistry() {
+        // Utility class. So hide the constructor
+    }
+
+    private static void register(StringConverter converter, Class<?>... types) {
+        for (Class<?> type : types) {
+            converters.put(type, Optional.of(converter));
+        }
+    }
+
+    /**
+     * @param type
+     *            The type to convert to.
+     * @return the {@link StringConverter} for the type or <code>null</code> if the type cannot be converted from a
+     *         {@link String}.
+     */
+    static StringConverter getConverter(Class<?> type) {
+        Optional<StringConverter> converter = converters.get(type);
+        if (converter == null) {
+            converter = createConverter(type);
+            Optional<StringConverter> existing = converters.putIfAbsent(type, converter);
+            converter = (existing == null) ? converter : existing;
+        }
+        return converter.orElse(null);
+    }
+
+    private static Optional<StringConverter> createConverter(Class<?> type) {
+        if (type.isPrimitive() || type.isArray() || type.isInterface()) {
+            // All the primitives that can be converted are registered up front.
+            return Optional.empty();
+        }
+        try {
+            Constructor<?> constructor = type.getConstructor(String.class);
+            constructor.setAccessible(true);
+            return Optional.<StringConverter> of(new MethodHandleConverter(MethodHandles.lookup().unreflectConstructor(
+                    constructor)));
+        } catch (NoSuchMethodException | SecurityException | IllegalAccessException e) { // NOSONAR
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Converts via a JDK method that is called directly.
+     */
+    private abstract static class ParsingConverter implements StringConverter {
+        @Override
+        public Object convert(String value) {
+            try {
+                return parse(value);
+            } catch (RuntimeException e) {
+                throw new ReflectionException(e);
+            }
+        }
+
+        abstract Object parse(String value);
+    }
+
+    /**
+     * Converts via a {@link MethodHandle} that accepts a single {@link String}.
+     */
+    static final class MethodHandleConverter implements StringConverter {
+        private final MethodHandle handle;
+
+        /**
+         * @param handle
+         *            A {@link MethodHandle} that accepts a single {@link String} and returns the converted object.
+         */
+        MethodHandleConverter(MethodHandle handle) {
+            this.handle = handle.asType(CONVERTER_TYPE);
+        }
+
+        @Override
+        public Object convert(String value) {
+            try {
+                return (Object) handle.invokeExact(value);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) { // NOSONAR
+                throw new ReflectionException(e);
+            }
+        }
+    }
+}
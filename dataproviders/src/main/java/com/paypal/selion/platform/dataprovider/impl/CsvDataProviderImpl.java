@@ -0,0 +1,444 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.paypal.selion.logger.SeLionLogger;
+import com.paypal.selion.platform.dataprovider.DataProviderException;
+import com.paypal.selion.platform.dataprovider.DataResource;
+import com.paypal.selion.platform.dataprovider.SeLionDataProvider;
+import com.paypal.selion.platform.dataprovider.filter.DataProviderFilter;
+import com.paypal.selion.platform.dataprovider.filter.RawDataProviderFilter;
+import com.paypal.selion.platform.dataprovider.impl.ConverterRegistry.StringConverter;
+import com.paypal.selion.platform.dataprovider.impl.ExcelRowMappingPlan.ValueConverter;
+import com.paypal.selion.platform.dataprovider.impl.RowMappingHelper.ValueConverterFactory;
+import com.paypal.test.utilities.logging.SimpleLogger;
+
+/**
+ * This class provides the test data of a comma separated (CSV) or tab separated (TSV) file, which is laid out the same
+ * way as a sheet of an excel workbook that is used with {@link ExcelDataProviderImpl}:
+ * <ul>
+ * <li>The first record is the header. Its first column is reserved for the keys and the other columns are matched to
+ * the data members of the user defined type by name, ignoring case.</li>
+ * <li>The first column of every other record is the key of the record. Records whose key contains a "#" are excluded
+ * from {@link #getAllData()}, {@link #getDataByFilter(DataProviderFilter)} and {@link #getDataByKeys(String[])}.</li>
+ * <li>Indexes are 1-based and count every record after the header.</li>
+ * </ul>
+ * Data members of primitive, wrapper and other types that have a one argument String constructor are supported, as
+ * well as arrays of them given as comma separated values. Blank lines are ignored. <br>
+ * <br>
+ * A file on the file system is read through a {@link java.nio.channels.FileChannel} into one 64 KB heap buffer that is
+ * reused for the whole file, and {@link #getDataByFilter(DataProviderFilter)} maps the records into objects one at a
+ * time, as the returned iterator is being consumed. So even very large files can be used without loading them onto the
+ * heap as a whole. Other resources, such as streams, are read into memory first.
+ */
+public final class CsvDataProviderImpl implements SeLionDataProvider {
+
+    private static final SimpleLogger logger = SeLionLogger.getLogger();
+
+    private static final ValueConverterFactory VALUE_CONVERTERS = new ValueConverterFactory() {
+        @Override
+        public ValueConverter create(Class<?> type) {
+            return createValueConverter(type);
+        }
+    };
+
+    private final DataResource resource;
+    private final char delimiter;
+    private volatile ExcelRowMappingPlan rowMappingPlan;
+
+    public CsvDataProviderImpl(DataResource resource) {
+        Preconditions.checkArgument(resource != null, "File resource cannot be null");
+        this.resource = resource;
+        this.delimiter = "TSV".equalsIgnoreCase(resource.getType()) ? '\t' : ',';
+    }
+
+    /**
+     * Generates a two dimensional array for TestNG DataProvider from the CSV data.
+     *
+     * @return A two dimensional object array.
+     */
+    @Override
+    public Object[][] getAllData() throws IOException {
+        logger.entering();
+        DataSharding sharding = DataSharding.getInstance();
+        if (sharding.isEnabled()) {
+            // Only the records of this shard are packed into objects.
+            Object[][] shardData = Iterators.toArray(getDataByFilter(sharding.allRows()), Object[].class);
+            logger.exiting();
+            return shardData;
+        }
+        List<Object[]> rows = new ArrayList<>();
+        try (Records records = new Records()) {
+            while (records.hasNext()) {
+                ExcelRowData record = records.next();
+                if (!isExcluded(record)) {
+                    rows.add(new Object[] { mapRow(records.getPlan(), record.getContents()) });
+                }
+            }
+        }
+        Object[][] objs = rows.toArray(new Object[rows.size()][]);
+        logger.exiting();
+        return objs;
+    }
+
+    /**
+     * Gets all the CSV data the same way as {@link #getAllData()} does, but reads the records and packs them into objects one
+     * at a time, as the returned iterator is being consumed.
+     *
+     * @return An iterator over a collection of Object Array to be used with TestNG DataProvider
+     */
+    @Override
+    public Iterator<Object[]> getAllDataIterator() throws IOException {
+        logger.entering();
+        Iterator<Object[]> objs = getDataByFilter(DataSharding.getInstance().allRows());
+        logger.exiting(objs);
+        return objs;
+    }
+
+    /**
+     * Gets the CSV data by applying the given filter. The records are read, packed into objects and filtered one at a
+     * time, as the returned iterator is being consumed. The records rejected by a {@link RawDataProviderFilter} are not
+     * packed into objects at all.
+     *
+     * @param dataFilter
+     *            an implementation class of {@link DataProviderFilter}
+     * @return An iterator over a collection of Object Array to be used with TestNG DataProvider
+     */
+    @Override
+    public Iterator<Object[]> getDataByFilter(final DataProviderFilter dataFilter) throws IOException {
+        logger.entering(dataFilter);
+        final DataProviderFilter rowFilter = DataSharding.getInstance().restrict(dataFilter);
+        final Records records = new Records();
+        final int lastPosition = DataProviderHelper.getLastPosition(rowFilter);
+        final RawDataProviderFilter rawFilter = (rowFilter instanceof RawDataProviderFilter)
+                ? (RawDataProviderFilter) rowFilter : null;
+        Iterator<Object[]> objs = new AbstractIterator<Object[]>() {
+            private int position;
+
+            @Override
+            protected Object[] computeNext() {
+                try {
+                    while (position < lastPosition && records.hasNext()) {
+                        ExcelRowData record = records.next();
+                        if (isExcluded(record)) {
+                            continue;
+                        }
+                        position++;
+                        if (rawFilter != null && !rawFilter.filterRaw(RawDataRows.forExcelRow(records.getPlan(),
+                                record.getKey(), record.getContents(), position))) {
+                            // Rejected before being packed into an object.
+                            continue;
+                        }
+                        Object data = mapRow(records.getPlan(), record.getContents());
+                        if (rowFilter.filter(data, position)) {
+                            return new Object[] { data };
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    records.close();
+                    throw e;
+                }
+                records.close();
+                return endOfData();
+            }
+        };
+        logger.exiting(objs);
+        return objs;
+    }
+
+    /**
+     * Gets the CSV data for the specified indexes.
+     *
+     * @param indexes
+     *            the input string represent the indexes to be parse. It is in the format of:
+     *            <ul>
+     *            <li>"1, 2, 3" for individual indexes.</li>
+     *            <li>"1-4, 6-8, 9-10" for ranges of indexes.</li>
+     *            <li>"1, 3, 5-7, 10, 12-14" for mixing individual and range of indexes.</li>
+     *            </ul>
+     * @return Object[][] Two dimensional object to be used with TestNG DataProvider
+     */
+    @Override
+    public Object[][] getDataByIndex(String indexes) throws IOException {
+        logger.entering(indexes);
+        Object[][] objs = getDataByIndex(DataProviderHelper.parseIndexString(indexes));
+        logger.exiting();
+        return objs;
+    }
+
+    /**
+     * Gets the CSV data for the specified indexes. The file is only read up to the record with the highest index.
+     *
+     * @param indexes
+     *            the 1-based indexes of the records to be returned, in the order they are to be returned.
+     * @return Object[][] Two dimensional object to be used with TestNG DataProvider
+     */
+    @Override
+    public Object[][] getDataByIndex(int[] indexes) throws IOException {
+        logger.entering(indexes);
+        SortedSet<Integer> pending = new TreeSet<>();
+        for (int index : indexes) {
+            pending.add(index);
+        }
+        Map<Integer, Object> found = new HashMap<>();
+        try (Records records = new Records()) {
+            while (!pending.isEmpty() && records.hasNext()) {
+                ExcelRowData record = records.next();
+                if (pending.remove(record.getRowNumber())) {
+                    found.put(record.getRowNumber(), mapRow(records.getPlan(), record.getContents()));
+                }
+            }
+        }
+        if (!pending.isEmpty()) {
+            throw new DataProviderException("Row with index '" + pending.first() + "' is not found");
+        }
+        Object[][] objs = new Object[indexes.length][1];
+        for (int i = 0; i < indexes.length; i++) {
+            objs[i][0] = found.get(indexes[i]);
+        }
+        logger.exiting();
+        return objs;
+    }
+
+    /**
+     * Gets the CSV data for the specified keys. When a key occurs more than once, the first record that has it is
+     * returned. The file is only read up to the last of the records.
+     *
+     * @param keys
+     *            the string represents the list of key for the search and return the wanted row. It is in the format of
+     *            {"row1", "row3", "row5"}
+     * @return Object[][] two dimensional object to be used with TestNG DataProvider
+     */
+    @Override
+    public Object[][] getDataByKeys(String[] keys) {
+        logger.entering(Arrays.toString(keys));
+        Set<String> wanted = new HashSet<>(Arrays.asList(keys));
+        Map<String, Object> found = new HashMap<>();
+        try (Records records = new Records()) {
+            while (found.size() < wanted.size() && records.hasNext()) {
+                ExcelRowData record = records.next();
+                if (!isExcluded(record) && wanted.contains(record.getKey()) && !found.containsKey(record.getKey())) {
+                    found.put(record.getKey(), mapRow(records.getPlan(), record.getContents()));
+                }
+            }
+        } catch (IOException e) {
+            throw new DataProviderException(e.getMessage(), e);
+        }
+        Object[][] objs = new Object[keys.length][1];
+        for (int i = 0; i < keys.length; i++) {
+            if (!found.containsKey(keys[i])) {
+                throw new DataProviderException("Row with key '" + keys[i] + "' is not found");
+            }
+            objs[i][0] = found.get(keys[i]);
+        }
+        logger.exiting();
+        return objs;
+    }
+
+    /**
+     * Gets the CSV data as a {@link Hashtable} of the records by their keys. When a key occurs more than once, the
+     * last record that has it wins.
+     *
+     * @return an object of type {@link Hashtable} that represents the CSV data.
+     */
+    @Override
+    public Hashtable<String, Object> getDataAsHashtable() {
+        logger.entering();
+        Hashtable<String, Object> hashTable = new Hashtable<>();
+        try (Records records = new Records()) {
+            while (records.hasNext()) {
+                ExcelRowData record = records.next();
+                if (!isExcluded(record) && !record.getKey().isEmpty()) {
+                    hashTable.put(record.getKey(), mapRow(records.getPlan(), record.getContents()));
+                }
+            }
+        } catch (IOException e) {
+            throw new DataProviderException(e.getMessage(), e);
+        }
+        logger.exiting(hashTable);
+        return hashTable;
+    }
+
+    /**
+     * Gives out the same records as {@link #getDataAsHashtable()} does, but the records are only split into their
+     * contents up front. A record is packed into an object of the user defined type when its key is first looked up.
+     *
+     * @return a read-only, thread-safe {@link Map} that represents the CSV data.
+     */
+    @Override
+    public Map<String, Object> getDataAsMap() {
+        logger.entering();
+        Map<String, List<String>> contents = new LinkedHashMap<>();
+        final ExcelRowMappingPlan plan;
+        try (Records records = new Records()) {
+            plan = records.getPlan();
+            while (records.hasNext()) {
+                ExcelRowData record = records.next();
+                if (!isExcluded(record) && !record.getKey().isEmpty()) {
+                    contents.put(record.getKey(), record.getContents());
+                }
+            }
+        } catch (IOException e) {
+            throw new DataProviderException(e.getMessage(), e);
+        }
+        Map<String, Object> dataMap = new LazyDataMap<>(contents, new Function<List<String>, Object>() {
+            @Override
+            public Object apply(List<String> data) {
+                return mapRow(plan, data);
+            }
+        });
+        logger.exiting(contents.keySet());
+        return dataMap;
+    }
+
+    private static boolean isExcluded(ExcelRowData record) {
+        // Did the user mark the current record to be excluded by adding a # ?
+        return record.getKey().contains("#");
+    }
+
+    private static Object mapRow(ExcelRowMappingPlan plan, List<String> data) {
+        return RowMappingHelper.mapRow(plan, data, null);
+    }
+
+    /**
+     * Returns the {@link ExcelRowMappingPlan} that binds the columns of the header to the data members of the user
+     * defined type, compiling it on first use.
+     *
+     * @param header
+     *            the names of the data columns, i.e. the header without the key column.
+     */
+    private ExcelRowMappingPlan getRowMappingPlan(List<String> header) {
+        ExcelRowMappingPlan plan = rowMappingPlan;
+        if (plan == null) {
+            Class<?> cls = resource.getCls();
+            Preconditions.checkArgument(cls != null, "Please provide a valid type.");
+            plan = RowMappingHelper.compilePlan(cls, header, header.size(), VALUE_CONVERTERS);
+            rowMappingPlan = plan;
+        }
+        return plan;
+    }
+
+    /**
+     * Works out how the String data of a field is to be converted into a data member of the given type. Types that
+     * cannot be converted are only reported when there is data for them.
+     */
+    private static ValueConverter createValueConverter(final Class<?> type) {
+        if (type.isArray()) {
+            StringConverter converter = ConverterRegistry.getConverter(type.getComponentType());
+            if (converter != null) {
+                return RowMappingHelper.newArrayValueConverter(type.getComponentType(), converter);
+            }
+        } else {
+            StringConverter converter = ConverterRegistry.getConverter(type);
+            if (converter != null) {
+                return RowMappingHelper.newValueConverter(converter);
+            }
+        }
+        return new ValueConverter() {
+            @Override
+            public Object convert(String data, NestedRowCache nestedRows) {
+                throw new DataProviderException("Data members of type " + type.getName()
+                        + " are not supported in delimiter separated data.");
+            }
+        };
+    }
+
+    /**
+     * Iterates over the records that follow the header, with their contents lined up with the header. The
+     * {@link ExcelRowData#getRowNumber()} of a record is its 1-based index, and blank lines are skipped.
+     */
+    private final class Records extends AbstractIterator<ExcelRowData> implements Closeable {
+        private final CsvReader reader;
+        private final ExcelRowMappingPlan plan;
+        private final int columnCount;
+        private int recordNumber;
+
+        Records() throws IOException {
+            reader = CsvReader.open(resource, delimiter);
+            try {
+                List<String> header = nextNonBlankRecord();
+                if (header == null) {
+                    throw new DataProviderException("The header record is missing.");
+                }
+                List<String> dataHeader = header.subList(1, header.size());
+                columnCount = dataHeader.size();
+                plan = getRowMappingPlan(dataHeader);
+            } catch (IOException | RuntimeException e) {
+                reader.close();
+                throw e;
+            }
+        }
+
+        ExcelRowMappingPlan getPlan() {
+            return plan;
+        }
+
+        @Override
+        protected ExcelRowData computeNext() {
+            List<String> record;
+            try {
+                record = nextNonBlankRecord();
+            } catch (IOException e) {
+                close();
+                throw new DataProviderException(e.getMessage(), e);
+            }
+            if (record == null) {
+                close();
+                return endOfData();
+            }
+            DataLoadRecorder.addRowsParsed(1);
+            List<String> contents = new ArrayList<>(columnCount);
+            for (int i = 1; i <= columnCount; i++) {
+                contents.add((i < record.size()) ? record.get(i) : null);
+            }
+            return new ExcelRowData(++recordNumber, record.get(0), contents);
+        }
+
+        private List<String> nextNonBlankRecord() throws IOException {
+            List<String> record = reader.nextRecord();
+            while (record != null && record.size() == 1 && record.get(0).trim().isEmpty()) {
+                record = reader.nextRecord();
+            }
+            return record;
+        }
+
+        @Override
+        public void close() {
+            reader.close();
+        }
+    }
+}
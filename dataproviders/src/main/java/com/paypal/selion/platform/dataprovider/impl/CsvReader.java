@@ -0,0 +1,201 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+
+import com.paypal.selion.platform.dataprovider.DataResource;
+
+/**
+ * Reads the records of a delimiter separated (CSV/TSV) UTF-8 file one at a time. Fields may be enclosed in double
+ * quotes, in which case they can contain delimiters, line breaks and doubled double quotes. <br>
+ * <br>
+ * A file on the file system is read through a {@link FileChannel} into one buffer that is reused for the whole file, so
+ * that files of any size are read without being loaded onto the heap as a whole. Other resources are read into memory.
+ * Instances are not thread safe.
+ */
+final class CsvReader implements Closeable {
+
+    /**
+     * The size of the part of the file that is read at a time.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int END_OF_DATA = -1;
+
+    private final char delimiter;
+    private final FileChannel channel;
+
+    private ByteBuffer buffer;
+
+    private byte[] field = new byte[256];
+    private int fieldLength;
+
+    private CsvReader(char delimiter, FileChannel channel, ByteBuffer data) throws IOException {
+        this.delimiter = delimiter;
+        this.channel = channel;
+        if (channel != null) {
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.flip();
+            fill();
+        } else {
+            buffer = data;
+        }
+        skipByteOrderMark();
+    }
+
+    /**
+     * @param resource
+     *            the {@link DataResource} to read. A {@link FileSystemResource} that points to an existing file is
+     *            read through a {@link FileChannel}.
+     * @param delimiter
+     *            the character that separates the fields of a record.
+     * @return a new {@link CsvReader} positioned at the first record.
+     */
+    static CsvReader open(DataResource resource, char delimiter) throws IOException {
+        if (resource instanceof FileSystemResource && ((FileSystemResource) resource).getFileName() != null) {
+            File file = ((FileSystemResource) resource).getFile();
+            if (file != null) {
+                FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                try {
+                    return new CsvReader(delimiter, channel, null);
+                } catch (IOException | RuntimeException e) {
+                    IOUtils.closeQuietly(channel);
+                    throw e;
+                }
+            }
+        }
+        InputStream inputStream = DataLoadRecorder.countBytes(resource.getInputStream());
+        try {
+            return new CsvReader(delimiter, null, ByteBuffer.wrap(IOUtils.toByteArray(inputStream)));
+        } finally {
+            IOUtils.closeQuietly(inputStream);
+        }
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the fields of the record, or <code>null</code> if there are no more records. A blank line is returned as
+     *         a record with a single empty field.
+     */
+    List<String> nextRecord() throws IOException {
+        int b = read();
+        if (b == END_OF_DATA) {
+            return null;
+        }
+        List<String> record = new ArrayList<>();
+        boolean quoted = false;
+        boolean inQuotes = false;
+        fieldLength = 0;
+        while (true) {
+            if (inQuotes) {
+                if (b == END_OF_DATA) {
+                    throw new IOException("Unexpected end of data within a quoted field.");
+                }
+                if (b == '"') {
+                    b = read();
+                    if (b != '"') {
+                        // That was the closing quote. Look at the character after it as usual.
+                        inQuotes = false;
+                        continue;
+                    }
+                }
+                append(b);
+            } else if (b == END_OF_DATA || b == '\n') {
+                record.add(takeField());
+                return record;
+            } else if (b == delimiter) {
+                record.add(takeField());
+                quoted = false;
+            } else if (b == '"' && fieldLength == 0 && !quoted) {
+                quoted = true;
+                inQuotes = true;
+            } else if (b != '\r') {
+                append(b);
+            }
+            b = read();
+        }
+    }
+
+    @Override
+    public void close() {
+        buffer = null;
+        IOUtils.closeQuietly(channel);
+    }
+
+    private String takeField() {
+        String value = new String(field, 0, fieldLength, StandardCharsets.UTF_8);
+        fieldLength = 0;
+        return value;
+    }
+
+    private void append(int b) {
+        if (fieldLength == field.length) {
+            field = Arrays.copyOf(field, field.length * 2);
+        }
+        field[fieldLength++] = (byte) b;
+    }
+
+    /**
+     * @return the next byte of the data as an unsigned value, or {@link #END_OF_DATA}.
+     */
+    private int read() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return END_OF_DATA;
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    /**
+     * Reads the next part of the file into the buffer.
+     *
+     * @return <code>false</code> if there is nothing left to read.
+     */
+    private boolean fill() throws IOException {
+        if (channel == null) {
+            return false;
+        }
+        buffer.clear();
+        int count = channel.read(buffer);
+        buffer.flip();
+        if (count <= 0) {
+            return false;
+        }
+        DataLoadRecorder.addBytesRead(count);
+        return true;
+    }
+
+    private void skipByteOrderMark() {
+        if (buffer.remaining() >= 3 && (buffer.get(0) & 0xFF) == 0xEF && (buffer.get(1) & 0xFF) == 0xBB
+                && (buffer.get(2) & 0xFF) == 0xBF) {
+            buffer.position(3);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.util.logging.Level;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.paypal.selion.logger.SeLionLogger;
+import com.paypal.selion.platform.dataprovider.DataLoadEvent;
+import com.paypal.selion.platform.dataprovider.DataLoadListener;
+import com.paypal.selion.platform.dataprovider.DataProviderConfig;
+import com.paypal.selion.platform.dataprovider.DataProviderConfig.DataProviderProperties;
+import com.paypal.selion.platform.dataprovider.DataProviderFactory;
+import com.paypal.selion.platform.dataprovider.DataResource;
+import com.paypal.selion.platform.dataprovider.SeLionDataProvider;
+import com.paypal.test.utilities.logging.SimpleLogger;
+
+/**
+ * Holds the {@link DataLoadListener} that is notified about every call that loads data through the data providers
+ * handed out by {@link DataProviderFactory}. By default, there is no listener, unless
+ * {@link DataProviderProperties#DATA_LOAD_LOGGING} asks for a {@link LoggingDataLoadListener}. Setting the listener to
+ * <code>null</code> turns the instrumentation off.<br>
+ * <br>
+ * Data providers that are created while there is no listener are not instrumented at all, and neither are the data
+ * providers that are created without the {@link DataProviderFactory}.
+ */
+@ThreadSafe
+public final class DataLoadInstrumentation {
+
+    private static final SimpleLogger logger = SeLionLogger.getLogger();
+
+    private static final DataLoadInstrumentation INSTANCE = new DataLoadInstrumentation(DataProviderConfig
+            .getBooleanConfigProperty(DataProviderProperties.DATA_LOAD_LOGGING) ? new LoggingDataLoadListener() : null);
+
+    private volatile DataLoadListener listener;
+
+    DataLoadInstrumentation(DataLoadListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return the instrumentation that is shared by all the data providers.
+     */
+    public static DataLoadInstrumentation getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the listener that is notified, or <code>null</code> if the instrumentation is off.
+     */
+    public DataLoadListener getListener() {
+        return listener;
+    }
+
+    /**
+     * @param listener
+     *            the listener to be notified from now on, or <code>null</code> to turn the instrumentation off.
+     */
+    public void setListener(DataLoadListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return <code>true</code> if there is a listener to be notified.
+     */
+    boolean isEnabled() {
+        return listener != null;
+    }
+
+    /**
+     * Wraps a data provider so that the calls that load data through it are recorded. The wrapper implements all the
+     * interfaces of the data provider, so it can be cast to any of them, but not to the class of the data provider.
+     *
+     * @param provider
+     *            the data provider to be instrumented.
+     * @param resource
+     *            the {@link DataResource} that the data provider reads.
+     * @return the instrumented data provider, or the given data provider itself when there is no listener to be
+     *         notified.
+     */
+    public SeLionDataProvider instrument(SeLionDataProvider provider, DataResource resource) {
+        if (provider == null || !isEnabled()) {
+            return provider;
+        }
+        return InstrumentedDataProvider.wrap(this, provider, resource);
+    }
+
+    /**
+     * Notifies the listener. A listener that fails does not fail the loading of the data.
+     */
+    void publish(DataLoadEvent event) {
+        DataLoadListener current = listener;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.onDataLoaded(event);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "The data load listener " + current + " failed.", e);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.io.IOUtils;
+
+import com.google.common.collect.AbstractIterator;
+import com.paypal.selion.platform.dataprovider.DataLoadEvent;
+import com.paypal.selion.platform.dataprovider.DataResource;
+import com.paypal.selion.platform.dataprovider.SeLionDataProvider;
+
+/**
+ * Records one data provider call for the {@link DataLoadInstrumentation}. A call starts a recording via
+ * {@link #start(SeLionDataProvider, DataResource, String)}, hands its result over via one of the
+ * <code>returned</code> methods and closes the recording, typically in a try-with-resources statement. While a
+ * recording is open, it is the current recording of its thread, so the code that reads, parses and maps the data
+ * reports to it via the static methods of this class without having to pass it around.<br>
+ * <br>
+ * When a call is made by another call that is being recorded already, for e.g. <code>getDataByIndex(String)</code>
+ * calling <code>getDataByIndex(int[])</code>, only the outer call is recorded. An iterator that is returned keeps the
+ * recording going while it is being consumed, and the event is published once it is exhausted or closed. The event of
+ * an iterator that is abandoned before that is published once the iterator has been garbage collected, the next time
+ * a call is recorded.<br>
+ * <br>
+ * A recording is used by one thread at a time.
+ */
+final class DataLoadRecorder implements Closeable {
+
+    private static final ThreadLocal<DataLoadRecorder> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Records nothing. Handed out when the instrumentation is off or when a recording is open already.
+     */
+    private static final DataLoadRecorder NONE = new DataLoadRecorder(null, null, null, null);
+
+    /**
+     * The iterators that have been garbage collected before they were exhausted or closed.
+     */
+    private static final ReferenceQueue<Object> ABANDONED = new ReferenceQueue<>();
+
+    /**
+     * Keeps the {@link Abandonment} of every returned iterator that is still being consumed reachable.
+     */
+    private static final Set<Abandonment> PENDING = Collections
+            .newSetFromMap(new ConcurrentHashMap<Abandonment, Boolean>());
+
+    private final DataLoadInstrumentation instrumentation;
+    private final SeLionDataProvider provider;
+    private final DataResource resource;
+    private final String operation;
+
+    private long bytesRead;
+    private int rowsParsed;
+    private int rowsReturned;
+    private long activeNanos;
+    private long mapNanos;
+    private int mappingDepth;
+    private long resumedAt;
+    private DataLoadRecorder suspended;
+    private boolean returned;
+    private boolean deferred;
+    private Abandonment abandonment;
+    private final AtomicBoolean published = new AtomicBoolean();
+
+    private DataLoadRecorder(DataLoadInstrumentation instrumentation, SeLionDataProvider provider,
+            DataResource resource, String operation) {
+        this.instrumentation = instrumentation;
+        this.provider = provider;
+        this.resource = resource;
+        this.operation = operation;
+    }
+
+    /**
+     * Starts recording a call, unless the instrumentation is off or the call is made by a call that is being recorded
+     * already.
+     *
+     * @param provider
+     *            the data provider that was called.
+     * @param resource
+     *            the data resource it loads.
+     * @param operation
+     *            the name of the method that was called.
+     * @return the recording, which must be closed by the caller.
+     */
+    static DataLoadRecorder start(SeLionDataProvider provider, DataResource resource, String operation) {
+        return start(DataLoadInstrumentation.getInstance(), provider, resource, operation);
+    }
+
+    /**
+     * Starts recording a call for the given instrumentation. See
+     * {@link #start(SeLionDataProvider, DataResource, String)}.
+     */
+    static DataLoadRecorder start(DataLoadInstrumentation instrumentation, SeLionDataProvider provider,
+            DataResource resource, String operation) {
+        publishAbandoned();
+        if (CURRENT.get() != null || !instrumentation.isEnabled()) {
+            return NONE;
+        }
+        DataLoadRecorder recorder = new DataLoadRecorder(instrumentation, provider, resource, operation);
+        recorder.resume();
+        return recorder;
+    }
+
+    /**
+     * @return the given stream, counting the bytes read from it for the current recording, if there is one.
+     */
+    static InputStream countBytes(InputStream inputStream) {
+        final DataLoadRecorder recorder = CURRENT.get();
+        if (recorder == null || inputStream == null) {
+            return inputStream;
+        }
+        return new FilterInputStream(inputStream) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    recorder.bytesRead++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int count = super.read(b, off, len);
+                if (count > 0) {
+                    recorder.bytesRead += count;
+                }
+                return count;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long count = super.skip(n);
+                recorder.bytesRead += count;
+                return count;
+            }
+        };
+    }
+
+    /**
+     * Adds to the bytes read by the current recording, if there is one. Meant for data that is not read via
+     * {@link #countBytes(InputStream)}.
+     */
+    static void addBytesRead(long count) {
+        DataLoadRecorder recorder = CURRENT.get();
+        if (recorder != null) {
+            recorder.bytesRead += count;
+        }
+    }
+
+    /**
+     * Adds to the rows parsed by the current recording, if there is one.
+     */
+    static void addRowsParsed(int count) {
+        DataLoadRecorder recorder = CURRENT.get();
+        if (recorder != null) {
+            recorder.rowsParsed += count;
+        }
+    }
+
+    /**
+     * Marks the start of mapping parsed data into user defined types. Mapping that is started while mapping already,
+     * for e.g. for the nested rows of an excel sheet, is not timed separately.
+     *
+     * @return the value to be handed over to {@link #stopMapping(long)} once the mapping is done.
+     */
+    static long startMapping() {
+        DataLoadRecorder recorder = CURRENT.get();
+        if (recorder == null || recorder.mappingDepth++ > 0) {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Adds the time spent mapping since {@link #startMapping()} to the current recording, if there is one.
+     */
+    static void stopMapping(long startedAt) {
+        DataLoadRecorder recorder = CURRENT.get();
+        if (recorder == null) {
+            return;
+        }
+        recorder.mappingDepth--;
+        if (startedAt != 0) {
+            recorder.mapNanos += System.nanoTime() - startedAt;
+        }
+    }
+
+    /**
+     * Records a call that does not return any rows, such as opening a data source.
+     */
+    void completed() {
+        if (this != NONE) {
+            returned = true;
+        }
+    }
+
+    /**
+     * @return the given rows, which are recorded as the rows returned.
+     */
+    Object[][] returned(Object[][] rows) {
+        if (this != NONE) {
+            rowsReturned = (rows == null) ? 0 : rows.length;
+            returned = true;
+        }
+        return rows;
+    }
+
+    /**
+     * @return the given map, whose entries are recorded as the rows returned.
+     */
+    <T extends Map<?, ?>> T returned(T rows) {
+        if (this != NONE) {
+            rowsReturned = (rows == null) ? 0 : rows.size();
+            returned = true;
+        }
+        return rows;
+    }
+
+    /**
+     * @return an iterator over the given rows that keeps this recording going while it is being consumed, and
+     *         publishes it once it is exhausted or closed. The iterator is {@link Closeable}, and closing it closes the
+     *         given rows too, if they are {@link Closeable}.
+     */
+    Iterator<Object[]> returned(Iterator<Object[]> rows) {
+        if (this == NONE) {
+            return rows;
+        }
+        deferred = true;
+        RecordingIterator iterator = new RecordingIterator(rows);
+        abandonment = new Abandonment(iterator, this);
+        PENDING.add(abandonment);
+        return iterator;
+    }
+
+    /**
+     * Stops the recording on this thread. The event is published right away, unless the call failed or returned an
+     * iterator.
+     */
+    @Override
+    public void close() {
+        if (this == NONE) {
+            return;
+        }
+        suspend();
+        if (returned && !deferred) {
+            publish();
+        }
+    }
+
+    private void resume() {
+        suspended = CURRENT.get();
+        CURRENT.set(this);
+        resumedAt = System.nanoTime();
+    }
+
+    private void suspend() {
+        activeNanos += System.nanoTime() - resumedAt;
+        if (suspended == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(suspended);
+            suspended = null;
+        }
+    }
+
+    /**
+     * Publishes the recordings of the iterators that have been garbage collected before they were exhausted or closed.
+     */
+    private static void publishAbandoned() {
+        Reference<?> reference;
+        while ((reference = ABANDONED.poll()) != null) {
+            Abandonment abandoned = (Abandonment) reference;
+            PENDING.remove(abandoned);
+            abandoned.recorder.publish();
+        }
+    }
+
+    /**
+     * Publishes the recording of a returned iterator, which is no longer tracked once it is done with.
+     */
+    private void finish() {
+        PENDING.remove(abandonment);
+        abandonment.clear();
+        publish();
+    }
+
+    private void publish() {
+        if (!published.compareAndSet(false, true)) {
+            return;
+        }
+        instrumentation.publish(new DataLoadEvent(resource, provider.getClass().getSimpleName(),
+                operation, bytesRead, rowsParsed, rowsReturned, Math.max(activeNanos - mapNanos, 0), mapNanos));
+    }
+
+    /**
+     * Hands out the rows of an iterator that was returned by a recorded call, keeping the recording going.
+     */
+    private final class RecordingIterator extends AbstractIterator<Object[]> implements Closeable {
+        private final Iterator<Object[]> rows;
+
+        RecordingIterator(Iterator<Object[]> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        protected Object[] computeNext() {
+            resume();
+            try {
+                if (rows.hasNext()) {
+                    rowsReturned++;
+                    return rows.next();
+                }
+            } finally {
+                suspend();
+            }
+            finish();
+            return endOfData();
+        }
+
+        @Override
+        public void close() {
+            if (rows instanceof Closeable) {
+                IOUtils.closeQuietly((Closeable) rows);
+            }
+            finish();
+        }
+    }
+
+    /**
+     * Learns about a returned iterator that has been garbage collected, without keeping it reachable.
+     */
+    private static final class Abandonment extends PhantomReference<Object> {
+        private final DataLoadRecorder recorder;
+
+        Abandonment(Object iterator, DataLoadRecorder recorder) {
+            super(iterator, ABANDONED);
+            this.recorder = recorder;
+        }
+    }
+}
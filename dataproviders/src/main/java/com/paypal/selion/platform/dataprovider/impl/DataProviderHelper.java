@@ -26,21 +26,37 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.jxpath.JXPathContext;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
+import org.yaml.snakeyaml.DumperOptions.FlowStyle;
 import org.yaml.snakeyaml.Yaml;
 
+import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
 import com.paypal.selion.logger.SeLionLogger;
+import com.paypal.selion.platform.dataprovider.DataProviderConfig;
+import com.paypal.selion.platform.dataprovider.DataProviderConfig.DataProviderProperties;
 import com.paypal.selion.platform.dataprovider.DataProviderException;
 import com.paypal.selion.platform.dataprovider.DataProviderFactory;
 import com.paypal.selion.platform.dataprovider.DataResource;
 import com.paypal.selion.platform.dataprovider.SeLionDataProvider;
 import com.paypal.selion.platform.dataprovider.filter.DataProviderFilter;
+import com.paypal.selion.platform.dataprovider.filter.RawDataProviderFilter;
+import com.paypal.selion.platform.dataprovider.filter.RawDataRow;
+import com.paypal.selion.platform.dataprovider.filter.SimpleIndexInclusionFilter;
 import com.paypal.test.utilities.logging.SimpleLogger;
 
 /**
@@ -52,6 +68,13 @@ public final class DataProviderHelper {
 
     private static SimpleLogger logger = SeLionLogger.getLogger();
 
+    private static final Function<Object, Object[]> TO_ROW = new Function<Object, Object[]>() {
+        @Override
+        public Object[] apply(Object value) {
+            return new Object[] { value };
+        }
+    };
+
     // Hidden default constructor for class that provides static methods.
     private DataProviderHelper() {
 
@@ -252,6 +275,145 @@ public final class DataProviderHelper {
         return objArray;
     }
 
+    /**
+     * Returns the last position of a data source that can still pass the given filter, so that a data provider can
+     * stop reading once it went past it.
+     *
+     * @param dataFilter
+     *            an implementation class of {@link DataProviderFilter}
+     * @return the highest index of a {@link SimpleIndexInclusionFilter}, also when restricted to a shard, or
+     *         {@link Integer#MAX_VALUE} for any other filter.
+     */
+    static int getLastPosition(DataProviderFilter dataFilter) {
+        if (dataFilter instanceof DataSharding.ShardFilter) {
+            DataProviderFilter restricted = ((DataSharding.ShardFilter) dataFilter).getDelegate();
+            return (restricted == null) ? Integer.MAX_VALUE : getLastPosition(restricted);
+        }
+        if (dataFilter instanceof SimpleIndexInclusionFilter) {
+            return ((SimpleIndexInclusionFilter) dataFilter).getHighestIndex();
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Applies the given filter to an object that has been parsed already. A {@link RawDataProviderFilter} is offered
+     * the raw view of the object first, so that it sees the same rows regardless of the data source.
+     *
+     * @param dataFilter
+     *            an implementation class of {@link DataProviderFilter}
+     * @param data
+     *            the object to be filtered.
+     * @param position
+     *            the 1-based position of the object.
+     * @return true if the object falls in the filter criteria.
+     */
+    static boolean filterParsedObject(DataProviderFilter dataFilter, Object data, int position) {
+        return filterParsedObject(dataFilter, data, null, position);
+    }
+
+    private static boolean filterParsedObject(DataProviderFilter dataFilter, Object data, Object key, int position) {
+        if (dataFilter instanceof RawDataProviderFilter
+                && !((RawDataProviderFilter) dataFilter).filterRaw(toRawDataRow(data, key, position))) {
+            return false;
+        }
+        return dataFilter.filter(data, position);
+    }
+
+    private static RawDataRow toRawDataRow(Object data, Object key, int position) {
+        return RawDataRows.forParsedObject(data, (key == null) ? null : key.toString(), position);
+    }
+
+    /**
+     * Converts an object the same way as {@link #convertToObjectArray(Object)} does, but only keeps the rows that pass
+     * the given filter. Every row is handed over to the filter with the same key and position that
+     * {@link #filterToListOfObjects(Object, DataProviderFilter)} gives it, so that both agree on the identity of a row.
+     *
+     * @param object
+     *            Object of any type.
+     * @param rowFilter
+     *            the filter that decides on the raw view of each row, for e.g. the one of a {@link DataSharding}.
+     * @return Object[][] two dimensional object to be used with TestNG DataProvider
+     */
+    static Object[][] convertToObjectArray(Object object, RawDataProviderFilter rowFilter) {
+        List<Object[]> objs = new ArrayList<>();
+        Class<?> rootClass = object.getClass();
+        int position = 0;
+
+        if (rootClass.equals(LinkedHashMap.class)) { // NOSONAR
+            for (Map.Entry<?, ?> entry : ((LinkedHashMap<?, ?>) object).entrySet()) {
+                if (rowFilter.filterRaw(toRawDataRow(entry.getValue(), entry.getKey(), ++position))) {
+                    objs.add(new Object[] { entry.getValue() });
+                }
+            }
+        } else if (rootClass.equals(ArrayList.class)) { // NOSONAR
+            for (Object eachArrayListObject : (ArrayList<?>) object) {
+                // the row is the last child value that is a LinkedHashMap or an ArrayList, at the position that
+                // filterListElement() gives that child, or else the element itself
+                Object row = eachArrayListObject;
+                int rowPosition = ++position;
+                if (eachArrayListObject.getClass().equals(LinkedHashMap.class)) { // NOSONAR
+                    for (Object eachEntry : ((LinkedHashMap<?, ?>) eachArrayListObject).values()) {
+                        if (eachEntry.getClass().equals(LinkedHashMap.class) // NOSONAR
+                                || eachEntry.getClass().equals(ArrayList.class)) { // NOSONAR
+                            row = eachEntry;
+                            rowPosition = ++position;
+                        }
+                    }
+                }
+                if (rowFilter.filterRaw(toRawDataRow(row, null, rowPosition))) {
+                    objs.add(new Object[] { row });
+                }
+            }
+        } else {
+            Object[][] rows = convertToObjectArray(object);
+            for (int i = 0; i < rows.length; i++) {
+                if (rowFilter.filterRaw(toRawDataRow(rows[i][0], null, i + 1))) {
+                    objs.add(rows[i]);
+                }
+            }
+        }
+        return objs.toArray(new Object[objs.size()][]);
+    }
+
+    /**
+     * Applies the given filter to an element of a list (e.g. Yaml List or a Yaml document) and adds the elements that
+     * fall in the filter criteria to the given collection.
+     *
+     * @param element
+     *            An element of a list.
+     * @param dataFilter
+     *            an implementation class of {@link DataProviderFilter}
+     * @param position
+     *            The 1-based position of the last object that was handed over to the filter, 0 if there was none.
+     * @param objs
+     *            The collection to add the filtered elements to.
+     * @return The position of the last object that was handed over to the filter.
+     */
+    static int filterListElement(Object element, DataProviderFilter dataFilter, int position,
+            Collection<Object[]> objs) {
+        /*
+         * Handles LinkedHashMap nested in a LinkedHashMap (e.g. Yaml/xml associative array). This block removes the
+         * first mapping since that data serves as visual organization of data within a Yaml/xml. If the parent is a
+         * LinkedHashMap and the child is a LinkedHashMap or an ArrayList, then assign the child to the Object double
+         * array instead of the parent.
+         */
+        if (filterParsedObject(dataFilter, element, ++position)) {
+            objs.add(new Object[] { element });
+        }
+        if (element.getClass().equals(LinkedHashMap.class)) { // NOSONAR
+            LinkedHashMap<?, ?> elementAsHashMap = (LinkedHashMap<?, ?>) element;
+            for (Object eachEntry : elementAsHashMap.values()) {
+                if (eachEntry.getClass().equals(LinkedHashMap.class)
+                        || eachEntry.getClass().equals(ArrayList.class)) { // NOSONAR
+                    if (filterParsedObject(dataFilter, eachEntry, ++position)) {
+                        objs.add(new Object[] { eachEntry });
+                    }
+                }
+            }
+        }
+        return position;
+    }
+
     /**
      * Converts in particular LinkedHashMap of Objects, ArrayList of Objects, Array of Object into ArrayList after
      * applying the given filter.
@@ -264,14 +426,18 @@ public final class DataProviderHelper {
         logger.entering(object);
         List<Object[]> objs = new ArrayList<>();
         Class<?> rootClass = object.getClass();
+        int lastPosition = getLastPosition(dataFilter);
+        int position = 0;
 
         // Convert a LinkedHashMap (e.g. Yaml Associative Array) to an array list after applying filter.
         if (rootClass.equals(LinkedHashMap.class)) { // NOSONAR
             LinkedHashMap<?, ?> objAsLinkedHashMap = (LinkedHashMap<?, ?>) object;
-            Collection<?> allValues = objAsLinkedHashMap.values();
-            for (Object eachValue : allValues) {
-                if (dataFilter.filter(eachValue)) {
-                    objs.add(new Object[] { eachValue });
+            for (Map.Entry<?, ?> entry : objAsLinkedHashMap.entrySet()) {
+                if (position >= lastPosition) {
+                    break;
+                }
+                if (filterParsedObject(dataFilter, entry.getValue(), entry.getKey(), ++position)) {
+                    objs.add(new Object[] { entry.getValue() });
                 }
             }
         }
@@ -279,87 +445,19 @@ public final class DataProviderHelper {
         else if (rootClass.equals(ArrayList.class)) { // NOSONAR
             ArrayList<?> objAsArrayList = (ArrayList<?>) object;
             for (Object eachArrayListObject : objAsArrayList) {
-                /*
-                 * Handles LinkedHashMap nested in a LinkedHashMap (e.g. Yaml/xml associative array). This block removes
-                 * the first mapping since that data serves as visual organization of data within a Yaml/xml. If the
-                 * parent is a LinkedHashMap and the child is a LinkedHashMap or an ArrayList, then assign the child to
-                 * the Object double array instead of the parent.
-                 */
-                if (dataFilter.filter(eachArrayListObject)) {
-                    objs.add(new Object[] { eachArrayListObject });
-                }
-                if (eachArrayListObject.getClass().equals(LinkedHashMap.class)) { // NOSONAR
-                    LinkedHashMap<?, ?> eachArrayListObjectAsHashMap = (LinkedHashMap<?, ?>) eachArrayListObject;
-                    for (Object eachEntry : eachArrayListObjectAsHashMap.values()) {
-                        if (eachEntry.getClass().equals(LinkedHashMap.class)
-                                || eachEntry.getClass().equals(ArrayList.class)) { // NOSONAR
-                            if (dataFilter.filter(eachEntry)) {
-                                objs.add(new Object[] { eachEntry });
-                            }
-                        }
-                    }
+                if (position >= lastPosition) {
+                    break;
                 }
+                position = filterListElement(eachArrayListObject, dataFilter, position, objs);
             }
         }
-        // Converts an List of simple types to an array list after applying filter.
+        // Converts an array of simple types or of unknown objects to an array list after applying filter.
         else if (rootClass.isArray()) {
-            if (!(object instanceof Object[])) {
-                if (object instanceof int[]) {
-                    for (int item : (int[]) object) {
-                        if (dataFilter.filter(item)) {
-                            objs.add(new Object[] { item });
-                        }
-                    }
-                } else if (object instanceof char[]) {
-                    for (char item : (char[]) object) {
-                        if (dataFilter.filter(item)) {
-                            objs.add(new Object[] { item });
-                        }
-                    }
-                } else if (object instanceof short[]) {
-                    for (short item : (short[]) object) {
-                        if (dataFilter.filter(item)) {
-                            objs.add(new Object[] { item });
-                        }
-                    }
-                } else if (object instanceof boolean[]) {
-                    for (boolean item : (boolean[]) object) {
-                        if (dataFilter.filter(item)) {
-                            objs.add(new Object[] { item });
-                        }
-                    }
-                } else if (object instanceof long[]) {
-                    for (long item : (long[]) object) {
-                        if (dataFilter.filter(item)) {
-                            objs.add(new Object[] { item });
-                        }
-                    }
-                } else if (object instanceof double[]) {
-                    for (double item : (double[]) object) {
-                        if (dataFilter.filter(item)) {
-                            objs.add(new Object[] { item });
-                        }
-                    }
-                } else if (object instanceof float[]) {
-                    for (float item : (float[]) object) {
-                        if (dataFilter.filter(item)) {
-                            objs.add(new Object[] { item });
-                        }
-                    }
-                } else if (object instanceof byte[]) {
-                    for (byte item : (byte[]) object) {
-                        if (dataFilter.filter(item)) {
-                            objs.add(new Object[] { item });
-                        }
-                    }
-                }
-            }
-            // Converts unknown object Array to an array list after applying filter.
-            else {
-                for (Object item : (Object[]) object) {
-                    if (dataFilter.filter(item)) {
-                        objs.add(new Object[] { item });
-                    }
+            int length = Math.min(Array.getLength(object), lastPosition);
+            for (int i = 0; i < length; i++) {
+                Object item = Array.get(object, i);
+                if (filterParsedObject(dataFilter, item, i + 1)) {
+                    objs.add(new Object[] { item });
                 }
             }
         }
@@ -564,8 +662,10 @@ public final class DataProviderHelper {
      */
     public static String serializeObjectToYamlString(Object object) {
         logger.entering(object);
-        Yaml yaml = new Yaml();
+        Yaml yaml = YamlPool.borrow(null, FlowStyle.AUTO);
         String output = yaml.dump(object);
+        // Only a Yaml whose dump went through is known to be clean enough to be handed out again.
+        YamlPool.release(null, FlowStyle.AUTO, yaml);
         logger.exiting(output);
         return output;
     }
@@ -594,8 +694,9 @@ public final class DataProviderHelper {
      */
     public static String serializeObjectToYamlStringAsDocuments(Object... objects) {
         logger.entering(new Object[] { objects });
-        Yaml yaml = new Yaml();
+        Yaml yaml = YamlPool.borrow(null, FlowStyle.AUTO);
         String output = yaml.dumpAll(Arrays.asList(objects).iterator());
+        YamlPool.release(null, FlowStyle.AUTO, yaml);
         logger.exiting(output);
         return output;
     }
@@ -662,33 +763,182 @@ public final class DataProviderHelper {
             throw new DataProviderException("Resource can not be null");
         }
 
-        List<Object[][]> dataproviders = new ArrayList<>();
-        int maxLength = 0;
-
-        for (DataResource r : resources) {
-            SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(r);
-            Object[][] resourceData = dataProvider.getAllData();
-            dataproviders.add(resourceData);
-            if (resourceData.length > maxLength) {
-                maxLength = resourceData.length;
+        // The resources are loaded at the same time, but their data is combined in the order of the resources.
+        List<Object[][]> dataproviders = loadInParallel(resources, new ResourceLoader<Object[][]>() {
+            @Override
+            public Object[][] load(DataResource resource) throws IOException {
+                return DataProviderFactory.getDataProvider(resource).getAllData();
             }
+        });
+        Object[][] data = getAllDataMultipleArgs(dataproviders.toArray(new Object[dataproviders.size()][][]));
+
+        logger.exiting((Object[]) data);
+        return data;
+    }
+
+    /**
+     * Gets yaml data for tests that require multiple arguments, the same way as
+     * {@link #getAllDataMultipleArgsFromYAML(List)} does. The rows of the resources are read through
+     * {@link SeLionDataProvider#getAllDataIterator()} and put together one at a time, as the returned iterator is
+     * being consumed. So the data of the resources is never copied into two dimensional arrays.
+     *
+     * @param resources
+     *            The resources whose data is to be clubbed together.
+     * @return An iterator over the rows to be used with TestNG DataProvider
+     * @throws IOException
+     */
+    public static Iterator<Object[]> getAllDataMultipleArgsFromYAMLLazily(List<DataResource> resources)
+            throws IOException {
+        logger.entering(resources);
+
+        if (resources == null) {
+            throw new DataProviderException("Resource can not be null");
         }
 
-        Object[][] data = new Object[maxLength][resources.size()];
+        List<Iterator<Object[]>> dataproviders = loadInParallel(resources, new ResourceLoader<Iterator<Object[]>>() {
+            @Override
+            public Iterator<Object[]> load(DataResource resource) throws IOException {
+                return DataProviderFactory.getDataProvider(resource).getAllDataIterator();
+            }
+        });
+        Iterator<Object[]> data = zipAllDataMultipleArgs(dataproviders);
 
-        int i = 0;
-        for (Object[][] d : dataproviders) {
-            for (int j = 0; j < maxLength; j++) {
-                try {
-                    data[j][i] = d[j][0];
-                } catch (ArrayIndexOutOfBoundsException ex) {
-                    data[j][i] = null;
+        logger.exiting(data);
+        return data;
+    }
+
+    /**
+     * Clubs the rows of multiple data providers together lazily, the same way as
+     * {@link #getAllDataMultipleArgs(Object[][][])} does. The n-th row returned holds the first object of the n-th row
+     * of every data provider, or <code>null</code> for the data providers that have fewer rows. The rows are read from
+     * the given iterators one at a time, as the returned iterator is being consumed.
+     *
+     * @param dataproviders
+     *            The rows of multiple data providers of various types that are to be clubbed together.
+     * @return An iterator over the rows to be used with TestNG DataProvider
+     */
+    public static Iterator<Object[]> zipAllDataMultipleArgs(final List<Iterator<Object[]>> dataproviders) {
+        return new AbstractIterator<Object[]>() {
+            @Override
+            protected Object[] computeNext() {
+                Object[] row = new Object[dataproviders.size()];
+                boolean found = false;
+                for (int i = 0; i < row.length; i++) {
+                    Iterator<Object[]> dataprovider = dataproviders.get(i);
+                    if (dataprovider.hasNext()) {
+                        row[i] = dataprovider.next()[0];
+                        found = true;
+                    }
                 }
+                return found ? row : endOfData();
             }
-            i++;
+        };
+    }
+
+    /**
+     * Loads something out of each of the resources.
+     */
+    private interface ResourceLoader<T> {
+        T load(DataResource resource) throws IOException;
+    }
+
+    /**
+     * Loads the resources at the same time on a bounded number of threads. See
+     * {@link DataProviderProperties#DATA_LOADER_THREADS}.
+     *
+     * @return What was loaded out of the resources, in the order of the resources.
+     */
+    private static <T> List<T> loadInParallel(List<DataResource> resources, final ResourceLoader<T> loader)
+            throws IOException {
+        List<T> loaded = new ArrayList<>(resources.size());
+        int threads = Math.min(resources.size(),
+                DataProviderConfig.getIntConfigProperty(DataProviderProperties.DATA_LOADER_THREADS));
+        if (threads <= 1) {
+            for (DataResource resource : resources) {
+                loaded.add(loader.load(resource));
+            }
+            return loaded;
         }
 
-        logger.exiting((Object[]) data);
-        return data;
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+                .setNameFormat("selion-data-loader-%d").setDaemon(true).build());
+        try {
+            List<Future<T>> futures = new ArrayList<>(resources.size());
+            for (final DataResource resource : resources) {
+                futures.add(executor.submit(new Callable<T>() {
+                    @Override
+                    public T call() throws IOException {
+                        return loader.load(resource);
+                    }
+                }));
+            }
+            for (Future<T> future : futures) {
+                loaded.add(getLoaded(future));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return loaded;
+    }
+
+    private static <T> T getLoaded(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataProviderException("Interrupted while loading the data.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            Throwables.throwIfInstanceOf(cause, IOException.class);
+            Throwables.throwIfUnchecked(cause);
+            throw new DataProviderException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Adapts parsed data the same way as {@link #convertToObjectArray(Object)} does, but yields the rows one at a time
+     * without copying the data. The values of primitive arrays are boxed as they are handed over.
+     *
+     * @param object
+     *            Object of any type.
+     * @return An iterator over the rows to be used with TestNG DataProvider
+     */
+    static Iterator<Object[]> asObjectArrayIterator(final Object object) {
+        Class<?> rootClass = object.getClass();
+
+        if (rootClass.equals(LinkedHashMap.class)) { // NOSONAR
+            return Iterators.transform(((LinkedHashMap<?, ?>) object).values().iterator(), TO_ROW);
+        }
+        if (rootClass.equals(ArrayList.class)) { // NOSONAR
+            return Iterators.transform(((ArrayList<?>) object).iterator(), new Function<Object, Object[]>() {
+                @Override
+                public Object[] apply(Object eachArrayListObject) {
+                    // Same as convertToObjectArray(), the last child value that is a LinkedHashMap or an ArrayList
+                    // is returned in place of its parent.
+                    Object row = eachArrayListObject;
+                    if (eachArrayListObject.getClass().equals(LinkedHashMap.class)) { // NOSONAR
+                        for (Object eachEntry : ((LinkedHashMap<?, ?>) eachArrayListObject).values()) {
+                            if (eachEntry.getClass().equals(LinkedHashMap.class) // NOSONAR
+                                    || eachEntry.getClass().equals(ArrayList.class)) { // NOSONAR
+                                row = eachEntry;
+                            }
+                        }
+                    }
+                    return new Object[] { row };
+                }
+            });
+        }
+        if (rootClass.isArray()) {
+            final int length = Array.getLength(object);
+            return new AbstractIterator<Object[]>() {
+                private int index;
+
+                @Override
+                protected Object[] computeNext() {
+                    return (index < length) ? new Object[] { Array.get(object, index++) } : endOfData();
+                }
+            };
+        }
+        return Iterators.singletonIterator(new Object[] { object });
     }
 }
@@ -0,0 +1,246 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.paypal.selion.platform.dataprovider.DataProviderConfig;
+import com.paypal.selion.platform.dataprovider.DataProviderConfig.DataProviderProperties;
+import com.paypal.selion.platform.dataprovider.DataProviderException;
+import com.paypal.selion.platform.dataprovider.SeLionDataProvider;
+import com.paypal.selion.platform.dataprovider.filter.DataProviderFilter;
+import com.paypal.selion.platform.dataprovider.filter.RawDataProviderFilter;
+import com.paypal.selion.platform.dataprovider.filter.RawDataRow;
+
+/**
+ * Splits the rows of every data source into a number of shards, so that several JVMs can each run their own share of
+ * a data driven suite without any coordination. Every row is assigned to a shard by a stable hash of its key, or of its
+ * 1-based index when it has no key, and only the rows of the configured shard are returned by
+ * {@link SeLionDataProvider#getAllData()} and {@link SeLionDataProvider#getDataByFilter(DataProviderFilter)}. The
+ * lookups by index and key are not sharded, since they ask for specific rows.<br>
+ * <br>
+ * The shard is checked on the raw form of a row via a {@link RawDataProviderFilter}, so the rows of the other shards
+ * are not mapped into objects by the data providers that support it.<br>
+ * <br>
+ * Sharding is disabled unless more than one shard is configured via {@link DataProviderProperties#SHARD_COUNT} and
+ * {@link DataProviderProperties#SHARD_INDEX}.
+ */
+@ThreadSafe
+public final class DataSharding {
+
+    private static final HashFunction HASH = Hashing.murmur3_32();
+
+    private static volatile DataSharding instance;
+
+    private final int shardIndex;
+    private final int shardCount;
+
+    DataSharding(int shardIndex, int shardCount) {
+        Preconditions.checkArgument(shardCount > 0, "The shard count must be greater than 0 but was %s.", shardCount);
+        Preconditions.checkArgument(shardIndex >= 0 && shardIndex < shardCount,
+                "The shard index must be between 0 and %s but was %s.", shardCount - 1, shardIndex);
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * @return the {@link DataSharding} that is shared by all the data providers.
+     * @throws DataProviderException
+     *             if the shard count or index is not configured properly. The configuration is checked again on the
+     *             next call.
+     */
+    public static DataSharding getInstance() {
+        DataSharding result = instance;
+        if (result == null) {
+            synchronized (DataSharding.class) {
+                result = instance;
+                if (result == null) {
+                    result = fromConfig(DataProviderConfig.getConfigProperty(DataProviderProperties.SHARD_INDEX),
+                            DataProviderConfig.getConfigProperty(DataProviderProperties.SHARD_COUNT));
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param shardIndex
+     *            the configured value of {@link DataProviderProperties#SHARD_INDEX}.
+     * @param shardCount
+     *            the configured value of {@link DataProviderProperties#SHARD_COUNT}.
+     * @return the {@link DataSharding} for the configured values.
+     * @throws DataProviderException
+     *             if a value is not a number, or the values do not make up a valid shard.
+     */
+    static DataSharding fromConfig(String shardIndex, String shardCount) {
+        int index = parseConfigValue(DataProviderProperties.SHARD_INDEX, shardIndex);
+        int count = parseConfigValue(DataProviderProperties.SHARD_COUNT, shardCount);
+        try {
+            return new DataSharding(index, count);
+        } catch (IllegalArgumentException e) {
+            throw new DataProviderException("Invalid data provider sharding configuration (SELION_"
+                    + DataProviderProperties.SHARD_INDEX.name() + "=" + shardIndex + ", SELION_"
+                    + DataProviderProperties.SHARD_COUNT.name() + "=" + shardCount + "): " + e.getMessage(), e);
+        }
+    }
+
+    private static int parseConfigValue(DataProviderProperties property, String value) {
+        try {
+            return Integer.parseInt(StringUtils.trim(value));
+        } catch (NumberFormatException e) {
+            throw new DataProviderException("Invalid data provider sharding configuration: SELION_" + property.name()
+                    + " must be a number but was '" + value + "'.", e);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the rows are split into more than one shard.
+     */
+    public boolean isEnabled() {
+        return shardCount > 1;
+    }
+
+    /**
+     * @return the 0-based index of the shard whose rows are returned.
+     */
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    /**
+     * @return the number of shards that the rows are split into.
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * @param key
+     *            the key of the row, or <code>null</code> if it has none.
+     * @param index
+     *            the 1-based index of the row.
+     * @return <code>true</code> if the row belongs to the shard whose rows are returned.
+     */
+    public boolean isInShard(String key, int index) {
+        if (!isEnabled()) {
+            return true;
+        }
+        HashCode hash = StringUtils.isEmpty(key) ? HASH.hashInt(index) : HASH.hashString(key, StandardCharsets.UTF_8);
+        return Hashing.consistentHash(hash, shardCount) == shardIndex;
+    }
+
+    /**
+     * Restricts a filter to the rows of the shard whose rows are returned.
+     *
+     * @param dataFilter
+     *            an implementation class of {@link DataProviderFilter}
+     * @return a {@link RawDataProviderFilter} that rejects the rows of the other shards before handing the rest over
+     *         to {@code dataFilter}, or {@code dataFilter} itself if sharding is disabled or it is restricted
+     *         already.
+     */
+    public DataProviderFilter restrict(DataProviderFilter dataFilter) {
+        if (!isEnabled() || dataFilter instanceof ShardFilter) {
+            return dataFilter;
+        }
+        return new ShardFilter(dataFilter);
+    }
+
+    /**
+     * Keeps the rows of the shard whose rows are returned. This is meant for rows that have been parsed already.
+     *
+     * @param rows
+     *            the rows of a data source, in the order they appear in it.
+     * @return the rows of the shard, which are {@code rows} themselves if sharding is disabled.
+     */
+    public Object[][] restrict(Object[][] rows) {
+        if (!isEnabled() || rows == null) {
+            return rows;
+        }
+        List<Object[]> shardRows = new ArrayList<>();
+        for (int i = 0; i < rows.length; i++) {
+            if (isInShard(null, i + 1)) {
+                shardRows.add(rows[i]);
+            }
+        }
+        return shardRows.toArray(new Object[shardRows.size()][]);
+    }
+
+    /**
+     * @return a filter that accepts every row of the shard whose rows are returned. Used to load all of the data of a
+     *         data source through {@link SeLionDataProvider#getDataByFilter(DataProviderFilter)}.
+     */
+    RawDataProviderFilter allRows() {
+        return new ShardFilter(null);
+    }
+
+    @Override
+    public String toString() {
+        return "DataSharding [shardIndex=" + shardIndex + ", shardCount=" + shardCount + "]";
+    }
+
+    /**
+     * Rejects the rows of the other shards, and hands the rest over to the filter it restricts.
+     */
+    final class ShardFilter implements RawDataProviderFilter {
+        private final DataProviderFilter delegate;
+
+        private ShardFilter(DataProviderFilter delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * @return the restricted filter, or <code>null</code> if all the rows of the shard are accepted.
+         */
+        DataProviderFilter getDelegate() {
+            return delegate;
+        }
+
+        @Override
+        public boolean filterRaw(RawDataRow row) {
+            if (!isInShard(row.getKey(), row.getPosition())) {
+                return false;
+            }
+            return !(delegate instanceof RawDataProviderFilter) || ((RawDataProviderFilter) delegate).filterRaw(row);
+        }
+
+        @Override
+        public boolean filter(Object data) {
+            return (delegate == null) || delegate.filter(data);
+        }
+
+        @Override
+        public boolean filter(Object data, int position) {
+            return (delegate == null) || delegate.filter(data, position);
+        }
+
+        @Override
+        public String toString() {
+            return DataSharding.this + " of " + delegate;
+        }
+    }
+}
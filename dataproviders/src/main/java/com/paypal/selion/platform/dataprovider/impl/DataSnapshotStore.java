@@ -0,0 +1,358 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import com.paypal.selion.logger.SeLionLogger;
+import com.paypal.selion.platform.dataprovider.DataProviderConfig;
+import com.paypal.selion.platform.dataprovider.DataProviderConfig.DataProviderProperties;
+import com.paypal.selion.platform.dataprovider.DataResource;
+import com.paypal.selion.platform.dataprovider.SeLionDataProvider;
+import com.paypal.selion.platform.dataprovider.XmlDataSource;
+import com.paypal.test.utilities.logging.SimpleLogger;
+
+/**
+ * Keeps binary snapshots of the data returned by the data providers, so that later runs can skip parsing the data
+ * sources. A snapshot is written to a file in the snapshot directory the first time the data of a data source is
+ * loaded. It holds a hash of the contents of the data source, and is decoded in place of parsing the data source as
+ * long as the contents still hash the same. The size and the last modified time of the data source are never trusted
+ * to tell whether the contents changed, since a data source can be rewritten within the granularity of its last
+ * modified time. Otherwise the data source is parsed again and the snapshot is replaced.<br>
+ * <br>
+ * Only data sources that are backed by a {@link FileSystemResource} have snapshots, since streams can be read only
+ * once. Data that cannot be encoded by {@link SnapshotCodec} is never written to a snapshot.<br>
+ * <br>
+ * Snapshots are disabled unless a snapshot directory is configured via
+ * {@link DataProviderProperties#DATA_SNAPSHOT_DIR}.
+ */
+@ThreadSafe
+public final class DataSnapshotStore {
+
+    private static final SimpleLogger logger = SeLionLogger.getLogger();
+
+    /**
+     * Identifies snapshot files, along with the version of their format.
+     */
+    private static final int MAGIC = 0x534C4402;
+
+    private static final HashFunction HASH = Hashing.sha256();
+
+    /**
+     * Identifies the snapshots of the data returned by {@link SeLionDataProvider#getAllData()}.
+     */
+    static final String ALL_DATA = "getAllData";
+
+    private static final DataSnapshotStore INSTANCE = new DataSnapshotStore(
+            DataProviderConfig.getConfigProperty(DataProviderProperties.DATA_SNAPSHOT_DIR));
+
+    private final File directory;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    DataSnapshotStore(String directory) {
+        this.directory = StringUtils.isBlank(directory) ? null : new File(directory);
+    }
+
+    /**
+     * @return the {@link DataSnapshotStore} that is shared by all the data providers.
+     */
+    public static DataSnapshotStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return <code>true</code> if snapshots are read and written.
+     */
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * @return the directory that holds the snapshots or <code>null</code> if snapshots are disabled.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the number of times data was decoded from a snapshot.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of times data had to be loaded from its data source, because there was no snapshot that
+     *         matched its contents.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the snapshot for a query against a data source. The snapshot is bound to the contents that the data source
+     * has at this point in time.
+     *
+     * @param resource
+     *            The {@link DataResource} that represents the data source.
+     * @param query
+     *            Identifies the data that is kept, for e.g. the name of the data provider method that returns it.
+     * @param options
+     *            Anything else that affects the data that is returned, for e.g. the custom types of a data provider. An
+     *            option that is <code>null</code> cannot be identified, so that there is no snapshot.
+     * @return the {@link Snapshot}, which never holds any data if the data source cannot have snapshots.
+     */
+    Snapshot getSnapshot(DataResource resource, String query, String... options) {
+        logger.entering(new Object[] { resource, query, options });
+        Snapshot snapshot = new Snapshot(null, null, null);
+        if (isEnabled() && (resource instanceof FileSystemResource)
+                && (((FileSystemResource) resource).getFileName() != null) && !Arrays.asList(options).contains(null)) {
+            try {
+                File snapshotFile = new File(directory, getSnapshotName(resource, query, options));
+                snapshot = new Snapshot(snapshotFile, resource, ((FileSystemResource) resource).getFile());
+            } catch (RuntimeException e) { // NOSONAR
+                // Let the data provider report problems while reading the data source.
+                logger.log(Level.FINE, "Unable to locate the snapshot of " + resource, e);
+            }
+        }
+        logger.exiting(snapshot);
+        return snapshot;
+    }
+
+    private static byte[] hashContents(final DataResource resource) throws IOException {
+        return new ByteSource() {
+            @Override
+            public InputStream openStream() throws IOException {
+                return resource.getInputStream();
+            }
+        }.hash(HASH).asBytes();
+    }
+
+    /**
+     * @return the name of the snapshot file, which is derived from everything that affects the data that is returned.
+     */
+    private static String getSnapshotName(DataResource resource, String query, String... options) {
+        StringBuilder identity = new StringBuilder();
+        identity.append(((FileSystemResource) resource).getFileName()).append('\n');
+        identity.append(resource.getType()).append('\n');
+        identity.append((resource.getCls() == null) ? null : resource.getCls().getName()).append('\n');
+        if (resource instanceof XmlDataSource) {
+            identity.append(((XmlDataSource) resource).getXpathMap()).append('\n');
+        }
+        identity.append(query);
+        for (String option : options) {
+            identity.append('\n').append(option);
+        }
+        return HASH.hashString(identity, StandardCharsets.UTF_8).toString() + ".snapshot";
+    }
+
+    /**
+     * @return the types that the data of the data source is declared to consist of.
+     */
+    private static List<Class<?>> getDeclaredTypes(DataResource resource) {
+        List<Class<?>> types = new ArrayList<>();
+        if (resource.getCls() != null) {
+            types.add(resource.getCls());
+        }
+        if ((resource instanceof XmlDataSource) && (((XmlDataSource) resource).getXpathMap() != null)) {
+            types.addAll(((XmlDataSource) resource).getXpathMap().values());
+        }
+        return types;
+    }
+
+    /**
+     * The snapshot of the data returned by a query against a data source with a specific content.
+     */
+    final class Snapshot {
+        private final File file;
+        private final DataResource resource;
+        private final File sourceFile;
+        private final long sourceLength;
+        private final long sourceLastModified;
+        private byte[] contentHash;
+
+        private Snapshot(File file, DataResource resource, File sourceFile) {
+            this.file = file;
+            this.resource = resource;
+            this.sourceFile = sourceFile;
+            this.sourceLength = (sourceFile == null) ? -1 : sourceFile.length();
+            this.sourceLastModified = (sourceFile == null) ? -1 : sourceFile.lastModified();
+        }
+
+        /**
+         * @return <code>true</code> if there is a snapshot that matches the contents of the data source. Only the
+         *         header of the snapshot is read.
+         */
+        boolean exists() {
+            if (file == null || !file.isFile()) {
+                return false;
+            }
+            try (DataInputStream snapshotFile = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                return snapshotFile.readInt() == MAGIC && matches(readHash(snapshotFile));
+            } catch (IOException | RuntimeException e) { // NOSONAR
+                logger.log(Level.FINE, "Unable to read the snapshot " + file, e);
+                return false;
+            }
+        }
+
+        /**
+         * @return the data that was kept in the snapshot or <code>null</code> if there is no snapshot that matches the
+         *         contents of the data source.
+         */
+        Object read() {
+            if (file == null) {
+                return null;
+            }
+            if (file.isFile()) {
+                try {
+                    // Read into the heap, since a mapped file stays mapped until its buffer is garbage collected.
+                    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+                    if (buffer.getInt() == MAGIC && matches(readHash(buffer))) {
+                        Object data = SnapshotCodec.decode(buffer, getDeclaredTypes(resource));
+                        hits.incrementAndGet();
+                        return data;
+                    }
+                    logger.fine("The snapshot " + file + " does not match the contents of its data source anymore.");
+                } catch (IOException | RuntimeException e) { // NOSONAR
+                    logger.log(Level.FINE, "Unable to read the snapshot " + file, e);
+                }
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+
+        /**
+         * Writes the data that was loaded from the data source to the snapshot. Data that cannot be encoded is not
+         * written, and neither is data of a data source that has been modified while the data was loaded.
+         *
+         * @param data
+         *            The data to be kept.
+         */
+        void write(Object data) {
+            if ((file == null) || (data == null)) {
+                return;
+            }
+            try {
+                byte[] encoded = SnapshotCodec.encode(data, getDeclaredTypes(resource));
+                byte[] hash = getContentHash();
+                if (sourceFile != null
+                        && (sourceFile.length() != sourceLength || sourceFile.lastModified() != sourceLastModified)) {
+                    logger.fine("Not writing the snapshot " + file + ", since its data source has been modified.");
+                    return;
+                }
+                ByteBuffer header = ByteBuffer.allocate(24 + hash.length);
+                header.putInt(MAGIC).putLong(sourceLength).putLong(sourceLastModified).putInt(hash.length).put(hash);
+
+                Files.createDirectories(directory.toPath());
+                // Write to a file of its own first, so that readers never see a partially written snapshot
+                File temporary = File.createTempFile(file.getName(), ".tmp", directory);
+                try {
+                    try (RandomAccessFile snapshotFile = new RandomAccessFile(temporary, "rw")) {
+                        snapshotFile.write(header.array());
+                        snapshotFile.write(encoded);
+                    }
+                    moveInPlace(temporary);
+                } finally {
+                    Files.deleteIfExists(temporary.toPath());
+                }
+            } catch (IOException | RuntimeException e) { // NOSONAR
+                logger.log(Level.FINE, "Unable to write the snapshot " + file, e);
+            }
+        }
+
+        /**
+         * @return <code>true</code> if a snapshot with the given content hash was taken of the current contents of the
+         *         data source. The contents are always hashed, whatever the size and the last modified time of the data
+         *         source are.
+         */
+        private boolean matches(byte[] hash) throws IOException {
+            return Arrays.equals(hash, getContentHash());
+        }
+
+        private synchronized byte[] getContentHash() throws IOException {
+            if (contentHash == null) {
+                contentHash = hashContents(resource);
+            }
+            return contentHash;
+        }
+
+        private void moveInPlace(File temporary) throws IOException {
+            try {
+                Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) { // NOSONAR
+                Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        /**
+         * Reads the content hash from the header of the snapshot. The size and the last modified time that precede it
+         * only tell how the data source looked when the snapshot was taken, so they are skipped.
+         */
+        private byte[] readHash(ByteBuffer buffer) {
+            buffer.getLong();
+            buffer.getLong();
+            byte[] hash = new byte[checkHashLength(buffer.getInt())];
+            buffer.get(hash);
+            return hash;
+        }
+
+        private byte[] readHash(DataInputStream input) throws IOException {
+            input.readLong();
+            input.readLong();
+            byte[] hash = new byte[checkHashLength(input.readInt())];
+            input.readFully(hash);
+            return hash;
+        }
+
+        private int checkHashLength(int length) {
+            if (length != HASH.bits() / Byte.SIZE) {
+                throw new IllegalStateException("Unexpected hash length " + length);
+            }
+            return length;
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot [file=" + file + "]";
+        }
+    }
+}
@@ -0,0 +1,284 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.paypal.selion.logger.SeLionLogger;
+import com.paypal.selion.platform.dataprovider.DataProviderConfig;
+import com.paypal.selion.platform.dataprovider.DataProviderConfig.DataProviderProperties;
+import com.paypal.selion.platform.dataprovider.DataProviderFactory;
+import com.paypal.selion.platform.dataprovider.DataResource;
+import com.paypal.test.utilities.logging.SimpleLogger;
+
+/**
+ * A bounded cache of parsed data sources that is shared by all the data providers that are handed out by
+ * {@link DataProviderFactory}. A data source is identified by the location of its file, its type, the class that its
+ * data is mapped into and the time it was last modified. So a file that is modified is parsed again. The least recently
+ * used data source is evicted once the cache is full.<br>
+ * <br>
+ * Only data sources that are backed by a {@link FileSystemResource} are cached, since streams can be read only once.
+ * When many threads ask for the same data source at the same time, it is parsed only once.<br>
+ * <br>
+ * The size of the cache can be configured via {@link DataProviderProperties#DATA_SOURCE_CACHE_SIZE}.
+ */
+@ThreadSafe
+public final class DataSourceCache {
+
+    private static final SimpleLogger logger = SeLionLogger.getLogger();
+
+    private static final DataSourceCache INSTANCE = new DataSourceCache(
+            DataProviderConfig.getIntConfigProperty(DataProviderProperties.DATA_SOURCE_CACHE_SIZE));
+
+    private final int maxSize;
+    private final Map<Key, Future<Object>> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    DataSourceCache(int maxSize) {
+        Preconditions.checkArgument(maxSize >= 0, "The size of the cache cannot be negative.");
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<Key, Future<Object>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Future<Object>> eldest) {
+                return size() > DataSourceCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return the {@link DataSourceCache} that is shared by all the data providers.
+     */
+    public static DataSourceCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the number of times a data source was found in the cache.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of times a data source had to be parsed.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the maximum number of data sources that are kept.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the number of data sources that are currently kept.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Evicts all the data sources and resets the hit and miss counters.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * Returns the parsed data source of a resource, parsing it with the given loader if it is not in the cache.
+     *
+     * @param resource
+     *            The {@link DataResource} that represents the data source.
+     * @param loader
+     *            A {@link Callable} that parses the data source.
+     * @return the parsed data source.
+     * @throws IOException
+     *             If the data source cannot be parsed.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(DataResource resource, Callable<T> loader) throws IOException {
+        logger.entering(resource);
+        Key key = (maxSize == 0) ? null : Key.of(resource);
+        if (key == null) {
+            return load(loader);
+        }
+
+        FutureTask<Object> newEntry = null;
+        Future<Object> entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry == null) {
+                newEntry = new FutureTask<>((Callable<Object>) loader);
+                entry = newEntry;
+                entries.put(key, entry);
+            }
+        }
+        if (newEntry != null) {
+            misses.incrementAndGet();
+            newEntry.run();
+        } else {
+            hits.incrementAndGet();
+        }
+
+        try {
+            T dataSource = (T) entry.get();
+            logger.exiting(dataSource);
+            return dataSource;
+        } catch (ExecutionException e) {
+            // Don't hold on to failures. The next caller should get a chance to parse it again.
+            synchronized (entries) {
+                if (entries.get(key) == entry) {
+                    entries.remove(key);
+                }
+            }
+            throw asIOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private static <T> T load(Callable<T> loader) throws IOException {
+        try {
+            return loader.call();
+        } catch (Exception e) { // NOSONAR
+            throw asIOException(e);
+        }
+    }
+
+    private static IOException asIOException(Throwable e) {
+        if (e instanceof IOException) {
+            return (IOException) e;
+        }
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IOException(e);
+    }
+
+    /**
+     * Identifies a data source by the location of its file, its type, its class and the time it was last modified.
+     */
+    static final class Key {
+        private final String location;
+        private final String type;
+        private final Class<?> cls;
+        private final long lastModified;
+
+        Key(String location, String type, Class<?> cls, long lastModified) {
+            this.location = location;
+            this.type = type;
+            this.cls = cls;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * @return the {@link Key} of a resource or <code>null</code> if the resource cannot be cached.
+         */
+        static Key of(DataResource resource) {
+            if (!(resource instanceof FileSystemResource)) {
+                return null;
+            }
+            String fileName = ((FileSystemResource) resource).getFileName();
+            if (fileName == null) {
+                return null;
+            }
+            try {
+                // Resolve the file the very same way FileAssistant.loadFile() does
+                URL url = Thread.currentThread().getContextClassLoader().getResource(fileName);
+                if (url == null) {
+                    File file = new File(fileName);
+                    if (!file.isFile()) {
+                        return null;
+                    }
+                    url = file.getAbsoluteFile().toURI().toURL();
+                }
+                return new Key(url.toExternalForm(), resource.getType(), resource.getCls(), lastModified(url));
+            } catch (IOException | URISyntaxException e) { // NOSONAR
+                // It cannot be cached. Let the data provider report problems while reading it.
+                return null;
+            }
+        }
+
+        private static long lastModified(URL url) throws IOException, URISyntaxException {
+            if ("file".equals(url.getProtocol())) {
+                return new File(url.toURI()).lastModified();
+            }
+            URLConnection connection = url.openConnection();
+            connection.setUseCaches(false);
+            try {
+                return connection.getLastModified();
+            } finally {
+                connection.getInputStream().close();
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return lastModified == other.lastModified && location.equals(other.location)
+                    && Objects.equal(type, other.type) && Objects.equal(cls, other.cls);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(location, type, cls, lastModified);
+        }
+
+        @Override
+        public String toString() {
+            return "Key [location=" + location + ", type=" + type + ", cls=" + cls + ", lastModified=" + lastModified
+                    + "]";
+        }
+    }
+}
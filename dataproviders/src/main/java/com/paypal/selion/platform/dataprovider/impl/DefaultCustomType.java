@@ -17,9 +17,16 @@ package com.paypal.selion.platform.dataprovider.impl;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import com.paypal.selion.platform.dataprovider.impl.ConverterRegistry.MethodHandleConverter;
+import com.paypal.selion.platform.dataprovider.impl.ConverterRegistry.StringConverter;
 
 /**
  * This class represents a custom type that should automatically be handled. The intention is basically to grab the
@@ -34,6 +41,8 @@ public class DefaultCustomType {
     private Method instantiationMechanism;
     private Constructor<?> constructor;
     private Class<?> customTypeClass;
+    private MethodHandle handle;
+    private StringConverter stringConverter;
 
     /**
      * @param objectToUseForInstantiation
@@ -50,6 +59,7 @@ public class DefaultCustomType {
         if (objectToUseForInstantiation != null) {
             this.customTypeClass = objectToUseForInstantiation.getClass();
         }
+        initHandle();
     }
 
     /**
@@ -67,6 +77,7 @@ public class DefaultCustomType {
         this.objectToUseForInstantiation = null;
         this.instantiationMechanism = instantiationMechanism;
         this.customTypeClass = typeToUseForInstantiation;
+        initHandle();
     }
 
     /**
@@ -80,6 +91,44 @@ public class DefaultCustomType {
         checkArgument(constructorToInvoke != null, "The Constructor  should be done cannot be null.");
         this.constructor = constructorToInvoke;
         this.customTypeClass = constructorToInvoke.getDeclaringClass();
+        initHandle();
+    }
+
+    /**
+     * Resolves a {@link MethodHandle} for the instantiation mechanism once, so that instantiating new objects does not
+     * go through reflection. When no handle can be had, the reflective invocation reports the problem instead.
+     */
+    private void initHandle() {
+        try {
+            if (instantiationMechanism != null) {
+                instantiationMechanism.setAccessible(true);
+                handle = MethodHandles.lookup().unreflect(instantiationMechanism);
+                if (!Modifier.isStatic(instantiationMechanism.getModifiers())) {
+                    handle = handle.bindTo(objectToUseForInstantiation);
+                }
+            } else {
+                constructor.setAccessible(true);
+                handle = MethodHandles.lookup().unreflectConstructor(constructor);
+            }
+        } catch (IllegalAccessException | SecurityException | IllegalArgumentException | ClassCastException e) { // NOSONAR
+            handle = null;
+        }
+
+        if (handle != null && handle.type().parameterCount() == 1) {
+            try {
+                stringConverter = new MethodHandleConverter(handle);
+            } catch (WrongMethodTypeException e) { // NOSONAR
+                // The instantiation mechanism does not accept a String.
+            }
+        }
+        if (stringConverter == null) {
+            stringConverter = new StringConverter() {
+                @Override
+                public Object convert(String value) {
+                    return instantiateObject(value);
+                }
+            };
+        }
     }
 
     /**
@@ -89,6 +138,15 @@ public class DefaultCustomType {
      * @return - An {@link Object} that was instantiated using the already provided instantiation mechanism.
      */
     public Object instantiateObject(Object... args) {
+        if (handle != null) {
+            try {
+                return handle.invokeWithArguments(args);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) { // NOSONAR
+                throw new ReflectionUtils.ReflectionException(e);
+            }
+        }
         try {
             if (instantiationMechanism != null) {
                 return instantiationMechanism.invoke(objectToUseForInstantiation, args);
@@ -99,6 +157,27 @@ public class DefaultCustomType {
         }
     }
 
+    /**
+     * @return - A {@link StringConverter} that instantiates new objects from a single {@link String}.
+     */
+    StringConverter getStringConverter() {
+        return stringConverter;
+    }
+
+    /**
+     * @return - A {@link String} that identifies this custom type the same way across runs, or <code>null</code> if new
+     *         objects are instantiated via an instance method, since the state of that object cannot be identified.
+     */
+    String getIdentity() {
+        if (instantiationMechanism == null) {
+            return getCustomTypeClass().getName() + " " + constructor.toGenericString();
+        }
+        if (objectToUseForInstantiation != null && !Modifier.isStatic(instantiationMechanism.getModifiers())) {
+            return null;
+        }
+        return getCustomTypeClass().getName() + " " + instantiationMechanism.toGenericString();
+    }
+
     /**
      * @return - A {@link Class} that represents the type of the {@link Object} using which instantiation would be
      *         carried out.
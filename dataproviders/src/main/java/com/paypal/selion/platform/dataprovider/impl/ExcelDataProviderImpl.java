@@ -15,29 +15,42 @@
 
 package com.paypal.selion.platform.dataprovider.impl;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang3.ClassUtils;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
 
+import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
 import com.paypal.selion.logger.SeLionLogger;
 import com.paypal.selion.platform.dataprovider.DataProviderException;
 import com.paypal.selion.platform.dataprovider.DataResource;
 import com.paypal.selion.platform.dataprovider.ExcelDataProvider;
 import com.paypal.selion.platform.dataprovider.filter.DataProviderFilter;
+import com.paypal.selion.platform.dataprovider.filter.RawDataProviderFilter;
+import com.paypal.selion.platform.dataprovider.impl.DataSnapshotStore.Snapshot;
+import com.paypal.selion.platform.dataprovider.impl.ConverterRegistry.StringConverter;
+import com.paypal.selion.platform.dataprovider.impl.ExcelRowMappingPlan.FieldBinding;
+import com.paypal.selion.platform.dataprovider.impl.ExcelRowMappingPlan.ValueConverter;
+import com.paypal.selion.platform.dataprovider.impl.RowMappingHelper.ValueConverterFactory;
 import com.paypal.test.utilities.logging.SimpleLogger;
 
 /**
@@ -53,10 +66,15 @@ import com.paypal.test.utilities.logging.SimpleLogger;
 public class ExcelDataProviderImpl implements ExcelDataProvider {
 
     protected DataResource resource;
-    protected ExcelReader excelReader;
+    protected volatile ExcelReader excelReader;
 
     protected static final SimpleLogger logger = SeLionLogger.getLogger();
     private final List<DefaultCustomType> customTypes = new ArrayList<>();
+    private final Map<Class<?>, ExcelRowMappingPlan> rowMappingPlans = new ConcurrentHashMap<>();
+    private volatile NestedRowCaching nestedRowCaching = NestedRowCaching.DISABLED;
+    private final boolean streaming;
+    private final DataSourceCache cache;
+    private final Object readerLock = new Object();
 
     /**
      * The constructor will use the path name and the file name of the Excel workbook to initialize the input stream
@@ -89,8 +107,120 @@ public class ExcelDataProviderImpl implements ExcelDataProvider {
      * @throws IOException
      */
     public ExcelDataProviderImpl(DataResource resource) throws IOException {
+        this(resource, false);
+    }
+
+    /**
+     * Use this constructor when the excel workbook is to be read in a streaming fashion. When <code>streaming</code> is
+     * <code>true</code> and the resource represents a .xlsx file, the workbook is NOT loaded into memory as a whole.
+     * Instead {@link #getAllData()} and {@link #getDataByFilter(DataProviderFilter)} receive their rows while the sheet
+     * is being parsed, which considerably reduces the memory footprint and the load time of huge spreadsheets. Since
+     * .xls files cannot be streamed, they are always loaded into memory.
+     *
+     * <h3>Sample usage:</h3>
+     *
+     * <pre>
+     * DataResource resource = new FileSystemResource(&quot;src/test/resources/HugeSheet.xlsx&quot;, LOCAL_DATA.class);
+     * Object[][] myObj = new ExcelDataProviderImpl(resource, true).getAllData();
+     * </pre>
+     *
+     * @param resource
+     *            A {@link DataResource} object that represents an excel spreadsheet.
+     * @param streaming
+     *            <code>true</code> if a .xlsx file is to be read in a streaming fashion.
+     * @throws IOException
+     */
+    public ExcelDataProviderImpl(DataResource resource, boolean streaming) throws IOException {
         this.resource = resource;
-        excelReader = new ExcelReader(resource);
+        this.streaming = streaming;
+        this.cache = null;
+        openUnlessSnapshotExists();
+    }
+
+    /**
+     * Use this constructor when the parsed workbook is to be shared with other data providers that read the same
+     * excel spreadsheet. The workbook is parsed only if the {@link DataSourceCache} does not hold it already. What is
+     * shared are the cell values of the workbook, which are never modified, so that the data providers can read them
+     * from many threads at a time.
+     *
+     * @param resource
+     *            A {@link DataResource} object that represents an excel spreadsheet.
+     * @param cache
+     *            The {@link DataSourceCache} to fetch the parsed workbook from.
+     * @throws IOException
+     */
+    public ExcelDataProviderImpl(final DataResource resource, DataSourceCache cache) throws IOException {
+        Preconditions.checkArgument(cache != null, "Cache cannot be null.");
+        this.resource = resource;
+        this.streaming = false;
+        this.cache = cache;
+        openUnlessSnapshotExists();
+    }
+
+    /**
+     * Opens the workbook right away, unless there is a snapshot of all its data. In that case the workbook is opened
+     * only once it is read. See {@link #getExcelReader()}.
+     */
+    private void openUnlessSnapshotExists() throws IOException {
+        if (!getAllDataSnapshot().exists()) {
+            excelReader = openExcelReader();
+        }
+    }
+
+    private ExcelReader openExcelReader() throws IOException {
+        try (DataLoadRecorder recorder = DataLoadRecorder.start(this, resource, "open")) {
+            ExcelReader reader;
+            if (cache != null) {
+                ParsedWorkbook parsedWorkbook = cache.get(resource, new Callable<ParsedWorkbook>() {
+                    @Override
+                    public ParsedWorkbook call() throws IOException {
+                        return ParsedWorkbook.of(new ExcelReader(resource).getWorkBook());
+                    }
+                });
+                reader = new ParsedWorkbookReader(parsedWorkbook, resource);
+            } else if (streaming && StreamingExcelReader.isStreamable(resource)) {
+                reader = new StreamingExcelReader(resource);
+            } else {
+                reader = new ExcelReader(resource);
+            }
+            recorder.completed();
+            return reader;
+        }
+    }
+
+    /**
+     * @return the {@link ExcelReader} of the workbook, which is opened first if a snapshot kept it from being opened.
+     */
+    private ExcelReader getExcelReader() {
+        ExcelReader reader = excelReader;
+        if (reader == null) {
+            synchronized (readerLock) {
+                reader = excelReader;
+                if (reader == null) {
+                    try {
+                        reader = openExcelReader();
+                    } catch (IOException e) {
+                        throw new DataProviderException("Unable to open " + resource, e);
+                    }
+                    excelReader = reader;
+                }
+            }
+        }
+        return reader;
+    }
+
+    /**
+     * @return the {@link Snapshot} of the data returned by {@link #getAllData()}, which depends on the custom types
+     *         and the nested row caching, too.
+     */
+    private Snapshot getAllDataSnapshot() {
+        List<String> options = new ArrayList<>();
+        options.add(nestedRowCaching.name());
+        for (DefaultCustomType customType : customTypes) {
+            options.add(customType.getIdentity());
+        }
+        return DataSnapshotStore.getInstance().getSnapshot(resource, DataSnapshotStore.ALL_DATA,
+                options.toArray(new String[options.size()]));
     }
 
 
@@ -121,24 +251,89 @@ public class ExcelDataProviderImpl implements ExcelDataProvider {
         logger.entering();
         Hashtable<String, Object> hashTable = new Hashtable<>();
 
-        Sheet sheet = excelReader.fetchSheet(resource.getCls().getSimpleName());
-        int numRows = sheet.getPhysicalNumberOfRows();
-
-        for (int i = 2; i <= numRows; i++) {
-            Row row = sheet.getRow(i - 1);
-            if ((row != null) && (row.getCell(0) != null)) {
-                Object obj;
-                obj = getSingleExcelRow(getObject(), i, false);
-                String key = row.getCell(0).toString();
-                if ((key != null) && (obj != null)) {
-                    hashTable.put(key, obj);
-                }
+        ExcelRowMappingPlan plan = getRowMappingPlan(resource.getCls());
+        NestedRowCache nestedRows = newNestedRowCache();
+
+        for (Entry<String, List<String>> row : getRowContentsByKey(getExcelReader(), plan).entrySet()) {
+            DataLoadRecorder.addRowsParsed(1);
+            Object obj = mapRow(plan, row.getValue(), nestedRows);
+            if (obj != null) {
+                hashTable.put(row.getKey(), obj);
             }
         }
         logger.exiting(hashTable);
         return hashTable;
     }
 
+    /**
+     * Gives out the same rows as {@link #getDataAsHashtable()} does, but only the raw contents of the rows are read up
+     * front. A row is packed into an object of the user defined type when its key is first looked up.
+     *
+     * @return a read-only, thread-safe {@link Map} that represents the excel sheet data.
+     */
+    @Override
+    public Map<String, Object> getDataAsMap() {
+        logger.entering();
+        final Class<?> cls = resource.getCls();
+        final ExcelReader reader = getExcelReader();
+        final ExcelRowMappingPlan plan = getRowMappingPlan(cls);
+
+        // The look ups may come from any thread, so they are served from a copy of the rows and not from the workbook.
+        Map<String, List<String>> contents = getRowContentsByKey(reader, plan);
+
+        // The rows that are packed share nested objects the way the rows of a single call do.
+        final NestedRowCache nestedRows = newNestedRowCache();
+        Map<String, Object> dataMap = new LazyDataMap<>(contents, new Function<List<String>, Object>() {
+            @Override
+            public Object apply(List<String> excelRowData) {
+                DataLoadRecorder.addRowsParsed(1);
+                if (reader.isThreadSafe()) {
+                    return mapRow(plan, excelRowData, nestedRows);
+                }
+                // nested rows are still read from the other sheets of the workbook
+                synchronized (reader) {
+                    return mapRow(plan, excelRowData, nestedRows);
+                }
+            }
+        });
+        logger.exiting(contents.keySet());
+        return dataMap;
+    }
+
+    /**
+     * Reads the contents of the data rows of the sheet of a user defined type by their keys, in a single pass over the
+     * sheet. The rows are read the same way as {@link #getAllData()} reads them, so the rows that the user marked to
+     * be excluded and the rows without any data columns are left out. When a key occurs more than once, the last row
+     * that contains it is kept.
+     *
+     * @return the read-only contents of the rows by their keys, in the order in which the keys appear in the sheet.
+     */
+    private static Map<String, List<String>> getRowContentsByKey(ExcelReader reader, ExcelRowMappingPlan plan) {
+        if (reader.isThreadSafe()) {
+            return readRowContentsByKey(reader, plan);
+        }
+        synchronized (reader) {
+            return readRowContentsByKey(reader, plan);
+        }
+    }
+
+    private static Map<String, List<String>> readRowContentsByKey(ExcelReader reader, ExcelRowMappingPlan plan) {
+        Map<String, List<String>> contents = new LinkedHashMap<>();
+        Iterator<ExcelRowData> rows = reader.getRowDataIterator(plan.getType().getSimpleName(),
+                plan.getColumnCount());
+        try {
+            while (rows.hasNext()) {
+                ExcelRowData row = rows.next();
+                if (!row.getContents().isEmpty()) {
+                    contents.put(row.getKey(), Collections.unmodifiableList(new ArrayList<>(row.getContents())));
+                }
+            }
+        } finally {
+            closeQuietly(rows);
+        }
+        return contents;
+    }
+
     /**
      * This method fetches a specific row from an excel sheet which can be identified using a key and returns the data
      * as an Object which can be cast back into the user's actual data type.
@@ -150,7 +345,7 @@ public class ExcelDataProviderImpl implements ExcelDataProvider {
      */
     @Override
     public Object getSingleExcelRow(String key) {
-        return getSingleExcelRow(getObject(), key, true);
+        return getSingleExcelRow(resource.getCls(), key, true, newNestedRowCache());
     }
 
     /**
@@ -166,7 +361,7 @@ public class ExcelDataProviderImpl implements ExcelDataProvider {
      */
     @Override
     public Object getSingleExcelRow(int index) {
-        return getSingleExcelRow(getObject(), index, true);
+        return getSingleExcelRow(resource.getCls(), index, true, newNestedRowCache());
     }
 
     /**
@@ -205,9 +400,10 @@ public class ExcelDataProviderImpl implements ExcelDataProvider {
         logger.entering(indexes);
 
         Object[][] obj = new Object[indexes.length][1];
+        NestedRowCache nestedRows = newNestedRowCache();
         for (int i = 0; i < indexes.length; i++) {
             int actualIndex = indexes[i] + 1;
-            obj[i][0] = getSingleExcelRow(getObject(), actualIndex, false);
+            obj[i][0] = getSingleExcelRow(resource.getCls(), actualIndex, false, nestedRows);
         }
         logger.exiting((Object[]) obj);
         return obj;
@@ -226,9 +422,10 @@ public class ExcelDataProviderImpl implements ExcelDataProvider {
     public Object[][] getDataByKeys(String[] keys) {
         logger.entering(Arrays.toString(keys));
         Object[][] obj = new Object[keys.length][1];
+        NestedRowCache nestedRows = newNestedRowCache();
 
         for (int i = 0; i < keys.length; i++) {
-            obj[i][0] = getSingleExcelRow(getObject(), keys[i], true);
+            obj[i][0] = getSingleExcelRow(resource.getCls(), keys[i], true, nestedRows);
         }
         logger.exiting((Object[]) obj);
         return obj;
@@ -284,80 +481,124 @@ public class ExcelDataProviderImpl implements ExcelDataProvider {
     @Override
     public Object[][] getAllData() {
         logger.entering();
-        int i;
+        DataSharding sharding = DataSharding.getInstance();
+        if (sharding.isEnabled()) {
+            // Only the rows of this shard are packed into objects.
+            Object[][] shardData = Iterators.toArray(getDataByFilter(sharding.allRows()), Object[].class);
+            logger.exiting((Object[]) shardData);
+            return shardData;
+        }
+        Snapshot snapshot = getAllDataSnapshot();
+        Object[][] snapshotData = (Object[][]) snapshot.read();
+        if (snapshotData != null) {
+            logger.exiting((Object[]) snapshotData);
+            return snapshotData;
+        }
         Object[][] obj = null;
-        Field[] fields = resource.getCls().getDeclaredFields();
-
-        // Extracting number of rows of data to read
-        // Notice that numRows is returning the actual
-        // number of non-blank rows. Thus if there are
-        // blank rows in the sheet then we will miss
-        // some last rows of data.
-        List<Row> rowToBeRead = excelReader.getAllExcelRows(resource.getCls().getSimpleName(), false);
-        List<String> excelHeaderRow = getHeaderRowContents(resource.getCls().getSimpleName(), fields.length);
-        if (!rowToBeRead.isEmpty()) {
-            i = 0;
-            obj = new Object[rowToBeRead.size()][1];
-            for (Row row : rowToBeRead) {
-                List<String> excelRowData = excelReader.getRowContents(row, fields.length);
-                Map<String, String> headerRowDataMap = prepareHeaderRowDataMap(excelHeaderRow, excelRowData);
+        ExcelRowMappingPlan plan = getRowMappingPlan(resource.getCls());
+        NestedRowCache nestedRows = newNestedRowCache();
+
+        // Extracting the rows of data to read. When streaming, every row is handed over while the sheet is parsed.
+        Iterator<ExcelRowData> rowsToBeRead = getExcelReader().getRowDataIterator(resource.getCls().getSimpleName(),
+                plan.getColumnCount());
+        List<Object[]> rows = new ArrayList<>();
+        try {
+            while (rowsToBeRead.hasNext()) {
+                List<String> excelRowData = rowsToBeRead.next().getContents();
+                DataLoadRecorder.addRowsParsed(1);
                 if (excelRowData.size() != 0) {
-                    try {
-                        obj[i++][0] = prepareObject(getObject(), fields, excelRowData, headerRowDataMap);
-                    } catch (IllegalAccessException e) {
-                        throw new DataProviderException("Unable to create instance of type '"
-                                + resource.getCls().getName() + "'", e);
-                    }
+                    rows.add(new Object[] { mapRow(plan, excelRowData, nestedRows) });
                 }
             }
+        } finally {
+            closeQuietly(rowsToBeRead);
         }
+        if (!rows.isEmpty()) {
+            obj = rows.toArray(new Object[rows.size()][]);
+        }
+        snapshot.write(obj);
         logger.exiting((Object[]) obj);
         return obj;
     }
 
     /**
-     * Gets data from Excel sheet by applying the given filter.
+     * Gets all the Excel data the same way as {@link #getAllData()} does, but reads the rows and packs them into objects one
+     * at a time, as the returned iterator is being consumed.
+     *
+     * @return An iterator over a collection of Object Array to be used with TestNG DataProvider
+     */
+    @Override
+    public Iterator<Object[]> getAllDataIterator() {
+        logger.entering();
+        Iterator<Object[]> objs = getDataByFilter(DataSharding.getInstance().allRows());
+        logger.exiting(objs);
+        return objs;
+    }
+
+    /**
+     * Gets data from Excel sheet by applying the given filter. The rows are read, packed into objects and filtered one
+     * at a time, as the returned iterator is being consumed. The rows rejected by a {@link RawDataProviderFilter} are
+     * not packed into objects at all.
      *
      * @param dataFilter
      *            an implementation class of {@link DataProviderFilter}
      * @return An iterator over a collection of Object Array to be used with TestNG DataProvider
      */
     @Override
-    public Iterator<Object[]> getDataByFilter(DataProviderFilter dataFilter) {
+    public Iterator<Object[]> getDataByFilter(final DataProviderFilter dataFilter) {
         logger.entering(dataFilter);
-        List<Object[]> objs = new ArrayList<>();
-        Field[] fields = resource.getCls().getDeclaredFields();
-
-        // Extracting number of rows of data to read
-        // Notice that numRows is returning the actual number of non-blank rows.
-        // Thus if there are blank rows in the sheet then we will miss some last rows of data.
-        List<Row> rowToBeRead = excelReader.getAllExcelRows(resource.getCls().getSimpleName(), false);
-        List<String> excelHeaderRow = getHeaderRowContents(resource.getCls().getSimpleName(), fields.length);
-        for (Row row : rowToBeRead) {
-            List<String> excelRowData = excelReader.getRowContents(row, fields.length);
-            Map<String, String> headerRowDataMap = prepareHeaderRowDataMap(excelHeaderRow, excelRowData);
-            if (excelRowData.size() != 0) {
+        final DataProviderFilter rowFilter = DataSharding.getInstance().restrict(dataFilter);
+        final ExcelRowMappingPlan plan = getRowMappingPlan(resource.getCls());
+        final NestedRowCache nestedRows = newNestedRowCache();
+
+        // Extracting the rows of data to read. When streaming, every row is handed over while the sheet is parsed.
+        final Iterator<ExcelRowData> rowsToBeRead = getExcelReader().getRowDataIterator(resource.getCls().getSimpleName(),
+                plan.getColumnCount());
+        final int lastPosition = DataProviderHelper.getLastPosition(rowFilter);
+        final RawDataProviderFilter rawFilter = (rowFilter instanceof RawDataProviderFilter)
+                ? (RawDataProviderFilter) rowFilter : null;
+        Iterator<Object[]> objs = new AbstractIterator<Object[]>() {
+            private int position;
+
+            @Override
+            protected Object[] computeNext() {
                 try {
-                    Object temp = prepareObject(getObject(), fields, excelRowData, headerRowDataMap);
-                    if (dataFilter.filter(temp)) {
-                        objs.add(new Object[] { temp });
+                    while (position < lastPosition && rowsToBeRead.hasNext()) {
+                        ExcelRowData row = rowsToBeRead.next();
+                        DataLoadRecorder.addRowsParsed(1);
+                        List<String> excelRowData = row.getContents();
+                        if (excelRowData.size() != 0) {
+                            position++;
+                            if (rawFilter != null && !rawFilter.filterRaw(RawDataRows.forExcelRow(plan,
+                                    row.getKey(), excelRowData, position))) {
+                                // Rejected before being packed into an object.
+                                continue;
+                            }
+                            Object temp = mapRow(plan, excelRowData, nestedRows);
+                            if (rowFilter.filter(temp, position)) {
+                                return new Object[] { temp };
+                            }
+                        }
                     }
-                } catch (IllegalAccessException e) {
-                    throw new DataProviderException("Unable to create instance of type '" + resource.getCls().getName()
-                            + "'", e);
+                } catch (RuntimeException e) {
+                    closeQuietly(rowsToBeRead);
+                    throw e;
                 }
+                // A streamed sheet may not have been read up to its end when the last position was reached.
+                closeQuietly(rowsToBeRead);
+                return endOfData();
             }
-        }
-        logger.exiting(objs.iterator());
-        return objs.iterator();
+        };
+        logger.exiting(objs);
+        return objs;
     }
 
-    private Object getObject() {
-        try {
-            return resource.getCls().newInstance();
-        } catch (IllegalAccessException | InstantiationException e) {
-            throw new DataProviderException("Unable to create instance of type '" + resource.getCls().getName()
-                    + "'", e);
+    /**
+     * Releases the sheet that the rows of a streaming reader are parsed from.
+     */
+    private static void closeQuietly(Iterator<ExcelRowData> rows) {
+        if (rows instanceof Closeable) {
+            IOUtils.closeQuietly((Closeable) rows);
         }
     }
 
@@ -369,6 +610,23 @@ public class ExcelDataProviderImpl implements ExcelDataProvider {
     public final void addCustomTypes(DefaultCustomType type) {
         Preconditions.checkArgument(type != null, "Type cannot be null.");
         customTypes.add(type);
+        // The converters of the compiled plans may no longer be accurate.
+        rowMappingPlans.clear();
+    }
+
+    @Override
+    public void setNestedRowCaching(NestedRowCaching caching) {
+        Preconditions.checkArgument(caching != null, "Caching cannot be null.");
+        nestedRowCaching = caching;
+    }
+
+    /**
+     * @return a new {@link NestedRowCache} for a single call to this data provider or <code>null</code> if the rows of
+     *         other sheets are not to be cached.
+     */
+    private NestedRowCache newNestedRowCache() {
+        NestedRowCaching caching = nestedRowCaching;
+        return (caching == NestedRowCaching.DISABLED) ? null : new NestedRowCache(caching);
     }
 
     /**
@@ -387,21 +645,18 @@ public class ExcelDataProviderImpl implements ExcelDataProvider {
      */
     protected Object getSingleExcelRow(Object userObj, String key, boolean isExternalCall) {
         logger.entering(new Object[] { userObj, key, isExternalCall });
-        Class<?> cls;
-        try {
-            cls = Class.forName(userObj.getClass().getName());
-        } catch (ClassNotFoundException e) {
-            throw new DataProviderException("Unable to find class of type + '" + userObj.getClass().getName() + "'", e);
-        }
-        int rowIndex = excelReader.getRowIndex(cls.getSimpleName(), key);
+        Object object = getSingleExcelRow(userObj.getClass(), key, isExternalCall, newNestedRowCache());
+        logger.exiting(object);
+        return object;
+    }
+
+    private Object getSingleExcelRow(Class<?> cls, String key, boolean isExternalCall, NestedRowCache nestedRows) {
+        int rowIndex = getExcelReader().getRowIndex(cls.getSimpleName(), key);
 
         if (rowIndex == -1) {
             throw new DataProviderException("Row with key '" + key + "' is not found");
         }
-        Object object = getSingleExcelRow(userObj, rowIndex, isExternalCall);
-        logger.exiting(object);
-        return object;
-
+        return getSingleExcelRow(cls, rowIndex, isExternalCall, nestedRows);
     }
 
     /**
@@ -420,39 +675,76 @@ public class ExcelDataProviderImpl implements ExcelDataProvider {
      *
      */
     protected Object getSingleExcelRow(Object userObj, int index, boolean isExternalCall) {
+        logger.entering(new Object[] { userObj, index, isExternalCall });
+        Object obj = getSingleExcelRow(userObj.getClass(), index, isExternalCall, newNestedRowCache());
+        logger.exiting(obj);
+        return obj;
+    }
+
+    private Object getSingleExcelRow(Class<?> cls, int index, boolean isExternalCall, NestedRowCache nestedRows) {
         int newIndex = index;
         if (isExternalCall) {
             newIndex++;
-
         }
-        logger.entering(new Object[] { userObj, newIndex });
-        Object obj;
-
-        Class<?> cls;
-        try {
-            cls = Class.forName(userObj.getClass().getName());
-        } catch (ClassNotFoundException e) {
-            throw new DataProviderException("Unable to find class of type + '" + userObj.getClass().getName() + "'", e);
-        }
-        Field[] fields = cls.getDeclaredFields();
-
-        List<String> excelHeaderRow = getHeaderRowContents(cls.getSimpleName(), fields.length);
-        List<String> excelRowData = getRowContents(cls.getSimpleName(), newIndex, fields.length);
-        Map<String, String> headerRowDataMap = prepareHeaderRowDataMap(excelHeaderRow, excelRowData);
-        if (excelRowData != null && excelRowData.size() != 0) {
-            try {
-                obj = prepareObject(userObj, fields, excelRowData, headerRowDataMap);
-            } catch (IllegalAccessException e) {
-                throw new DataProviderException("Unable to create instance of type '" + userObj.getClass().getName()
-                        + "'", e);
-            }
-        } else {
+        ExcelRowMappingPlan plan = getRowMappingPlan(cls);
+        List<String> excelRowData = getRowContents(cls.getSimpleName(), newIndex, plan.getColumnCount());
+        DataLoadRecorder.addRowsParsed(1);
+        if (excelRowData == null || excelRowData.size() == 0) {
             throw new DataProviderException("Row with key '" + newIndex + "' is not found");
         }
+        return mapRow(plan, excelRowData, nestedRows);
+    }
 
-        logger.exiting(obj);
+    private Object mapRow(ExcelRowMappingPlan plan, List<String> excelRowData, NestedRowCache nestedRows) {
+        return RowMappingHelper.mapRow(plan, excelRowData, nestedRows);
+    }
 
-        return obj;
+    /**
+     * Fetches the row of another sheet that a data member refers to by its key. When a {@link NestedRowCache} is
+     * given, the row is packed into an object only once per call to this data provider.
+     */
+    private Object getNestedRow(Class<?> cls, String key, NestedRowCache nestedRows) {
+        if (nestedRows == null) {
+            return getSingleExcelRow(cls, key, true, null);
+        }
+        Object row = nestedRows.get(cls, key);
+        if (row == null) {
+            row = getSingleExcelRow(cls, key, true, nestedRows);
+            nestedRows.put(cls, key, row);
+        }
+        if (!nestedRows.isCopyOnRead()) {
+            return row;
+        }
+        try {
+            return getRowMappingPlan(cls).copy(row);
+        } catch (IllegalAccessException e) {
+            throw new DataProviderException("Unable to create instance of type '" + cls.getName() + "'", e);
+        }
+    }
+
+    /**
+     * Returns the {@link ExcelRowMappingPlan} for a user defined type, compiling it on first use. The plan binds the
+     * columns of the header row of the sheet that represents the type to its data members along with the conversion to
+     * use for each of them, so that none of this is worked out again for every row that is read.
+     *
+     * @param cls
+     *            The user defined type into which rows are to be packed into.
+     * @return the {@link ExcelRowMappingPlan} for the type.
+     */
+    ExcelRowMappingPlan getRowMappingPlan(Class<?> cls) {
+        ExcelRowMappingPlan plan = rowMappingPlans.get(cls);
+        if (plan == null) {
+            int columnCount = cls.getDeclaredFields().length;
+            List<String> excelHeaderRow = getHeaderRowContents(cls.getSimpleName(), columnCount);
+            plan = RowMappingHelper.compilePlan(cls, excelHeaderRow, columnCount, new ValueConverterFactory() {
+                @Override
+                public ValueConverter create(Class<?> type) {
+                    return createValueConverter(type);
+                }
+            });
+            rowMappingPlans.put(cls, plan);
+        }
+        return plan;
     }
 
     private DefaultCustomType fetchMatchingCustomType(Class<?> type) {
@@ -492,6 +784,7 @@ public class ExcelDataProviderImpl implements ExcelDataProvider {
             Map<String,String> headerRowDataMap) throws IllegalAccessException {
         logger.entering(new Object[] { userObj, fields, excelRowData, headerRowDataMap });
         Object objectToReturn = createObjectToUse(userObj);
+        NestedRowCache nestedRows = newNestedRowCache();
 
         for (Field eachField : fields) {
             // If the data is not present in excel sheet then skip it
@@ -499,64 +792,12 @@ public class ExcelDataProviderImpl implements ExcelDataProvider {
             if (StringUtils.isEmpty(data)) {
                 continue;
             }
-
-            Class<?> eachFieldType = eachField.getType();
-
-            if (eachFieldType.isInterface()) {
-                // We cannot work with Interfaces because for instantiating them we would need to use Proxy
-                // and also build in assumptions on what type of the implementation we are going to be providing back to
-                // the user.
-                // things get complex if the user supplies us with an interface of which we dont have any idea.
-                // so lets just throw an error and bail out.
-                throw new IllegalArgumentException(eachField.getName()
-                        + " is an interface. Interfaces are not supported.");
-            }
-
-            eachField.setAccessible(true);
-            boolean isArray = eachFieldType.isArray();
-            DataMemberInformation memberInfo = new DataMemberInformation(eachField, userObj, objectToReturn, data);
-            if (isArray) {
-                try {
-                    setValueForArrayType(memberInfo);
-                } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException | InstantiationException e) {
-                    throw new DataProviderException(e.getMessage(), e);
-                }
-            } else {
-                try {
-                    setValueForNonArrayType(memberInfo);
-                } catch (InstantiationException | IllegalArgumentException | InvocationTargetException
-                        | NoSuchMethodException | SecurityException e) {
-                    throw new DataProviderException(e.getMessage(), e);
-                }
-            }
+            new FieldBinding(-1, eachField, createValueConverter(eachField.getType())).apply(objectToReturn, data,
+                    nestedRows);
         }
         logger.exiting(objectToReturn);
         return objectToReturn;
     }
-    
-   
-    /*
-     * prepares map of excel header row and the the excel data row
-     * 
-     * @param header the excel header row
-     * 
-     * @param rowData row data to be used for preparing the return value
-     * 
-     * @return map of the header row and data row
-     */
-    private Map<String, String> prepareHeaderRowDataMap(List<String> header, List<String> rowData) {
-        Map<String, String> headerRowDataMap = new HashMap<>();
-        if (header.size() == rowData.size()) {
-            for (int i = 0; i < header.size(); i++) {
-                if (null != header.get(i)) {
-                    headerRowDataMap.put(header.get(i).toLowerCase(), rowData.get(i));
-                }
-            }
-        } else {
-            logger.warning("header and columns are not of same size");
-        }
-        return headerRowDataMap;
-    }
 
     private Object createObjectToUse(Object userObject) throws IllegalAccessException {
         try {
@@ -573,115 +814,117 @@ public class ExcelDataProviderImpl implements ExcelDataProvider {
     }
 
     /**
-     * A utility method that setups up data members which are arrays.
-     *
-     * @param memberInfo
-     *            A {@link DataMemberInformation} object that represents values pertaining to every data member.
-     * @throws IllegalAccessException
-     * @throws ArrayIndexOutOfBoundsException
-     * @throws IllegalArgumentException
-     * @throws InstantiationException
+     * A utility method that works out how the String data of a cell is to be converted into a data member of the given
+     * type. The look ups are done once here so that the returned {@link ValueConverter} can be reused for every row.
+     *
+     * @param eachFieldType
+     *            The type of the data member.
+     * @return A {@link ValueConverter} for the type.
      */
-    private void setValueForArrayType(DataMemberInformation memberInfo) throws IllegalAccessException,
-            ArrayIndexOutOfBoundsException, IllegalArgumentException, InstantiationException {
-        logger.entering(memberInfo);
-        Field eachField = memberInfo.getField();
-        Object objectToSetDataInto = memberInfo.getObjectToSetDataInto();
-        String data = memberInfo.getDataToUse();
-        Class<?> eachFieldType = eachField.getType();
-
-        // We are dealing with arrays
-        String[] arrayData = data.split(",");
-        Object arrayObject;
-        // Check if its an array of primitive data type
-        if (ReflectionUtils.isPrimitiveArray(eachFieldType)) {
-            arrayObject = ReflectionUtils.instantiatePrimitiveArray(eachFieldType, arrayData);
-            eachField.set(objectToSetDataInto, arrayObject);
-            logger.exiting();
-            return;
-        }
-        if (ReflectionUtils.isWrapperArray(eachFieldType)
-                || ReflectionUtils.hasOneArgStringConstructor(eachFieldType.getComponentType())) {
-            // Check if its an array of either Wrapper classes or classes that have a 1 arg string constructor
-            arrayObject = ReflectionUtils.instantiateWrapperArray(eachFieldType, arrayData);
-            eachField.set(objectToSetDataInto, arrayObject);
-            logger.exiting();
-            return;
-        }
-        DefaultCustomType customType = fetchMatchingCustomType(eachFieldType);
+    private ValueConverter createValueConverter(final Class<?> eachFieldType) {
+        if (eachFieldType.isInterface()) {
+            // Interfaces are rejected by the FieldBinding when there is data for them.
+            return null;
+        }
+        if (eachFieldType.isArray()) {
+            return createArrayValueConverter(eachFieldType);
+        }
+        if (eachFieldType.isPrimitive() || ClassUtils.isPrimitiveWrapper(eachFieldType)
+                || ReflectionUtils.hasOneArgStringConstructor(eachFieldType)) {
+            // We found a primitive data type such as int, float etc., a wrapper data type such as Float, Integer etc.,
+            // or a class that has a 1 arg constructor. String.class is an example for that.
+            return RowMappingHelper.newValueConverter(getStringConverter(eachFieldType));
+        }
+        final DefaultCustomType customType = fetchMatchingCustomType(eachFieldType);
         if (customType != null) {
-            // Maybe it belongs to one of the custom types
-            arrayObject = ReflectionUtils.instantiateDefaultCustomTypeArray(customType, arrayData);
-            eachField.set(objectToSetDataInto, arrayObject);
-            logger.exiting();
-            return;
+            // If we are here then it means that the field is one of the predefined custom types that was given to us.
+            return RowMappingHelper.newValueConverter(customType.getStringConverter());
         }
-        // If we are here then it means that the field is a Pojo class that points to another sheet in the excel sheet
-        arrayObject = Array.newInstance(eachFieldType.getComponentType(), arrayData.length);
-        for (int counter = 0; counter < arrayData.length; counter++) {
-            Array.set(arrayObject, counter,
-                    getSingleExcelRow(eachFieldType.getComponentType().newInstance(), arrayData[counter].trim(), true));
+        // If eventually we land here, then we have found a pojo class given by the user that points to another
+        // sheet in the excel sheet.
+        return new ValueConverter() {
+            @Override
+            public Object convert(String data, NestedRowCache nestedRows) {
+                return getNestedRow(eachFieldType, data, nestedRows);
+            }
+
+            @Override
+            public Object copy(Object value) throws IllegalAccessException {
+                return (value == null) ? null : getRowMappingPlan(eachFieldType).copy(value);
+            }
+        };
+    }
+
+    /**
+     * @return the {@link StringConverter} of the type. Types such as char cannot be converted. They are reported when
+     *         there is data for them.
+     */
+    private static StringConverter getStringConverter(final Class<?> type) {
+        StringConverter converter = ConverterRegistry.getConverter(type);
+        if (converter != null) {
+            return converter;
         }
-        eachField.set(objectToSetDataInto, arrayObject);
-        logger.exiting();
+        return new StringConverter() {
+            @Override
+            public Object convert(String value) {
+                return ReflectionUtils.getStringConverter(type).convert(value);
+            }
+        };
     }
 
     /**
-     * A utility method that setups up data members which are NOT arrays.
-     *
-     * @param memberInfo
-     *            A {@link DataMemberInformation} object that represents values pertaining to every data member.
+     * A utility method that works out how the String data of a cell is to be converted into a data member which is an
+     * array.
      *
-     * @throws IllegalAccessException
-     * @throws InstantiationException
-     * @throws IllegalArgumentException
-     * @throws InvocationTargetException
-     * @throws NoSuchMethodException
-     * @throws SecurityException
+     * @param eachFieldType
+     *            The array type of the data member.
+     * @return A {@link ValueConverter} for the type.
      */
-    private void setValueForNonArrayType(DataMemberInformation memberInfo) throws IllegalAccessException,
-            InstantiationException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException,
-            SecurityException {
-        logger.entering(memberInfo);
-        Field eachField = memberInfo.getField();
-        Class<?> eachFieldType = eachField.getType();
-        Object objectToSetDataInto = memberInfo.getObjectToSetDataInto();
-        Object userProvidedObject = memberInfo.getUserProvidedObject();
-        String data = memberInfo.getDataToUse();
-
-        boolean isPrimitive = eachFieldType.isPrimitive();
-        if (isPrimitive) {
-            // We found a primitive data type such as int, float, char etc.,
-            eachField.set(objectToSetDataInto,
-                    ReflectionUtils.instantiatePrimitiveObject(eachFieldType, userProvidedObject, data));
-            logger.exiting();
-            return;
-        }
-        if (ClassUtils.isPrimitiveWrapper(eachFieldType)) {
-            // We found a wrapper data type such as Float, Integer, Character etc.,
-            eachField.set(objectToSetDataInto,
-                    ReflectionUtils.instantiateWrapperObject(eachFieldType, userProvidedObject, data));
-            logger.exiting();
-            return;
-        }
-        if (ReflectionUtils.hasOneArgStringConstructor(eachFieldType)) {
-            // We found a class that has a 1 arg constructor. String.class is an example for that.
-            Object objToSet = eachFieldType.getConstructor(new Class<?>[] { String.class }).newInstance(data);
-            eachField.set(objectToSetDataInto, objToSet);
-            logger.exiting();
-            return;
-        }
-        DefaultCustomType customType = fetchMatchingCustomType(eachFieldType);
+    private ValueConverter createArrayValueConverter(final Class<?> eachFieldType) {
+        final Class<?> componentType = eachFieldType.getComponentType();
+        if (ReflectionUtils.isPrimitiveArray(eachFieldType) || ReflectionUtils.isWrapperArray(eachFieldType)
+                || ReflectionUtils.hasOneArgStringConstructor(componentType)) {
+            // Check if its an array of either primitive data types, Wrapper classes or classes that have a 1 arg
+            // string constructor
+            return RowMappingHelper.newArrayValueConverter(componentType, getStringConverter(componentType));
+        }
+        final DefaultCustomType customType = fetchMatchingCustomType(eachFieldType);
         if (customType != null) {
-            // If we are here then it means that the field is one of the predefined custom types that was given to us.
-            eachField.set(objectToSetDataInto, customType.instantiateObject(data));
-            logger.exiting();
-            return;
+            // Maybe it belongs to one of the custom types
+            return new ValueConverter() {
+                @Override
+                public Object convert(String data, NestedRowCache nestedRows) {
+                    return ReflectionUtils.instantiateDefaultCustomTypeArray(customType, data.split(","));
+                }
+            };
         }
-        // If eventually we land here, then we have found a pojo class given by the user that points to another
-        // sheet in the excel sheet.
-        eachField.set(objectToSetDataInto, getSingleExcelRow(eachFieldType.newInstance(), data, true));
-        logger.exiting();
+        // If we are here then it means that the field is a Pojo class that points to another sheet in the excel sheet
+        return new ValueConverter() {
+            @Override
+            public Object convert(String data, NestedRowCache nestedRows) {
+                String[] arrayData = data.split(",");
+                Object arrayObject = Array.newInstance(componentType, arrayData.length);
+                for (int counter = 0; counter < arrayData.length; counter++) {
+                    Array.set(arrayObject, counter, getNestedRow(componentType, arrayData[counter].trim(), nestedRows));
+                }
+                return arrayObject;
+            }
+
+            @Override
+            public Object copy(Object value) throws IllegalAccessException {
+                if (value == null) {
+                    return null;
+                }
+                ExcelRowMappingPlan plan = getRowMappingPlan(componentType);
+                int length = Array.getLength(value);
+                Object arrayObject = Array.newInstance(componentType, length);
+                for (int counter = 0; counter < length; counter++) {
+                    Object element = Array.get(value, counter);
+                    Array.set(arrayObject, counter, (element == null) ? null : plan.copy(element));
+                }
+                return arrayObject;
+            }
+        };
     }
 
     /**
@@ -699,7 +942,7 @@ public class ExcelDataProviderImpl implements ExcelDataProvider {
      * @return List<String> String array contains the row data.
      */
     public List<String> getRowContents(String sheetName, int rowIndex, int size) {
-        return excelReader.getRowContents(sheetName, rowIndex, size);
+        return getExcelReader().getRowContents(sheetName, rowIndex, size);
     }
 
     /**
@@ -712,7 +955,7 @@ public class ExcelDataProviderImpl implements ExcelDataProvider {
      * @return the header row data.
      */
     public List<String> getHeaderRowContents(String sheetName, int size) {
-        return excelReader.getHeaderRowContents(sheetName, size);
+        return getExcelReader().getHeaderRowContents(sheetName, size);
     }
 
     /**
@@ -726,6 +969,6 @@ public class ExcelDataProviderImpl implements ExcelDataProvider {
      * @return A List of {@link Row} that are read.
      */
     public List<Row> getAllRawExcelRows(String sheetName, boolean heading) {
-        return excelReader.getAllExcelRows(sheetName, heading);
+        return getExcelReader().getAllExcelRows(sheetName, heading);
     }
 }
\ No newline at end of file
@@ -17,7 +17,13 @@ package com.paypal.selion.platform.dataprovider.impl;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
@@ -47,6 +53,11 @@ class ExcelReader {
      */
     private final SimpleLogger logger = SeLionLogger.getLogger();
 
+    /**
+     * The key to row number index of every sheet that was searched. See {@link #getRowIndex(String, String)}.
+     */
+    private final Map<String, Map<String, Integer>> sheetRowIndexes = new ConcurrentHashMap<>();
+
     /**
      * Use this constructor when a file that is available in the classpath is to be read by the ExcelDataProvider for
      * supporting Data Driven Tests.
@@ -66,9 +77,9 @@ class ExcelReader {
 
         try {
             if (resource.getType().toLowerCase().endsWith("xlsx")) {
-                workBook = new XSSFWorkbook(resource.getInputStream());
+                workBook = new XSSFWorkbook(DataLoadRecorder.countBytes(resource.getInputStream()));
             } else if (resource.getType().toLowerCase().endsWith("xls")) {
-                workBook = new HSSFWorkbook(resource.getInputStream());
+                workBook = new HSSFWorkbook(DataLoadRecorder.countBytes(resource.getInputStream()));
             }
             IOUtils.closeQuietly(resource.getInputStream());
         } catch (IOException e) {
@@ -88,6 +99,28 @@ class ExcelReader {
         logger.exiting();
     }
 
+    /**
+     * Constructor for sub classes which take care of loading the workbook on their own. See {@link #getWorkBook()}.
+     */
+    ExcelReader() {
+        // Nothing to load here.
+    }
+
+    /**
+     * @return the in memory representation of the whole excel file.
+     */
+    protected Workbook getWorkBook() {
+        return workBook;
+    }
+
+    /**
+     * @return <code>true</code> if many threads may read rows at a time. A POI {@link Workbook} is not meant to be read
+     *         that way, so this is <code>false</code> unless a sub class says otherwise.
+     */
+    boolean isThreadSafe() {
+        return false;
+    }
+
     /**
      * Get all excel rows from a specified sheet.
      * 
@@ -126,6 +159,26 @@ class ExcelReader {
         return rows;
     }
 
+    /**
+     * Iterates over the data rows (i.e., all rows except the header row) of a specified sheet. Rows which the user
+     * marked to be excluded by adding a # in the first column are skipped.
+     * 
+     * @param sheetName
+     *            A String that represents the Sheet name
+     * @param size
+     *            The number of columns to read, including empty and blank column.
+     * @return An {@link Iterator} over the contents of the data rows.
+     */
+    public Iterator<ExcelRowData> getRowDataIterator(String sheetName, int size) {
+        logger.entering(new Object[] { sheetName, size });
+        List<ExcelRowData> rowData = new ArrayList<>();
+        for (Row row : getAllExcelRows(sheetName, false)) {
+            rowData.add(new ExcelRowData(row.getRowNum(), row.getCell(0).toString(), getRowContents(row, size)));
+        }
+        logger.exiting();
+        return rowData.iterator();
+    }
+
     /**
      * A utility method, which returns {@link Sheet} for a given sheet name.
      * 
@@ -134,7 +187,7 @@ class ExcelReader {
      */
     protected Sheet fetchSheet(String sheetName) {
         logger.entering(sheetName);
-        Sheet sheet = workBook.getSheet(sheetName);
+        Sheet sheet = getWorkBook().getSheet(sheetName);
         if (sheet == null) {
             IllegalArgumentException e = new IllegalArgumentException("Sheet '" + sheetName + "' is not found.");
             throw e;
@@ -150,7 +203,7 @@ class ExcelReader {
      * @return true if the sheet exists, false otherwise
      */
     public boolean sheetExists(String sheetName) {
-        return (workBook.getSheet(sheetName) != null);
+        return (getWorkBook().getSheet(sheetName) != null);
     }
 
     /**
@@ -225,6 +278,31 @@ class ExcelReader {
         return rowData;
     }
 
+    /**
+     * Indexes the keys of the data rows of a sheet, i.e., of all rows except the header row, by the row number that
+     * {@link #getRowContents(String, int, int)} expects. When a key occurs more than once, the last row that contains
+     * it is indexed. Unlike {@link #getRowIndex(String, String)}, keys that contain a "#" are not left out.
+     *
+     * @param sheetName
+     *            - A String that represents the Sheet name from which data is to be read
+     * @return the key to row number index of the data rows, in the order in which the rows appear in the sheet.
+     */
+    public Map<String, Integer> getRowKeys(String sheetName) {
+        logger.entering(sheetName);
+        Map<String, Integer> rowKeys = new LinkedHashMap<>();
+        Sheet sheet = fetchSheet(sheetName);
+        int numRows = sheet.getPhysicalNumberOfRows();
+
+        for (int i = 2; i <= numRows; i++) {
+            Row row = sheet.getRow(i - 1);
+            if ((row != null) && (row.getCell(0) != null)) {
+                rowKeys.put(row.getCell(0).toString(), i);
+            }
+        }
+        logger.exiting(rowKeys);
+        return rowKeys;
+    }
+
     /**
      * Search for the input key from the specified sheet name and return the index position of the row that contained
      * the key
@@ -239,23 +317,52 @@ class ExcelReader {
      */
     public int getRowIndex(String sheetName, String key) {
         logger.entering(new Object[] { sheetName, key });
-        int index = -1;
+        Integer rowIndex = getRowIndexes(sheetName).get(key);
+        int index = (rowIndex == null) ? -1 : rowIndex;
+        logger.exiting(index);
+        return index;
+    }
+
+    /**
+     * @return the key to row number index of a sheet. The index is built on the first look up against the sheet and
+     *         then shared by all the look ups that follow.
+     */
+    private Map<String, Integer> getRowIndexes(String sheetName) {
+        Map<String, Integer> rowIndexes = sheetRowIndexes.get(sheetName);
+        if (rowIndexes == null) {
+            rowIndexes = Collections.unmodifiableMap(buildRowIndexes(sheetName));
+            sheetRowIndexes.put(sheetName, rowIndexes);
+        }
+        return rowIndexes;
+    }
+
+    /**
+     * Builds the key to row number index of a sheet. Keys that contain a "#" are left out, and when a key occurs more
+     * than once, the first row that contains it is indexed.
+     *
+     * @param sheetName
+     *            - A String that represents the Sheet name from which data is to be read
+     * @return the key to row number index of the sheet.
+     */
+    protected Map<String, Integer> buildRowIndexes(String sheetName) {
+        Map<String, Integer> rowIndexes = new HashMap<>();
         Sheet sheet = fetchSheet(sheetName);
 
         int rowCount = sheet.getPhysicalNumberOfRows();
         for (int i = 0; i < rowCount; i++) {
             Row row = sheet.getRow(i);
-            if (row == null) {
+            if (row == null || row.getCell(0) == null) {
                 continue;
             }
-            String cellValue = row.getCell(0).toString();
-            if ((key.compareTo(cellValue) == 0) && (!cellValue.contains("#"))) {
-                index = i;
-                break;
-            }
+            addRowIndex(rowIndexes, row.getCell(0).toString(), i);
+        }
+        return rowIndexes;
+    }
+
+    static void addRowIndex(Map<String, Integer> rowIndexes, String key, int rowNumber) {
+        if (key != null && !key.contains("#") && !rowIndexes.containsKey(key)) {
+            rowIndexes.put(key, rowNumber);
         }
-        logger.exiting(index);
-        return index;
     }
 
     /**
@@ -0,0 +1,62 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.util.List;
+
+/**
+ * A Simple POJO class that represents the cell values of a single data row of an excel sheet. This is internally used
+ * by {@link ExcelDataProviderImpl} so that rows can be consumed without having to hold on to the underlying
+ * {@link org.apache.poi.ss.usermodel.Row} objects.
+ */
+final class ExcelRowData {
+    private final int rowNumber;
+    private final String key;
+    private final List<String> contents;
+
+    ExcelRowData(int rowNumber, String key, List<String> contents) {
+        this.rowNumber = rowNumber;
+        this.key = key;
+        this.contents = contents;
+    }
+
+    /**
+     * @return the 0 based row number of this row within the excel sheet.
+     */
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * @return the value of the first column, which is reserved for keys.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return the values of the data columns, i.e., all columns excluding the key column.
+     */
+    public List<String> getContents() {
+        return contents;
+    }
+
+    @Override
+    public String toString() {
+        return "ExcelRowData [rowNumber=" + rowNumber + ", key=" + key + ", contents=" + contents + "]";
+    }
+}
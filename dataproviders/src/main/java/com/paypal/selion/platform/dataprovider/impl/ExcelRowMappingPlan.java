@@ -0,0 +1,273 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.paypal.selion.logger.SeLionLogger;
+import com.paypal.selion.platform.dataprovider.DataProviderException;
+import com.paypal.test.utilities.logging.SimpleLogger;
+
+/**
+ * An immutable plan that describes how the cell values of an excel row are to be packed into an object of a user
+ * defined type. A plan is compiled once per type and the header row of the sheet that represents the type, and is then
+ * reused for every row of that sheet. This way the reflective look ups, the mapping of the header row to the data
+ * members and the choice of the conversion strategy of every data member are not repeated for every row. The same
+ * plans are used for the records of delimiter separated files, which are laid out like a sheet.
+ */
+final class ExcelRowMappingPlan {
+
+    private static final SimpleLogger logger = SeLionLogger.getLogger();
+
+    private final Class<?> type;
+    private final int columnCount;
+    private final int headerSize;
+    private final List<FieldBinding> bindings;
+
+    /**
+     * Converts the String value of a cell into the value of a data member.
+     */
+    interface ValueConverter {
+        Object convert(String data, NestedRowCache nestedRows) throws ReflectiveOperationException;
+
+        /**
+         * Copies a value that was created by this converter. Arrays are copied, every other value is shared.
+         */
+        default Object copy(Object value) throws IllegalAccessException {
+            if (value != null && value.getClass().isArray()) {
+                int length = Array.getLength(value);
+                Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+                System.arraycopy(value, 0, copy, 0, length);
+                return copy;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Binds a column of the excel sheet to a data member and the {@link ValueConverter} to use for it.
+     */
+    static final class FieldBinding {
+        private final int column;
+        private final Field field;
+        private final ValueConverter converter;
+
+        FieldBinding(int column, Field field, ValueConverter converter) {
+            this.column = column;
+            this.field = field;
+            this.converter = converter;
+            this.field.setAccessible(true);
+        }
+
+        /**
+         * @return the 0 based index of the column within the data columns of the row.
+         */
+        int getColumn() {
+            return column;
+        }
+
+        /**
+         * @return the name of the data member.
+         */
+        String getFieldName() {
+            return field.getName();
+        }
+
+        /**
+         * Converts the data and sets it into the data member of the object.
+         */
+        void apply(Object objectToSetDataInto, String data, NestedRowCache nestedRows) throws IllegalAccessException {
+            if (field.getType().isInterface()) {
+                // We cannot work with Interfaces because for instantiating them we would need to use Proxy
+                // and also build in assumptions on what type of the implementation we are going to be providing back to
+                // the user.
+                // things get complex if the user supplies us with an interface of which we dont have any idea.
+                // so lets just throw an error and bail out.
+                throw new IllegalArgumentException(field.getName() + " is an interface. Interfaces are not supported.");
+            }
+            Object value;
+            try {
+                value = converter.convert(data, nestedRows);
+            } catch (IllegalAccessException e) {
+                throw e;
+            } catch (ReflectiveOperationException | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                throw new DataProviderException(e.getMessage(), e);
+            }
+            field.set(objectToSetDataInto, value);
+        }
+
+        /**
+         * Copies the value of the data member from one object into another.
+         */
+        void copy(Object source, Object target) throws IllegalAccessException {
+            Object value = field.get(source);
+            field.set(target, (converter == null) ? value : converter.copy(value));
+        }
+
+        @Override
+        public String toString() {
+            return "FieldBinding [column=" + column + ", field=" + field.getName() + "]";
+        }
+    }
+
+    /**
+     * @param type
+     *            The user defined type that the rows are mapped into.
+     * @param header
+     *            The contents of the header row of the sheet.
+     * @param columnCount
+     *            The number of columns to read, including empty and blank column.
+     * @param bindings
+     *            The {@link FieldBinding}s of the data members that are present in the header row.
+     */
+    ExcelRowMappingPlan(Class<?> type, List<String> header, int columnCount, List<FieldBinding> bindings) {
+        this.type = type;
+        this.columnCount = columnCount;
+        this.headerSize = header.size();
+        this.bindings = Collections.unmodifiableList(new ArrayList<>(bindings));
+    }
+
+    /**
+     * Finds the column whose header matches the name of a data member. Headers are matched ignoring case and when
+     * more than one column matches, the last one wins.
+     *
+     * @return the 0 based index of the column or -1 if the data member is not present in the header row.
+     */
+    static int findColumn(List<String> header, Field field) {
+        String fieldName = field.getName().toLowerCase();
+        for (int i = header.size() - 1; i >= 0; i--) {
+            if (header.get(i) != null && header.get(i).toLowerCase().equals(fieldName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the user defined type that the rows are mapped into.
+     */
+    Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return The number of columns to read, including empty and blank column.
+     */
+    int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * @return the {@link FieldBinding}s of this plan.
+     */
+    List<FieldBinding> getBindings() {
+        return bindings;
+    }
+
+    /**
+     * Looks up the raw data of a data member in a row, before the row is packed into an object.
+     *
+     * @param excelRowData
+     *            the raw data read from the excel sheet.
+     * @param fieldName
+     *            the name of the data member.
+     * @return the raw data or <code>null</code> if the data member is not bound or the row would not be mapped.
+     */
+    String getRawValue(List<String> excelRowData, String fieldName) {
+        if (excelRowData.size() != headerSize) {
+            return null;
+        }
+        for (FieldBinding binding : bindings) {
+            if (binding.getFieldName().equals(fieldName)) {
+                return excelRowData.get(binding.getColumn());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Packs the contents of a row into a new object of the user defined type.
+     *
+     * @param excelRowData
+     *            the raw data read from the excel sheet.
+     * @param nestedRows
+     *            the {@link NestedRowCache} to resolve the rows of other sheets with or <code>null</code> if they are
+     *            not to be cached.
+     * @return Object which can be cast into a user defined type to get access to its fields
+     * @throws IllegalAccessException
+     */
+    Object map(List<String> excelRowData, NestedRowCache nestedRows) throws IllegalAccessException {
+        logger.entering(excelRowData);
+        Object objectToReturn = newInstance();
+        if (excelRowData.size() != headerSize) {
+            logger.warning("header and columns are not of same size");
+            logger.exiting(objectToReturn);
+            return objectToReturn;
+        }
+        for (FieldBinding binding : bindings) {
+            // If the data is not present in excel sheet then skip it
+            String data = excelRowData.get(binding.getColumn());
+            if (StringUtils.isEmpty(data)) {
+                continue;
+            }
+            binding.apply(objectToReturn, data, nestedRows);
+        }
+        logger.exiting(objectToReturn);
+        return objectToReturn;
+    }
+
+    /**
+     * Copies an object that was created by {@link #map(List, NestedRowCache)}. Only the data members that this plan
+     * binds are copied.
+     *
+     * @param source
+     *            the object to copy.
+     * @return a new object of the user defined type.
+     * @throws IllegalAccessException
+     */
+    Object copy(Object source) throws IllegalAccessException {
+        Object copy = newInstance();
+        for (FieldBinding binding : bindings) {
+            binding.copy(source, copy);
+        }
+        return copy;
+    }
+
+    private Object newInstance() throws IllegalAccessException {
+        try {
+            // Create a new instance of the data so we can
+            // store it here before return everything to the users.
+            return type.newInstance();
+        } catch (InstantiationException e1) {
+            String msg = String.format(
+                    "Unable to instantiate an object of class %s bcoz it doesn't have a default constructor. ",
+                    type.getCanonicalName());
+            throw new DataProviderException(msg, e1);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ExcelRowMappingPlan [type=" + type.getName() + ", bindings=" + bindings + "]";
+    }
+}
@@ -16,7 +16,10 @@
 package com.paypal.selion.platform.dataprovider.impl;
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
 
 import org.apache.commons.lang.StringUtils;
 
@@ -100,6 +103,38 @@ public class FileSystemResource implements DataResource {
         this.cls = cls;
     }
 
+    /**
+     * @return the name of the data source file.
+     */
+    String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * @return the file that {@link #getInputStream()} reads when it is a plain file on the file system, or
+     *         <code>null</code> if it is not, e.g. when the data source file is found inside a jar. The file is
+     *         resolved the very same way {@link FileAssistant#loadFile(String)} does it.
+     */
+    File getFile() {
+        if (StringUtils.isBlank(fileName)) {
+            return null;
+        }
+        URL url = Thread.currentThread().getContextClassLoader().getResource(fileName);
+        if (url == null) {
+            File file = new File(fileName);
+            return file.isFile() ? file : null;
+        }
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            File file = new File(url.toURI());
+            return file.isFile() ? file : null;
+        } catch (URISyntaxException | IllegalArgumentException e) { // NOSONAR
+            return null;
+        }
+    }
+
     @Override
     public InputStream getInputStream() {
         return new BufferedInputStream(FileAssistant.loadFile(this.fileName));
@@ -0,0 +1,100 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.ClassUtils;
+
+import com.paypal.selion.platform.dataprovider.DataResource;
+import com.paypal.selion.platform.dataprovider.SeLionDataProvider;
+
+/**
+ * Records the calls made to a data provider for the {@link DataLoadInstrumentation}. Every method that returns rows,
+ * i.e. an <code>Object[][]</code>, an {@link Iterator} or a {@link Map}, is recorded under its name. The calls that the
+ * data provider makes to its own methods are part of the call that is being recorded.
+ */
+final class InstrumentedDataProvider implements InvocationHandler {
+
+    private final DataLoadInstrumentation instrumentation;
+    private final SeLionDataProvider provider;
+    private final DataResource resource;
+
+    private InstrumentedDataProvider(DataLoadInstrumentation instrumentation, SeLionDataProvider provider,
+            DataResource resource) {
+        this.instrumentation = instrumentation;
+        this.provider = provider;
+        this.resource = resource;
+    }
+
+    /**
+     * @return a proxy that implements all the interfaces of the given data provider and records its calls for the
+     *         given instrumentation.
+     */
+    static SeLionDataProvider wrap(DataLoadInstrumentation instrumentation, SeLionDataProvider provider,
+            DataResource resource) {
+        List<Class<?>> interfaces = ClassUtils.getAllInterfaces(provider.getClass());
+        return (SeLionDataProvider) Proxy.newProxyInstance(provider.getClass().getClassLoader(),
+                interfaces.toArray(new Class<?>[interfaces.size()]), new InstrumentedDataProvider(instrumentation, provider,
+                        resource));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Class<?> returnType = method.getReturnType();
+        boolean rows = returnType == Object[][].class;
+        boolean iterator = returnType == Iterator.class;
+        boolean map = Map.class.isAssignableFrom(returnType);
+        if (!rows && !iterator && !map) {
+            if ("equals".equals(method.getName()) && args != null && args.length == 1) {
+                return proxy == args[0];
+            }
+            return invokeProvider(method, args);
+        }
+        try (DataLoadRecorder recorder = DataLoadRecorder.start(instrumentation, provider, resource,
+                method.getName())) {
+            Object result = invokeProvider(method, args);
+            if (rows) {
+                return recorder.returned((Object[][]) result);
+            }
+            if (iterator) {
+                return recorder.returned((Iterator<Object[]>) result);
+            }
+            return recorder.returned((Map<?, ?>) result);
+        }
+    }
+
+    private Object invokeProvider(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(provider, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "InstrumentedDataProvider [provider=" + provider + ", resource=" + resource + "]";
+    }
+}
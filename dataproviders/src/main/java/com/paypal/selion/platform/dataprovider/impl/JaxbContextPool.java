@@ -0,0 +1,96 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+
+/**
+ * A cache of {@link JAXBContext}s, kept per set of bound types, along with a pool of {@link Unmarshaller}s for each of
+ * them. Creating a {@link JAXBContext} is expensive, but it is thread safe, so it is created only once per set of types.
+ * An {@link Unmarshaller} is not thread safe, so it is borrowed for the duration of an unmarshal and released back to
+ * the pool afterwards.
+ */
+final class JaxbContextPool {
+
+    /**
+     * The maximum number of idle {@link Unmarshaller}s kept per set of types.
+     */
+    private static final int MAX_IDLE_PER_CONTEXT = 8;
+
+    private static final ConcurrentMap<List<Class<?>>, JaxbContextPool> pools = new ConcurrentHashMap<>();
+
+    private final JAXBContext context;
+    private final Queue<Unmarshaller> idle = new ConcurrentLinkedQueue<>();
+
+    private JaxbContextPool(JAXBContext context) {
+        this.context = context;
+    }
+
+    /**
+     * @param classesToBeBound
+     *            The types to be bound by the {@link JAXBContext}. The order of the types is significant.
+     * @return the pool for the {@link JAXBContext} that binds {@code classesToBeBound}. It is created on first use.
+     * @throws JAXBException
+     *             if the {@link JAXBContext} could not be created.
+     */
+    static JaxbContextPool forTypes(Class<?>... classesToBeBound) throws JAXBException {
+        List<Class<?>> key = Arrays.asList(classesToBeBound.clone());
+        JaxbContextPool pool = pools.get(key);
+        if (pool == null) {
+            pool = new JaxbContextPool(JAXBContext.newInstance(classesToBeBound));
+            JaxbContextPool existing = pools.putIfAbsent(key, pool);
+            pool = (existing == null) ? pool : existing;
+        }
+        return pool;
+    }
+
+    /**
+     * @return the {@link JAXBContext} shared by everybody using this pool.
+     */
+    JAXBContext getContext() {
+        return context;
+    }
+
+    /**
+     * @return an {@link Unmarshaller} that is not used by anybody else, until it is released.
+     * @throws JAXBException
+     *             if a new {@link Unmarshaller} could not be created.
+     */
+    Unmarshaller borrow() throws JAXBException {
+        Unmarshaller unmarshaller = idle.poll();
+        return (unmarshaller != null) ? unmarshaller : context.createUnmarshaller();
+    }
+
+    /**
+     * Releases an {@link Unmarshaller} that was borrowed via {@link #borrow()} back to the pool. It must not be used by
+     * the caller afterwards.
+     */
+    void release(Unmarshaller unmarshaller) {
+        if (idle.size() < MAX_IDLE_PER_CONTEXT) {
+            idle.offer(unmarshaller);
+        }
+    }
+}
@@ -20,24 +20,37 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.lang.reflect.Array;
 import java.lang.reflect.Type;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.logging.Level;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 
+import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
 import com.paypal.selion.logger.SeLionLogger;
 import com.paypal.selion.platform.dataprovider.DataProviderException;
 import com.paypal.selion.platform.dataprovider.DataResource;
 import com.paypal.selion.platform.dataprovider.SeLionDataProvider;
 import com.paypal.selion.platform.dataprovider.filter.DataProviderFilter;
+import com.paypal.selion.platform.dataprovider.filter.RawDataProviderFilter;
+import com.paypal.selion.platform.dataprovider.filter.RawDataRow;
+import com.paypal.selion.platform.dataprovider.impl.DataSnapshotStore.Snapshot;
 import com.paypal.test.utilities.logging.SimpleLogger;
 
 /**
@@ -48,6 +61,16 @@ import com.paypal.test.utilities.logging.SimpleLogger;
 public final class JsonDataProviderImpl implements SeLionDataProvider {
 
     private static SimpleLogger logger = SeLionLogger.getLogger();
+    /**
+     * Accepts all the data, for loading it via {@link #getDataByFilter(DataProviderFilter)}.
+     */
+    private static final DataProviderFilter ALL_DATA = new DataProviderFilter() {
+        @Override
+        public boolean filter(Object data) {
+            return true;
+        }
+    };
+
     private final DataResource resource;
 
     public JsonDataProviderImpl(DataResource resource) {
@@ -105,6 +128,18 @@ public final class JsonDataProviderImpl implements SeLionDataProvider {
     @Override
     public Object[][] getAllData() {
         logger.entering(resource);
+        if (DataSharding.getInstance().isEnabled()) {
+            // Only the elements of this shard are mapped into objects.
+            Object[][] shardData = Iterators.toArray(getDataByFilter(ALL_DATA), Object[].class);
+            logger.exiting((Object[]) shardData);
+            return shardData;
+        }
+        Snapshot snapshot = DataSnapshotStore.getInstance().getSnapshot(resource, DataSnapshotStore.ALL_DATA);
+        Object[][] snapshotData = (Object[][]) snapshot.read();
+        if (snapshotData != null) {
+            logger.exiting((Object[]) snapshotData);
+            return snapshotData;
+        }
         Class<?> arrayType;
         Object[][] dataToBeReturned = null;
         JsonReader reader = new JsonReader(getReader(resource));
@@ -119,6 +154,7 @@ public final class JsonDataProviderImpl implements SeLionDataProvider {
         } finally {
             IOUtils.closeQuietly(reader);
         }
+        snapshot.write(dataToBeReturned);
         logger.exiting((Object[]) dataToBeReturned);
         return dataToBeReturned;
     }
@@ -151,19 +187,41 @@ public final class JsonDataProviderImpl implements SeLionDataProvider {
         Preconditions.checkArgument((indexes.length != 0), "Indexes cannot be empty");
         logger.entering(indexes);
         Object[][] requestedData = null;
-        Class<?> arrayType;
         JsonReader reader = null;
         try {
+            // Only the elements at the requested positions are mapped. The rest of the elements are skipped
+            // without ever being mapped, and nothing beyond the last requested position is read.
+            SortedSet<Integer> positions = new TreeSet<>();
+            for (int indexVal : indexes) {
+                if (indexVal < 1) {
+                    throw new IndexOutOfBoundsException("Index " + indexVal + " is out of range.");
+                }
+                positions.add(indexVal - 1);
+            }
+            reader = new JsonReader(getReader(resource));
+            reader.setLenient(true);
+            TypeAdapter<?> adapter = new Gson().getAdapter(resource.getCls());
+            Map<Integer, Object> mappedData = new HashMap<>();
+            reader.beginArray();
+            int position = 0;
+            while (position <= positions.last() && reader.hasNext()) {
+                if (positions.contains(position)) {
+                    mappedData.put(position, adapter.read(reader));
+                    DataLoadRecorder.addRowsParsed(1);
+                } else {
+                    reader.skipValue();
+                }
+                position++;
+            }
 
             requestedData = new Object[indexes.length][1];
-            reader = new JsonReader(getReader(resource));
-            arrayType = Array.newInstance(resource.getCls(), 0).getClass();
-            logger.log(Level.FINE, "The Json Data is mapped as", arrayType);
-            Object[][] mappedData = mapJsonData(reader, arrayType);
             int i = 0;
             for (int indexVal : indexes) {
-                indexVal--;
-                requestedData[i] = mappedData[indexVal];
+                if (!mappedData.containsKey(indexVal - 1)) {
+                    throw new IndexOutOfBoundsException("Index " + indexVal + " is out of range. There are only "
+                            + position + " elements.");
+                }
+                requestedData[i][0] = mappedData.get(indexVal - 1);
                 i++;
             }
         } catch (IOException e) {
@@ -176,28 +234,90 @@ public final class JsonDataProviderImpl implements SeLionDataProvider {
     }
 
     /**
-     * Gets JSON data from a resource by applying the given filter.
+     * Gets all the JSON data the same way as {@link #getAllData()} does, but parses the elements and maps them into
+     * objects one at a time, as the returned iterator is being consumed.
+     *
+     * @return An iterator over a collection of Object Array to be used with TestNG DataProvider
+     */
+    @Override
+    public Iterator<Object[]> getAllDataIterator() {
+        logger.entering();
+        Iterator<Object[]> objs = getDataByFilter(ALL_DATA);
+        logger.exiting(objs);
+        return objs;
+    }
+
+    /**
+     * Gets JSON data from a resource by applying the given filter. The elements rejected by a
+     * {@link RawDataProviderFilter} are not mapped into objects, and the elements of other shards (see
+     * {@link DataSharding}) are not even parsed.
      *
      * @param dataFilter
      *            an implementation class of {@link DataProviderFilter}
      */
     @Override
-    public Iterator<Object[]> getDataByFilter(DataProviderFilter dataFilter) {
+    public Iterator<Object[]> getDataByFilter(final DataProviderFilter dataFilter) {
         Preconditions.checkArgument(resource != null, "File resource cannot be null");
         logger.entering(dataFilter);
-        Class<?> arrayType;
-        JsonReader reader = null;
+        final JsonReader reader = new JsonReader(getReader(resource));
+        final TypeAdapter<?> adapter;
         try {
-            reader = new JsonReader(getReader(resource));
-            arrayType = Array.newInstance(resource.getCls(), 0).getClass();
-            Gson myJson = new Gson();
-            Object[] mappedData = myJson.fromJson(reader, arrayType);
-            return prepareDataAsObjectArrayList(mappedData, dataFilter).iterator();
+            reader.setLenient(true);
+            adapter = new Gson().getAdapter(resource.getCls());
+            reader.beginArray();
         } catch (Exception e) {
-            throw new DataProviderException(e.getMessage(), e);
-        } finally {
             IOUtils.closeQuietly(reader);
+            throw new DataProviderException(e.getMessage(), e);
         }
+
+        // The elements are mapped and filtered one at a time, as the iterator is being consumed.
+        final int lastPosition = DataProviderHelper.getLastPosition(dataFilter);
+        final RawDataProviderFilter rawFilter = (dataFilter instanceof RawDataProviderFilter)
+                ? (RawDataProviderFilter) dataFilter : null;
+        final JsonParser jsonParser = new JsonParser();
+        final DataSharding sharding = DataSharding.getInstance();
+        Iterator<Object[]> filteredData = new AbstractIterator<Object[]>() {
+            private int position;
+
+            @Override
+            protected Object[] computeNext() {
+                try {
+                    while (position < lastPosition && reader.hasNext()) {
+                        position++;
+                        if (!sharding.isInShard(null, position)) {
+                            // Belongs to another shard, so it is not even parsed.
+                            reader.skipValue();
+                            continue;
+                        }
+                        DataLoadRecorder.addRowsParsed(1);
+                        Object currentData;
+                        if (rawFilter != null) {
+                            // Only the rows that pass the raw filter are mapped, from the tree they were parsed into.
+                            JsonElement element = jsonParser.parse(reader);
+                            RawDataRow row = RawDataRows.forJsonElement(element, resource.getCls(), position);
+                            if (!rawFilter.filterRaw(row)) {
+                                continue;
+                            }
+                            long mappingStartedAt = DataLoadRecorder.startMapping();
+                            currentData = adapter.fromJsonTree(element);
+                            DataLoadRecorder.stopMapping(mappingStartedAt);
+                        } else {
+                            currentData = adapter.read(reader);
+                        }
+                        if (dataFilter.filter(currentData, position)) {
+                            return new Object[] { currentData };
+                        }
+                    }
+                } catch (Exception e) {
+                    IOUtils.closeQuietly(reader);
+                    throw new DataProviderException(e.getMessage(), e);
+                }
+                IOUtils.closeQuietly(reader);
+                return endOfData();
+            }
+        };
+        logger.exiting(filteredData);
+        return filteredData;
     }
 
     /**
@@ -269,6 +389,51 @@ public final class JsonDataProviderImpl implements SeLionDataProvider {
         return dataAsHashTable;
     }
 
+    /**
+     * Gives out the same data as {@link #getDataAsHashtable()} does, keyed by the "id" of every JSON object, but the
+     * objects are only parsed into a JSON tree up front. The tree of an object is mapped into a {@link Hashtable} when
+     * its id is first looked up.
+     *
+     * @return The JSON data as a read-only, thread-safe {@link Map}
+     */
+    @Override
+    public Map<String, Object> getDataAsMap() {
+        Preconditions.checkArgument(resource != null, "File resource cannot be null");
+        logger.entering();
+        Map<String, JsonElement> elements = new LinkedHashMap<>();
+        JsonReader reader = null;
+        try {
+            reader = new JsonReader(getReader(resource));
+            JsonArray array = new JsonParser().parse(reader).getAsJsonArray();
+            DataLoadRecorder.addRowsParsed(array.size());
+            for (JsonElement element : array) {
+                // The objects must have a key "id", see getDataAsHashtable().
+                JsonElement id = element.getAsJsonObject().get("id");
+                if (id == null || id.isJsonNull()) {
+                    throw new DataProviderException("Error while parsing Json Data as a Map. Root cause: Unable to "
+                            + "find a key named id. Please refer Javadoc");
+                }
+                elements.put(id.getAsString(), element);
+            }
+        } catch (DataProviderException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DataProviderException("Error while parsing Json Data as a Map", e);
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+
+        final Gson gson = new Gson();
+        Map<String, Object> dataMap = new LazyDataMap<>(elements, new Function<JsonElement, Object>() {
+            @Override
+            public Object apply(JsonElement element) {
+                return new Object[] { gson.fromJson(element, Hashtable.class) };
+            }
+        });
+        logger.exiting(elements.keySet());
+        return dataMap;
+    }
+
     @Override
     public Object[][] getDataByKeys(String[] keys) {
         logger.entering(Arrays.toString(keys));
@@ -285,6 +450,7 @@ public final class JsonDataProviderImpl implements SeLionDataProvider {
         logger.entering(new Object[] { reader, typeToMatch });
         Gson myJson = new Gson();
         Object[] mappedData = myJson.fromJson(reader, typeToMatch);
+        DataLoadRecorder.addRowsParsed(mappedData.length);
         return prepareDataAsObjectArray(mappedData);
     }
 
@@ -302,25 +468,12 @@ public final class JsonDataProviderImpl implements SeLionDataProvider {
         return dataArray;
     }
 
-    private List<Object[]> prepareDataAsObjectArrayList(Object[] dataToPack, DataProviderFilter dataFilter) {
-        logger.entering(dataToPack);
-        logger.fine("Entity Size to be mapped to ArrayList :" + dataToPack.length);
-        List<Object[]> list = new ArrayList<>();
-        for (Object currentData : dataToPack) {
-            if (dataFilter.filter(currentData)) {
-                list.add(new Object[] { currentData });
-            }
-        }
-        logger.exiting(list);
-        return list;
-    }
-
     private void validateResourceParams(DataResource jsonResource) {
         Preconditions.checkArgument(jsonResource != null, "File resource cannot be null");
         Preconditions.checkArgument(jsonResource.getCls() != null, "Cannot map json data to a null type");
     }
 
     private Reader getReader(DataResource resource) {
-        return new InputStreamReader(resource.getInputStream());
+        return new InputStreamReader(DataLoadRecorder.countBytes(resource.getInputStream()));
     }
 }
@@ -0,0 +1,128 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterators;
+
+/**
+ * A read-only map of the keys of a data source to the objects that their data is packed into. The keys are indexed up
+ * front along with the raw data of every key, but the raw data of a key is packed into an object only when the key is
+ * first looked up. The packed objects are kept in a {@link ConcurrentHashMap}, so look ups never take a lock. When
+ * threads race to look up a key for the first time, each of them may pack its data, but all of them are handed the
+ * object that was kept first.<br>
+ * <br>
+ * A key whose data is packed into <code>null</code> is left out of the map, the way the data providers leave it out of
+ * a {@link java.util.Hashtable}. So {@link #size()}, {@link #keySet()} and {@link #entrySet()} pack the data of every
+ * key that has not been looked up yet.
+ *
+ * @param <S>
+ *            the type of the raw data of a key.
+ */
+@ThreadSafe
+final class LazyDataMap<S> extends AbstractMap<String, Object> {
+
+    /**
+     * Kept in place of a value that was packed into <code>null</code>, so that its data is not packed again.
+     */
+    private static final Object NO_VALUE = new Object();
+
+    private final Map<String, S> sources;
+    private final Function<S, Object> materializer;
+    private final ConcurrentMap<String, Object> values = new ConcurrentHashMap<>();
+
+    /**
+     * @param sources
+     *            the raw data by key. The map is kept as it is, so it must not be changed afterwards.
+     * @param materializer
+     *            packs the raw data of a key into an object. It may be called from many threads at a time.
+     */
+    LazyDataMap(Map<String, S> sources, Function<S, Object> materializer) {
+        this.sources = Collections.unmodifiableMap(sources);
+        this.materializer = materializer;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object value = values.get(key);
+        if (value == null) {
+            if (!sources.containsKey(key)) {
+                return null;
+            }
+            value = materializer.apply(sources.get(key));
+            Object kept = values.putIfAbsent((String) key, (value == null) ? NO_VALUE : value);
+            if (kept != null) {
+                value = kept;
+            }
+        }
+        return (value == NO_VALUE) ? null : value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return sources.containsKey(key) && get(key) != null;
+    }
+
+    /**
+     * @return the number of keys whose data has been packed into an object so far.
+     */
+    int materializedSize() {
+        return values.size();
+    }
+
+    /**
+     * The entries pack the data of every key that has not been looked up yet, as they are iterated over.
+     */
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                Iterator<Entry<String, Object>> entries = Iterators.transform(sources.keySet().iterator(),
+                        new Function<String, Entry<String, Object>>() {
+                            @Override
+                            public Entry<String, Object> apply(String key) {
+                                return new SimpleImmutableEntry<>(key, get(key));
+                            }
+                        });
+                return Iterators.filter(entries, new Predicate<Entry<String, Object>>() {
+                    @Override
+                    public boolean apply(Entry<String, Object> entry) {
+                        return entry.getValue() != null;
+                    }
+                });
+            }
+
+            @Override
+            public int size() {
+                return Iterators.size(iterator());
+            }
+        };
+    }
+}
@@ -0,0 +1,102 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import net.jcip.annotations.ThreadSafe;
+
+import com.paypal.selion.logger.SeLionLogger;
+import com.paypal.selion.platform.dataprovider.DataLoadEvent;
+import com.paypal.selion.platform.dataprovider.DataLoadListener;
+import com.paypal.test.utilities.logging.SimpleLogger;
+
+/**
+ * The default {@link DataLoadListener}. It logs a summary of every call at {@link Level#FINE}, along with the totals of
+ * all the calls it has been notified about so far. The totals can also be read directly.
+ */
+@ThreadSafe
+public final class LoggingDataLoadListener implements DataLoadListener {
+
+    private static final SimpleLogger logger = SeLionLogger.getLogger();
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong rowsParsed = new AtomicLong();
+    private final AtomicLong rowsReturned = new AtomicLong();
+    private final AtomicLong parseTimeNanos = new AtomicLong();
+    private final AtomicLong mapTimeNanos = new AtomicLong();
+
+    @Override
+    public void onDataLoaded(DataLoadEvent event) {
+        long totalCalls = calls.incrementAndGet();
+        long totalBytes = bytesRead.addAndGet(event.getBytesRead());
+        long totalParsed = rowsParsed.addAndGet(event.getRowsParsed());
+        long totalReturned = rowsReturned.addAndGet(event.getRowsReturned());
+        long totalParseTime = parseTimeNanos.addAndGet(event.getParseTimeNanos());
+        long totalMapTime = mapTimeNanos.addAndGet(event.getMapTimeNanos());
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine(event + ". Totals: " + totalCalls + " calls, " + totalReturned + " rows returned, "
+                    + totalParsed + " rows parsed, " + totalBytes + " bytes read, parse "
+                    + TimeUnit.NANOSECONDS.toMillis(totalParseTime) + " ms, map "
+                    + TimeUnit.NANOSECONDS.toMillis(totalMapTime) + " ms");
+        }
+    }
+
+    /**
+     * @return the number of calls that have been notified so far.
+     */
+    public long getCalls() {
+        return calls.get();
+    }
+
+    /**
+     * @return the total number of bytes read.
+     */
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * @return the total number of rows parsed.
+     */
+    public long getRowsParsed() {
+        return rowsParsed.get();
+    }
+
+    /**
+     * @return the total number of rows returned.
+     */
+    public long getRowsReturned() {
+        return rowsReturned.get();
+    }
+
+    /**
+     * @return the total time spent reading and parsing, in nanoseconds.
+     */
+    public long getParseTimeNanos() {
+        return parseTimeNanos.get();
+    }
+
+    /**
+     * @return the total time spent mapping, in nanoseconds.
+     */
+    public long getMapTimeNanos() {
+        return mapTimeNanos.get();
+    }
+}
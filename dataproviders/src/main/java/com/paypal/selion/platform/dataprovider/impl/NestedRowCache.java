@@ -0,0 +1,62 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.paypal.selion.platform.dataprovider.ExcelDataProvider.NestedRowCaching;
+
+/**
+ * Remembers the objects that the rows of other sheets were packed into, while a single call to an
+ * {@link ExcelDataProviderImpl} is served. This way a (type, key) pair that is referred to by many rows is packed into
+ * an object only once. See {@link NestedRowCaching}.
+ */
+final class NestedRowCache {
+
+    private final boolean copyOnRead;
+    private final ConcurrentMap<Class<?>, Map<String, Object>> rows = new ConcurrentHashMap<>();
+
+    NestedRowCache(NestedRowCaching caching) {
+        this.copyOnRead = caching == NestedRowCaching.COPY_ON_READ;
+    }
+
+    /**
+     * @return <code>true</code> if every read is to be handed a copy of the cached object.
+     */
+    boolean isCopyOnRead() {
+        return copyOnRead;
+    }
+
+    /**
+     * @return the object that the row with the given key was packed into or <code>null</code> if it was not cached.
+     */
+    Object get(Class<?> type, String key) {
+        Map<String, Object> rowsOfType = rows.get(type);
+        return (rowsOfType == null) ? null : rowsOfType.get(key);
+    }
+
+    void put(Class<?> type, String key, Object row) {
+        Map<String, Object> rowsOfType = rows.get(type);
+        if (rowsOfType == null) {
+            rows.putIfAbsent(type, new ConcurrentHashMap<String, Object>());
+            rowsOfType = rows.get(type);
+        }
+        rowsOfType.put(key, row);
+    }
+}
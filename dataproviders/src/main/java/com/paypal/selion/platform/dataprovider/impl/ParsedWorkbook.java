@@ -0,0 +1,131 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.jcip.annotations.Immutable;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * The cell values of every sheet of an excel workbook, read into unmodifiable lists of strings. Unlike a POI
+ * {@link Workbook}, a parsed workbook can be read by many threads at a time, which is why this is what the
+ * {@link DataSourceCache} shares between the data providers that read the same spreadsheet. The cell values are the
+ * very same ones {@link ExcelReader} reads, i.e., the {@link Cell#toString()} of every cell.
+ */
+@Immutable
+final class ParsedWorkbook {
+
+    private final Map<String, ParsedSheet> sheets;
+
+    private ParsedWorkbook(Map<String, ParsedSheet> sheets) {
+        this.sheets = Collections.unmodifiableMap(sheets);
+    }
+
+    /**
+     * Reads the cell values of every sheet of a workbook.
+     *
+     * @param workbook
+     *            the {@link Workbook} to read.
+     * @return the {@link ParsedWorkbook}.
+     */
+    static ParsedWorkbook of(Workbook workbook) {
+        Map<String, ParsedSheet> sheets = new HashMap<>();
+        for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+            Sheet sheet = workbook.getSheetAt(i);
+            String name = sheet.getSheetName().toLowerCase();
+            if (!sheets.containsKey(name)) {
+                sheets.put(name, ParsedSheet.of(sheet));
+            }
+        }
+        return new ParsedWorkbook(sheets);
+    }
+
+    /**
+     * @param sheetName
+     *            the name of the sheet, which is looked up ignoring case the way POI does.
+     * @return the {@link ParsedSheet} or <code>null</code> if there is no such sheet.
+     */
+    ParsedSheet getSheet(String sheetName) {
+        return sheets.get(sheetName.toLowerCase());
+    }
+
+    /**
+     * The cell values of a single sheet.
+     */
+    @Immutable
+    static final class ParsedSheet {
+        private final int physicalNumberOfRows;
+        private final List<List<String>> rows;
+
+        private ParsedSheet(int physicalNumberOfRows, List<List<String>> rows) {
+            this.physicalNumberOfRows = physicalNumberOfRows;
+            this.rows = Collections.unmodifiableList(rows);
+        }
+
+        static ParsedSheet of(Sheet sheet) {
+            List<List<String>> rows = new ArrayList<>();
+            for (int rowNumber = 0; rowNumber <= sheet.getLastRowNum(); rowNumber++) {
+                Row row = sheet.getRow(rowNumber);
+                rows.add((row == null) ? null : readCells(row));
+            }
+            return new ParsedSheet(sheet.getPhysicalNumberOfRows(), rows);
+        }
+
+        private static List<String> readCells(Row row) {
+            List<String> cells = new ArrayList<>();
+            for (int column = 0; column < row.getLastCellNum(); column++) {
+                Cell cell = row.getCell(column);
+                cells.add((cell == null) ? null : cell.toString());
+            }
+            return Collections.unmodifiableList(cells);
+        }
+
+        /**
+         * @return the number of rows that are defined in the sheet, the same as {@link Sheet#getPhysicalNumberOfRows()}.
+         */
+        int getPhysicalNumberOfRows() {
+            return physicalNumberOfRows;
+        }
+
+        /**
+         * @param rowNumber
+         *            the 0 based row number.
+         * @return the cell values of the row, with <code>null</code> for every undefined cell, or <code>null</code> if
+         *         the row is not defined.
+         */
+        List<String> getRow(int rowNumber) {
+            return (rowNumber < 0 || rowNumber >= rows.size()) ? null : rows.get(rowNumber);
+        }
+
+        /**
+         * @return the value of a cell or <code>null</code> if the cell is not defined.
+         */
+        String getCell(int rowNumber, int column) {
+            List<String> row = getRow(rowNumber);
+            return (row == null || column >= row.size()) ? null : row.get(column);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.apache.poi.ss.usermodel.Workbook;
+
+import com.paypal.selion.platform.dataprovider.DataProviderException;
+import com.paypal.selion.platform.dataprovider.DataResource;
+import com.paypal.selion.platform.dataprovider.impl.ParsedWorkbook.ParsedSheet;
+
+/**
+ * An {@link ExcelReader} that reads the rows of a {@link ParsedWorkbook}, which may be shared with other readers and
+ * threads. The POI {@link Workbook} is only needed for the methods that hand out POI rows. It is loaded from the
+ * resource on first use and it is never shared.
+ */
+@ThreadSafe
+class ParsedWorkbookReader extends ExcelReader {
+
+    private final ParsedWorkbook parsedWorkbook;
+    private final DataResource resource;
+    private Workbook workBook;
+
+    ParsedWorkbookReader(ParsedWorkbook parsedWorkbook, DataResource resource) {
+        this.parsedWorkbook = parsedWorkbook;
+        this.resource = resource;
+    }
+
+    @Override
+    protected synchronized Workbook getWorkBook() {
+        if (workBook == null) {
+            try {
+                workBook = new ExcelReader(resource).getWorkBook();
+            } catch (IOException e) {
+                throw new DataProviderException("Unable to read the excel workbook.", e);
+            }
+        }
+        return workBook;
+    }
+
+    @Override
+    boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public boolean sheetExists(String sheetName) {
+        return parsedWorkbook.getSheet(sheetName) != null;
+    }
+
+    @Override
+    public Iterator<ExcelRowData> getRowDataIterator(String sheetName, int size) {
+        ParsedSheet sheet = fetchParsedSheet(sheetName);
+        List<ExcelRowData> rowData = new ArrayList<>();
+        // The very same rows that ExcelReader#getAllExcelRows() gives out when the heading is to be excluded.
+        for (int rowNumber = 1; rowNumber <= sheet.getPhysicalNumberOfRows(); rowNumber++) {
+            String key = sheet.getCell(rowNumber, 0);
+            if (key != null && !key.contains("#")) {
+                rowData.add(new ExcelRowData(rowNumber, key, getRowContents(sheet.getRow(rowNumber), size)));
+            }
+        }
+        return rowData.iterator();
+    }
+
+    @Override
+    public List<String> getRowContents(String sheetName, int rowIndex, int size) {
+        return getRowContents(fetchParsedSheet(sheetName).getRow(rowIndex - 1), size);
+    }
+
+    @Override
+    public List<String> getHeaderRowContents(String sheetName, int size) {
+        return getRowContents(fetchParsedSheet(sheetName).getRow(0), size);
+    }
+
+    @Override
+    public Map<String, Integer> getRowKeys(String sheetName) {
+        ParsedSheet sheet = fetchParsedSheet(sheetName);
+        Map<String, Integer> rowKeys = new LinkedHashMap<>();
+        for (int i = 2; i <= sheet.getPhysicalNumberOfRows(); i++) {
+            String key = sheet.getCell(i - 1, 0);
+            if (key != null) {
+                rowKeys.put(key, i);
+            }
+        }
+        return rowKeys;
+    }
+
+    @Override
+    protected Map<String, Integer> buildRowIndexes(String sheetName) {
+        ParsedSheet sheet = fetchParsedSheet(sheetName);
+        Map<String, Integer> rowIndexes = new HashMap<>();
+        for (int i = 0; i < sheet.getPhysicalNumberOfRows(); i++) {
+            addRowIndex(rowIndexes, sheet.getCell(i, 0), i);
+        }
+        return rowIndexes;
+    }
+
+    private ParsedSheet fetchParsedSheet(String sheetName) {
+        ParsedSheet sheet = parsedWorkbook.getSheet(sheetName);
+        if (sheet == null) {
+            throw new IllegalArgumentException("Sheet '" + sheetName + "' is not found.");
+        }
+        return sheet;
+    }
+
+    /**
+     * The counterpart of {@link ExcelReader#getRowContents(org.apache.poi.ss.usermodel.Row, int)}.
+     */
+    private static List<String> getRowContents(List<String> row, int size) {
+        List<String> rowData = new ArrayList<>();
+        if (row != null) {
+            for (int i = 1; i <= size; i++) {
+                rowData.add((i < row.size()) ? row.get(i) : null);
+            }
+        }
+        return rowData;
+    }
+}
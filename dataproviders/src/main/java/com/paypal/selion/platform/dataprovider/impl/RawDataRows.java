@@ -0,0 +1,161 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.util.List;
+import java.util.Map;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.paypal.selion.platform.dataprovider.filter.RawDataProviderFilter;
+import com.paypal.selion.platform.dataprovider.filter.RawDataRow;
+
+/**
+ * The {@link RawDataRow} views that the data providers hand over to a {@link RawDataProviderFilter}, one for each raw
+ * form of a row.
+ */
+final class RawDataRows {
+
+    private RawDataRows() {
+        // Utility class. So hide the constructor
+    }
+
+    /**
+     * @return a view of a row of an excel sheet, whose values are looked up by the data members of the mapping plan.
+     */
+    static RawDataRow forExcelRow(final ExcelRowMappingPlan plan, final String key, final List<String> excelRowData,
+            int position) {
+        return new AbstractRawDataRow(position, plan.getType()) {
+            @Override
+            public String getKey() {
+                return key;
+            }
+
+            @Override
+            public String getValue(String name) {
+                return plan.getRawValue(excelRowData, name);
+            }
+        };
+    }
+
+    /**
+     * @return a view of a JSON element, whose values are looked up by the members of the JSON object.
+     */
+    static RawDataRow forJsonElement(final JsonElement element, Class<?> type, int position) {
+        return new AbstractRawDataRow(position, type) {
+            @Override
+            public String getValue(String name) {
+                if (!element.isJsonObject()) {
+                    return null;
+                }
+                JsonElement value = ((JsonObject) element).get(name);
+                return (value != null && value.isJsonPrimitive()) ? value.getAsString() : null;
+            }
+        };
+    }
+
+    /**
+     * @return a view of an XML element, whose values are looked up by its attributes and then by the text of its child
+     *         elements that have no child elements of their own.
+     */
+    static RawDataRow forXmlElement(final Element element, Class<?> type, int position) {
+        return new AbstractRawDataRow(position, type) {
+            @Override
+            public String getValue(String name) {
+                if (element.hasAttribute(name)) {
+                    return element.getAttribute(name);
+                }
+                for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+                    if (child.getNodeType() == Node.ELEMENT_NODE && name.equals(localName(child))) {
+                        return hasChildElements(child) ? null : child.getTextContent();
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    /**
+     * @return a view of an object that has been parsed already (e.g. a YAML element), which is identified by its key
+     *         in a YAML associative array, if any. Only the scalar values of a {@link Map} are available.
+     */
+    static RawDataRow forParsedObject(final Object object, final String key, int position) {
+        Class<?> type = (object == null || object instanceof Map) ? null : object.getClass();
+        return new AbstractRawDataRow(position, type) {
+            @Override
+            public String getKey() {
+                return key;
+            }
+
+            @Override
+            public String getValue(String name) {
+                if (!(object instanceof Map)) {
+                    return null;
+                }
+                Object value = ((Map<?, ?>) object).get(name);
+                return (value instanceof String || value instanceof Number || value instanceof Boolean) ? value
+                        .toString() : null;
+            }
+        };
+    }
+
+    private static String localName(Node node) {
+        return (node.getLocalName() != null) ? node.getLocalName() : node.getNodeName();
+    }
+
+    private static boolean hasChildElements(Node node) {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private abstract static class AbstractRawDataRow implements RawDataRow {
+        private final int position;
+        private final Class<?> type;
+
+        AbstractRawDataRow(int position, Class<?> type) {
+            this.position = position;
+            this.type = type;
+        }
+
+        @Override
+        public int getPosition() {
+            return position;
+        }
+
+        @Override
+        public Class<?> getType() {
+            return type;
+        }
+
+        @Override
+        public String getKey() {
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return "RawDataRow [position=" + position + ", type=" + type + "]";
+        }
+    }
+}
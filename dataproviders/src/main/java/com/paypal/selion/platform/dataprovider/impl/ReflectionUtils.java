@@ -18,14 +18,13 @@ package com.paypal.selion.platform.dataprovider.impl;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import java.lang.reflect.Array;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.lang3.ClassUtils;
 
 import com.paypal.selion.logger.SeLionLogger;
+import com.paypal.selion.platform.dataprovider.impl.ConverterRegistry.StringConverter;
 import com.paypal.test.utilities.logging.SimpleLogger;
 
 /**
@@ -60,22 +59,18 @@ final class ReflectionUtils {
 
     }
 
-    private static Method getParserMethod(Class<?> type) {
-        logger.entering(type);
-        checkArgument(type != null, "Type cannot be null.");
-        Class<?> wrapperType = ClassUtils.primitiveToWrapper(type);
-        for (Method eachMethod : wrapperType.getDeclaredMethods()) {
-            boolean isParserMethod = eachMethod.getName().startsWith("parse");
-            boolean hasOneArg = eachMethod.getParameterTypes().length == 1;
-            boolean acceptsStringAsParam = (hasOneArg ? (Arrays.asList(eachMethod.getParameterTypes())
-                    .contains(String.class)) : false);
-            if (isParserMethod && hasOneArg && acceptsStringAsParam) {
-                logger.exiting(eachMethod);
-                return eachMethod;
-            }
+    /**
+     * @return the {@link StringConverter} of the type from the {@link ConverterRegistry}.
+     * @throws ReflectionException
+     *             if the type cannot be converted from a {@link String}.
+     */
+    static StringConverter getStringConverter(Class<?> type) {
+        StringConverter converter = ConverterRegistry.getConverter(type);
+        if (converter == null) {
+            throw new ReflectionException(new NoSuchMethodException(type.getName()
+                    + " can neither be parsed from nor constructed with a String."));
         }
-        logger.exiting(new Object[] { null });
-        return null;
+        return converter;
     }
 
     /**
@@ -89,12 +84,7 @@ final class ReflectionUtils {
 
         checkArgument(type != null, "type cannot be null.");
 
-        boolean flag = false;
-        try {
-            flag = (type.getConstructor(new Class<?>[] { String.class }) != null);
-        } catch (NoSuchMethodException | SecurityException e) { // NOSONAR
-            // Gobble exception and do nothing with it.
-        }
+        boolean flag = !type.isPrimitive() && (ConverterRegistry.getConverter(type) != null);
         logger.exiting(flag);
         return flag;
 
@@ -138,8 +128,9 @@ final class ReflectionUtils {
         checkArgument((values != null && values.length != 0), "The values  cannot be null (or) empty.");
 
         Object arrayToReturn = Array.newInstance(type.getCustomTypeClass(), values.length);
+        StringConverter converter = type.getStringConverter();
         for (int i = 0; i < values.length; i++) {
-            Array.set(arrayToReturn, i, type.instantiateObject(values[i]));
+            Array.set(arrayToReturn, i, converter.convert(values[i]));
         }
         logger.exiting(arrayToReturn);
         return arrayToReturn;
@@ -166,12 +157,11 @@ final class ReflectionUtils {
 
         Class<?> componentType = type.getComponentType();
         Object arrayToReturn = Array.newInstance(componentType, values.length);
-        Method parserMethod = getParserMethod(componentType);
+        StringConverter converter = getStringConverter(componentType);
         for (int i = 0; i < values.length; i++) {
             try {
-                Array.set(arrayToReturn, i, parserMethod.invoke(arrayToReturn, values[i]));
-            } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException | IllegalAccessException
-                    | InvocationTargetException e) {
+                Array.set(arrayToReturn, i, converter.convert(values[i]));
+            } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
                 throw new ReflectionException(e);
             }
         }
@@ -197,13 +187,9 @@ final class ReflectionUtils {
         validateParams(type, objectToInvokeUpon, valueToAssign);
         checkArgument(type.isPrimitive(), type + " is NOT a primitive data type.");
 
-        try {
-            Object objectToReturn = getParserMethod(type).invoke(objectToInvokeUpon, valueToAssign);
-            logger.exiting(objectToInvokeUpon);
-            return objectToReturn;
-        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-            throw new ReflectionException(e);
-        }
+        Object objectToReturn = getStringConverter(type).convert(valueToAssign);
+        logger.exiting(objectToInvokeUpon);
+        return objectToReturn;
     }
 
     /**
@@ -227,11 +213,11 @@ final class ReflectionUtils {
                 + " is neither awrapper type nor has a 1 arg String constructor defined.");
         Class<?> componentType = type.getComponentType();
         Object arrayToReturn = Array.newInstance(componentType, values.length);
+        StringConverter converter = getStringConverter(componentType);
         for (int i = 0; i < values.length; i++) {
             try {
-                Array.set(arrayToReturn, i, componentType.getConstructor(String.class).newInstance(values[i]));
-            } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException | InstantiationException
-                    | IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+                Array.set(arrayToReturn, i, converter.convert(values[i]));
+            } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
                 throw new ReflectionException(e);
             }
         }
@@ -257,14 +243,9 @@ final class ReflectionUtils {
         validateParams(type, objectToInvokeUpon, valueToAssign);
         checkArgument(ClassUtils.isPrimitiveWrapper(type), type.getName() + " is NOT a wrapper data type.");
 
-        try {
-            Object objectToReturn = type.getConstructor(new Class<?>[] { String.class }).newInstance(valueToAssign);
-            logger.exiting(objectToInvokeUpon);
-            return objectToReturn;
-        } catch (InstantiationException | NoSuchMethodException | SecurityException | IllegalAccessException
-                | IllegalArgumentException | InvocationTargetException e) {
-            throw new ReflectionException(e);
-        }
+        Object objectToReturn = getStringConverter(type).convert(valueToAssign);
+        logger.exiting(objectToInvokeUpon);
+        return objectToReturn;
     }
 
     /**
@@ -0,0 +1,114 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.paypal.selion.platform.dataprovider.DataProviderException;
+import com.paypal.selion.platform.dataprovider.impl.ConverterRegistry.StringConverter;
+import com.paypal.selion.platform.dataprovider.impl.ExcelRowMappingPlan.FieldBinding;
+import com.paypal.selion.platform.dataprovider.impl.ExcelRowMappingPlan.ValueConverter;
+
+/**
+ * Compiles the {@link ExcelRowMappingPlan}s of the data providers whose rows are lists of String values, i.e. the excel
+ * and the delimiter separated data providers, and packs rows into objects with them.
+ */
+final class RowMappingHelper {
+
+    /**
+     * Works out how the String data of a data member of the given type is to be converted.
+     */
+    interface ValueConverterFactory {
+        ValueConverter create(Class<?> type);
+    }
+
+    private RowMappingHelper() {
+        // Utility class. So hide the constructor
+    }
+
+    /**
+     * Binds the columns of the header to the data members of the user defined type that have the same name.
+     *
+     * @param cls
+     *            The user defined type into which rows are to be packed into.
+     * @param header
+     *            The names of the columns.
+     * @param columnCount
+     *            The number of columns to read for every row.
+     * @param converters
+     *            Creates the {@link ValueConverter} of every data member that is bound to a column.
+     * @return the compiled {@link ExcelRowMappingPlan}.
+     */
+    static ExcelRowMappingPlan compilePlan(Class<?> cls, List<String> header, int columnCount,
+            ValueConverterFactory converters) {
+        List<FieldBinding> bindings = new ArrayList<>();
+        for (Field eachField : cls.getDeclaredFields()) {
+            int column = ExcelRowMappingPlan.findColumn(header, eachField);
+            if (column != -1) {
+                bindings.add(new FieldBinding(column, eachField, converters.create(eachField.getType())));
+            }
+        }
+        return new ExcelRowMappingPlan(cls, header, columnCount, bindings);
+    }
+
+    /**
+     * Packs a row into an object of the type of the plan, recording the time spent doing so.
+     */
+    static Object mapRow(ExcelRowMappingPlan plan, List<String> data, NestedRowCache nestedRows) {
+        long mappingStartedAt = DataLoadRecorder.startMapping();
+        try {
+            return plan.map(data, nestedRows);
+        } catch (IllegalAccessException e) {
+            throw new DataProviderException("Unable to create instance of type '" + plan.getType().getName() + "'", e);
+        } finally {
+            DataLoadRecorder.stopMapping(mappingStartedAt);
+        }
+    }
+
+    /**
+     * @return a {@link ValueConverter} that converts the String data with the given {@link StringConverter}.
+     */
+    static ValueConverter newValueConverter(final StringConverter converter) {
+        return new ValueConverter() {
+            @Override
+            public Object convert(String data, NestedRowCache nestedRows) {
+                return converter.convert(data);
+            }
+        };
+    }
+
+    /**
+     * @return a {@link ValueConverter} that splits the String data at every comma and converts each of the parts into
+     *         an element of an array with the given {@link StringConverter}.
+     */
+    static ValueConverter newArrayValueConverter(final Class<?> componentType, final StringConverter converter) {
+        return new ValueConverter() {
+            @Override
+            public Object convert(String data, NestedRowCache nestedRows) {
+                String[] arrayData = data.split(",");
+                Object arrayObject = Array.newInstance(componentType, arrayData.length);
+                for (int counter = 0; counter < arrayData.length; counter++) {
+                    Array.set(arrayObject, counter, converter.convert(arrayData[counter]));
+                }
+                return arrayObject;
+            }
+        };
+    }
+}
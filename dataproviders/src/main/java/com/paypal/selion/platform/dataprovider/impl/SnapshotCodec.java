@@ -0,0 +1,587 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes the data returned by a data provider into a compact binary form and decodes it back. It supports
+ * <code>null</code>, strings, primitives and their wrappers, {@link BigInteger}, {@link BigDecimal}, {@link Date},
+ * enums, arrays, collections, maps and user defined types that have a default constructor. A user defined type is
+ * written as the values of its instance fields, so its constructors and setters are not run while decoding. Objects
+ * that are referenced more than once are written only once, so shared instances and cycles are preserved.<br>
+ * <br>
+ * Anything else cannot be encoded and results in an {@link IOException}. Decoding data that no longer fits the types
+ * at hand, for e.g. because a field was renamed, results in an {@link IOException} as well. So does decoding a type
+ * that cannot be reached from the fields of the declared types of the data, other than the supported types of the JDK
+ * and its collections and maps.
+ */
+final class SnapshotCodec {
+
+    private static final byte NULL = 0;
+    private static final byte REFERENCE = 1;
+    private static final byte STRING = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte BYTE = 4;
+    private static final byte SHORT = 5;
+    private static final byte CHARACTER = 6;
+    private static final byte INTEGER = 7;
+    private static final byte LONG = 8;
+    private static final byte FLOAT = 9;
+    private static final byte DOUBLE = 10;
+    private static final byte BIG_INTEGER = 11;
+    private static final byte BIG_DECIMAL = 12;
+    private static final byte DATE = 13;
+    private static final byte ENUM = 14;
+    private static final byte ARRAY = 15;
+    private static final byte COLLECTION = 16;
+    private static final byte MAP = 17;
+    private static final byte OBJECT = 18;
+
+    /**
+     * Marks a class that is written for the first time, as opposed to a reference to a class that was written before.
+     */
+    private static final int NEW_CLASS = -1;
+
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+    static {
+        for (Class<?> cls : Arrays.<Class<?>> asList(boolean.class, byte.class, short.class, char.class, int.class,
+                long.class, float.class, double.class)) {
+            PRIMITIVES.put(cls.getName(), cls);
+        }
+    }
+
+    /**
+     * The types of the JDK that can be decoded regardless of the declared types.
+     */
+    private static final List<Class<?>> JDK_TYPES = Arrays.<Class<?>> asList(Object.class, String.class,
+            Boolean.class, Byte.class, Short.class, Character.class, Integer.class, Long.class, Float.class,
+            Double.class, BigInteger.class, BigDecimal.class, Date.class);
+
+    private static final Map<Class<?>, List<Field>> instanceFields = new ConcurrentHashMap<>();
+
+    private SnapshotCodec() {
+        // Utility class. So hide the constructor
+    }
+
+    /**
+     * @param value
+     *            The value to be encoded.
+     * @param declaredTypes
+     *            The types the value is declared to consist of. See {@link #decode(ByteBuffer, Collection)}.
+     * @return the encoded value.
+     * @throws IOException
+     *             if the value, or anything it refers to, cannot be encoded or would not be decoded.
+     */
+    static byte[] encode(Object value, Collection<Class<?>> declaredTypes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            new Encoder(out, getTypeGraph(declaredTypes)).writeValue(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a value that was encoded via {@link #encode(Object, Collection)}, starting at the current position of the buffer.
+     *
+     * @param buffer
+     *            The buffer that holds the encoded value.
+     * @param declaredTypes
+     *            The types the value is declared to consist of, for e.g. the type of the data resource. Only these
+     *            types, the types that can be reached from their fields and the supported types of the JDK are decoded.
+     * @return the decoded value.
+     * @throws IOException
+     *             if the value cannot be decoded.
+     */
+    static Object decode(ByteBuffer buffer, Collection<Class<?>> declaredTypes) throws IOException {
+        try {
+            return new Decoder(buffer, getTypeGraph(declaredTypes)).readValue();
+        } catch (IOException e) {
+            throw e;
+        } catch (RuntimeException | ReflectiveOperationException e) {
+            throw new IOException("Unable to decode the snapshot.", e);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if instances of the class are written as the values of their instance fields.
+     */
+    private static boolean isUserDefined(Class<?> cls) {
+        return !cls.isPrimitive() && !cls.isArray() && !cls.isInterface() && !cls.isEnum()
+                && !Collection.class.isAssignableFrom(cls) && !Map.class.isAssignableFrom(cls)
+                && !cls.getName().startsWith("java.") && !cls.getName().startsWith("javax.");
+    }
+
+    /**
+     * @return the instance fields of the class and its super classes, super classes first and then by name. This order
+     *         does not depend on the order in which the JVM happens to report the fields.
+     */
+    private static List<Field> getInstanceFields(Class<?> cls) {
+        List<Field> fields = instanceFields.get(cls);
+        if (fields != null) {
+            return fields;
+        }
+
+        fields = new ArrayList<>();
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> current = cls; current != null && current != Object.class; current = current.getSuperclass()) {
+            hierarchy.add(0, current);
+        }
+        for (Class<?> current : hierarchy) {
+            List<Field> declared = new ArrayList<>();
+            for (Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) {
+                    field.setAccessible(true);
+                    declared.add(field);
+                }
+            }
+            Collections.sort(declared, new Comparator<Field>() {
+                @Override
+                public int compare(Field f1, Field f2) {
+                    return f1.getName().compareTo(f2.getName());
+                }
+            });
+            fields.addAll(declared);
+        }
+        fields = Collections.unmodifiableList(fields);
+        instanceFields.put(cls, fields);
+        return fields;
+    }
+
+    /**
+     * @return the types that can be reached from the given types via the generic types of their instance fields, along
+     *         with the supported types of the JDK, by name.
+     */
+    private static Map<String, Class<?>> getTypeGraph(Collection<Class<?>> declaredTypes) {
+        Map<String, Class<?>> types = new HashMap<>();
+        for (Class<?> cls : JDK_TYPES) {
+            types.put(cls.getName(), cls);
+        }
+        for (Class<?> cls : declaredTypes) {
+            addToTypeGraph(cls, types);
+        }
+        return types;
+    }
+
+    private static void addToTypeGraph(Type type, Map<String, Class<?>> types) {
+        if (type instanceof ParameterizedType) {
+            addToTypeGraph(((ParameterizedType) type).getRawType(), types);
+            for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                addToTypeGraph(argument, types);
+            }
+        } else if (type instanceof GenericArrayType) {
+            addToTypeGraph(((GenericArrayType) type).getGenericComponentType(), types);
+        } else if (type instanceof WildcardType) {
+            for (Type bound : ((WildcardType) type).getUpperBounds()) {
+                addToTypeGraph(bound, types);
+            }
+        } else if (type instanceof TypeVariable) {
+            for (Type bound : ((TypeVariable<?>) type).getBounds()) {
+                addToTypeGraph(bound, types);
+            }
+        } else if (type instanceof Class) {
+            Class<?> cls = (Class<?>) type;
+            if (cls.isArray()) {
+                addToTypeGraph(cls.getComponentType(), types);
+            } else if (types.put(cls.getName(), cls) == null && isUserDefined(cls)) {
+                for (Field field : getInstanceFields(cls)) {
+                    addToTypeGraph(field.getGenericType(), types);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the class, or the element type of an array class, is a primitive, part of the type
+     *         graph or one of the collections and maps of the JDK.
+     */
+    private static boolean isDeclared(Class<?> cls, Map<String, Class<?>> typeGraph) {
+        Class<?> elementType = cls;
+        while (elementType.isArray()) {
+            elementType = elementType.getComponentType();
+        }
+        return elementType.isPrimitive() || typeGraph.get(elementType.getName()) == elementType
+                || isCollectionOfJdk(elementType);
+    }
+
+    private static boolean isCollectionOfJdk(Class<?> cls) {
+        return cls.getClassLoader() == null && cls.getName().startsWith("java.util.")
+                && (Collection.class.isAssignableFrom(cls) || Map.class.isAssignableFrom(cls));
+    }
+
+    private static Constructor<?> getDefaultConstructor(Class<?> cls) {
+        try {
+            Constructor<?> constructor = cls.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (NoSuchMethodException e) { // NOSONAR
+            return null;
+        }
+    }
+
+    private static final class Encoder {
+        private final DataOutputStream out;
+        private final Map<Object, Integer> references = new IdentityHashMap<>();
+        private final Map<Class<?>, Integer> classes = new HashMap<>();
+        private final Map<String, Class<?>> typeGraph;
+
+        Encoder(DataOutputStream out, Map<String, Class<?>> typeGraph) {
+            this.out = out;
+            this.typeGraph = typeGraph;
+        }
+
+        void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+            } else if (value instanceof String) {
+                out.writeByte(STRING);
+                writeString((String) value);
+            } else if (value instanceof Boolean) {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean((Boolean) value);
+            } else if (value instanceof Byte) {
+                out.writeByte(BYTE);
+                out.writeByte((Byte) value);
+            } else if (value instanceof Short) {
+                out.writeByte(SHORT);
+                out.writeShort((Short) value);
+            } else if (value instanceof Character) {
+                out.writeByte(CHARACTER);
+                out.writeChar((Character) value);
+            } else if (value instanceof Integer) {
+                out.writeByte(INTEGER);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                out.writeByte(LONG);
+                out.writeLong((Long) value);
+            } else if (value instanceof Float) {
+                out.writeByte(FLOAT);
+                out.writeFloat((Float) value);
+            } else if (value instanceof Double) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (value.getClass() == BigInteger.class) {
+                out.writeByte(BIG_INTEGER);
+                byte[] magnitude = ((BigInteger) value).toByteArray();
+                out.writeInt(magnitude.length);
+                out.write(magnitude);
+            } else if (value.getClass() == BigDecimal.class) {
+                out.writeByte(BIG_DECIMAL);
+                writeString(value.toString());
+            } else if (value.getClass() == Date.class) {
+                out.writeByte(DATE);
+                out.writeLong(((Date) value).getTime());
+            } else if (value instanceof Enum) {
+                out.writeByte(ENUM);
+                writeClass(((Enum<?>) value).getDeclaringClass());
+                writeString(((Enum<?>) value).name());
+            } else if (references.containsKey(value)) {
+                out.writeByte(REFERENCE);
+                out.writeInt(references.get(value));
+            } else {
+                writeReferenceable(value);
+            }
+        }
+
+        private void writeReferenceable(Object value) throws IOException {
+            Class<?> cls = value.getClass();
+            if (cls.isArray()) {
+                references.put(value, references.size());
+                out.writeByte(ARRAY);
+                writeClass(cls.getComponentType());
+                int length = Array.getLength(value);
+                out.writeInt(length);
+                for (int i = 0; i < length; i++) {
+                    writeValue(Array.get(value, i));
+                }
+            } else if (value instanceof Collection) {
+                references.put(value, references.size());
+                out.writeByte(COLLECTION);
+                writeClass(getInstantiableType(cls, (value instanceof Set) ? LinkedHashSet.class : ArrayList.class));
+                Collection<?> collection = (Collection<?>) value;
+                out.writeInt(collection.size());
+                for (Object element : collection) {
+                    writeValue(element);
+                }
+            } else if (value instanceof Map) {
+                references.put(value, references.size());
+                out.writeByte(MAP);
+                writeClass(getInstantiableType(cls, LinkedHashMap.class));
+                Map<?, ?> map = (Map<?, ?>) value;
+                out.writeInt(map.size());
+                for (Entry<?, ?> entry : map.entrySet()) {
+                    writeValue(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            } else if (isUserDefined(cls) && !cls.isAnonymousClass() && getDefaultConstructor(cls) != null) {
+                references.put(value, references.size());
+                out.writeByte(OBJECT);
+                writeClass(cls);
+                for (Field field : getInstanceFields(cls)) {
+                    try {
+                        writeValue(field.get(value));
+                    } catch (IllegalAccessException e) {
+                        throw new IOException("Unable to read the field " + field, e);
+                    }
+                }
+            } else {
+                throw new IOException("Unable to encode values of type " + cls.getName());
+            }
+        }
+
+        /**
+         * Collections and maps that cannot be created again, such as unmodifiable views, are decoded as the given
+         * substitute type.
+         */
+        private Class<?> getInstantiableType(Class<?> cls, Class<?> substitute) {
+            return (getDefaultConstructor(cls) != null && !cls.isAnonymousClass()) ? cls : substitute;
+        }
+
+        private void writeClass(Class<?> cls) throws IOException {
+            Integer id = classes.get(cls);
+            if (id != null) {
+                out.writeInt(id);
+                return;
+            }
+            if (!isDeclared(cls, typeGraph)) {
+                throw new IOException("The type " + cls.getName() + " is not one of the declared types of the data.");
+            }
+            classes.put(cls, classes.size());
+            out.writeInt(NEW_CLASS);
+            writeString(cls.getName());
+            if (isUserDefined(cls)) {
+                // The shape of the type lets the decoder detect types that have changed since
+                List<Field> fields = getInstanceFields(cls);
+                out.writeInt(fields.size());
+                for (Field field : fields) {
+                    writeString(field.getName());
+                }
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static final class Decoder {
+        private final ByteBuffer in;
+        private final List<Object> references = new ArrayList<>();
+        private final List<Class<?>> classes = new ArrayList<>();
+        private final Map<String, Class<?>> typeGraph;
+
+        Decoder(ByteBuffer in, Map<String, Class<?>> typeGraph) {
+            this.in = in;
+            this.typeGraph = typeGraph;
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Object readValue() throws IOException, ReflectiveOperationException {
+            byte tag = in.get();
+            switch (tag) {
+            case NULL:
+                return null;
+            case REFERENCE:
+                return references.get(in.getInt());
+            case STRING:
+                return readString();
+            case BOOLEAN:
+                return in.get() != 0;
+            case BYTE:
+                return in.get();
+            case SHORT:
+                return in.getShort();
+            case CHARACTER:
+                return in.getChar();
+            case INTEGER:
+                return in.getInt();
+            case LONG:
+                return in.getLong();
+            case FLOAT:
+                return in.getFloat();
+            case DOUBLE:
+                return in.getDouble();
+            case BIG_INTEGER:
+                byte[] magnitude = new byte[in.getInt()];
+                in.get(magnitude);
+                return new BigInteger(magnitude);
+            case BIG_DECIMAL:
+                return new BigDecimal(readString());
+            case DATE:
+                return new Date(in.getLong());
+            case ENUM:
+                return Enum.valueOf((Class<Enum>) readClass(), readString());
+            case ARRAY:
+                return readArray();
+            case COLLECTION:
+                Collection<Object> collection = (Collection<Object>) newInstance(readClass());
+                references.add(collection);
+                for (int size = in.getInt(); size > 0; size--) {
+                    collection.add(readValue());
+                }
+                return collection;
+            case MAP:
+                Map<Object, Object> map = (Map<Object, Object>) newInstance(readClass());
+                references.add(map);
+                for (int size = in.getInt(); size > 0; size--) {
+                    map.put(readValue(), readValue());
+                }
+                return map;
+            case OBJECT:
+                return readObject();
+            default:
+                throw new IOException("Unknown tag " + tag + " at position " + (in.position() - 1));
+            }
+        }
+
+        private Object readArray() throws IOException, ReflectiveOperationException {
+            Class<?> componentType = readClass();
+            int length = in.getInt();
+            Object array = Array.newInstance(componentType, length);
+            references.add(array);
+            for (int i = 0; i < length; i++) {
+                Array.set(array, i, readValue());
+            }
+            return array;
+        }
+
+        private Object readObject() throws IOException, ReflectiveOperationException {
+            Class<?> cls = readClass();
+            Object value = newInstance(cls);
+            references.add(value);
+            for (Field field : getInstanceFields(cls)) {
+                field.set(value, readValue());
+            }
+            return value;
+        }
+
+        private Object newInstance(Class<?> cls) throws IOException, ReflectiveOperationException {
+            Constructor<?> constructor = getDefaultConstructor(cls);
+            if (constructor == null) {
+                throw new IOException("The type " + cls.getName() + " no longer has a default constructor.");
+            }
+            return constructor.newInstance();
+        }
+
+        private Class<?> readClass() throws IOException, ClassNotFoundException {
+            int id = in.getInt();
+            if (id != NEW_CLASS) {
+                return classes.get(id);
+            }
+
+            String name = readString();
+            Class<?> cls = resolveClass(name);
+            classes.add(cls);
+            if (isUserDefined(cls)) {
+                List<String> fieldNames = new ArrayList<>();
+                for (int count = in.getInt(); count > 0; count--) {
+                    fieldNames.add(readString());
+                }
+                List<String> currentFieldNames = new ArrayList<>();
+                for (Field field : getInstanceFields(cls)) {
+                    currentFieldNames.add(field.getName());
+                }
+                if (!fieldNames.equals(currentFieldNames)) {
+                    throw new IOException("The fields of " + name + " have changed since the snapshot was written.");
+                }
+            }
+            return cls;
+        }
+
+        /**
+         * Resolves the types of the type graph, and the collections and maps of the JDK, which are loaded by the
+         * bootstrap class loader only. Arrays are resolved by their element type.
+         */
+        private Class<?> resolveClass(String name) throws IOException, ClassNotFoundException {
+            int dimensions = 0;
+            while (name.startsWith("[", dimensions)) {
+                dimensions++;
+            }
+            if (dimensions == 0) {
+                return resolveElementClass(name);
+            }
+            String element = name.substring(dimensions);
+            Class<?> cls;
+            if (element.startsWith("L") && element.endsWith(";")) {
+                cls = resolveElementClass(element.substring(1, element.length() - 1));
+            } else {
+                // An array of primitives
+                cls = Class.forName(name.substring(dimensions - 1), false, null).getComponentType();
+            }
+            for (int i = 0; i < dimensions; i++) {
+                cls = Array.newInstance(cls, 0).getClass();
+            }
+            return cls;
+        }
+
+        private Class<?> resolveElementClass(String name) throws IOException, ClassNotFoundException {
+            Class<?> cls = PRIMITIVES.get(name);
+            if (cls == null) {
+                cls = typeGraph.get(name);
+            }
+            if (cls == null && name.startsWith("java.util.")) {
+                Class<?> jdkClass = Class.forName(name, false, null);
+                if (isCollectionOfJdk(jdkClass)) {
+                    cls = jdkClass;
+                }
+            }
+            if (cls == null) {
+                throw new IOException("The type " + name + " is not one of the declared types of the data.");
+            }
+            return cls;
+        }
+
+        private String readString() {
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
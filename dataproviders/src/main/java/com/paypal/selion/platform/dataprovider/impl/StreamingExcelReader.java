@@ -0,0 +1,644 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.SimpleDateFormat;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import com.paypal.selion.logger.SeLionLogger;
+import com.paypal.selion.platform.dataprovider.DataProviderException;
+import com.paypal.selion.platform.dataprovider.DataResource;
+import com.paypal.test.utilities.logging.SimpleLogger;
+
+/**
+ * A utility class to read rows of .xlsx files in a streaming fashion. Unlike {@link ExcelReader}, this class does not
+ * build an in memory representation of the whole workbook. The sheets are parsed on demand via the POI event API (
+ * {@link XSSFReader}) using a pull parser, and only the cell values of the rows that are currently being read are
+ * materialized.
+ * <p>
+ * Lookups by key (which are used to resolve references to other sheets) are served from an index of the keys of a
+ * sheet to their row numbers, which is built the first time such a lookup is done against the sheet. The cell values
+ * of the row that is looked up are then read by parsing the sheet again, up to that row. Methods which have to return
+ * POI {@link org.apache.poi.ss.usermodel.Row} or {@link org.apache.poi.ss.usermodel.Sheet} objects fall back to lazily
+ * loading the whole workbook.
+ * <p>
+ * A .xlsx file that is found on the file system is opened as a file, so that only the parts of the zip file that are
+ * read are inflated. Other resources are read from their stream, in which case the zip file is held in memory.
+ */
+class StreamingExcelReader extends ExcelReader {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * The format that is used by POI when a date formatted numeric cell is converted into a String.
+     */
+    private static final String DATE_FORMAT = "dd-MMM-yyyy";
+
+    private final SimpleLogger logger = SeLionLogger.getLogger();
+
+    private final OPCPackage xlsxPackage;
+    private final XSSFReader xssfReader;
+    private final List<String> sharedStrings;
+    private final StylesTable stylesTable;
+    private final boolean date1904;
+    private final Map<Integer, Boolean> dateFormattedStyles = new ConcurrentHashMap<>();
+    private volatile Workbook workBook;
+
+    /**
+     * @param resource
+     *            the stream of the .xlsx file to be read.
+     * @throws IOException
+     *             If the file cannot be located, or cannot read by the method.
+     */
+    public StreamingExcelReader(DataResource resource) throws IOException {
+        logger.entering(resource);
+
+        if (resource == null || StringUtils.isBlank(resource.getType())) {
+            throw new IllegalArgumentException("resource cannot be null/empty");
+        }
+        if (!isStreamable(resource)) {
+            throw new IllegalArgumentException("Only .xlsx files can be read in a streaming fashion.");
+        }
+
+        OPCPackage opcPackage = null;
+        try {
+            opcPackage = openPackage(resource);
+            xssfReader = new XSSFReader(opcPackage);
+            sharedStrings = readSharedStrings();
+            stylesTable = xssfReader.getStylesTable();
+            date1904 = readDate1904();
+        } catch (OpenXML4JException | XMLStreamException e) {
+            revertQuietly(opcPackage);
+            throw new IOException(e);
+        } catch (RuntimeException e) {
+            // Only FileAssistant will detect if the file was valid or not and it tells this by throwing a
+            // RuntimeException. Our clients are expecting to get an IOException. See ExcelReader.
+            revertQuietly(opcPackage);
+            throw new IOException(e);
+        }
+        xlsxPackage = opcPackage;
+
+        logger.exiting();
+    }
+
+    /**
+     * Opens a file on the file system read only, so that its parts are inflated only when they are read. A stream has
+     * to be read into memory as a whole.
+     */
+    private static OPCPackage openPackage(DataResource resource) throws IOException, OpenXML4JException {
+        File file = (resource instanceof FileSystemResource) ? ((FileSystemResource) resource).getFile() : null;
+        if (file != null) {
+            OPCPackage opcPackage = OPCPackage.open(file.getPath(), PackageAccess.READ);
+            DataLoadRecorder.addBytesRead(file.length());
+            return opcPackage;
+        }
+        InputStream stream = DataLoadRecorder.countBytes(resource.getInputStream());
+        try {
+            return OPCPackage.open(stream);
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    private static void revertQuietly(OPCPackage opcPackage) {
+        if (opcPackage != null) {
+            // A package that is open read only is released without being saved.
+            opcPackage.revert();
+        }
+    }
+
+    /**
+     * @param resource
+     *            A {@link DataResource} that represents an excel file.
+     * @return <code>true</code> if the resource can be read by a {@link StreamingExcelReader}.
+     */
+    static boolean isStreamable(DataResource resource) {
+        return resource != null && StringUtils.isNotBlank(resource.getType())
+                && resource.getType().toLowerCase().endsWith("xlsx");
+    }
+
+    /**
+     * Loads the whole workbook. This is only done when one of the methods which deal with POI objects is invoked.
+     */
+    @Override
+    protected Workbook getWorkBook() {
+        if (workBook == null) {
+            synchronized (this) {
+                if (workBook == null) {
+                    try {
+                        workBook = new XSSFWorkbook(xlsxPackage);
+                    } catch (IOException e) {
+                        throw new DataProviderException("Unable to load the excel workbook.", e);
+                    }
+                }
+            }
+        }
+        return workBook;
+    }
+
+    @Override
+    public boolean sheetExists(String sheetName) {
+        try {
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+            while (sheets.hasNext()) {
+                IOUtils.closeQuietly(sheets.next());
+                if (sheets.getSheetName().equalsIgnoreCase(sheetName)) {
+                    return true;
+                }
+            }
+        } catch (IOException | OpenXML4JException e) {
+            throw new DataProviderException("Unable to read the sheets of the excel workbook.", e);
+        }
+        return false;
+    }
+
+    /**
+     * Iterates over the data rows of a specified sheet while the sheet is being parsed. Only the cell values of the row
+     * that is returned by {@link Iterator#next()} are held in memory. Rows which the user marked to be excluded by
+     * adding a # in the first column are skipped.
+     * 
+     * @param sheetName
+     *            A String that represents the Sheet name
+     * @param size
+     *            The number of columns to read, including empty and blank column.
+     * @return An {@link Iterator} over the contents of the data rows. The iterator is {@link Closeable}. It releases
+     *         the sheet once all rows are read, so it only needs to be closed when it is abandoned before that.
+     */
+    @Override
+    public Iterator<ExcelRowData> getRowDataIterator(String sheetName, int size) {
+        logger.entering(new Object[] { sheetName, size });
+        Iterator<ExcelRowData> rowData = new RowDataIterator(new SheetRowIterator(sheetName), size);
+        logger.exiting();
+        return rowData;
+    }
+
+    /**
+     * Parses the sheet up to the row that is asked for, since the cell values of the rows are not kept.
+     */
+    @Override
+    public List<String> getRowContents(String sheetName, int rowIndex, int size) {
+        logger.entering(new Object[] { sheetName, rowIndex, size });
+        List<String> rowData = getRowContents(readRow(sheetName, rowIndex - 1), size);
+        logger.exiting(rowData);
+        return rowData;
+    }
+
+    @Override
+    public List<String> getHeaderRowContents(String sheetName, int size) {
+        logger.entering(new Object[] { sheetName, size });
+        // No need to read the whole sheet. The header is always the very first row.
+        List<String> rowData = getRowContents(readRow(sheetName, 0), size);
+        logger.exiting(rowData);
+        return rowData;
+    }
+
+    /**
+     * Indexes the keys of the data rows in a single pass over the sheet, instead of loading the whole workbook.
+     */
+    @Override
+    public Map<String, Integer> getRowKeys(String sheetName) {
+        logger.entering(sheetName);
+        Map<String, Integer> rowKeys = new LinkedHashMap<>();
+        SheetRowIterator rows = new SheetRowIterator(sheetName);
+        try {
+            while (rows.hasNext()) {
+                Entry<Integer, List<String>> row = rows.next();
+                String key = getCell(row.getValue(), 0);
+                if (row.getKey() != 0 && key != null) {
+                    // the same 1 based row number that getRowContents() expects
+                    rowKeys.put(key, row.getKey() + 1);
+                }
+            }
+        } finally {
+            rows.close();
+        }
+        logger.exiting(rowKeys);
+        return rowKeys;
+    }
+
+    /**
+     * Only the keys are kept in the index, the cell values of the rows are dropped as soon as they are parsed.
+     */
+    @Override
+    protected Map<String, Integer> buildRowIndexes(String sheetName) {
+        Map<String, Integer> rowIndexes = new HashMap<>();
+        SheetRowIterator rows = new SheetRowIterator(sheetName);
+        try {
+            while (rows.hasNext()) {
+                Entry<Integer, List<String>> row = rows.next();
+                addRowIndex(rowIndexes, getCell(row.getValue(), 0), row.getKey());
+            }
+        } finally {
+            rows.close();
+        }
+        return rowIndexes;
+    }
+
+    /**
+     * @return the cell values of a row or <code>null</code> if the sheet does not define it. The sheet is parsed up to
+     *         that row.
+     */
+    private List<String> readRow(String sheetName, int rowNumber) {
+        SheetRowIterator rows = new SheetRowIterator(sheetName);
+        try {
+            while (rows.hasNext()) {
+                Entry<Integer, List<String>> row = rows.next();
+                if (row.getKey() >= rowNumber) {
+                    return (row.getKey() == rowNumber) ? row.getValue() : null;
+                }
+            }
+            return null;
+        } finally {
+            rows.close();
+        }
+    }
+
+    /**
+     * Mimics {@link ExcelReader#getRowContents(org.apache.poi.ss.usermodel.Row, int)} for rows which were read as cell
+     * values.
+     */
+    private static List<String> getRowContents(List<String> cells, int size) {
+        List<String> rowData = new ArrayList<String>();
+        if (cells != null) {
+            for (int i = 1; i <= size; i++) {
+                rowData.add(getCell(cells, i));
+            }
+        }
+        return rowData;
+    }
+
+    private static String getCell(List<String> cells, int column) {
+        return (column < cells.size()) ? cells.get(column) : null;
+    }
+
+    private InputStream openSheet(String sheetName) {
+        try {
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+            while (sheets.hasNext()) {
+                InputStream sheetData = sheets.next();
+                if (sheets.getSheetName().equalsIgnoreCase(sheetName)) {
+                    return sheetData;
+                }
+                IOUtils.closeQuietly(sheetData);
+            }
+        } catch (IOException | OpenXML4JException e) {
+            throw new DataProviderException("Unable to read the sheet '" + sheetName + "'.", e);
+        }
+        throw new IllegalArgumentException("Sheet '" + sheetName + "' is not found.");
+    }
+
+    private List<String> readSharedStrings() throws IOException, OpenXML4JException, XMLStreamException {
+        List<String> strings = new ArrayList<>();
+        InputStream data = xssfReader.getSharedStringsData();
+        if (data == null) {
+            return strings;
+        }
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(data);
+        try {
+            StringBuilder text = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("si".equals(name)) {
+                        text = new StringBuilder();
+                    } else if ("rPh".equals(name)) {
+                        // Phonetic runs are not part of the cell value
+                        skipElement(reader);
+                    } else if ("t".equals(name) && text != null) {
+                        text.append(reader.getElementText());
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "si".equals(reader.getLocalName())) {
+                    strings.add(text.toString());
+                    text = null;
+                }
+            }
+        } finally {
+            reader.close();
+            IOUtils.closeQuietly(data);
+        }
+        return Collections.unmodifiableList(strings);
+    }
+
+    private boolean readDate1904() throws IOException, OpenXML4JException, XMLStreamException {
+        InputStream data = xssfReader.getWorkbookData();
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(data);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("workbookPr".equals(name)) {
+                        String value = reader.getAttributeValue(null, "date1904");
+                        return "1".equals(value) || "true".equalsIgnoreCase(value);
+                    }
+                    if ("sheets".equals(name)) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+            IOUtils.closeQuietly(data);
+        }
+        return false;
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Converts a cell reference such as "AB12" into a 0 based column index.
+     */
+    private static int getColumnIndex(String cellReference) {
+        int column = 0;
+        for (char eachChar : cellReference.toCharArray()) {
+            if (!Character.isLetter(eachChar)) {
+                break;
+            }
+            column = (column * 26) + (Character.toUpperCase(eachChar) - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    /**
+     * Converts the raw value of a cell into a String the same way {@link org.apache.poi.xssf.usermodel.XSSFCell#toString()}
+     * does it.
+     */
+    private String formatCellValue(String type, String style, String formula, String value, String inlineValue) {
+        if (StringUtils.isNotEmpty(formula)) {
+            return formula;
+        }
+        if ("s".equals(type)) {
+            return (value == null) ? "" : sharedStrings.get(Integer.parseInt(value.trim()));
+        }
+        if ("inlineStr".equals(type)) {
+            return (inlineValue == null) ? "" : inlineValue;
+        }
+        if ("str".equals(type) || "e".equals(type)) {
+            return (value == null) ? "" : value;
+        }
+        if ("b".equals(type)) {
+            if (value == null) {
+                return "";
+            }
+            return "1".equals(value.trim()) || "true".equalsIgnoreCase(value.trim()) ? "TRUE" : "FALSE";
+        }
+        if (StringUtils.isEmpty(value)) {
+            return "";
+        }
+        double numericValue = Double.parseDouble(value);
+        if (isDateFormatted(style, numericValue)) {
+            return new SimpleDateFormat(DATE_FORMAT).format(DateUtil.getJavaDate(numericValue, date1904));
+        }
+        return Double.toString(numericValue);
+    }
+
+    private boolean isDateFormatted(String style, double numericValue) {
+        if (stylesTable == null || !DateUtil.isValidExcelDate(numericValue)) {
+            return false;
+        }
+        int styleIndex = StringUtils.isEmpty(style) ? 0 : Integer.parseInt(style);
+        Boolean dateFormatted = dateFormattedStyles.get(styleIndex);
+        if (dateFormatted == null) {
+            XSSFCellStyle cellStyle = stylesTable.getStyleAt(styleIndex);
+            dateFormatted = (cellStyle != null)
+                    && DateUtil.isADateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString());
+            dateFormattedStyles.put(styleIndex, dateFormatted);
+        }
+        return dateFormatted;
+    }
+
+    /**
+     * Hands out the data rows of a sheet, skipping the header row and the rows that the user marked to be excluded by
+     * adding a #.
+     */
+    private static final class RowDataIterator implements Iterator<ExcelRowData>, Closeable {
+        private final SheetRowIterator rows;
+        private final int columns;
+        private ExcelRowData nextRow;
+
+        RowDataIterator(SheetRowIterator rows, int columns) {
+            this.rows = rows;
+            this.columns = columns;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextRow == null && rows.hasNext()) {
+                Entry<Integer, List<String>> row = rows.next();
+                String key = getCell(row.getValue(), 0);
+                if (row.getKey() != 0 && key != null && !key.contains("#")) {
+                    nextRow = new ExcelRowData(row.getKey(), key, getRowContents(row.getValue(), columns));
+                }
+            }
+            return nextRow != null;
+        }
+
+        @Override
+        public ExcelRowData next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ExcelRowData current = nextRow;
+            nextRow = null;
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            rows.close();
+        }
+    }
+
+    /**
+     * Pulls the rows of a sheet from the sheet XML one at a time. Every row is returned as its 0 based row number and
+     * its cell values indexed by their 0 based column number. Missing cells are represented by <code>null</code>.
+     */
+    private final class SheetRowIterator implements Iterator<Entry<Integer, List<String>>>, Closeable {
+        private final InputStream sheetData;
+        private final XMLStreamReader reader;
+        private Entry<Integer, List<String>> nextRow;
+        private int lastRowNumber = -1;
+        private boolean closed;
+
+        SheetRowIterator(String sheetName) {
+            sheetData = openSheet(sheetName);
+            try {
+                reader = XML_INPUT_FACTORY.createXMLStreamReader(sheetData);
+            } catch (XMLStreamException e) {
+                IOUtils.closeQuietly(sheetData);
+                throw new DataProviderException("Unable to read the sheet '" + sheetName + "'.", e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextRow == null && !closed) {
+                try {
+                    nextRow = readNextRow();
+                } catch (XMLStreamException e) {
+                    close();
+                    throw new DataProviderException("Unable to parse the excel sheet.", e);
+                }
+                if (nextRow == null) {
+                    close();
+                }
+            }
+            return nextRow != null;
+        }
+
+        @Override
+        public Entry<Integer, List<String>> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<Integer, List<String>> current = nextRow;
+            nextRow = null;
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                reader.close();
+            } catch (XMLStreamException e) { // NOSONAR
+                // Gobble exception and do nothing with it.
+            }
+            IOUtils.closeQuietly(sheetData);
+        }
+
+        private Entry<Integer, List<String>> readNextRow() throws XMLStreamException {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && "row".equals(reader.getLocalName())) {
+                    String reference = reader.getAttributeValue(null, "r");
+                    int rowNumber = StringUtils.isEmpty(reference) ? lastRowNumber + 1
+                            : Integer.parseInt(reference) - 1;
+                    lastRowNumber = rowNumber;
+                    return new SimpleImmutableEntry<>(rowNumber, readCells());
+                }
+            }
+            return null;
+        }
+
+        private List<String> readCells() throws XMLStreamException {
+            List<String> cells = new ArrayList<>();
+            int column = -1;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT && "row".equals(reader.getLocalName())) {
+                    break;
+                }
+                if (event == XMLStreamConstants.START_ELEMENT && "c".equals(reader.getLocalName())) {
+                    String reference = reader.getAttributeValue(null, "r");
+                    column = StringUtils.isEmpty(reference) ? column + 1 : getColumnIndex(reference);
+                    String value = readCell(reader.getAttributeValue(null, "t"), reader.getAttributeValue(null, "s"));
+                    while (cells.size() <= column) {
+                        cells.add(null);
+                    }
+                    cells.set(column, value);
+                }
+            }
+            return cells;
+        }
+
+        private String readCell(String type, String style) throws XMLStreamException {
+            String formula = null;
+            String value = null;
+            StringBuilder inlineValue = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT && "c".equals(reader.getLocalName())) {
+                    break;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+                if ("f".equals(name)) {
+                    formula = reader.getElementText();
+                } else if ("v".equals(name)) {
+                    value = reader.getElementText();
+                } else if ("rPh".equals(name)) {
+                    skipElement(reader);
+                } else if ("t".equals(name)) {
+                    inlineValue = (inlineValue == null) ? new StringBuilder() : inlineValue;
+                    inlineValue.append(reader.getElementText());
+                }
+            }
+            return formatCellValue(type, style, formula, value, (inlineValue == null) ? null : inlineValue.toString());
+        }
+    }
+}
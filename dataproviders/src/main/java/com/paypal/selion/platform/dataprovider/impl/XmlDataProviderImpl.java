@@ -15,7 +15,7 @@
 
 package com.paypal.selion.platform.dataprovider.impl;
 
-import java.io.StringReader;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Hashtable;
@@ -24,16 +24,26 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
-import javax.xml.transform.stream.StreamSource;
-
-import org.dom4j.Document;
-import org.dom4j.DocumentException;
-import org.dom4j.Node;
-import org.dom4j.dom.DOMDocumentFactory;
-import org.dom4j.io.SAXReader;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.Source;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 
 import com.google.common.base.Preconditions;
 import com.paypal.selion.logger.SeLionLogger;
@@ -42,7 +52,9 @@ import com.paypal.selion.platform.dataprovider.DataResource;
 import com.paypal.selion.platform.dataprovider.XmlDataProvider;
 import com.paypal.selion.platform.dataprovider.XmlDataSource;
 import com.paypal.selion.platform.dataprovider.filter.DataProviderFilter;
+import com.paypal.selion.platform.dataprovider.filter.RawDataProviderFilter;
 import com.paypal.selion.platform.dataprovider.filter.SimpleIndexInclusionFilter;
+import com.paypal.selion.platform.dataprovider.impl.DataSnapshotStore.Snapshot;
 import com.paypal.selion.platform.dataprovider.pojos.KeyValueMap;
 import com.paypal.selion.platform.dataprovider.pojos.KeyValuePair;
 import com.paypal.test.utilities.logging.SimpleLogger;
@@ -56,6 +68,12 @@ import com.paypal.test.utilities.logging.SimpleLogger;
 public final class XmlDataProviderImpl implements XmlDataProvider {
 
     private static SimpleLogger logger = SeLionLogger.getLogger();
+
+    /**
+     * The feature of the Xerces parser of the JDK that rejects any document with a DOCTYPE declaration.
+     */
+    private static final String DISALLOW_DOCTYPE_DECL = "http://apache.org/xml/features/disallow-doctype-decl";
+
     private final XmlDataSource resource;
 
     public XmlDataProviderImpl(XmlDataSource resource) {
@@ -70,15 +88,28 @@ public final class XmlDataProviderImpl implements XmlDataProvider {
     @Override
     public Object[][] getAllData() {
         logger.entering();
+        boolean multipleTypes = (null == resource.getCls()) && (null != resource.getXpathMap());
+        DataSharding sharding = DataSharding.getInstance();
+        if (sharding.isEnabled() && !multipleTypes) {
+            // Only the elements of this shard are unmarshalled.
+            List<Object[]> shardData = getDataListByFilter(sharding.allRows());
+            logger.exiting();
+            return shardData.toArray(new Object[shardData.size()][]);
+        }
+        Snapshot snapshot = DataSnapshotStore.getInstance().getSnapshot(resource, DataSnapshotStore.ALL_DATA);
+        Object[][] snapshotData = (Object[][]) snapshot.read();
+        if (snapshotData != null) {
+            logger.exiting();
+            return sharding.restrict(snapshotData);
+        }
         Object[][] objectArray;
 
-        if ((null == resource.getCls()) && (null != resource.getXpathMap())) {
+        if (multipleTypes) {
             Document doc = getDocument();
             Object[][][] multipleObjectDataProviders = new Object[resource.getXpathMap().size()][][];
             int i = 0;
             for (Entry<String, Class<?>> entry : resource.getXpathMap().entrySet()) {
-                String xml = getFilteredXml(doc, entry.getKey());
-                List<?> object = loadDataFromXml(xml, entry.getValue());
+                List<?> object = loadDataFromNodes(doc, entry.getKey(), entry.getValue());
                 Object[][] objectDataProvider = DataProviderHelper.convertToObjectArray(object);
                 multipleObjectDataProviders[i++] = objectDataProvider;
             }
@@ -87,10 +118,12 @@ public final class XmlDataProviderImpl implements XmlDataProvider {
             List<?> objectList = loadDataFromXmlFile();
             objectArray = DataProviderHelper.convertToObjectArray(objectList);
         }
+        snapshot.write(objectArray);
 
         // Passing no arguments to exiting() because implementation to print 2D array could be highly recursive.
         logger.exiting();
-        return objectArray;
+        // The rows that combine the objects of several types are only known once all of them have been unmarshalled.
+        return sharding.restrict(objectArray);
     }
 
     /**
@@ -103,7 +136,7 @@ public final class XmlDataProviderImpl implements XmlDataProvider {
     @Override
     public Iterator<Object[]> getDataByFilter(DataProviderFilter dataFilter) {
         logger.entering(new Object[] { resource, dataFilter });
-        List<Object[]> allObjs = getDataListByFilter(dataFilter);
+        List<Object[]> allObjs = getDataListByFilter(DataSharding.getInstance().restrict(dataFilter));
         return allObjs.iterator();
     }
 
@@ -116,15 +149,20 @@ public final class XmlDataProviderImpl implements XmlDataProvider {
     private List<Object[]> getDataListByFilter(DataProviderFilter dataFilter) {
 
         logger.entering(dataFilter);
-        List<Object[]> allObjs = new ArrayList<>();
+        if (dataFilter instanceof RawDataProviderFilter) {
+            List<Object[]> allObjs = getDataListByRawFilter((RawDataProviderFilter) dataFilter);
+            logger.exiting(allObjs);
+            return allObjs;
+        }
+        List<Object[]> allObjs;
         if ((null == resource.getCls()) && (null != resource.getXpathMap())) {
+            // The objects of all the XPaths are filtered as a single list, so that their positions keep counting up.
             Document doc = getDocument();
+            List<Object> objectList = new ArrayList<>();
             for (Entry<String, Class<?>> entry : resource.getXpathMap().entrySet()) {
-                String xml = getFilteredXml(doc, entry.getKey());
-                List<?> objectList = loadDataFromXml(xml, entry.getValue());
-                List<Object[]> singleResourceObjs = DataProviderHelper.filterToListOfObjects(objectList, dataFilter);
-                allObjs.addAll(singleResourceObjs);
+                objectList.addAll(loadDataFromNodes(doc, entry.getKey(), entry.getValue()));
             }
+            allObjs = DataProviderHelper.filterToListOfObjects(objectList, dataFilter);
         } else {
             List<?> objectList = loadDataFromXmlFile();
             allObjs = DataProviderHelper.filterToListOfObjects(objectList, dataFilter);
@@ -134,6 +172,80 @@ public final class XmlDataProviderImpl implements XmlDataProvider {
         return allObjs;
     }
 
+    /**
+     * Generates an objects in List from the XML data filtered per {@code dataFilter}. Every element is offered to the
+     * filter in its raw form first and only the elements that pass are unmarshalled.
+     *
+     * @param dataFilter
+     *            an implementation class of {@link RawDataProviderFilter}
+     * @return List of objects
+     */
+    private List<Object[]> getDataListByRawFilter(RawDataProviderFilter dataFilter) {
+        List<Object[]> allObjs = new ArrayList<>();
+        Document doc = getDocument();
+        int position = 0;
+
+        try {
+            if ((null == resource.getCls()) && (null != resource.getXpathMap())) {
+                for (Entry<String, Class<?>> entry : resource.getXpathMap().entrySet()) {
+                    Class<?> cls = entry.getValue();
+                    NodeList nodes = selectNodes(doc, entry.getKey());
+                    JaxbContextPool pool = JaxbContextPool.forTypes(cls);
+                    Unmarshaller unmarshaller = pool.borrow();
+                    for (int i = 0; i < nodes.getLength(); i++) {
+                        Node node = nodes.item(i);
+                        if (node.getNodeType() != Node.ELEMENT_NODE) {
+                            continue;
+                        }
+                        position++;
+                        if (dataFilter.filterRaw(RawDataRows.forXmlElement((Element) node, cls, position))) {
+                            long mappingStartedAt = DataLoadRecorder.startMapping();
+                            Object data = unmarshaller.unmarshal(node, cls).getValue();
+                            DataLoadRecorder.stopMapping(mappingStartedAt);
+                            if (dataFilter.filter(data, position)) {
+                                allObjs.add(new Object[] { data });
+                            }
+                        }
+                    }
+                    pool.release(unmarshaller);
+                }
+            } else {
+                Preconditions.checkArgument(resource.getCls() != null, "Please provide a valid type.");
+                // Drop the rejected elements from the document and unmarshal the rest in one go, remembering the
+                // positions of the elements that are left.
+                Element root = doc.getDocumentElement();
+                List<Integer> positions = new ArrayList<>();
+                Node child = root.getFirstChild();
+                while (child != null) {
+                    Node next = child.getNextSibling();
+                    if (child.getNodeType() == Node.ELEMENT_NODE) {
+                        position++;
+                        if (dataFilter.filterRaw(RawDataRows.forXmlElement((Element) child, resource.getCls(),
+                                position))) {
+                            positions.add(position);
+                        } else {
+                            root.removeChild(child);
+                        }
+                    }
+                    child = next;
+                }
+                long mappingStartedAt = DataLoadRecorder.startMapping();
+                List<?> objectList = unmarshal(new DOMSource(doc), Wrapper.class, Wrapper.class, resource.getCls())
+                        .getList();
+                DataLoadRecorder.stopMapping(mappingStartedAt);
+                for (int i = 0; i < objectList.size(); i++) {
+                    if (dataFilter.filter(objectList.get(i), positions.get(i))) {
+                        allObjs.add(new Object[] { objectList.get(i) });
+                    }
+                }
+            }
+        } catch (JAXBException excp) {
+            throw new DataProviderException("Error unmarshalling XML data.", excp);
+        }
+        DataLoadRecorder.addRowsParsed(position);
+        return allObjs;
+    }
+
     /**
      * Generates an object array in iterator as TestNG DataProvider from the XML data filtered per given indexes string.
      * This method may throw {@link DataProviderException} when an unexpected error occurs during data provision from
@@ -215,11 +327,10 @@ public final class XmlDataProviderImpl implements XmlDataProvider {
 
         Object[][] objectArray;
         try {
-            JAXBContext context = JAXBContext.newInstance(resource.getCls());
-            Unmarshaller unmarshaller = context.createUnmarshaller();
-            StreamSource xmlStreamSource = new StreamSource(resource.getInputStream());
-            Map<String, KeyValuePair> keyValueItems = unmarshaller
-                    .unmarshal(xmlStreamSource, KeyValueMap.class).getValue().getMap();
+            Source xmlSource = getSource();
+            Map<String, KeyValuePair> keyValueItems = unmarshal(xmlSource, KeyValueMap.class,
+                    resource.getCls()).getMap();
+            DataLoadRecorder.addRowsParsed(keyValueItems.size());
             objectArray = DataProviderHelper.convertToObjectArray(keyValueItems);
         } catch (JAXBException excp) {
             throw new DataProviderException("Error unmarshalling XML file.", excp);
@@ -268,11 +379,10 @@ public final class XmlDataProviderImpl implements XmlDataProvider {
 
         Object[][] objectArray;
         try {
-            JAXBContext context = JAXBContext.newInstance(resource.getCls());
-            Unmarshaller unmarshaller = context.createUnmarshaller();
-            StreamSource xmlStreamSource = new StreamSource(resource.getInputStream());
-            Map<String, KeyValuePair> keyValueItems = unmarshaller
-                    .unmarshal(xmlStreamSource, KeyValueMap.class).getValue().getMap();
+            Source xmlSource = getSource();
+            Map<String, KeyValuePair> keyValueItems = unmarshal(xmlSource, KeyValueMap.class,
+                    resource.getCls()).getMap();
+            DataLoadRecorder.addRowsParsed(keyValueItems.size());
             objectArray = DataProviderHelper.getDataByKeys(keyValueItems, keys);
         } catch (JAXBException excp) {
             logger.exiting(excp.getMessage());
@@ -318,11 +428,10 @@ public final class XmlDataProviderImpl implements XmlDataProvider {
 
         Hashtable<String, Object> dataHashTable = new Hashtable<>();
         try {
-            JAXBContext context = JAXBContext.newInstance(resource.getCls());
-            Unmarshaller unmarshaller = context.createUnmarshaller();
-            StreamSource xmlStreamSource = new StreamSource(resource.getInputStream());
-            Map<String, KeyValuePair> keyValueItems = unmarshaller
-                    .unmarshal(xmlStreamSource, KeyValueMap.class).getValue().getMap();
+            Source xmlSource = getSource();
+            Map<String, KeyValuePair> keyValueItems = unmarshal(xmlSource, KeyValueMap.class,
+                    resource.getCls()).getMap();
+            DataLoadRecorder.addRowsParsed(keyValueItems.size());
             for (Entry<?, ?> entry : keyValueItems.entrySet()) {
                 dataHashTable.put((String) entry.getKey(), entry.getValue());
             }
@@ -346,11 +455,10 @@ public final class XmlDataProviderImpl implements XmlDataProvider {
         List<?> returned;
 
         try {
-            JAXBContext context = JAXBContext.newInstance(Wrapper.class, resource.getCls());
-            Unmarshaller unmarshaller = context.createUnmarshaller();
-            StreamSource xmlStreamSource = new StreamSource(resource.getInputStream());
-            Wrapper<?> wrapper = unmarshaller.unmarshal(xmlStreamSource, Wrapper.class).getValue();
+            Source xmlSource = getSource();
+            Wrapper<?> wrapper = unmarshal(xmlSource, Wrapper.class, Wrapper.class, resource.getCls());
             returned = wrapper.getList();
+            DataLoadRecorder.addRowsParsed(returned.size());
         } catch (JAXBException excp) {
             logger.exiting(excp.getMessage());
             throw new DataProviderException("Error unmarshalling XML file.", excp);
@@ -361,29 +469,39 @@ public final class XmlDataProviderImpl implements XmlDataProvider {
     }
 
     /**
-     * Generates a list of the declared type after parsing the XML data string.
+     * Generates a list of the declared type by unmarshalling the elements selected by the XPath expression straight from
+     * the nodes of the document.
      *
-     * @param xml
-     *            String containing the XML data.
+     * @param document
+     *            An XML {@link Document}
+     * @param xpathExpression
+     *            A string indicating the XPath expression to be evaluated.
      * @param cls
-     *            The declared type modeled by the XML content.
-     * @return A {@link List} of object of declared type {@link XmlFileSystemResource#getCls()}.
+     *            The declared type modeled by the selected elements.
+     * @return A {@link List} of object of declared type {@code cls}.
      */
-    private List<?> loadDataFromXml(String xml, Class<?> cls) {
-        logger.entering(new Object[] { xml, cls });
+    private List<?> loadDataFromNodes(Document document, String xpathExpression, Class<?> cls) {
+        logger.entering(new Object[] { xpathExpression, cls });
         Preconditions.checkArgument(cls != null, "Please provide a valid type.");
-        List<?> returned;
+        List<Object> returned = new ArrayList<>();
 
         try {
-            JAXBContext context = JAXBContext.newInstance(Wrapper.class, cls);
-            Unmarshaller unmarshaller = context.createUnmarshaller();
-            StringReader xmlStringReader = new StringReader(xml);
-            StreamSource streamSource = new StreamSource(xmlStringReader);
-            Wrapper<?> wrapper = unmarshaller.unmarshal(streamSource, Wrapper.class).getValue();
-            returned = wrapper.getList();
+            NodeList nodes = selectNodes(document, xpathExpression);
+            JaxbContextPool pool = JaxbContextPool.forTypes(cls);
+            Unmarshaller unmarshaller = pool.borrow();
+            for (int i = 0; i < nodes.getLength(); i++) {
+                Node node = nodes.item(i);
+                if (node.getNodeType() == Node.ELEMENT_NODE) {
+                    long mappingStartedAt = DataLoadRecorder.startMapping();
+                    returned.add(unmarshaller.unmarshal(node, cls).getValue());
+                    DataLoadRecorder.stopMapping(mappingStartedAt);
+                }
+            }
+            pool.release(unmarshaller);
+            DataLoadRecorder.addRowsParsed(returned.size());
         } catch (JAXBException excp) {
             logger.exiting(excp.getMessage());
-            throw new DataProviderException("Error unmarshalling XML string.", excp);
+            throw new DataProviderException("Error unmarshalling XML nodes.", excp);
         }
 
         logger.exiting(returned);
@@ -391,49 +509,89 @@ public final class XmlDataProviderImpl implements XmlDataProvider {
     }
 
     /**
-     * Loads the XML data from the {@link XmlFileSystemResource} into a {@link org.dom4j.Document}.
+     * Selects the nodes of the document that match the XPath expression.
      *
-     * @return A Document object.
+     * @param document
+     *            An XML {@link Document}
+     * @param xpathExpression
+     *            A string indicating the XPath expression to be evaluated.
+     * @return The {@link NodeList} of the selected nodes.
      */
-    private Document getDocument() {
-        logger.entering();
-        DOMDocumentFactory domFactory = new DOMDocumentFactory();
-        SAXReader reader = new SAXReader(domFactory);
-        Document doc;
+    private static NodeList selectNodes(Document document, String xpathExpression) {
+        try {
+            return (NodeList) XPathFactory.newInstance().newXPath()
+                    .evaluate(xpathExpression, document, XPathConstants.NODESET);
+        } catch (XPathExpressionException excp) {
+            throw new DataProviderException("Error evaluating XPath expression " + xpathExpression, excp);
+        }
+    }
 
+    /**
+     * Unmarshals the XML data using a pooled {@link Unmarshaller} of the cached {@link JAXBContext} for the given types.
+     *
+     * @param source
+     *            The XML data to be unmarshalled.
+     * @param declaredType
+     *            The type to which the root element of the XML data is mapped.
+     * @param classesToBeBound
+     *            The types to be bound by the {@link JAXBContext}.
+     * @return The unmarshalled object of declared type {@code declaredType}.
+     * @throws JAXBException
+     *             if the XML data could not be unmarshalled.
+     */
+    private static <T> T unmarshal(Source source, Class<T> declaredType, Class<?>... classesToBeBound)
+            throws JAXBException {
+        JaxbContextPool pool = JaxbContextPool.forTypes(classesToBeBound);
+        Unmarshaller unmarshaller = pool.borrow();
+        T unmarshalled = unmarshaller.unmarshal(source, declaredType).getValue();
+        // Only hand the unmarshaller back when it completed normally, so that a failure cannot leave it in a bad state
+        pool.release(unmarshaller);
+        return unmarshalled;
+    }
+
+    /**
+     * Opens the XML data of the {@link XmlFileSystemResource} as a {@link Source} to be unmarshalled, which is parsed
+     * with the same restrictions as {@link #getDocument()} applies.
+     *
+     * @return A Source object.
+     */
+    private Source getSource() {
         try {
-            doc = reader.read(resource.getInputStream());
-        } catch (DocumentException excp) {
-            logger.exiting(excp.getMessage());
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature(DISALLOW_DOCTYPE_DECL, true);
+            return new SAXSource(factory.newSAXParser().getXMLReader(), new InputSource(
+                    DataLoadRecorder.countBytes(resource.getInputStream())));
+        } catch (ParserConfigurationException | SAXException excp) {
             throw new DataProviderException("Error reading XML data.", excp);
         }
-
-        logger.exiting(doc.asXML());
-        return doc;
     }
 
     /**
-     * Generates an XML string containing only the nodes filtered by the XPath expression.
+     * Loads the XML data from the {@link XmlFileSystemResource} into a {@link Document}.
      *
-     * @param document
-     *            An XML {@link org.dom4j.Document}
-     * @param xpathExpression
-     *            A string indicating the XPath expression to be evaluated.
-     * @return A string of XML data with root node named "root".
+     * @return A Document object.
      */
-    @SuppressWarnings("unchecked")
-    private String getFilteredXml(Document document, String xpathExpression) {
-        logger.entering(new Object[] { document, xpathExpression });
-
-        List<Node> nodes = (List<Node>) document.selectNodes(xpathExpression);
-        StringBuilder newDocument = new StringBuilder(document.asXML().length());
-        newDocument.append("<root>");
-        for (Node n : nodes) {
-            newDocument.append(n.asXML());
+    private Document getDocument() {
+        logger.entering();
+        Document doc;
+
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            // Data files have no use for a DTD, and resolving one would let a data file read other files or hosts.
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature(DISALLOW_DOCTYPE_DECL, true);
+            factory.setExpandEntityReferences(false);
+            doc = factory.newDocumentBuilder().parse(DataLoadRecorder.countBytes(resource.getInputStream()));
+        } catch (ParserConfigurationException | SAXException | IOException excp) {
+            logger.exiting(excp.getMessage());
+            throw new DataProviderException("Error reading XML data.", excp);
         }
-        newDocument.append("</root>");
 
-        logger.exiting(newDocument);
-        return newDocument.toString();
+        // Passing no arguments to exiting() because serializing the whole document could be expensive.
+        logger.exiting();
+        return doc;
     }
-}
\ No newline at end of file
+}
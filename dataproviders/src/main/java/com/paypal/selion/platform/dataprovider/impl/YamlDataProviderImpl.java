@@ -15,26 +15,31 @@
 
 package com.paypal.selion.platform.dataprovider.impl;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map.Entry;
 
-import org.yaml.snakeyaml.TypeDescription;
+import org.apache.commons.io.IOUtils;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.composer.ComposerException;
-import org.yaml.snakeyaml.constructor.Constructor;
 
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
 import com.paypal.selion.logger.SeLionLogger;
 import com.paypal.selion.platform.dataprovider.DataProviderException;
 import com.paypal.selion.platform.dataprovider.DataResource;
 import com.paypal.selion.platform.dataprovider.SeLionDataProvider;
 import com.paypal.selion.platform.dataprovider.filter.DataProviderFilter;
+import com.paypal.selion.platform.dataprovider.impl.DataSnapshotStore.Snapshot;
 import com.paypal.test.utilities.logging.SimpleLogger;
 
 /**
@@ -42,17 +47,57 @@ import com.paypal.test.utilities.logging.SimpleLogger;
  * 2D array by loading the yaml file with Snakeyaml. If the entire yaml file is not needed then specific data entries
  * can be retrieved by indexes. If the yaml file is formatted to return a LinkedHashMap data type from Snakeyaml, user
  * can get an Object 2D array containing data for select keys or get the entire contents of the yaml file in a Hashtable
- * instead of an Object 2D array.
+ * instead of an Object 2D array.<br>
+ * <br>
+ * The yaml file is parsed once per instance and the parsed data is reused by all the methods that follow. Hence the
+ * objects handed out by these methods are shared between them. Use {@link #invalidate()} to have the yaml file parsed
+ * again.
  *
  */
 
 public final class YamlDataProviderImpl implements SeLionDataProvider {
 
     private static SimpleLogger logger = SeLionLogger.getLogger();
+
+    /**
+     * Identifies the snapshots of the parsed yaml data.
+     */
+    private static final String PARSED_DATA = "yamlObject";
     private final DataResource resource;
 
+    /**
+     * The sharding to apply, or <code>null</code> for the one that is shared by all the data providers.
+     */
+    private final DataSharding sharding;
+
+    /**
+     * The parsed yaml data. Guarded by <code>this</code>.
+     */
+    private Object yamlObject;
+    private boolean loaded;
+
     public YamlDataProviderImpl(DataResource resource) {
+        this(resource, null);
+    }
+
+    /**
+     * Constructor for tests, which shard the rows without configuring the sharding of all the data providers.
+     */
+    YamlDataProviderImpl(DataResource resource, DataSharding sharding) {
         this.resource = resource;
+        this.sharding = sharding;
+    }
+
+    private DataSharding getSharding() {
+        return (sharding != null) ? sharding : DataSharding.getInstance();
+    }
+
+    /**
+     * Discards the parsed yaml data, so that the yaml file is parsed again by the next method that needs it.
+     */
+    public synchronized void invalidate() {
+        yamlObject = null;
+        loaded = false;
     }
 
     /**
@@ -249,30 +294,41 @@ public final class YamlDataProviderImpl implements SeLionDataProvider {
     public Object[][] getAllData() throws IOException {
         logger.entering();
 
-        InputStream inputStream = resource.getInputStream();
-        Yaml yaml = constructYaml(resource.getCls());
+        Object[][] objArray = getAllRows();
 
-        Object yamlObject;
+        logger.exiting((Object[]) objArray);
+        return objArray;
+    }
 
-        // Mark the input stream in case multiple documents has been detected
-        // so we can reset it.
-        inputStream.mark(100);
+    /**
+     * Gets all the yaml data the same way as {@link #getAllData()} does, but hands the rows over one at a time, as
+     * they are being iterated over, instead of copying them into a two dimensional array first. The parsed yaml is
+     * wrapped as it is, and the values of primitive arrays are only boxed as they are handed over.
+     *
+     * @return An iterator over the rows to be used with TestNG DataProvider
+     */
+    @Override
+    public Iterator<Object[]> getAllDataIterator() {
+        logger.entering();
 
-        try {
-            yamlObject = yaml.load(inputStream);
-        } catch (ComposerException composerException) {
-            if (composerException.getMessage().contains("expected a single document")) {
-                inputStream.reset();
-                yamlObject = loadDataFromDocuments(yaml, inputStream);
-            } else {
-                throw new DataProviderException("Error reading YAML data", composerException);
-            }
-        }
+        Iterator<Object[]> rows = getSharding().isEnabled() ? Iterators.forArray(getAllRows())
+                : DataProviderHelper.asObjectArrayIterator(getYamlObject());
 
-        Object[][] objArray = DataProviderHelper.convertToObjectArray(yamlObject);
+        logger.exiting(rows);
+        return rows;
+    }
 
-        logger.exiting((Object[]) objArray);
-        return objArray;
+    /**
+     * @return the rows of the shard whose rows are returned. SnakeYAML constructs the objects while parsing, so the
+     *         rows of other shards can only be dropped afterwards. They are checked by the same key and position that
+     *         {@link #getDataByFilter(DataProviderFilter)} hands over, so that both return the same rows of a shard.
+     */
+    private Object[][] getAllRows() {
+        DataSharding rowSharding = getSharding();
+        if (!rowSharding.isEnabled()) {
+            return DataProviderHelper.convertToObjectArray(getYamlObject());
+        }
+        return DataProviderHelper.convertToObjectArray(getYamlObject(), rowSharding.allRows());
     }
 
     /**
@@ -285,31 +341,48 @@ public final class YamlDataProviderImpl implements SeLionDataProvider {
      * @throws IOException
      */
     @Override
-    public Iterator<Object[]> getDataByFilter(DataProviderFilter dataFilter)
-            throws IOException {
+    public Iterator<Object[]> getDataByFilter(final DataProviderFilter dataFilter) throws IOException {
         logger.entering(dataFilter);
-        InputStream inputStream = resource.getInputStream();
-        Yaml yaml = constructYaml(resource.getCls());
-
-        Object yamlObject;
-
-        // Mark the input stream in case multiple documents has been detected
-        // so we can reset it.
-        inputStream.mark(100);
+        final DataProviderFilter rowFilter = getSharding().restrict(dataFilter);
+        synchronized (this) {
+            if (loaded) {
+                return DataProviderHelper.filterToListOfObjects(yamlObject, rowFilter).iterator();
+            }
+        }
 
+        Class<?> cls = resource.getCls();
+        InputStream inputStream = DataLoadRecorder.countBytes(resource.getInputStream());
+        Yaml yaml = YamlPool.borrow(cls);
+        Iterator<Object> documents;
+        Object firstDocument;
+        boolean multipleDocuments;
         try {
-            yamlObject = yaml.load(inputStream);
-        } catch (ComposerException composerException) {
-            String msg = composerException.getMessage();
-            msg = (msg == null) ? "" : msg;
-            if (msg.toLowerCase().contains("expected a single document")) {
-                inputStream.reset();
-                yamlObject = loadDataFromDocuments(yaml, inputStream);
-            } else {
-                throw new DataProviderException("Error reading YAML data", composerException);
+            documents = yaml.loadAll(inputStream).iterator();
+            firstDocument = nextDocument(documents);
+            multipleDocuments = hasNextDocument(documents);
+        } catch (RuntimeException e) {
+            // Only a Yaml that was used successfully is fit for being used again.
+            IOUtils.closeQuietly(inputStream);
+            throw e;
+        }
+        if (!multipleDocuments) {
+            // There is a single document, which has been loaded already. So keep it for the methods that follow.
+            DataLoadRecorder.addRowsParsed(countRows(firstDocument));
+            IOUtils.closeQuietly(inputStream);
+            YamlPool.release(cls, yaml);
+            synchronized (this) {
+                yamlObject = firstDocument;
+                loaded = true;
             }
+            return DataProviderHelper.filterToListOfObjects(firstDocument, rowFilter).iterator();
         }
-        return DataProviderHelper.filterToListOfObjects(yamlObject, dataFilter).iterator();
+
+        // There are multiple documents. Hand them over one at a time, as they are being parsed.
+        DataLoadRecorder.addRowsParsed(1);
+        Iterator<Object[]> filteredDocuments = new FilteredDocuments(cls, yaml, inputStream, documents,
+                firstDocument, rowFilter);
+        logger.exiting(filteredDocuments);
+        return filteredDocuments;
     }
 
     /**
@@ -337,10 +410,7 @@ public final class YamlDataProviderImpl implements SeLionDataProvider {
     public Object[][] getDataByKeys(String[] keys) {
         logger.entering(Arrays.toString(keys));
 
-        InputStream inputStream = resource.getInputStream();
-        Yaml yaml = constructYaml(resource.getCls());
-
-        LinkedHashMap<?, ?> map = (LinkedHashMap<?, ?>) yaml.load(inputStream);
+        LinkedHashMap<?, ?> map = (LinkedHashMap<?, ?>) getYamlObject();
 
         Object[][] objArray = DataProviderHelper.getDataByKeys(map, keys);
 
@@ -371,14 +441,11 @@ public final class YamlDataProviderImpl implements SeLionDataProvider {
     public Hashtable<String, Object> getDataAsHashtable() {
         logger.entering();
 
-        InputStream inputStream = resource.getInputStream();
-        Yaml yaml = constructYaml(resource.getCls());
-
         Hashtable<String, Object> yamlHashTable = new Hashtable<>();
 
-        LinkedHashMap<?, ?> yamlObject = (LinkedHashMap<?, ?>) yaml.load(inputStream);
+        LinkedHashMap<?, ?> map = (LinkedHashMap<?, ?>) getYamlObject();
 
-        for (Entry<?, ?> entry : yamlObject.entrySet()) {
+        for (Entry<?, ?> entry : map.entrySet()) {
             yamlHashTable.put((String) entry.getKey(), entry.getValue());
         }
 
@@ -421,7 +488,8 @@ public final class YamlDataProviderImpl implements SeLionDataProvider {
     public Object[][] getDataByIndex(int[] indexes) throws IOException {
         logger.entering(indexes);
 
-        Object[][] yamlObj = getAllData();
+        // The look ups by index are not sharded, so they index into all the rows.
+        Object[][] yamlObj = DataProviderHelper.convertToObjectArray(getYamlObject());
         Object[][] yamlObjRequested = new Object[indexes.length][yamlObj[0].length];
 
         int i = 0;
@@ -436,9 +504,9 @@ public final class YamlDataProviderImpl implements SeLionDataProvider {
     }
 
     /**
-     * Converts a yaml file into an Object 2D array for <a
-     * href="http://testng.org/doc/documentation-main.html#parameters-dataproviders"> TestNG Dataprovider</a>
-     * consumption.
+     * Loads the documents of a yaml file. A file with a single document is loaded as that very document, whereas a
+     * file with multiple documents is loaded as a List of its documents. Whether there are multiple documents is
+     * detected while the documents are being parsed, so the file is parsed only once.
      *
      * <br>
      * A proper <a href="https://code.google.com/p/snakeyaml/wiki/Documentation#JavaBeans">JavaBean</a> must be defined
@@ -472,33 +540,145 @@ public final class YamlDataProviderImpl implements SeLionDataProvider {
      * public void testExample(MyObject myObject)
      * </pre>
      *
-     * @param yaml
-     *            A {@link Yaml} object that represents a Yaml document.
-     * @param inputStream
-     *            A {@link InputStream} object.
-     * @return an List containing multiple yaml documents loaded by SnakeYaml
+     * @param documents
+     *            An {@link Iterator} over the yaml documents as returned by {@link Yaml#loadAll(InputStream)}.
+     * @return the single yaml document or a List containing multiple yaml documents loaded by SnakeYaml
+     */
+    private Object loadData(Iterator<Object> documents) {
+        logger.entering(documents);
+        Object yamlObject = nextDocument(documents);
+        if (hasNextDocument(documents)) {
+            // Multiple documents have been detected.
+            List<Object> objList = new ArrayList<>();
+            objList.add(yamlObject);
+            while (hasNextDocument(documents)) {
+                objList.add(nextDocument(documents));
+            }
+            yamlObject = objList;
+        }
+        logger.exiting(yamlObject);
+        return yamlObject;
+    }
+
+    /**
+     * @return the number of rows that the parsed yaml data is made up of, the way {@link #getAllData()} counts them.
+     */
+    private static int countRows(Object yamlObject) {
+        return Iterators.size(DataProviderHelper.asObjectArrayIterator(yamlObject));
+    }
+
+    /**
+     * Hands over the rows of the yaml documents that pass a filter, parsing one document at a time. The iterator is
+     * {@link Closeable}. It holds on to the borrowed {@link Yaml} and the yaml stream until it is exhausted, closed, or
+     * fails to parse a document.
      */
-    private List<Object> loadDataFromDocuments(Yaml yaml, InputStream inputStream) {
-        logger.entering(new Object[] { yaml, inputStream });
-        Iterator<?> documents = yaml.loadAll(inputStream).iterator();
-        List<Object> objList = new ArrayList<>();
+    private static final class FilteredDocuments extends AbstractIterator<Object[]> implements Closeable {
+        private final Class<?> cls;
+        private final Yaml yaml;
+        private final InputStream inputStream;
+        private final Iterator<Object> documents;
+        private final DataProviderFilter filter;
+        private final int lastPosition;
+        private final Deque<Object[]> pending = new ArrayDeque<>();
+        private Object document;
+        private int position;
+        private boolean released;
+
+        FilteredDocuments(Class<?> cls, Yaml yaml, InputStream inputStream, Iterator<Object> documents,
+                Object firstDocument, DataProviderFilter filter) {
+            this.cls = cls;
+            this.yaml = yaml;
+            this.inputStream = inputStream;
+            this.documents = documents;
+            this.filter = filter;
+            this.lastPosition = DataProviderHelper.getLastPosition(filter);
+            this.document = firstDocument;
+        }
 
-        while (documents.hasNext()) {
-            objList.add(documents.next());
+        @Override
+        protected Object[] computeNext() {
+            try {
+                while (pending.isEmpty()) {
+                    if (document == null) {
+                        if (released || position >= lastPosition || !hasNextDocument(documents)) {
+                            close();
+                            return endOfData();
+                        }
+                        document = nextDocument(documents);
+                        DataLoadRecorder.addRowsParsed(1);
+                    }
+                    position = DataProviderHelper.filterListElement(document, filter, position, pending);
+                    document = null;
+                }
+                return pending.poll();
+            } catch (RuntimeException e) {
+                release(false);
+                throw e;
+            }
         }
 
-        logger.exiting(objList);
-        return objList;
+        /**
+         * Releases the borrowed {@link Yaml} and closes the yaml stream, without parsing the documents that are left.
+         */
+        @Override
+        public void close() {
+            release(true);
+        }
+
+        private void release(boolean reusable) {
+            if (released) {
+                return;
+            }
+            released = true;
+            IOUtils.closeQuietly(inputStream);
+            // Only a Yaml that was used successfully is fit for being used again.
+            if (reusable) {
+                YamlPool.release(cls, yaml);
+            }
+        }
     }
 
-    private Yaml constructYaml(Class<?> cls) {
-        if (cls != null) {
-            Constructor constructor = new Constructor();
-            constructor.addTypeDescription(new TypeDescription(cls, "!" + cls.getSimpleName()));
-            return new Yaml(constructor);
+    private static boolean hasNextDocument(Iterator<Object> documents) {
+        try {
+            return documents.hasNext();
+        } catch (ComposerException composerException) {
+            throw new DataProviderException("Error reading YAML data", composerException);
         }
+    }
 
-        return new Yaml();
+    private static Object nextDocument(Iterator<Object> documents) {
+        try {
+            return documents.hasNext() ? documents.next() : null;
+        } catch (ComposerException composerException) {
+            throw new DataProviderException("Error reading YAML data", composerException);
+        }
+    }
+
+    /**
+     * @return the parsed yaml data. The yaml file is parsed on the first call only.
+     */
+    private synchronized Object getYamlObject() {
+        if (!loaded) {
+            // The parsed yaml data is kept in the snapshot, so that every method can use the decoded data alike.
+            Snapshot snapshot = DataSnapshotStore.getInstance().getSnapshot(resource, PARSED_DATA);
+            yamlObject = snapshot.read();
+            if (yamlObject == null) {
+                Class<?> cls = resource.getCls();
+                Yaml yaml = YamlPool.borrow(cls);
+                InputStream inputStream = DataLoadRecorder.countBytes(resource.getInputStream());
+                try {
+                    yamlObject = loadData(yaml.loadAll(inputStream).iterator());
+                } finally {
+                    IOUtils.closeQuietly(inputStream);
+                }
+                DataLoadRecorder.addRowsParsed(countRows(yamlObject));
+                // Only a Yaml that was used successfully is fit for being used again.
+                YamlPool.release(cls, yaml);
+                snapshot.write(yamlObject);
+            }
+            loaded = true;
+        }
+        return yamlObject;
     }
 
 }
\ No newline at end of file
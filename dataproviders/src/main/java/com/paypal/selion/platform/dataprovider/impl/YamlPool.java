@@ -0,0 +1,193 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.DumperOptions.FlowStyle;
+import org.yaml.snakeyaml.TypeDescription;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.representer.Representer;
+
+import com.paypal.selion.platform.dataprovider.impl.ConverterRegistry.StringConverter;
+import com.paypal.selion.platform.dataprovider.impl.ReflectionUtils.ReflectionException;
+
+/**
+ * A pool of {@link Yaml} objects along with their {@link Constructor}s and {@link Representer}s, kept per user defined
+ * type and dump {@link FlowStyle}. A {@link Yaml} object is not thread safe, so it is borrowed for the duration of a
+ * load or a dump and released back to the pool afterwards. This saves building a new {@link Constructor} and its type
+ * descriptions on every load, and a new {@link Representer}, which caches the properties of the dumped beans, on every
+ * dump.
+ */
+final class YamlPool {
+
+    /**
+     * The maximum number of idle {@link Yaml} objects kept per key.
+     */
+    private static final int MAX_IDLE_PER_KEY = 8;
+
+    private static final ConcurrentMap<Key, Queue<Yaml>> pool = new ConcurrentHashMap<>();
+
+    private YamlPool() {
+        // Utility class. So hide the constructor
+    }
+
+    /**
+     * @param cls
+     *            The user defined type to be mapped with a tag that is its simple name, or <code>null</code>.
+     * @return a {@link Yaml} object that is not used by anybody else, until it is released.
+     */
+    static Yaml borrow(Class<?> cls) {
+        return borrow(cls, null);
+    }
+
+    /**
+     * @param cls
+     *            The user defined type to be mapped with a tag that is its simple name, or <code>null</code>.
+     * @param flowStyle
+     *            The flow style to dump with, or <code>null</code> for the default {@link DumperOptions}.
+     * @return a {@link Yaml} object that is not used by anybody else, until it is released.
+     */
+    static Yaml borrow(Class<?> cls, FlowStyle flowStyle) {
+        Key key = new Key(cls, flowStyle);
+        Yaml yaml = getIdle(key).poll();
+        return (yaml != null) ? yaml : constructYaml(key);
+    }
+
+    /**
+     * Releases a {@link Yaml} object that was borrowed via {@link #borrow(Class)} back to the pool. It must not be used
+     * by the caller afterwards.
+     */
+    static void release(Class<?> cls, Yaml yaml) {
+        release(cls, null, yaml);
+    }
+
+    /**
+     * Releases a {@link Yaml} object that was borrowed via {@link #borrow(Class, FlowStyle)} back to the pool. It must
+     * not be used by the caller afterwards.
+     */
+    static void release(Class<?> cls, FlowStyle flowStyle, Yaml yaml) {
+        Queue<Yaml> idle = getIdle(new Key(cls, flowStyle));
+        if (idle.size() < MAX_IDLE_PER_KEY) {
+            idle.offer(yaml);
+        }
+    }
+
+    private static Queue<Yaml> getIdle(Key key) {
+        Queue<Yaml> idle = pool.get(key);
+        if (idle == null) {
+            idle = new ConcurrentLinkedQueue<>();
+            Queue<Yaml> existing = pool.putIfAbsent(key, idle);
+            idle = (existing == null) ? idle : existing;
+        }
+        return idle;
+    }
+
+    static Yaml constructYaml(Class<?> cls) {
+        return constructYaml(new Key(cls, null));
+    }
+
+    private static Yaml constructYaml(Key key) {
+        Constructor constructor = new RegistryConstructor();
+        if (key.type != null) {
+            constructor.addTypeDescription(new TypeDescription(key.type, "!" + key.type.getSimpleName()));
+        }
+
+        DumperOptions dumperOptions = new DumperOptions();
+        if (key.flowStyle != null) {
+            dumperOptions.setDefaultFlowStyle(key.flowStyle);
+        }
+        return new Yaml(constructor, new Representer(), dumperOptions);
+    }
+
+    /**
+     * Converts the scalars of the types that SnakeYAML does not know of via the {@link ConverterRegistry}, instead of
+     * looking up their String constructor again for every value. The scalars of all the other types are converted by
+     * SnakeYAML, since it understands more representations of them, such as <code>yes</code> for a boolean.
+     */
+    private static final class RegistryConstructor extends Constructor {
+        RegistryConstructor() {
+            yamlClassConstructors.put(NodeId.scalar, new RegistryConstructScalar());
+        }
+
+        private final class RegistryConstructScalar extends ConstructScalar {
+            @Override
+            public Object construct(Node node) {
+                Class<?> type = node.getType();
+                if (!isConvertedBySnakeYaml(type, node)) {
+                    StringConverter converter = ConverterRegistry.getConverter(type);
+                    if (converter != null) {
+                        try {
+                            return converter.convert((String) constructScalar((ScalarNode) node));
+                        } catch (ReflectionException e) {
+                            throw new YAMLException("Can't construct a java object for scalar " + node.getTag()
+                                    + "; exception=" + e.getMessage(), e);
+                        }
+                    }
+                }
+                return super.construct(node);
+            }
+        }
+
+        private static boolean isConvertedBySnakeYaml(Class<?> type, Node node) {
+            return type.isPrimitive() || type == String.class || Number.class.isAssignableFrom(type)
+                    || type == Boolean.class || Date.class.isAssignableFrom(type) || type == Character.class
+                    || Enum.class.isAssignableFrom(type) || Calendar.class.isAssignableFrom(type)
+                    || Tag.BINARY.equals(node.getTag());
+        }
+    }
+
+    /**
+     * What the {@link Yaml} objects of the pool are configured with.
+     */
+    private static final class Key {
+        private final Class<?> type;
+        private final FlowStyle flowStyle;
+
+        Key(Class<?> type, FlowStyle flowStyle) {
+            this.type = type;
+            this.flowStyle = flowStyle;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return Objects.equals(type, other.type) && flowStyle == other.flowStyle;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, flowStyle);
+        }
+    }
+}
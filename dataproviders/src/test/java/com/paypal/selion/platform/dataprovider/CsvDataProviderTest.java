@@ -0,0 +1,174 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+import com.paypal.selion.platform.dataprovider.filter.CustomKeyFilter;
+import com.paypal.selion.platform.dataprovider.filter.SimpleIndexInclusionFilter;
+import com.paypal.selion.platform.dataprovider.impl.CsvDataProviderImpl;
+import com.paypal.selion.platform.dataprovider.impl.FileSystemResource;
+import com.paypal.selion.platform.dataprovider.impl.InputStreamResource;
+import com.paypal.selion.platform.dataprovider.pojos.yaml.USER;
+
+public class CsvDataProviderTest {
+    private static String csvDataFile = "src/test/resources/User.csv";
+    private static String tsvDataFile = "src/test/resources/User.tsv";
+
+    private static SeLionDataProvider getCsvDataProvider() throws IOException {
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(new FileSystemResource(csvDataFile,
+                USER.class));
+        assertTrue(dataProvider instanceof CsvDataProviderImpl);
+        return dataProvider;
+    }
+
+    private static String getName(Object[] row) {
+        return ((USER) row[0]).getName();
+    }
+
+    @Test(groups = "unit")
+    public void testGetAllDataIterator() throws IOException {
+        Iterator<Object[]> allData = getCsvDataProvider().getAllDataIterator();
+        assertEquals(getName(allData.next()), "Thomas");
+        assertEquals(getName(allData.next()), "binh");
+        assertTrue(allData.hasNext());
+        allData.next();
+        assertFalse(allData.hasNext());
+    }
+
+    @Test(groups = "unit")
+    public void testGetAllData() throws IOException {
+        Object[][] allData = getCsvDataProvider().getAllData();
+        assertEquals(allData.length, 3);
+
+        USER tom = (USER) allData[0][0];
+        assertEquals(tom.getName(), "Thomas");
+        assertEquals(tom.getPassword(), "pa,ss");
+        assertEquals(tom.getAccountNumber(), Long.valueOf(78901));
+        assertEquals(tom.getAmount(), Double.valueOf(120.5));
+        assertEquals(tom.getPreintTest(), 1);
+        assertTrue(tom.getIsbooleanGood());
+
+        USER binh = (USER) allData[1][0];
+        assertEquals(binh.getPassword(), "say \"hi\"");
+        assertEquals(binh.getPhoneNumber(), null);
+
+        USER rama = (USER) allData[2][0];
+        assertTrue(rama.getPassword().startsWith("multi") && rama.getPassword().endsWith("line"));
+        assertEquals(rama.getPhoneNumber(), "3333333333");
+    }
+
+    @Test(groups = "unit")
+    public void testGetDataByIndex() throws IOException {
+        // Indexes count every record after the header, including the ones that are excluded by a #.
+        Object[][] data = getCsvDataProvider().getDataByIndex("4, 1, 3");
+        assertEquals(data.length, 3);
+        assertEquals(getName(data[0]), "rama");
+        assertEquals(getName(data[1]), "Thomas");
+        assertEquals(getName(data[2]), "binh");
+    }
+
+    @Test(groups = "unit", expectedExceptions = DataProviderException.class)
+    public void testGetDataByMissingIndex() throws IOException {
+        getCsvDataProvider().getDataByIndex(new int[] { 5 });
+    }
+
+    @Test(groups = "unit")
+    public void testGetDataByKeys() throws IOException {
+        Object[][] data = getCsvDataProvider().getDataByKeys(new String[] { "rama", "tom" });
+        assertEquals(getName(data[0]), "rama");
+        assertEquals(getName(data[1]), "Thomas");
+    }
+
+    @Test(groups = "unit", expectedExceptions = DataProviderException.class)
+    public void testGetDataByExcludedKey() throws IOException {
+        getCsvDataProvider().getDataByKeys(new String[] { "#skip" });
+    }
+
+    @Test(groups = "unit")
+    public void testGetDataAsHashtable() throws IOException {
+        Hashtable<String, Object> data = getCsvDataProvider().getDataAsHashtable();
+        assertEquals(data.size(), 3);
+        assertEquals(((USER) data.get("binh")).getAccountNumber(), Long.valueOf(124567));
+    }
+
+    @Test(groups = "unit")
+    public void testGetDataAsMap() throws IOException {
+        Map<String, Object> data = getCsvDataProvider().getDataAsMap();
+        assertEquals(data.size(), 3);
+        assertEquals(((USER) data.get("binh")).getAccountNumber(), Long.valueOf(124567));
+        assertFalse(data.containsKey("#skip"));
+    }
+
+    @Test(groups = "unit")
+    public void testGetDataByIndexFilter() throws IOException {
+        // Filter positions only count the records that are not excluded.
+        Iterator<Object[]> data = getCsvDataProvider().getDataByFilter(new SimpleIndexInclusionFilter("2"));
+        assertEquals(getName(data.next()), "binh");
+        assertFalse(data.hasNext());
+    }
+
+    @Test(groups = "unit")
+    public void testGetDataByCustomKeyFilter() throws IOException {
+        Iterator<Object[]> data = getCsvDataProvider().getDataByFilter(new CustomKeyFilter("accountNumber",
+                "555,78901"));
+        assertEquals(getName(data.next()), "Thomas");
+        assertEquals(getName(data.next()), "rama");
+        assertFalse(data.hasNext());
+    }
+
+    @Test(groups = "unit")
+    public void testGetTsvDataFromStream() throws IOException {
+        DataResource resource = new InputStreamResource(new FileInputStream(tsvDataFile), USER.class, "tsv");
+        Object[][] allData = DataProviderFactory.getDataProvider(resource).getAllData();
+        assertEquals(allData.length, 2);
+        assertEquals(getName(allData[1]), "binh, jr");
+        assertEquals(((USER) allData[1][0]).getAccountNumber(), Long.valueOf(124567));
+    }
+
+    @Test(groups = "unit")
+    public void testGetAllDataOfFileLargerThanReadBuffer() throws IOException {
+        File file = File.createTempFile("CsvDataProviderTest", ".csv");
+        file.deleteOnExit();
+        StringBuilder contents = new StringBuilder("key,name,password\n");
+        int records = 5000;
+        for (int i = 0; i < records; i++) {
+            // Quoted fields with line breaks end up across the parts of the file that are read at a time
+            contents.append("key").append(i).append(",\"name\n").append(i).append("\",password\n");
+        }
+        FileUtils.write(file, contents, StandardCharsets.UTF_8);
+        assertTrue(file.length() > 64 * 1024);
+
+        Object[][] allData = DataProviderFactory.getDataProvider(
+                new FileSystemResource(file.getAbsolutePath(), USER.class)).getAllData();
+        assertEquals(allData.length, records);
+        assertEquals(getName(allData[records - 1]), "name\n" + (records - 1));
+    }
+}
@@ -19,6 +19,7 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 import java.io.BufferedInputStream;
@@ -29,6 +30,10 @@ import java.util.Arrays;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
@@ -36,7 +41,9 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import com.paypal.selion.platform.dataprovider.ExcelDataProvider.NestedRowCaching;
 import com.paypal.selion.platform.dataprovider.filter.CustomKeyFilter;
+import com.paypal.selion.platform.dataprovider.filter.DataProviderFilter;
 import com.paypal.selion.platform.dataprovider.filter.SimpleIndexInclusionFilter;
 import com.paypal.selion.platform.dataprovider.impl.DefaultCustomType;
 import com.paypal.selion.platform.dataprovider.impl.ExcelDataProviderImpl;
@@ -407,6 +414,40 @@ public class ExcelDataProviderTest {
         assertData(user);
     }
 
+    @Test(groups = "unit")
+    public void getSheetAsMapByKey() {
+        Map<String, Object> allValues = dataSource.getDataAsMap();
+        assertEquals(allValues.keySet(), dataSource.getDataAsHashtable().keySet());
+        assertData((USER) allValues.get("binh"));
+        assertTrue(allValues.get("binh") == allValues.get("binh"), "A row should be packed only once.");
+    }
+
+    @Test(groups = "unit")
+    public void getSheetAsMapByKeyFromManyThreads() throws InterruptedException {
+        final Map<String, Object> allValues = dataSource.getDataAsMap();
+        final Map<String, Object> packed = new ConcurrentHashMap<>();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (String key : new String[] { "binh", "1" }) {
+                        packed.put(key + "@" + Thread.currentThread().getId(), allValues.get(key));
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(packed.size(), threads.length * 2);
+        for (Entry<String, Object> entry : packed.entrySet()) {
+            assertSame(entry.getValue(), allValues.get(entry.getKey().substring(0, entry.getKey().indexOf('@'))));
+        }
+        assertData((USER) allValues.get("binh"));
+    }
+
     @DataProvider(parallel = true)
     public Object[][] getExcelDataRowsByKeys() {
         return dataSource.getDataByKeys(new String[] { "1", "binh" });
@@ -509,4 +550,96 @@ public class ExcelDataProviderTest {
         assertEquals(user.getBank().getAddress().getStreet(), "12 Pico st");
         assertEquals(user.getBank().getType(), "savings");
     }
+
+    @Test(groups = "unit")
+    public void testGetAllExcelRowsWhileStreaming() throws IOException {
+        DataResource resource = new FileSystemResource(fileName, USER.class);
+        ExcelDataProvider streamingProvider = new ExcelDataProviderImpl(resource, true);
+        Object[][] streamedUsers = streamingProvider.getAllData();
+        Object[][] allUsers = dataSource.getAllData();
+        assertEquals(streamedUsers.length, allUsers.length, "Failed streaming all rows from spreadsheet");
+        assertEquals(transformExcelDataIntoList(streamedUsers), transformExcelDataIntoList(allUsers));
+        USER user = (USER) streamedUsers[0][0];
+        assertEquals(user.getBank().getName(), "Well fargo");
+        assertEquals(user.getBank().getAddress().getStreet(), "12 Pico st");
+        assertNotNull(user.getAreaCode()[0].getAreaCode());
+    }
+
+    @Test(groups = "unit")
+    public void testGetAllDataIterator() throws IOException {
+        DataResource resource = new FileSystemResource(fileName, USER.class);
+        ExcelDataProvider streamingProvider = new ExcelDataProviderImpl(resource, true);
+        List<String> iteratedNames = transformExcelDataIntoList(streamingProvider.getAllDataIterator());
+        assertEquals(iteratedNames, transformExcelDataIntoList(dataSource.getAllData()));
+    }
+
+    @Test(groups = "unit")
+    public void testGetExcelRowsWithCustomKeyFilterWhileStreaming() throws IOException {
+        DataResource resource = new FileSystemResource(fileName, USER.class);
+        ExcelDataProvider streamingProvider = new ExcelDataProviderImpl(resource, true);
+        CustomKeyFilter filter = new CustomKeyFilter("accountNumber", "78901,124567");
+        List<String> fetchedNames = transformExcelDataIntoList(streamingProvider.getDataByFilter(filter));
+        assertEquals(fetchedNames, Arrays.asList("Thomas", "binh"));
+    }
+
+    @Test(groups = "unit")
+    public void testGetSingleExcelRowWithKeyWhileStreaming() throws IOException {
+        DataResource resource = new FileSystemResource(fileName, USER.class);
+        ExcelDataProvider streamingProvider = new ExcelDataProviderImpl(resource, true);
+        assertEquals(((USER) streamingProvider.getSingleExcelRow("3")).getName(), "suri");
+        assertEquals(((USER) streamingProvider.getDataAsHashtable().get("binh")).getName(), "binh");
+    }
+
+    @DataProvider(name = "nestedRowCaching")
+    public Object[][] getNestedRowCaching() {
+        return new Object[][] { { NestedRowCaching.DISABLED, false }, { NestedRowCaching.SHARED_INSTANCE, true },
+                { NestedRowCaching.COPY_ON_READ, false } };
+    }
+
+    @Test(groups = "unit", dataProvider = "nestedRowCaching")
+    public void testGetDataByKeysWithNestedRowCaching(NestedRowCaching caching, boolean shared) throws IOException {
+        DataResource resource = new FileSystemResource(fileName, USER.class);
+        ExcelDataProvider provider = new ExcelDataProviderImpl(resource);
+        provider.setNestedRowCaching(caching);
+        Object[][] allUsers = provider.getDataByKeys(new String[] { "tom", "tom" });
+        USER first = (USER) allUsers[0][0];
+        USER second = (USER) allUsers[1][0];
+        assertEquals(first.getBank() == second.getBank(), shared);
+        assertEquals(first.getBank().getAddress() == second.getBank().getAddress(), shared);
+        assertEquals(first.getAreaCode() == second.getAreaCode(), false);
+        assertEquals(first.getAreaCode()[0] == second.getAreaCode()[0], shared);
+        assertEquals(second.getBank().toString(), first.getBank().toString());
+        assertEquals(second.getBank().getAddress().getStreet(), first.getBank().getAddress().getStreet());
+        assertEquals(second.getAreaCode()[0].getAreaCode(), first.getAreaCode()[0].getAreaCode());
+    }
+
+    @Test(groups = "unit", expectedExceptions = { IllegalArgumentException.class })
+    public void testSetNestedRowCachingToNull() {
+        dataSource.setNestedRowCaching(null);
+    }
+
+    @Test(groups = "unit")
+    public void testGetDataByFilterIsLazy() throws IOException {
+        DataResource resource = new FileSystemResource(fileName, USER.class);
+        ExcelDataProvider provider = new ExcelDataProviderImpl(resource, true);
+        final AtomicInteger filtered = new AtomicInteger();
+        Iterator<Object[]> users = provider.getDataByFilter(new DataProviderFilter() {
+            @Override
+            public boolean filter(Object data) {
+                filtered.incrementAndGet();
+                return true;
+            }
+        });
+        assertEquals(filtered.get(), 0, "No row should be filtered before the iterator is consumed.");
+        assertTrue(users.hasNext());
+        assertEquals(((USER) users.next()[0]).getName(), "Thomas");
+        assertEquals(filtered.get(), 1);
+        int count = 1;
+        while (users.hasNext()) {
+            users.next();
+            count++;
+        }
+        assertEquals(filtered.get(), count);
+        assertEquals(count, provider.getAllData().length);
+    }
 }
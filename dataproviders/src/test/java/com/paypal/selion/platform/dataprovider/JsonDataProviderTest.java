@@ -21,11 +21,13 @@ import java.io.IOException;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.testng.annotations.Test;
 
 import com.google.gson.internal.LinkedTreeMap;
 import com.paypal.selion.platform.dataprovider.filter.CustomKeyFilter;
+import com.paypal.selion.platform.dataprovider.filter.DataProviderFilter;
 import com.paypal.selion.platform.dataprovider.filter.SimpleIndexInclusionFilter;
 import com.paypal.selion.platform.dataprovider.impl.FileSystemResource;
 import com.paypal.selion.platform.dataprovider.impl.InputStreamResource;
@@ -119,6 +121,18 @@ public class JsonDataProviderTest {
         assertTrue(sample.get("name").equals("Bank3"));
     }
 
+    @Test(groups = "unit")
+    public void getDataAsMapTest() throws IOException {
+        DataResource resource = new FileSystemResource(jsonRawDataFile);
+        Map<String, Object> dataRequested = DataProviderFactory.getDataProvider(resource).getDataAsMap();
+        assertEquals(dataRequested.keySet(), DataProviderFactory.getDataProvider(new FileSystemResource(
+                jsonRawDataFile)).getDataAsHashtable().keySet());
+        Object[] test1Obj = (Object[]) dataRequested.get("test1");
+        Hashtable<?, ?> test1Hash = (Hashtable<?, ?>) test1Obj[0];
+        assertEquals(test1Hash.get("accountNumber"), "9999999999");
+        assertSame(dataRequested.get("test1"), test1Obj);
+    }
+
     @Test(groups = "unit")
     public void testgetAllJsonData() throws IOException {
         DataResource resource = new InputStreamResource(new FileInputStream(new File(jsonPojoArrayDataFile)),
@@ -133,6 +147,18 @@ public class JsonDataProviderTest {
         }
     }
 
+    @Test(groups = "unit")
+    public void testGetAllJsonDataIterator() throws IOException {
+        DataResource resource = new FileSystemResource(jsonPojoArrayDataFile, USER.class);
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(resource);
+        Object[][] dataObject = dataProvider.getAllData();
+        Iterator<Object[]> dataIterator = dataProvider.getAllDataIterator();
+        for (int i = 0; i < dataObject.length; i++) {
+            assertEquals(((USER) dataIterator.next()[0]).getName(), ((USER) dataObject[i][0]).getName());
+        }
+        assertFalse(dataIterator.hasNext());
+    }
+
     @Test(groups = "unit")
     public void testgetJsonDataByIndexFilter() throws IOException {
         DataResource resource = new FileSystemResource(jsonPojoArrayDataFile, USER.class);
@@ -238,4 +264,38 @@ public class JsonDataProviderTest {
         assertNotNull(dataObjects);
         assertEquals(dataObjects.length, 2);
     }
+
+    @Test(groups = "unit")
+    public void testGetDataByIndex_UnsortedAndRepeatedIndexes() throws IOException {
+        DataResource resource = new FileSystemResource(jsonPojoArrayDataFile, USER.class);
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(resource);
+        Object[][] requestedData = dataProvider.getDataByIndex(new int[] { 3, 1, 3 });
+        assertEquals(requestedData.length, 3);
+        assertEquals(((USER) requestedData[0][0]).getName(), "Alonso");
+        assertEquals(((USER) requestedData[1][0]).getName(), "Optimus Prime");
+        assertEquals(((USER) requestedData[2][0]).getName(), "Alonso");
+    }
+
+    @Test(groups = "unit")
+    public void testGetDataByFilter_IsLazy() throws IOException {
+        DataResource resource = new FileSystemResource(jsonPojoArrayDataFile, USER.class);
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(resource);
+        final AtomicInteger filteredCount = new AtomicInteger();
+        Iterator<Object[]> dataObjects = dataProvider.getDataByFilter(new DataProviderFilter() {
+            @Override
+            public boolean filter(Object data) {
+                filteredCount.incrementAndGet();
+                return true;
+            }
+        });
+        assertEquals(filteredCount.get(), 0);
+        assertEquals(((USER) dataObjects.next()[0]).getName(), "Optimus Prime");
+        assertEquals(filteredCount.get(), 1);
+        int count = 1;
+        while (dataObjects.hasNext()) {
+            dataObjects.next();
+            count++;
+        }
+        assertEquals(count, filteredCount.get());
+    }
 }
@@ -15,11 +15,18 @@
 
 package com.paypal.selion.platform.dataprovider;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Hashtable;
 import java.util.Iterator;
@@ -180,4 +187,60 @@ public class XmlDataProviderTest {
         assertNotNull(k3.getKey());
         assertNotNull(k3.getValue());
     }
+
+    @Test(groups = "unit")
+    public void testGetDataByFilterUsingXpath() throws IOException {
+        Map<String, Class<?>> map = new LinkedHashMap<String, Class<?>>();
+        map.put("//transactions/transaction/user[accountNumber='123456']", User.class);
+
+        XmlDataSource resource = new XmlFileSystemResource(listOfMultipleInlineObjects, map);
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(resource);
+        Iterator<Object[]> data = dataProvider.getDataByFilter(new CustomKeyFilter("name", "Dr. Drake"));
+        User user = (User) data.next()[0];
+        assertEquals(user.getName(), "Dr. Drake");
+        assertEquals(user.getAddress().getStreet(), "2014 Open st");
+        assertFalse(data.hasNext());
+    }
+
+    @Test(groups = "unit", expectedExceptions = DataProviderException.class)
+    public void testGetAllDataUsingInvalidXpath() throws IOException {
+        Map<String, Class<?>> map = new LinkedHashMap<String, Class<?>>();
+        map.put("//transactions/transaction/user[", User.class);
+
+        XmlDataSource resource = new XmlFileSystemResource(listOfMultipleInlineObjects, map);
+        DataProviderFactory.getDataProvider(resource).getAllData();
+    }
+
+    /**
+     * @return the given XML data along with a DOCTYPE, which is otherwise perfectly fine to be unmarshalled.
+     */
+    private static InputStream newDocumentWithDoctype(String fileName) throws IOException {
+        String xml = new String(Files.readAllBytes(Paths.get(fileName)), StandardCharsets.UTF_8);
+        xml = xml.replaceFirst("\\?>", "?>\n<!DOCTYPE data [ <!ENTITY greeting \"hello\"> ]>");
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test(groups = "unit", expectedExceptions = DataProviderException.class)
+    public void testDocumentWithDoctypeIsRejected() throws IOException {
+        Map<String, Class<?>> map = new LinkedHashMap<String, Class<?>>();
+        map.put("//users/user", User.class);
+
+        XmlDataSource resource = new XmlInputStreamResource(newDocumentWithDoctype(listOfUsersWithInlineAddress), map,
+                "xml");
+        DataProviderFactory.getDataProvider(resource).getAllData();
+    }
+
+    @Test(groups = "unit", expectedExceptions = DataProviderException.class)
+    public void testDocumentWithDoctypeIsRejectedWhenUnmarshalledAsAWhole() throws IOException {
+        XmlDataSource resource = new XmlInputStreamResource(newDocumentWithDoctype(listOfUsersWithInlineAddress),
+                User.class, "xml");
+        DataProviderFactory.getDataProvider(resource).getAllData();
+    }
+
+    @Test(groups = "unit", expectedExceptions = DataProviderException.class)
+    public void testDocumentWithDoctypeIsRejectedWhenReadAsKeyValuePairs() throws IOException {
+        XmlDataSource resource = new XmlInputStreamResource(newDocumentWithDoctype(listOfKeyValuePairs),
+                KeyValueMap.class, "xml");
+        DataProviderFactory.getDataProvider(resource).getDataAsHashtable();
+    }
 }
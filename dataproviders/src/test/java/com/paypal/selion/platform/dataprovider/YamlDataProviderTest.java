@@ -16,8 +16,12 @@
 package com.paypal.selion.platform.dataprovider;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -27,12 +31,15 @@ import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.Iterators;
 import com.paypal.selion.logger.SeLionLogger;
 import com.paypal.selion.platform.dataprovider.filter.CustomKeyFilter;
+import com.paypal.selion.platform.dataprovider.filter.DataProviderFilter;
 import com.paypal.selion.platform.dataprovider.filter.SimpleIndexInclusionFilter;
 import com.paypal.selion.platform.dataprovider.impl.DataProviderHelper;
 import com.paypal.selion.platform.dataprovider.impl.FileSystemResource;
 import com.paypal.selion.platform.dataprovider.impl.InputStreamResource;
+import com.paypal.selion.platform.dataprovider.impl.YamlDataProviderImpl;
 import com.paypal.selion.platform.dataprovider.pojos.yaml.ADDRESS;
 import com.paypal.selion.platform.dataprovider.pojos.yaml.AREA_CODE;
 import com.paypal.selion.platform.dataprovider.pojos.yaml.BANK;
@@ -234,6 +241,15 @@ public class YamlDataProviderTest {
         arrayComparer(new String[] { "Thomas", "rama", "binh", "suri" }, fetchedNames.toArray());
     }
 
+    @Test(groups = "unit")
+    public void testGetAllDataIteratorFromMap() throws IOException {
+        DataResource resource = new FileSystemResource(associativeArrayOfUsers, USER.class);
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(resource);
+        Iterator<Object[]> allUsers = dataProvider.getAllDataIterator();
+        List<String> fetchedNames = transferUserDataArrayInArrayIntoList(Iterators.toArray(allUsers, Object[].class));
+        arrayComparer(new String[] { "Thomas", "rama", "binh", "suri" }, fetchedNames.toArray());
+    }
+
     @Test(groups = "unit")
     public void testGetAllDataFromList() throws IOException {
         DataResource resource = new InputStreamResource(new BufferedInputStream(
@@ -253,6 +269,15 @@ public class YamlDataProviderTest {
         arrayComparer(new String[] { "Thomas", "rama", "binh", "suri", null, "suri" }, fetchedNames.toArray());
     }
 
+    @Test(groups = "unit")
+    public void testGetAllDataIteratorFromTaggedList() throws IOException {
+        DataResource resource = new FileSystemResource(userTaggedList, USER.class);
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(resource);
+        Iterator<Object[]> allUsers = dataProvider.getAllDataIterator();
+        List<String> fetchedNames = transferUserDataArrayInArrayIntoList(Iterators.toArray(allUsers, Object[].class));
+        arrayComparer(new String[] { "Thomas", "rama", "binh", "suri", null, "suri" }, fetchedNames.toArray());
+    }
+
     @Test(groups = "unit")
     public void testGetAllDataFromStringList() throws IOException {
         DataResource resource = new FileSystemResource(list);
@@ -598,6 +623,43 @@ public class YamlDataProviderTest {
         return DataProviderHelper.getAllDataMultipleArgsFromYAML(yamlResources);
     }
 
+    @Test(groups = "unit")
+    public void testGetAllDataMultipleArgsFromYAMLKeepsResourceOrder() throws IOException {
+        List<DataResource> yamlResources = new ArrayList<DataResource>();
+        yamlResources.add(new FileSystemResource(list));
+        yamlResources.add(new FileSystemResource(listOfLists));
+        yamlResources.add(new FileSystemResource(associativeArrays));
+        yamlResources.add(new FileSystemResource(listOfAssociativeArrays));
+        yamlResources.add(new FileSystemResource(associativeArrayOfLists));
+
+        Object[][] expected = new Object[yamlResources.size()][][];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = DataProviderFactory.getDataProvider(yamlResources.get(i)).getAllData();
+        }
+        expected = DataProviderHelper.getAllDataMultipleArgs((Object[][][]) expected);
+
+        assertTrue(Arrays.deepEquals(DataProviderHelper.getAllDataMultipleArgsFromYAML(yamlResources), expected));
+
+        List<Object[]> lazily = new ArrayList<Object[]>();
+        Iterator<Object[]> rows = DataProviderHelper.getAllDataMultipleArgsFromYAMLLazily(yamlResources);
+        while (rows.hasNext()) {
+            lazily.add(rows.next());
+        }
+        assertTrue(Arrays.deepEquals(lazily.toArray(new Object[lazily.size()][]), expected));
+    }
+
+    @Test(groups = "unit")
+    public void testZipAllDataMultipleArgsPadsShorterDataProviders() {
+        List<Iterator<Object[]>> dataproviders = new ArrayList<Iterator<Object[]>>();
+        dataproviders.add(Arrays.asList(new Object[] { "a" }, new Object[] { "b" }).iterator());
+        dataproviders.add(Arrays.asList(new Object[][] { { 1 } }).iterator());
+
+        Iterator<Object[]> rows = DataProviderHelper.zipAllDataMultipleArgs(dataproviders);
+        assertEquals(rows.next(), new Object[] { "a", 1 });
+        assertEquals(rows.next(), new Object[] { "b", null });
+        assertFalse(rows.hasNext());
+    }
+
     @Test(groups = "unit", dataProvider = "getList")
     public void testDataProviderGetList(String str) {
         assertNotNull(str);
@@ -814,4 +876,124 @@ public class YamlDataProviderTest {
 
     }
 
+    @Test(groups = "unit")
+    public void testGetDataByFilterHandsOverDocumentsLazily() throws IOException {
+        DataResource resource = new FileSystemResource(documentSeparatedUsers, USER.class);
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(resource);
+        final List<Object> filtered = new ArrayList<>();
+        Iterator<Object[]> users = dataProvider.getDataByFilter(new DataProviderFilter() {
+            @Override
+            public boolean filter(Object data) {
+                filtered.add(data);
+                return true;
+            }
+        });
+        assertTrue(filtered.isEmpty(), "No document should be filtered before the iterator is consumed.");
+        assertEquals(((USER) users.next()[0]).getName(), "Thomas");
+        assertEquals(filtered.size(), 1);
+
+        int count = 1;
+        while (users.hasNext()) {
+            assertNotNull(users.next()[0]);
+            count++;
+        }
+        assertEquals(count, dataProvider.getAllData().length);
+        assertEquals(filtered.size(), count);
+    }
+
+    @Test(groups = "unit")
+    public void testClosingGetDataByFilterOfDocumentsClosesTheStream() throws IOException {
+        ClosedStream stream = new ClosedStream("--- US\n--- GB\n--- AU\n");
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(new InputStreamResource(stream, "yaml"));
+        Iterator<Object[]> countries = dataProvider.getDataByFilter(new AcceptAllFilter());
+        assertEquals(countries.next()[0], "US");
+        assertFalse(stream.closed);
+
+        ((Closeable) countries).close();
+        assertTrue(stream.closed, "Abandoning the documents should close the stream.");
+    }
+
+    @Test(groups = "unit")
+    public void testGetDataByFilterClosesTheStreamWhenADocumentFailsToParse() throws IOException {
+        ClosedStream stream = new ClosedStream("--- US\n--- GB\n--- *undefined\n");
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(new InputStreamResource(stream, "yaml"));
+        Iterator<Object[]> countries = dataProvider.getDataByFilter(new AcceptAllFilter());
+        assertEquals(countries.next()[0], "US");
+        assertEquals(countries.next()[0], "GB");
+        try {
+            countries.next();
+            fail("The undefined alias should not be parsed.");
+        } catch (DataProviderException e) {
+            assertTrue(stream.closed);
+        }
+    }
+
+    @Test(groups = "unit")
+    public void testGetDataByFilterClosesTheStreamWhenTheFirstDocumentFailsToParse() throws IOException {
+        ClosedStream stream = new ClosedStream("--- *undefined\n--- GB\n");
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(new InputStreamResource(stream, "yaml"));
+        try {
+            dataProvider.getDataByFilter(new AcceptAllFilter());
+            fail("The undefined alias should not be parsed.");
+        } catch (DataProviderException e) {
+            assertTrue(stream.closed);
+        }
+    }
+
+    private static final class AcceptAllFilter implements DataProviderFilter {
+        @Override
+        public boolean filter(Object data) {
+            return true;
+        }
+    }
+
+    private static final class ClosedStream extends ByteArrayInputStream {
+        private volatile boolean closed;
+
+        ClosedStream(String yaml) {
+            super(yaml.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+
+    @Test(groups = "unit")
+    public void testGetAllDataOfSingleDocumentStartingWithSeparator() throws IOException {
+        String yaml = "---\n- US\n- GB\n- AU\n";
+        DataResource resource = new InputStreamResource(new BufferedInputStream(new ByteArrayInputStream(
+                yaml.getBytes("UTF-8"))), "yaml");
+        Object[][] data = DataProviderFactory.getDataProvider(resource).getAllData();
+        assertEquals(data.length, 3);
+        assertEquals(data[2][0], "AU");
+    }
+
+    @Test(groups = "unit")
+    public void testParsedDataIsReusedAcrossMethods() throws IOException {
+        DataResource resource = new InputStreamResource(new BufferedInputStream(
+                FileAssistant.loadFile(associativeArrayOfUsers)), USER.class, "yaml");
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(resource);
+        Object[][] allUsers = dataProvider.getAllData();
+        // The stream can be read only once, so these would fail if the file was parsed again.
+        Object[][] someUsers = dataProvider.getDataByKeys(new String[] { "tom" });
+        Map<String, Object> hashtable = dataProvider.getDataAsHashtable();
+        assertSame(someUsers[0][0], allUsers[0][0]);
+        assertSame(hashtable.get("tom"), allUsers[0][0]);
+        assertSame(dataProvider.getDataByIndex("1")[0][0], allUsers[0][0]);
+    }
+
+    @Test(groups = "unit")
+    public void testInvalidateParsesAgain() throws IOException {
+        DataResource resource = new FileSystemResource(associativeArrayOfUsers, USER.class);
+        YamlDataProviderImpl dataProvider = new YamlDataProviderImpl(resource);
+        Object user = dataProvider.getAllData()[0][0];
+        assertSame(dataProvider.getAllData()[0][0], user);
+        dataProvider.invalidate();
+        Object userParsedAgain = dataProvider.getAllData()[0][0];
+        assertNotSame(userParsedAgain, user);
+        assertEquals(((USER) userParsedAgain).getName(), ((USER) user).getName());
+    }
 }
@@ -0,0 +1,83 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.filter;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+import com.paypal.selion.platform.dataprovider.DataProviderException;
+import com.paypal.selion.platform.dataprovider.pojos.yaml.USER;
+
+public class CustomKeyFilterTest {
+
+    private static USER newUser(String name) {
+        USER user = new USER();
+        user.setName(name);
+        return user;
+    }
+
+    @Test(groups = "unit")
+    public void testFilterByKeyValues() {
+        CustomKeyFilter filter = new CustomKeyFilter("name", "Thomas,binh");
+        assertTrue(filter.filter(newUser("Thomas")));
+        assertTrue(filter.filter(newUser(" binh ")));
+        assertFalse(filter.filter(newUser("suri")));
+        assertFalse(filter.filter(newUser(null)));
+    }
+
+    private static RawDataRow newRawRow(final Class<?> type, final String name) {
+        return new RawDataRow() {
+            @Override
+            public int getPosition() {
+                return 1;
+            }
+
+            @Override
+            public String getKey() {
+                return null;
+            }
+
+            @Override
+            public Class<?> getType() {
+                return type;
+            }
+
+            @Override
+            public String getValue(String key) {
+                return "name".equals(key) ? name : null;
+            }
+        };
+    }
+
+    @Test(groups = "unit")
+    public void testFilterRawKeyValues() {
+        CustomKeyFilter filter = new CustomKeyFilter("name", "Thomas,binh");
+        assertTrue(filter.filterRaw(newRawRow(USER.class, "Thomas")));
+        assertFalse(filter.filterRaw(newRawRow(USER.class, "suri")));
+        // Rows that cannot be decided in their raw form are left to filter(Object).
+        assertTrue(filter.filterRaw(newRawRow(USER.class, null)));
+        assertTrue(filter.filterRaw(newRawRow(null, "suri")));
+        assertTrue(new CustomKeyFilter("accountNumber", "1").filterRaw(newRawRow(USER.class, "suri")));
+    }
+
+    @Test(groups = "unit", expectedExceptions = { DataProviderException.class })
+    public void testUnknownKey() {
+        new CustomKeyFilter("unknown", "Thomas").filter(newUser("Thomas"));
+    }
+}
@@ -0,0 +1,105 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.filter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.paypal.selion.platform.dataprovider.DataProviderFactory;
+import com.paypal.selion.platform.dataprovider.DataResource;
+import com.paypal.selion.platform.dataprovider.SeLionDataProvider;
+import com.paypal.selion.platform.dataprovider.impl.FileSystemResource;
+import com.paypal.selion.platform.dataprovider.impl.XmlFileSystemResource;
+import com.paypal.selion.platform.dataprovider.pojos.xml.Address;
+import com.paypal.selion.platform.dataprovider.pojos.yaml.USER;
+
+public class RawDataProviderFilterTest {
+
+    /**
+     * Accepts the row at a single position in its raw form, and counts the rows that were mapped into objects.
+     */
+    private static class SinglePositionFilter implements RawDataProviderFilter {
+        private final int position;
+        private final AtomicInteger mappedRows = new AtomicInteger();
+
+        SinglePositionFilter(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public boolean filterRaw(RawDataRow row) {
+            return row.getPosition() == position;
+        }
+
+        @Override
+        public boolean filter(Object data) {
+            mappedRows.incrementAndGet();
+            return true;
+        }
+    }
+
+    private static Object getSingleRow(SeLionDataProvider dataProvider, SinglePositionFilter filter)
+            throws IOException {
+        Iterator<Object[]> data = dataProvider.getDataByFilter(filter);
+        Object row = data.next()[0];
+        assertFalse(data.hasNext());
+        assertEquals(filter.mappedRows.get(), 1);
+        return row;
+    }
+
+    @Test(groups = "unit")
+    public void testExcelRowsAreRejectedBeforeMapping() throws IOException {
+        DataResource resource = new FileSystemResource("src/test/resources/User.xlsx", USER.class);
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(resource);
+        USER expected = (USER) dataProvider.getDataByIndex("3")[0][0];
+        USER user = (USER) getSingleRow(dataProvider, new SinglePositionFilter(3));
+        assertEquals(user.getName(), expected.getName());
+    }
+
+    @Test(groups = "unit")
+    public void testJsonElementsAreRejectedBeforeMapping() throws IOException {
+        DataResource resource = new FileSystemResource("src/test/resources/PojoArrayData.json", USER.class);
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(resource);
+        USER user = (USER) getSingleRow(dataProvider, new SinglePositionFilter(3));
+        assertEquals(user.getName(), "Alonso");
+    }
+
+    @Test(groups = "unit")
+    public void testXmlElementsAreRejectedBeforeUnmarshalling() throws IOException {
+        DataResource resource = new XmlFileSystemResource(
+                "src/test/resources/testdata/dataprovider/ListOfAddresses.xml", Address.class);
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(resource);
+        Address address = (Address) getSingleRow(dataProvider, new SinglePositionFilter(2));
+        assertEquals(address.getStreet(), "12 Pico st");
+    }
+
+    @Test(groups = "unit")
+    public void testCustomKeyFilterOnRawXmlElements() throws IOException {
+        DataResource resource = new XmlFileSystemResource(
+                "src/test/resources/testdata/dataprovider/ListOfAddresses.xml", Address.class);
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(resource);
+        Iterator<Object[]> data = dataProvider.getDataByFilter(new CustomKeyFilter("street", "12 Pico st"));
+        assertEquals(((Address) data.next()[0]).getStreet(), "12 Pico st");
+        assertFalse(data.hasNext());
+    }
+}
@@ -0,0 +1,77 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.filter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.testng.annotations.Test;
+
+import com.paypal.selion.platform.dataprovider.DataProviderFactory;
+import com.paypal.selion.platform.dataprovider.DataResource;
+import com.paypal.selion.platform.dataprovider.SeLionDataProvider;
+import com.paypal.selion.platform.dataprovider.impl.FileSystemResource;
+import com.paypal.selion.platform.dataprovider.pojos.yaml.USER;
+
+public class SimpleIndexInclusionFilterTest {
+
+    @Test(groups = "unit")
+    public void testFilterByPosition() {
+        SimpleIndexInclusionFilter filter = new SimpleIndexInclusionFilter("1, 3, 5-7");
+        assertTrue(filter.filter(null, 1));
+        assertFalse(filter.filter(null, 2));
+        assertTrue(filter.filter(null, 6));
+        assertFalse(filter.filter(null, 8));
+        assertFalse(filter.filter(null, 0));
+        // Asking again for the same position gives the same answer, since the filter keeps no count of its own.
+        assertTrue(filter.filter(null, 1));
+        assertEquals(filter.getHighestIndex(), 7);
+        assertEquals(filter.toString(), "Filter Indexes :[1, 3, 5, 6, 7]");
+    }
+
+    @Test(groups = "unit")
+    public void testFilterByInvocationCount() {
+        SimpleIndexInclusionFilter filter = new SimpleIndexInclusionFilter(new int[] { 2 });
+        assertFalse(filter.filter(null));
+        assertTrue(filter.filter(null));
+        assertFalse(filter.filter(null));
+    }
+
+    @Test(groups = "unit")
+    public void testNoIndexes() {
+        SimpleIndexInclusionFilter filter = new SimpleIndexInclusionFilter(new int[] { 0, -1 });
+        assertEquals(filter.getHighestIndex(), 0);
+        assertFalse(filter.filter(null, 1));
+    }
+
+    @Test(groups = "unit")
+    public void testFilterIsReusable() throws IOException {
+        DataResource resource = new FileSystemResource("src/test/resources/PojoArrayData.json", USER.class);
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(resource);
+        SimpleIndexInclusionFilter filter = new SimpleIndexInclusionFilter("1,3");
+        for (int run = 0; run < 2; run++) {
+            Iterator<Object[]> data = dataProvider.getDataByFilter(filter);
+            assertEquals(((USER) data.next()[0]).getName(), "Optimus Prime");
+            assertEquals(((USER) data.next()[0]).getName(), "Alonso");
+            assertFalse(data.hasNext());
+        }
+    }
+}
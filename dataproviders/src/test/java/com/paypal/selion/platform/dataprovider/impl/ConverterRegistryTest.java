@@ -0,0 +1,74 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.math.BigDecimal;
+
+import org.testng.annotations.Test;
+
+import com.paypal.selion.platform.dataprovider.impl.ReflectionUtils.ReflectionException;
+import com.paypal.selion.platform.dataprovider.impl.ReflectionUtilsTest.PhoneyClass;
+import com.paypal.selion.platform.dataprovider.impl.ReflectionUtilsTest.PhoneyEnum;
+
+public class ConverterRegistryTest {
+
+    @Test(groups = "unit")
+    public void testPrimitivesAndWrappers() {
+        assertEquals(ConverterRegistry.getConverter(int.class).convert("42"), 42);
+        assertEquals(ConverterRegistry.getConverter(Long.class).convert("42"), 42L);
+        assertEquals(ConverterRegistry.getConverter(boolean.class).convert("true"), true);
+        assertEquals(ConverterRegistry.getConverter(Double.class).convert("4.2"), 4.2d);
+        assertSame(ConverterRegistry.getConverter(int.class), ConverterRegistry.getConverter(Integer.class));
+    }
+
+    @Test(groups = "unit")
+    public void testOneArgStringConstructor() {
+        ConverterRegistry.StringConverter converter = ConverterRegistry.getConverter(BigDecimal.class);
+        assertEquals(converter.convert("1.50"), new BigDecimal("1.50"));
+        assertSame(ConverterRegistry.getConverter(BigDecimal.class), converter);
+        assertEquals(ConverterRegistry.getConverter(PhoneyClass.class).convert("SeLion").toString(), "SeLion");
+    }
+
+    @Test(groups = "unit")
+    public void testTypesThatCannotBeConverted() {
+        assertNull(ConverterRegistry.getConverter(char.class));
+        assertNull(ConverterRegistry.getConverter(Character.class));
+        assertNull(ConverterRegistry.getConverter(Object.class));
+        assertNull(ConverterRegistry.getConverter(int[].class));
+    }
+
+    @Test(groups = "unit", expectedExceptions = { ReflectionException.class })
+    public void testParseFailure() {
+        ConverterRegistry.getConverter(int.class).convert("one");
+    }
+
+    @Test(groups = "unit", expectedExceptions = { ReflectionException.class })
+    public void testConstructorFailure() {
+        ConverterRegistry.getConverter(BigDecimal.class).convert("one");
+    }
+
+    @Test(groups = "unit")
+    public void testCustomTypeConverter() throws NoSuchMethodException {
+        DefaultCustomType type = new DefaultCustomType(PhoneyEnum.ONE, PhoneyEnum.class.getMethod("getValue",
+                String.class));
+        assertEquals(((PhoneyEnum) type.getStringConverter().convert("two")).getText(), "two");
+    }
+}
@@ -0,0 +1,179 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.testng.annotations.Test;
+
+import com.paypal.selion.platform.dataprovider.DataLoadEvent;
+import com.paypal.selion.platform.dataprovider.DataLoadListener;
+import com.paypal.selion.platform.dataprovider.DataProviderFactory;
+import com.paypal.selion.platform.dataprovider.DataResource;
+import com.paypal.selion.platform.dataprovider.SeLionDataProvider;
+import com.paypal.selion.platform.dataprovider.pojos.yaml.USER;
+
+public class DataLoadInstrumentationTest {
+    private static final String CSV_FILE = "src/test/resources/User.csv";
+    private static final String YAML_FILE = "src/test/resources/ListOfUsers.yaml";
+
+    private final Queue<DataLoadEvent> events = new ConcurrentLinkedQueue<>();
+    private final DataResource failingResource = new FileSystemResource(CSV_FILE, USER.class);
+    // The tests run in parallel with the other tests, so they do not touch the shared instrumentation.
+    private final DataLoadInstrumentation instrumentation = new DataLoadInstrumentation(new DataLoadListener() {
+        @Override
+        public void onDataLoaded(DataLoadEvent event) {
+            events.add(event);
+            if (event.getResource() == failingResource) {
+                throw new IllegalStateException("This listener fails on purpose.");
+            }
+        }
+    });
+
+    private SeLionDataProvider getDataProvider(DataResource resource) throws IOException {
+        return instrumentation.instrument(DataProviderFactory.getDataProvider(resource), resource);
+    }
+
+    private List<DataLoadEvent> getEvents(DataResource resource) {
+        List<DataLoadEvent> resourceEvents = new ArrayList<>();
+        for (DataLoadEvent event : events) {
+            if (event.getResource() == resource) {
+                resourceEvents.add(event);
+            }
+        }
+        return resourceEvents;
+    }
+
+    @Test(groups = "unit")
+    public void testCallIsRecorded() throws IOException {
+        DataResource resource = new FileSystemResource(CSV_FILE, USER.class);
+        Object[][] data = getDataProvider(resource).getAllData();
+
+        List<DataLoadEvent> resourceEvents = getEvents(resource);
+        assertEquals(resourceEvents.size(), 1);
+        DataLoadEvent event = resourceEvents.get(0);
+        assertEquals(event.getProviderType(), "CsvDataProviderImpl");
+        assertEquals(event.getOperation(), "getAllData");
+        assertEquals(event.getRowsReturned(), data.length);
+        // The excluded record is parsed too.
+        assertEquals(event.getRowsParsed(), data.length + 1);
+        assertEquals(event.getBytesRead(), new File(CSV_FILE).length());
+        assertTrue(event.getParseTimeNanos() >= 0 && event.getMapTimeNanos() >= 0);
+    }
+
+    @Test(groups = "unit")
+    public void testNestedCallsAreRecordedOnce() throws IOException {
+        DataResource resource = new FileSystemResource(YAML_FILE, USER.class);
+        getDataProvider(resource).getDataByIndex("1, 2");
+
+        List<DataLoadEvent> resourceEvents = getEvents(resource);
+        assertEquals(resourceEvents.size(), 1);
+        assertEquals(resourceEvents.get(0).getOperation(), "getDataByIndex");
+        assertEquals(resourceEvents.get(0).getRowsReturned(), 2);
+        assertTrue(resourceEvents.get(0).getBytesRead() > 0);
+    }
+
+    @Test(groups = "unit")
+    public void testIteratorIsRecordedOnceExhausted() throws IOException {
+        DataResource resource = new FileSystemResource(CSV_FILE, USER.class);
+        Iterator<Object[]> data = getDataProvider(resource).getAllDataIterator();
+        data.next();
+        assertTrue(getEvents(resource).isEmpty());
+
+        while (data.hasNext()) {
+            data.next();
+        }
+        List<DataLoadEvent> resourceEvents = getEvents(resource);
+        assertEquals(resourceEvents.size(), 1);
+        assertEquals(resourceEvents.get(0).getOperation(), "getAllDataIterator");
+        assertEquals(resourceEvents.get(0).getRowsReturned(), 3);
+    }
+
+    @Test(groups = "unit")
+    public void testClosedIteratorIsRecorded() throws IOException {
+        DataResource resource = new FileSystemResource(CSV_FILE, USER.class);
+        Iterator<Object[]> data = getDataProvider(resource).getAllDataIterator();
+        data.next();
+        assertTrue(data instanceof Closeable);
+        ((Closeable) data).close();
+
+        List<DataLoadEvent> resourceEvents = getEvents(resource);
+        assertEquals(resourceEvents.size(), 1);
+        assertEquals(resourceEvents.get(0).getRowsReturned(), 1);
+    }
+
+    @Test(groups = "unit")
+    public void testAbandonedIteratorIsRecorded() throws IOException, InterruptedException {
+        DataResource resource = new FileSystemResource(CSV_FILE, USER.class);
+        SeLionDataProvider dataProvider = getDataProvider(resource);
+        dataProvider.getAllDataIterator().next();
+        assertTrue(getEvents(resource).isEmpty());
+
+        // The abandoned iterator is published by the next recorded call, once it has been garbage collected.
+        DataResource otherResource = new FileSystemResource(YAML_FILE, USER.class);
+        for (int i = 0; i < 50 && getEvents(resource).isEmpty(); i++) {
+            System.gc();
+            Thread.sleep(20);
+            getDataProvider(otherResource).getAllData();
+        }
+        List<DataLoadEvent> resourceEvents = getEvents(resource);
+        assertEquals(resourceEvents.size(), 1);
+        assertEquals(resourceEvents.get(0).getOperation(), "getAllDataIterator");
+        assertEquals(resourceEvents.get(0).getRowsReturned(), 1);
+    }
+
+    @Test(groups = "unit")
+    public void testDataProviderIsNotWrappedWithoutListener() throws IOException {
+        DataResource resource = new FileSystemResource(CSV_FILE, USER.class);
+        assertNull(DataLoadInstrumentation.getInstance().getListener());
+        assertTrue(DataProviderFactory.getDataProvider(resource) instanceof CsvDataProviderImpl);
+
+        SeLionDataProvider dataProvider = new CsvDataProviderImpl(resource);
+        assertSame(new DataLoadInstrumentation(null).instrument(dataProvider, resource), dataProvider);
+    }
+
+    @Test(groups = "unit")
+    public void testFailingListenerDoesNotFailTheCall() throws IOException {
+        SeLionDataProvider dataProvider = getDataProvider(failingResource);
+        assertEquals(dataProvider.getDataByKeys(new String[] { "tom" }).length, 1);
+        assertEquals(getEvents(failingResource).size(), 1);
+    }
+
+    @Test(groups = "unit")
+    public void testLoggingListenerKeepsTotals() {
+        LoggingDataLoadListener listener = new LoggingDataLoadListener();
+        listener.onDataLoaded(new DataLoadEvent(null, "CsvDataProviderImpl", "getAllData", 100, 4, 3, 10, 5));
+        listener.onDataLoaded(new DataLoadEvent(null, "CsvDataProviderImpl", "getAllData", 0, 0, 3, 1, 0));
+        assertEquals(listener.getCalls(), 2);
+        assertEquals(listener.getBytesRead(), 100);
+        assertEquals(listener.getRowsParsed(), 4);
+        assertEquals(listener.getRowsReturned(), 6);
+        assertEquals(listener.getParseTimeNanos(), 11);
+        assertEquals(listener.getMapTimeNanos(), 5);
+    }
+}
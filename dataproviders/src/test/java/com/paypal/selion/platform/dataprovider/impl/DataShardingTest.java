@@ -0,0 +1,214 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import com.paypal.selion.platform.dataprovider.DataProviderException;
+import com.paypal.selion.platform.dataprovider.DataProviderFactory;
+import com.paypal.selion.platform.dataprovider.SeLionDataProvider;
+import com.paypal.selion.platform.dataprovider.filter.DataProviderFilter;
+import com.paypal.selion.platform.dataprovider.filter.SimpleIndexInclusionFilter;
+import com.paypal.selion.platform.dataprovider.pojos.yaml.USER;
+
+public class DataShardingTest {
+    private static final int SHARD_COUNT = 3;
+
+    private static final DataProviderFilter ALL_DATA = new DataProviderFilter() {
+        @Override
+        public boolean filter(Object data) {
+            return true;
+        }
+    };
+
+    private static List<String> getNamesOfAllShards(SeLionDataProvider dataProvider) throws IOException {
+        List<String> names = new ArrayList<>();
+        for (int shard = 0; shard < SHARD_COUNT; shard++) {
+            DataProviderFilter filter = new DataSharding(shard, SHARD_COUNT).restrict(ALL_DATA);
+            Iterator<Object[]> data = dataProvider.getDataByFilter(filter);
+            while (data.hasNext()) {
+                names.add(((USER) data.next()[0]).getName());
+            }
+        }
+        return names;
+    }
+
+    @Test(groups = "unit")
+    public void testEveryRowBelongsToExactlyOneShard() {
+        int[] rowsPerShard = new int[SHARD_COUNT];
+        for (int index = 1; index <= 3000; index++) {
+            int shards = 0;
+            for (int shard = 0; shard < SHARD_COUNT; shard++) {
+                if (new DataSharding(shard, SHARD_COUNT).isInShard(null, index)) {
+                    shards++;
+                    rowsPerShard[shard]++;
+                }
+            }
+            assertEquals(shards, 1);
+        }
+        for (int rows : rowsPerShard) {
+            assertTrue(rows > 800, "The rows are not spread evenly: " + rows);
+        }
+    }
+
+    @Test(groups = "unit")
+    public void testKeysAreAssignedStably() {
+        DataSharding sharding = new DataSharding(1, SHARD_COUNT);
+        assertEquals(sharding.isInShard("tom", 1), sharding.isInShard("tom", 42));
+        assertEquals(sharding.isInShard("", 7), sharding.isInShard(null, 7));
+    }
+
+    @Test(groups = "unit")
+    public void testDisabled() {
+        DataSharding sharding = new DataSharding(0, 1);
+        assertTrue(sharding.isInShard("tom", 1));
+        assertSame(sharding.restrict(ALL_DATA), ALL_DATA);
+        Object[][] rows = new Object[][] { { "a" }, { "b" } };
+        assertSame(sharding.restrict(rows), rows);
+    }
+
+    @Test(groups = "unit", expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidShardIndex() {
+        new DataSharding(3, SHARD_COUNT);
+    }
+
+    @Test(groups = "unit")
+    public void testConfiguredShard() {
+        DataSharding sharding = DataSharding.fromConfig(" 2 ", "3");
+        assertEquals(sharding.getShardIndex(), 2);
+        assertEquals(sharding.getShardCount(), 3);
+    }
+
+    @Test(groups = "unit", expectedExceptions = DataProviderException.class,
+            expectedExceptionsMessageRegExp = ".*SELION_SHARD_COUNT must be a number but was 'three'.")
+    public void testConfiguredShardCountIsNotANumber() {
+        DataSharding.fromConfig("0", "three");
+    }
+
+    @Test(groups = "unit", expectedExceptions = DataProviderException.class,
+            expectedExceptionsMessageRegExp = "Invalid data provider sharding configuration "
+                    + "\\(SELION_SHARD_INDEX=3, SELION_SHARD_COUNT=3\\).*")
+    public void testConfiguredShardIndexIsOutOfRange() {
+        DataSharding.fromConfig("3", "3");
+    }
+
+    @Test(groups = "unit")
+    public void testLookUpsByIndexOfYamlAreNotSharded() throws IOException {
+        FileSystemResource resource = new FileSystemResource("src/test/resources/ListOfUsers.yaml", USER.class);
+        Object[][] allRows = new YamlDataProviderImpl(resource).getAllData();
+        int[] indexes = new int[allRows.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = allRows.length - i;
+        }
+        for (int shard = 0; shard < SHARD_COUNT; shard++) {
+            YamlDataProviderImpl dataProvider = new YamlDataProviderImpl(resource, new DataSharding(shard,
+                    SHARD_COUNT));
+            assertTrue(dataProvider.getAllData().length < allRows.length);
+            Object[][] rows = dataProvider.getDataByIndex(indexes);
+            assertEquals(rows.length, allRows.length);
+            for (int i = 0; i < rows.length; i++) {
+                assertEquals(((USER) rows[i][0]).getName(), ((USER) allRows[indexes[i] - 1][0]).getName());
+            }
+        }
+    }
+
+    @Test(groups = "unit")
+    public void testAllDataAndFilteredDataOfYamlAgreeOnTheShards() {
+        Map<String, Object> users = new LinkedHashMap<>();
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Map<String, Object> user = new LinkedHashMap<>();
+            user.put("name", "user" + i);
+            users.put("user" + i, user);
+
+            // every other element of the list is nested, which makes the positions of filtered rows skip ahead
+            Map<String, Object> element = new LinkedHashMap<>();
+            element.put("name", "element" + i);
+            if (i % 2 == 0) {
+                element.put("nested", new LinkedHashMap<>(user));
+            }
+            list.add(element);
+        }
+
+        for (Object yamlObject : new Object[] { users, list }) {
+            int rows = 0;
+            for (int shard = 0; shard < SHARD_COUNT; shard++) {
+                DataSharding sharding = new DataSharding(shard, SHARD_COUNT);
+                Object[][] allData = DataProviderHelper.convertToObjectArray(yamlObject, sharding.allRows());
+                List<Object> filteredData = new ArrayList<>();
+                for (Object[] row : DataProviderHelper.filterToListOfObjects(yamlObject, sharding.restrict(ALL_DATA))) {
+                    filteredData.add(row[0]);
+                }
+                for (Object[] row : allData) {
+                    assertTrue(filteredData.contains(row[0]), row[0] + " is not in shard " + shard);
+                }
+                rows += allData.length;
+            }
+            assertEquals(rows, DataProviderHelper.convertToObjectArray(yamlObject).length);
+        }
+
+        // the rows of an associative array are sharded by their keys
+        DataSharding sharding = new DataSharding(1, SHARD_COUNT);
+        for (Object[] row : DataProviderHelper.convertToObjectArray(users, sharding.allRows())) {
+            assertTrue(sharding.isInShard((String) ((Map<?, ?>) row[0]).get("name"), 0));
+        }
+    }
+
+    @Test(groups = "unit")
+    public void testRestrictKeepsLastPosition() {
+        DataSharding sharding = new DataSharding(0, SHARD_COUNT);
+        DataProviderFilter filter = sharding.restrict(new SimpleIndexInclusionFilter("2-4"));
+        assertSame(sharding.restrict(filter), filter);
+        assertEquals(DataProviderHelper.getLastPosition(filter), 4);
+    }
+
+    @Test(groups = "unit")
+    public void testShardsOfExcelData() throws IOException {
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(new FileSystemResource(
+                "src/test/resources/User.xlsx", USER.class));
+        List<String> names = getNamesOfAllShards(dataProvider);
+        assertEquals(names.size(), dataProvider.getAllData().length);
+    }
+
+    @Test(groups = "unit")
+    public void testShardsOfJsonData() throws IOException {
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(new FileSystemResource(
+                "src/test/resources/PojoArrayData.json", USER.class));
+        List<String> names = getNamesOfAllShards(dataProvider);
+        assertEquals(names.size(), dataProvider.getAllData().length);
+    }
+
+    @Test(groups = "unit")
+    public void testShardsOfCsvData() throws IOException {
+        SeLionDataProvider dataProvider = DataProviderFactory.getDataProvider(new FileSystemResource(
+                "src/test/resources/User.csv", USER.class));
+        List<String> names = getNamesOfAllShards(dataProvider);
+        assertEquals(names.size(), 3);
+        assertTrue(names.contains("Thomas") && names.contains("binh") && names.contains("rama"));
+    }
+}
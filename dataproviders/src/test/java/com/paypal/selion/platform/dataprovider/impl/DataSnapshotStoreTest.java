@@ -0,0 +1,152 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+import com.paypal.selion.platform.dataprovider.pojos.yaml.USER;
+
+public class DataSnapshotStoreTest {
+    private static String fileName_Yaml = "src/test/resources/ListOfUsers.yaml";
+
+    private static DataSnapshotStore newStore() {
+        return new DataSnapshotStore(Files.createTempDir().getAbsolutePath());
+    }
+
+    @Test(groups = "unit")
+    public void testSnapshotIsReadBack() throws IOException {
+        DataSnapshotStore store = newStore();
+        FileSystemResource resource = new FileSystemResource(fileName_Yaml, USER.class);
+        Object[][] data = new YamlDataProviderImpl(resource).getAllData();
+
+        assertNull(store.getSnapshot(resource, DataSnapshotStore.ALL_DATA).read());
+        store.getSnapshot(resource, DataSnapshotStore.ALL_DATA).write(data);
+        Object[][] snapshotData = (Object[][]) store.getSnapshot(resource, DataSnapshotStore.ALL_DATA).read();
+
+        assertEquals(new Gson().toJson(snapshotData), new Gson().toJson(data));
+        assertEquals(store.getHitCount(), 1);
+        assertEquals(store.getMissCount(), 1);
+    }
+
+    @Test(groups = "unit")
+    public void testSnapshotIsIgnoredWhenContentsChange() throws IOException {
+        File file = File.createTempFile("DataSnapshotStoreTest", ".yaml");
+        file.deleteOnExit();
+        FileUtils.copyFile(new File(fileName_Yaml), file);
+        DataSnapshotStore store = newStore();
+        FileSystemResource resource = new FileSystemResource(file.getAbsolutePath(), USER.class);
+        store.getSnapshot(resource, DataSnapshotStore.ALL_DATA).write(new YamlDataProviderImpl(resource).getAllData());
+
+        FileUtils.write(file, "- changed", StandardCharsets.UTF_8, true);
+        assertNull(store.getSnapshot(resource, DataSnapshotStore.ALL_DATA).read());
+        assertEquals(store.getMissCount(), 1);
+    }
+
+    @Test(groups = "unit")
+    public void testSnapshotIsIgnoredWhenContentsChangeWithTheSameSizeAndModifiedTime() throws IOException {
+        File file = File.createTempFile("DataSnapshotStoreTest", ".yaml");
+        file.deleteOnExit();
+        FileUtils.copyFile(new File(fileName_Yaml), file);
+        DataSnapshotStore store = newStore();
+        FileSystemResource resource = new FileSystemResource(file.getAbsolutePath(), USER.class);
+        store.getSnapshot(resource, DataSnapshotStore.ALL_DATA).write(new YamlDataProviderImpl(resource).getAllData());
+
+        long length = file.length();
+        long lastModified = file.lastModified();
+        String contents = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+        FileUtils.write(file, contents.replace("Thomas", "Thumas"), StandardCharsets.UTF_8);
+        assertTrue(file.setLastModified(lastModified));
+        assertEquals(file.length(), length);
+
+        assertNull(store.getSnapshot(resource, DataSnapshotStore.ALL_DATA).read());
+        assertEquals(store.getMissCount(), 1);
+    }
+
+    @Test(groups = "unit")
+    public void testSnapshotIsReadWhenOnlyTheModifiedTimeChanges() throws IOException {
+        File file = File.createTempFile("DataSnapshotStoreTest", ".yaml");
+        file.deleteOnExit();
+        FileUtils.copyFile(new File(fileName_Yaml), file);
+        DataSnapshotStore store = newStore();
+        FileSystemResource resource = new FileSystemResource(file.getAbsolutePath(), USER.class);
+        store.getSnapshot(resource, DataSnapshotStore.ALL_DATA).write(new YamlDataProviderImpl(resource).getAllData());
+
+        assertTrue(file.setLastModified(file.lastModified() - 60000));
+        assertNotNull(store.getSnapshot(resource, DataSnapshotStore.ALL_DATA).read());
+        assertEquals(store.getHitCount(), 1);
+    }
+
+    @Test(groups = "unit")
+    public void testSnapshotsAreKeptPerOptions() {
+        DataSnapshotStore store = newStore();
+        FileSystemResource resource = new FileSystemResource(fileName_Yaml);
+        store.getSnapshot(resource, DataSnapshotStore.ALL_DATA, "DISABLED").write("data");
+        assertTrue(store.getSnapshot(resource, DataSnapshotStore.ALL_DATA, "DISABLED").exists());
+        assertFalse(store.getSnapshot(resource, DataSnapshotStore.ALL_DATA, "ROW").exists());
+
+        // An option that cannot be identified rules out snapshots.
+        store.getSnapshot(resource, "other", (String) null).write("data");
+        assertEquals(store.getDirectory().list().length, 1);
+    }
+
+    @Test(groups = "unit")
+    public void testSnapshotsAreKeptPerQueryAndType() throws IOException {
+        DataSnapshotStore store = newStore();
+        store.getSnapshot(new FileSystemResource(fileName_Yaml), DataSnapshotStore.ALL_DATA).write("data");
+        assertNull(store.getSnapshot(new FileSystemResource(fileName_Yaml), "other").read());
+        assertNull(store.getSnapshot(new FileSystemResource(fileName_Yaml, USER.class), DataSnapshotStore.ALL_DATA)
+                .read());
+    }
+
+    @Test(groups = "unit")
+    public void testUnsupportedDataIsNotWritten() {
+        DataSnapshotStore store = newStore();
+        store.getSnapshot(new FileSystemResource(fileName_Yaml), DataSnapshotStore.ALL_DATA).write(new Object());
+        assertEquals(store.getDirectory().list().length, 0);
+    }
+
+    @Test(groups = "unit")
+    public void testStreamsHaveNoSnapshots() throws IOException {
+        DataSnapshotStore store = newStore();
+        InputStreamResource resource = new InputStreamResource(new FileInputStream(fileName_Yaml), "yaml");
+        store.getSnapshot(resource, DataSnapshotStore.ALL_DATA).write("data");
+        assertFalse(store.getDirectory().exists() && store.getDirectory().list().length > 0);
+    }
+
+    @Test(groups = "unit")
+    public void testDisabledStore() {
+        DataSnapshotStore store = new DataSnapshotStore("");
+        assertFalse(store.isEnabled());
+        store.getSnapshot(new FileSystemResource(fileName_Yaml), DataSnapshotStore.ALL_DATA).write("data");
+        assertNull(store.getSnapshot(new FileSystemResource(fileName_Yaml), DataSnapshotStore.ALL_DATA).read());
+        assertEquals(store.getMissCount(), 0);
+    }
+}
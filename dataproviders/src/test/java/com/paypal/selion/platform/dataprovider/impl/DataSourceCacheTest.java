@@ -0,0 +1,228 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+import com.paypal.selion.platform.dataprovider.pojos.excel.AREA_CODE;
+import com.paypal.selion.platform.dataprovider.pojos.excel.USER;
+
+public class DataSourceCacheTest {
+    private static String fileName_User = "src/test/resources/User.xlsx";
+    private static String fileName_Yaml = "src/test/resources/ListOfUsers.yaml";
+
+    private static class CountingLoader implements Callable<Object> {
+        private final AtomicInteger loads = new AtomicInteger();
+
+        @Override
+        public Object call() throws Exception {
+            loads.incrementAndGet();
+            return new Object();
+        }
+    }
+
+    @Test(groups = "unit")
+    public void testHitsAndMisses() throws IOException {
+        DataSourceCache cache = new DataSourceCache(2);
+        CountingLoader loader = new CountingLoader();
+        Object first = cache.get(new FileSystemResource(fileName_User, USER.class), loader);
+        Object second = cache.get(new FileSystemResource(fileName_User, USER.class), loader);
+        assertSame(second, first);
+        assertEquals(loader.loads.get(), 1);
+        assertEquals(cache.getMissCount(), 1);
+        assertEquals(cache.getHitCount(), 1);
+
+        // A different class is a different data source
+        assertNotSame(cache.get(new FileSystemResource(fileName_User, Object.class), loader), first);
+        assertEquals(cache.getMissCount(), 2);
+        assertEquals(cache.size(), 2);
+
+        cache.clear();
+        assertEquals(cache.size(), 0);
+        assertEquals(cache.getHitCount(), 0);
+        assertEquals(cache.getMissCount(), 0);
+    }
+
+    @Test(groups = "unit")
+    public void testLeastRecentlyUsedIsEvicted() throws IOException {
+        DataSourceCache cache = new DataSourceCache(2);
+        CountingLoader loader = new CountingLoader();
+        Object user = cache.get(new FileSystemResource(fileName_User, USER.class), loader);
+        cache.get(new FileSystemResource(fileName_Yaml, USER.class), loader);
+        // Touch the excel data source so that the yaml one becomes the eldest.
+        cache.get(new FileSystemResource(fileName_User, USER.class), loader);
+        cache.get(new FileSystemResource(fileName_User, Object.class), loader);
+        assertEquals(cache.size(), 2);
+        assertSame(cache.get(new FileSystemResource(fileName_User, USER.class), loader), user);
+        cache.get(new FileSystemResource(fileName_Yaml, USER.class), loader);
+        assertEquals(loader.loads.get(), 4);
+    }
+
+    @Test(groups = "unit")
+    public void testModifiedFileIsParsedAgain() throws IOException {
+        File file = File.createTempFile("DataSourceCacheTest", ".yaml");
+        file.deleteOnExit();
+        FileUtils.copyFile(new File(fileName_Yaml), file);
+        DataSourceCache cache = new DataSourceCache(2);
+        CountingLoader loader = new CountingLoader();
+        Object first = cache.get(new FileSystemResource(file.getAbsolutePath(), USER.class), loader);
+        assertEquals(file.setLastModified(file.lastModified() - 10000), true);
+        assertNotSame(cache.get(new FileSystemResource(file.getAbsolutePath(), USER.class), loader), first);
+        assertEquals(loader.loads.get(), 2);
+    }
+
+    @Test(groups = "unit")
+    public void testStreamsAreNotCached() throws IOException {
+        DataSourceCache cache = new DataSourceCache(2);
+        CountingLoader loader = new CountingLoader();
+        cache.get(new InputStreamResource(new FileInputStream(fileName_User), USER.class, "xlsx"), loader);
+        cache.get(new InputStreamResource(new FileInputStream(fileName_User), USER.class, "xlsx"), loader);
+        assertEquals(loader.loads.get(), 2);
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test(groups = "unit")
+    public void testDisabledCache() throws IOException {
+        DataSourceCache cache = new DataSourceCache(0);
+        CountingLoader loader = new CountingLoader();
+        cache.get(new FileSystemResource(fileName_User, USER.class), loader);
+        cache.get(new FileSystemResource(fileName_User, USER.class), loader);
+        assertEquals(loader.loads.get(), 2);
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test(groups = "unit")
+    public void testFailuresAreNotCached() throws IOException {
+        DataSourceCache cache = new DataSourceCache(2);
+        final AtomicInteger loads = new AtomicInteger();
+        Callable<Object> failingLoader = new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                loads.incrementAndGet();
+                throw new IOException("Bad data source");
+            }
+        };
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.get(new FileSystemResource(fileName_User, USER.class), failingLoader);
+            } catch (IOException e) {
+                assertEquals(e.getMessage(), "Bad data source");
+            }
+        }
+        assertEquals(loads.get(), 2);
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test(groups = "unit")
+    public void testConcurrentLookupsParseOnce() throws Exception {
+        final DataSourceCache cache = new DataSourceCache(2);
+        final CountingLoader loader = new CountingLoader();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        return cache.get(new FileSystemResource(fileName_User, USER.class), loader);
+                    }
+                }));
+            }
+            for (Future<Object> result : results) {
+                assertSame(result.get(), results.get(0).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(loader.loads.get(), 1);
+        assertEquals(cache.getHitCount() + cache.getMissCount(), 16);
+    }
+
+    @Test(groups = "unit")
+    public void testExcelDataProvidersReadSharedWorkbookInParallel() throws Exception {
+        final DataSourceCache cache = new DataSourceCache(2);
+        final List<String> expected = describe(new ExcelDataProviderImpl(new FileSystemResource(fileName_User,
+                USER.class)));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(new Callable<List<String>>() {
+                    @Override
+                    public List<String> call() throws Exception {
+                        return describe(new ExcelDataProviderImpl(new FileSystemResource(fileName_User, USER.class),
+                                cache));
+                    }
+                }));
+            }
+            for (Future<List<String>> result : results) {
+                assertEquals(result.get(), expected);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(cache.getMissCount(), 1);
+        assertTrue(cache.get(new FileSystemResource(fileName_User, USER.class), new CountingLoader())
+                instanceof ParsedWorkbook, "The cache must hold the cell values rather than a POI workbook.");
+    }
+
+    /**
+     * Reads every row of the sheet in all the ways that rows are looked up, including the rows of the nested sheets.
+     */
+    private static List<String> describe(ExcelDataProviderImpl provider) {
+        List<String> rows = new ArrayList<>();
+        for (Object[] row : provider.getAllData()) {
+            rows.add(describe((USER) row[0]));
+        }
+        for (Object[] row : provider.getDataByKeys(new String[] { "tom", "binh", "1" })) {
+            rows.add(describe((USER) row[0]));
+        }
+        for (Map.Entry<String, Object> entry : provider.getDataAsHashtable().entrySet()) {
+            rows.add(entry.getKey() + "=" + describe((USER) entry.getValue()));
+        }
+        Collections.sort(rows);
+        return rows;
+    }
+
+    private static String describe(USER user) {
+        StringBuilder description = new StringBuilder(user.getName()).append(',').append(user.getAccountNumber())
+                .append(',').append(user.getAmount()).append(',').append(user.getBank().getName());
+        for (AREA_CODE areaCode : user.getAreaCode()) {
+            description.append(',').append(areaCode.getAreaCode());
+        }
+        return description.toString();
+    }
+}
@@ -22,7 +22,9 @@ import static org.testng.Assert.assertTrue;
 
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.poi.ss.usermodel.Row;
 import org.testng.annotations.BeforeClass;
@@ -125,6 +127,25 @@ public class ExcelReaderTest {
         assertEquals(index, -1);
     }
 
+    @Test(groups = "unit")
+    public void testGetRowIndexIsConsistentAcrossLookups() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(excelReader.getRowIndex(USER.class.getSimpleName(), "tom"), 1);
+            assertEquals(excelReader.getRowIndex(USER.class.getSimpleName(), "harry"), -1);
+        }
+    }
+
+    @Test(groups = "unit")
+    public void testAddRowIndexKeepsFirstRowAndSkipsExcludedKeys() {
+        Map<String, Integer> rowIndexes = new HashMap<>();
+        ExcelReader.addRowIndex(rowIndexes, "tom", 1);
+        ExcelReader.addRowIndex(rowIndexes, "tom", 5);
+        ExcelReader.addRowIndex(rowIndexes, "#binh", 2);
+        ExcelReader.addRowIndex(rowIndexes, null, 3);
+        assertEquals(rowIndexes.size(), 1);
+        assertEquals(rowIndexes.get("tom"), Integer.valueOf(1));
+    }
+
     @Test(groups = "unit")
     public void testGetHeaderRow() {
         Field[] fields = USER.class.getDeclaredFields();
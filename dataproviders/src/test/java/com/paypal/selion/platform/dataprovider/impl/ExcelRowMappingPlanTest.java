@@ -0,0 +1,75 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.paypal.selion.platform.dataprovider.pojos.excel.USER;
+
+public class ExcelRowMappingPlanTest {
+    private static String fileName_User = "src/test/resources/User.xlsx";
+
+    @Test(groups = "unit")
+    public void testPlanIsReusedForType() throws IOException {
+        ExcelDataProviderImpl dataProvider = new ExcelDataProviderImpl(new FileSystemResource(fileName_User,
+                USER.class));
+        ExcelRowMappingPlan plan = dataProvider.getRowMappingPlan(USER.class);
+        assertSame(dataProvider.getRowMappingPlan(USER.class), plan);
+        assertEquals(plan.getType(), USER.class);
+        assertEquals(plan.getColumnCount(), USER.class.getDeclaredFields().length);
+        assertEquals(plan.getBindings().size(), 13, "Every data member present in the header should be bound.");
+    }
+
+    @Test(groups = "unit")
+    public void testPlanIsRecompiledAfterAddingCustomTypes() throws IOException, NoSuchMethodException {
+        ExcelDataProviderImpl dataProvider = new ExcelDataProviderImpl(new FileSystemResource(fileName_User,
+                USER.class));
+        ExcelRowMappingPlan plan = dataProvider.getRowMappingPlan(USER.class);
+        dataProvider.addCustomTypes(new DefaultCustomType(StringBuilder.class.getConstructor(String.class)));
+        assertNotSame(dataProvider.getRowMappingPlan(USER.class), plan);
+    }
+
+    @Test(groups = "unit")
+    public void testFindColumnIgnoresCaseAndLastColumnWins() throws NoSuchFieldException {
+        List<String> header = Arrays.asList("NAME", null, "password", "Name");
+        assertEquals(ExcelRowMappingPlan.findColumn(header, USER.class.getDeclaredField("name")), 3);
+        assertEquals(ExcelRowMappingPlan.findColumn(header, USER.class.getDeclaredField("password")), 2);
+        assertEquals(ExcelRowMappingPlan.findColumn(header, USER.class.getDeclaredField("bank")), -1);
+    }
+
+    @Test(groups = "unit")
+    public void testMapWhenHeaderAndRowSizesDiffer() throws IllegalAccessException, NoSuchFieldException {
+        ExcelRowMappingPlan plan = new ExcelRowMappingPlan(USER.class, Arrays.asList("name"), 1,
+                Arrays.asList(new ExcelRowMappingPlan.FieldBinding(0, USER.class.getDeclaredField("name"),
+                        new ExcelRowMappingPlan.ValueConverter() {
+                            @Override
+                            public Object convert(String data, NestedRowCache nestedRows) {
+                                return data;
+                            }
+                        })));
+        assertEquals(((USER) plan.map(Arrays.asList("Thomas"), null)).getName(), "Thomas");
+        assertEquals(((USER) plan.map(Arrays.asList("Thomas", "extra"), null)).getName(), null);
+    }
+}
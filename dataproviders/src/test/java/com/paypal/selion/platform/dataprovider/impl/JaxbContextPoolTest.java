@@ -0,0 +1,51 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+
+import org.testng.annotations.Test;
+
+import com.paypal.selion.platform.dataprovider.pojos.xml.Address;
+import com.paypal.selion.platform.dataprovider.pojos.xml.User;
+
+public class JaxbContextPoolTest {
+
+    public static class PooledType {
+    }
+
+    @Test(groups = "unit")
+    public void testContextIsCachedPerTypes() throws JAXBException {
+        JaxbContextPool pool = JaxbContextPool.forTypes(Wrapper.class, Address.class);
+        assertSame(JaxbContextPool.forTypes(Wrapper.class, Address.class), pool);
+        assertSame(JaxbContextPool.forTypes(Wrapper.class, Address.class).getContext(), pool.getContext());
+        assertNotSame(JaxbContextPool.forTypes(Wrapper.class, User.class), pool);
+    }
+
+    @Test(groups = "unit")
+    public void testReleasedUnmarshallerIsBorrowedAgain() throws JAXBException {
+        JaxbContextPool pool = JaxbContextPool.forTypes(PooledType.class);
+        Unmarshaller unmarshaller = pool.borrow();
+        assertNotSame(pool.borrow(), unmarshaller, "A borrowed Unmarshaller should not be handed out twice.");
+        pool.release(unmarshaller);
+        assertSame(pool.borrow(), unmarshaller);
+    }
+}
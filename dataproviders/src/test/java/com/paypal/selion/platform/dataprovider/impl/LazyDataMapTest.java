@@ -0,0 +1,135 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+
+public class LazyDataMapTest {
+
+    private static final class CountingMaterializer implements Function<String, Object> {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Object apply(String source) {
+            calls.incrementAndGet();
+            return new StringBuilder(source);
+        }
+    }
+
+    private static Map<String, String> sources() {
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put("k1", "val1");
+        sources.put("k2", "val2");
+        sources.put("k3", "val3");
+        return sources;
+    }
+
+    @Test(groups = "unit")
+    public void testValueIsMaterializedOnFirstLookUpOnly() {
+        CountingMaterializer materializer = new CountingMaterializer();
+        LazyDataMap<String> map = new LazyDataMap<>(sources(), materializer);
+        assertEquals(materializer.calls.get(), 0);
+
+        Object value = map.get("k2");
+        assertEquals(value.toString(), "val2");
+        assertSame(map.get("k2"), value);
+        assertTrue(map.containsKey("k2"));
+        assertEquals(materializer.calls.get(), 1);
+        assertEquals(map.materializedSize(), 1);
+    }
+
+    @Test(groups = "unit")
+    public void testKeyWithoutValueIsLeftOut() {
+        final AtomicInteger calls = new AtomicInteger();
+        LazyDataMap<String> map = new LazyDataMap<>(sources(), new Function<String, Object>() {
+            @Override
+            public Object apply(String source) {
+                calls.incrementAndGet();
+                return "val2".equals(source) ? null : source;
+            }
+        });
+        assertFalse(map.containsKey("k2"));
+        assertNull(map.get("k2"));
+        assertEquals(calls.get(), 1);
+
+        assertEquals(map.size(), 2);
+        assertEquals(map.keySet().toString(), "[k1, k3]");
+        assertEquals(map, new Hashtable<>(map));
+        assertEquals(calls.get(), 3);
+    }
+
+    @Test(groups = "unit")
+    public void testUnknownKeyIsNotMaterialized() {
+        CountingMaterializer materializer = new CountingMaterializer();
+        LazyDataMap<String> map = new LazyDataMap<>(sources(), materializer);
+        assertNull(map.get("k4"));
+        assertFalse(map.containsKey("k4"));
+        assertEquals(materializer.calls.get(), 0);
+    }
+
+    @Test(groups = "unit")
+    public void testEntriesAreMaterializedInOrder() {
+        LazyDataMap<String> map = new LazyDataMap<>(sources(), new CountingMaterializer());
+        StringBuilder values = new StringBuilder();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            values.append(entry.getKey()).append('=').append(entry.getValue()).append(';');
+        }
+        assertEquals(values.toString(), "k1=val1;k2=val2;k3=val3;");
+        assertEquals(map.materializedSize(), 3);
+    }
+
+    @Test(groups = "unit", expectedExceptions = UnsupportedOperationException.class)
+    public void testMapIsReadOnly() {
+        new LazyDataMap<>(sources(), new CountingMaterializer()).put("k4", "val4");
+    }
+
+    @Test(groups = "unit")
+    public void testConcurrentLookUpsShareTheValue() throws InterruptedException {
+        final LazyDataMap<String> map = new LazyDataMap<>(sources(), new CountingMaterializer());
+        final Object[] seen = new Object[8];
+        Thread[] threads = new Thread[seen.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    seen[index] = map.get("k1");
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (Object value : seen) {
+            assertSame(value, map.get("k1"));
+        }
+    }
+}
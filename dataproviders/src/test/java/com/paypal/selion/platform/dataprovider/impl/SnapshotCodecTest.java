@@ -0,0 +1,115 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import com.google.gson.Gson;
+import com.paypal.selion.platform.dataprovider.DataProviderFactory;
+import com.paypal.selion.platform.dataprovider.pojos.excel.USER;
+
+public class SnapshotCodecTest {
+
+    private static class Node {
+        private String name;
+        private Node next;
+        private Thread.State state;
+        private List<Object> values = new ArrayList<>();
+    }
+
+    private static Object roundTrip(Object value, Class<?>... declaredTypes) throws IOException {
+        List<Class<?>> types = Arrays.asList(declaredTypes);
+        return SnapshotCodec.decode(ByteBuffer.wrap(SnapshotCodec.encode(value, types)), types);
+    }
+
+    @Test(groups = "unit")
+    public void testRoundTripOfExcelData() throws IOException {
+        Object[][] data = DataProviderFactory.getDataProvider(
+                new FileSystemResource("src/test/resources/User.xlsx", USER.class)).getAllData();
+        Object[][] decoded = (Object[][]) roundTrip(data, USER.class);
+        assertEquals(decoded.length, data.length);
+        assertTrue(decoded[0][0] instanceof USER);
+        assertEquals(new Gson().toJson(decoded), new Gson().toJson(data));
+    }
+
+    @Test(groups = "unit")
+    public void testRoundTripOfYamlData() throws IOException {
+        Object[][] data = DataProviderFactory.getDataProvider(
+                new FileSystemResource("src/test/resources/AssociativeArrayOfLists.yaml")).getAllData();
+        assertEquals(new Gson().toJson(roundTrip(data)), new Gson().toJson(data));
+    }
+
+    @Test(groups = "unit")
+    public void testSharedInstancesAndCycles() throws IOException {
+        Node first = new Node();
+        first.name = "first";
+        first.state = Thread.State.RUNNABLE;
+        first.next = first;
+        first.values.add(new BigDecimal("12.50"));
+        first.values.add(new int[] { 1, 2 });
+        Node[] nodes = (Node[]) roundTrip(new Node[] { first, first }, Node.class);
+
+        assertSame(nodes[1], nodes[0]);
+        assertSame(nodes[0].next, nodes[0]);
+        assertEquals(nodes[0].name, "first");
+        assertEquals(nodes[0].state, Thread.State.RUNNABLE);
+        assertEquals(nodes[0].values.get(0), new BigDecimal("12.50"));
+        assertEquals((int[]) nodes[0].values.get(1), new int[] { 1, 2 });
+    }
+
+    @Test(groups = "unit")
+    public void testCollectionsThatCannotBeCreatedAgain() throws IOException {
+        Hashtable<String, Object> table = new Hashtable<>();
+        table.put("list", Arrays.asList("a", "b"));
+        table.put("map", Collections.singletonMap("k", "v"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> decoded = (Map<String, Object>) roundTrip(table);
+        assertTrue(decoded instanceof Hashtable);
+        assertEquals(decoded.get("list"), Arrays.asList("a", "b"));
+        assertEquals(decoded.get("map"), Collections.singletonMap("k", "v"));
+    }
+
+    @Test(groups = "unit", expectedExceptions = IOException.class)
+    public void testUndeclaredTypeIsNotEncoded() throws IOException {
+        roundTrip(new Object[] { new Node() }, USER.class);
+    }
+
+    @Test(groups = "unit", expectedExceptions = IOException.class)
+    public void testUndeclaredTypeIsNotDecoded() throws IOException {
+        byte[] encoded = SnapshotCodec.encode(new Object[] { new Node() }, Arrays.<Class<?>> asList(Node.class));
+        SnapshotCodec.decode(ByteBuffer.wrap(encoded), Arrays.<Class<?>> asList(USER.class));
+    }
+
+    @Test(groups = "unit", expectedExceptions = IOException.class)
+    public void testUnsupportedType() throws IOException {
+        SnapshotCodec.encode(new Object[] { new Object() }, Collections.<Class<?>> emptyList());
+    }
+}
@@ -0,0 +1,171 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.paypal.selion.platform.dataprovider.pojos.excel.USER;
+
+public class StreamingExcelReaderTest {
+    private static String fileName_User = "src/test/resources/User.xlsx";
+    private static String fileName_SampleData = "src/test/resources/sampleData.xlsx";
+    private StreamingExcelReader streamingReader;
+    private ExcelReader excelReader;
+
+    @BeforeClass(alwaysRun = true)
+    public void init() throws IOException {
+        streamingReader = new StreamingExcelReader(new FileSystemResource(fileName_User));
+        excelReader = new ExcelReader(new FileSystemResource(fileName_User));
+    }
+
+    @Test(groups = "unit", expectedExceptions = { IllegalArgumentException.class })
+    public void testNegativeCaseNullResource() throws IOException {
+        new StreamingExcelReader(null);
+    }
+
+    @Test(groups = "unit", expectedExceptions = { IllegalArgumentException.class })
+    public void testNegativeCaseXlsFile() throws IOException {
+        new StreamingExcelReader(new FileSystemResource("IAmAnOldWorkbook.xls"));
+    }
+
+    @Test(groups = "unit", expectedExceptions = { IOException.class })
+    public void testFileDoesntExist() throws IOException {
+        new StreamingExcelReader(new FileSystemResource("YouCantSeeMe.xlsx"));
+    }
+
+    @Test(groups = "unit", expectedExceptions = { IllegalArgumentException.class })
+    public void testInvalidSheetName() {
+        streamingReader.getRowDataIterator("IAmNotThere", 1);
+    }
+
+    @Test(groups = "unit")
+    public void testSheetExist() {
+        assertTrue(streamingReader.sheetExists("USER"));
+        assertTrue(streamingReader.sheetExists("user"));
+        assertFalse(streamingReader.sheetExists("RandomSheet"));
+    }
+
+    @Test(groups = "unit")
+    public void testGetRowDataIteratorSkippingOfRows() {
+        assertFalse(streamingReader.getRowDataIterator("Sheet1", 1).hasNext());
+    }
+
+    @Test(groups = "unit")
+    public void testGetRowContents() {
+        Field[] fields = USER.class.getDeclaredFields();
+        List<String> rowContents = streamingReader.getRowContents("USER", 3, fields.length);
+        assertNotNull(rowContents);
+        assertEquals(rowContents.toString(),
+                "[rama, abc123, 123456, 100.00, ph1,ph2,ph3, bnk1, 1-408-225-8040, 12, true, 12.5, 167045, 12.5, 2]");
+    }
+
+    @Test(groups = "unit")
+    public void testGetRowIndex() {
+        assertEquals(streamingReader.getRowIndex(USER.class.getSimpleName(), "tom"), 1);
+        assertEquals(streamingReader.getRowIndex(USER.class.getSimpleName(), "harry"), -1);
+        assertEquals(streamingReader.getRowIndex("Sheet1", "#1"), -1);
+    }
+
+    @Test(groups = "unit")
+    public void testGetAbsoluteSingeExcelRowLoadsWorkbook() {
+        Row row = streamingReader.getAbsoluteSingeExcelRow("USER", 2);
+        assertNotNull(row);
+        assertEquals(streamingReader.getRowContents(row, 2).toString(), "[rama, abc123]");
+    }
+
+    @Test(groups = "unit")
+    public void testGetRowKeysDoesNotLoadWorkbook() throws Exception {
+        StreamingExcelReader streamed = new StreamingExcelReader(new FileSystemResource(fileName_User));
+        assertEquals(streamed.getRowKeys("USER").get("binh"), Integer.valueOf(4));
+        Field workBook = StreamingExcelReader.class.getDeclaredField("workBook");
+        workBook.setAccessible(true);
+        assertNull(workBook.get(streamed));
+    }
+
+    @DataProvider(name = "workbooks")
+    public Object[][] getWorkbooks() {
+        return new Object[][] { { fileName_User }, { fileName_SampleData } };
+    }
+
+    @Test(groups = "unit", dataProvider = "workbooks")
+    public void testStreamedRowsMatchLoadedRows(String fileName) throws IOException {
+        ExcelReader loaded = new ExcelReader(new FileSystemResource(fileName));
+        StreamingExcelReader streamed = new StreamingExcelReader(new FileSystemResource(fileName));
+        Workbook workbook = loaded.getWorkBook();
+        int size = 20;
+        for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+            String sheetName = workbook.getSheetName(i);
+            assertEquals(streamed.getHeaderRowContents(sheetName, size), loaded.getHeaderRowContents(sheetName, size),
+                    "Header mismatch for sheet " + sheetName);
+            assertEquals(toString(streamed.getRowDataIterator(sheetName, size)),
+                    toString(loaded.getRowDataIterator(sheetName, size)), "Row mismatch for sheet " + sheetName);
+            assertEquals(streamed.getRowKeys(sheetName).keySet().toString(),
+                    loaded.getRowKeys(sheetName).keySet().toString(), "Key mismatch for sheet " + sheetName);
+            for (Row row : loaded.getAllExcelRows(sheetName, true)) {
+                String key = row.getCell(0).toString();
+                assertEquals(streamed.getRowIndex(sheetName, key), loaded.getRowIndex(sheetName, key));
+                assertEquals(streamed.getRowContents(sheetName, row.getRowNum() + 1, size),
+                        loaded.getRowContents(sheetName, row.getRowNum() + 1, size));
+            }
+        }
+    }
+
+    @Test(groups = "unit")
+    public void testStreamedRowsMatchFileRows() throws IOException {
+        StreamingExcelReader fromStream = new StreamingExcelReader(new InputStreamResource(new FileInputStream(
+                fileName_User), USER.class, "xlsx"));
+        assertEquals(toString(fromStream.getRowDataIterator("USER", 20)),
+                toString(streamingReader.getRowDataIterator("USER", 20)));
+        assertEquals(fromStream.getRowContents("USER", 3, 2), streamingReader.getRowContents("USER", 3, 2));
+    }
+
+    @Test(groups = "unit")
+    public void testAbandonedRowDataIteratorCanBeClosed() throws IOException {
+        Iterator<ExcelRowData> rows = streamingReader.getRowDataIterator("USER", 2);
+        assertTrue(rows.hasNext());
+        rows.next();
+        assertTrue(rows instanceof Closeable);
+        ((Closeable) rows).close();
+        assertFalse(rows.hasNext());
+    }
+
+    private List<String> toString(Iterator<ExcelRowData> rows) {
+        List<String> rowData = new ArrayList<>();
+        while (rows.hasNext()) {
+            rowData.add(rows.next().toString());
+        }
+        return rowData;
+    }
+}
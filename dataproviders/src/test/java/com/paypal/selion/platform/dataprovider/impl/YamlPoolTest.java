@@ -0,0 +1,100 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.platform.dataprovider.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+import org.yaml.snakeyaml.DumperOptions.FlowStyle;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import com.paypal.selion.platform.dataprovider.pojos.yaml.USER;
+
+public class YamlPoolTest {
+
+    private static class PooledType {
+    }
+
+    public static class Code {
+        private final String value;
+
+        public Code(String value) {
+            if (value.isEmpty()) {
+                throw new IllegalArgumentException("A code cannot be empty.");
+            }
+            this.value = value;
+        }
+    }
+
+    public static class CodeHolder {
+        public Code code;
+        public boolean flag;
+    }
+
+    @Test(groups = "unit")
+    public void testReleasedYamlIsBorrowedAgain() {
+        Yaml yaml = YamlPool.borrow(PooledType.class);
+        assertNotSame(YamlPool.borrow(PooledType.class), yaml, "A borrowed Yaml should not be handed out twice.");
+        YamlPool.release(PooledType.class, yaml);
+        assertSame(YamlPool.borrow(PooledType.class), yaml);
+    }
+
+    @Test(groups = "unit")
+    public void testYamlIsPooledPerType() {
+        Yaml yaml = YamlPool.borrow(USER.class);
+        YamlPool.release(USER.class, yaml);
+        assertNotSame(YamlPool.borrow(null), yaml);
+    }
+
+    @Test(groups = "unit")
+    public void testBorrowedYamlMapsTypeTag() {
+        Yaml yaml = YamlPool.borrow(USER.class);
+        USER user = (USER) yaml.load("!USER {name: Thomas}");
+        assertEquals(user.getName(), "Thomas");
+        YamlPool.release(USER.class, yaml);
+    }
+
+    @Test(groups = "unit")
+    public void testYamlIsPooledPerFlowStyle() {
+        Yaml yaml = YamlPool.borrow(null, FlowStyle.BLOCK);
+        assertEquals(yaml.dump(Arrays.asList("a", "b")), "- a\n- b\n");
+        YamlPool.release(null, FlowStyle.BLOCK, yaml);
+        assertNotSame(YamlPool.borrow(null, FlowStyle.FLOW), yaml);
+        assertSame(YamlPool.borrow(null, FlowStyle.BLOCK), yaml);
+    }
+
+    @Test(groups = "unit")
+    public void testScalarIsConvertedViaConverterRegistry() {
+        Yaml yaml = YamlPool.borrow(CodeHolder.class);
+        CodeHolder holder = (CodeHolder) yaml.load("!CodeHolder {code: abc, flag: yes}");
+        YamlPool.release(CodeHolder.class, yaml);
+        assertEquals(holder.code.value, "abc");
+        // Types that SnakeYAML knows of are still converted by SnakeYAML
+        assertTrue(holder.flag);
+    }
+
+    @Test(groups = "unit", expectedExceptions = YAMLException.class)
+    public void testScalarThatCannotBeConverted() {
+        YamlPool.constructYaml(CodeHolder.class).load("!CodeHolder {code: ''}");
+    }
+}
@@ -27,21 +27,22 @@ import javax.servlet.http.HttpServletResponse;
 import com.paypal.selion.logging.SeLionGridLogger;
 import com.paypal.selion.pojos.SeLionGridConstants;
 import com.paypal.selion.proxy.SeLionSauceProxy;
+import com.paypal.selion.utils.ConfigParser.ConfigParserException;
+import com.paypal.selion.utils.HubHttpClient;
 import com.paypal.selion.utils.SauceLabsRestApi;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.HttpHost;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.message.BasicHttpEntityEnclosingRequest;
+import org.apache.http.util.EntityUtils;
 import org.openqa.grid.common.RegistrationRequest;
 import org.openqa.grid.common.exception.GridConfigurationException;
 import org.openqa.grid.internal.GridRegistry;
 import org.openqa.grid.internal.utils.configuration.GridNodeConfiguration;
 import org.openqa.grid.web.servlet.RegistryBasedServlet;
 import org.openqa.selenium.MutableCapabilities;
-import org.openqa.selenium.remote.internal.HttpClientFactory;
 
 import com.paypal.selion.utils.ServletHelper;
 
@@ -136,7 +137,6 @@ public class SauceServlet extends RegistryBasedServlet {
             return;
         }
 
-        HttpClientFactory httpClientFactory = new HttpClientFactory();
         respMsg = "Sauce node registration failed. Please refer to the log file for failure details.";
         try {
             final int port = getRegistry().getHub().getConfiguration().port;
@@ -146,19 +146,17 @@ public class SauceServlet extends RegistryBasedServlet {
                     registration.toExternalForm());
             request.setEntity(new StringEntity(getRegistrationRequestEntity()));
             HttpHost host = new HttpHost(registration.getHost(), registration.getPort());
-            HttpClient client = httpClientFactory.getHttpClient();
-            HttpResponse response = client.execute(host, request);
-
-            if (response.getStatusLine().getStatusCode() == HttpServletResponse.SC_OK) {
-                respMsg = "Sauce node registered successfully.";
-                registered = true;
+            try (CloseableHttpResponse response = HubHttpClient.getClient().execute(host, request)) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                if (response.getStatusLine().getStatusCode() == HttpServletResponse.SC_OK) {
+                    respMsg = "Sauce node registered successfully.";
+                    registered = true;
+                }
             }
-        } catch (IOException | GridConfigurationException e) { // We catch the GridConfigurationException here to fail
-                                                               // gracefully
+        } catch (IOException | GridConfigurationException | ConfigParserException e) {
+            // We catch the GridConfigurationException and the ConfigParserException here to fail gracefully
             // TODO Consider retrying on failure
             LOGGER.log(Level.WARNING, "Unable to register sauce node: ", e);
-        } finally {
-            httpClientFactory.close();
         }
         LOGGER.info(respMsg);
         ServletHelper.respondAsHtmlWithMessage(resp, formatForHtmlTemplate(respMsg));
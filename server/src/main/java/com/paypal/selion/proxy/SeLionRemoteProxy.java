@@ -32,13 +32,12 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
-import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
 import org.openqa.grid.common.RegistrationRequest;
 import org.openqa.grid.common.exception.RemoteUnregisterException;
 import org.openqa.grid.internal.GridRegistry;
@@ -58,6 +57,8 @@ import com.paypal.selion.node.servlets.NodeAutoUpgradeServlet;
 import com.paypal.selion.node.servlets.NodeForceRestartServlet;
 import com.paypal.selion.pojos.BrowserInformationCache;
 import com.paypal.selion.pojos.SeLionGridConstants;
+import com.paypal.selion.utils.ConfigParser.ConfigParserException;
+import com.paypal.selion.utils.HubHttpClient;
 import com.paypal.test.utilities.logging.SimpleLogger;
 import com.paypal.test.utilities.logging.SimpleLoggerSettings;
 
@@ -103,7 +104,6 @@ public class SeLionRemoteProxy extends DefaultRemoteProxy {
 
     private static final SeLionGridLogger LOGGER = SeLionGridLogger.getLogger(SeLionRemoteProxy.class);
     private static final int DEFAULT_MAX_SESSIONS_ALLOWED = 50;
-    private static final int CONNECTION_TIMEOUT = 30000;
 
     private volatile boolean scheduledShutdown;
     private volatile int totalSessionsCompleted, totalSessionsStarted;
@@ -203,32 +203,23 @@ public class SeLionRemoteProxy extends DefaultRemoteProxy {
     private boolean isSupportedOnNode(Class<? extends HttpServlet> servlet) {
         LOGGER.entering();
 
-        RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(CONNECTION_TIMEOUT)
-                .setSocketTimeout(CONNECTION_TIMEOUT).build();
-
-        CloseableHttpClient client = HttpClientBuilder.create().setDefaultRequestConfig(requestConfig).build();
         String url = String.format("http://%s:%d/extra/%s", machine, getRemoteHost().getPort(),
                 servlet.getSimpleName());
 
-        try {
-            HttpGet get = new HttpGet(url);
-            final HttpResponse getResponse = client.execute(get);
+        HttpGet get = new HttpGet(url);
+        try (CloseableHttpResponse getResponse = HubHttpClient.getClient().execute(get)) {
+            // the body is not used, so read it out and let the connection go back to the pool
+            EntityUtils.consumeQuietly(getResponse.getEntity());
 
             if (getResponse.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
                 proxyLogger.warning("Node " + getId() + " does not have or support " + servlet.getSimpleName());
                 LOGGER.exiting(false);
                 return false;
             }
-        } catch (IOException e) {
+        } catch (IOException | ConfigParserException e) {
             LOGGER.log(Level.SEVERE, e.getMessage(), e);
             LOGGER.exiting(false);
             return false;
-        } finally {
-            try {
-                client.close();
-            } catch (IOException e) {
-                LOGGER.log(Level.SEVERE, e.getMessage(), e);
-            }
         }
         LOGGER.exiting(true);
         return true;
@@ -237,10 +228,6 @@ public class SeLionRemoteProxy extends DefaultRemoteProxy {
     private HttpResponse sendToNodeServlet(Class<? extends HttpServlet> servlet, List<NameValuePair> nvps) {
         LOGGER.entering();
 
-        RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(CONNECTION_TIMEOUT)
-                .setSocketTimeout(CONNECTION_TIMEOUT).build();
-
-        CloseableHttpClient client = HttpClientBuilder.create().setDefaultRequestConfig(requestConfig).build();
         String url = String.format("http://%s:%d/extra/%s", machine, this.getRemoteHost().getPort(),
                 servlet.getSimpleName());
 
@@ -248,15 +235,14 @@ public class SeLionRemoteProxy extends DefaultRemoteProxy {
         try {
             HttpPost post = new HttpPost(url);
             post.setEntity(new UrlEncodedFormEntity(nvps));
-            postResponse = client.execute(post);
-        } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, e.getMessage(), e);
-        } finally {
-            try {
-                client.close();
-            } catch (IOException e) {
-                LOGGER.log(Level.SEVERE, e.getMessage(), e);
+            try (CloseableHttpResponse response = HubHttpClient.getClient().execute(post)) {
+                // only the status of the response is used, so read the body out and let the connection go back to
+                // the pool
+                EntityUtils.consumeQuietly(response.getEntity());
+                postResponse = response;
             }
+        } catch (IOException | ConfigParserException e) {
+            LOGGER.log(Level.SEVERE, e.getMessage(), e);
         }
         LOGGER.exiting(postResponse);
         return postResponse;
@@ -0,0 +1,159 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+import com.paypal.selion.logging.SeLionGridLogger;
+import com.paypal.selion.utils.ConfigParser.ConfigParserException;
+
+/**
+ * Holds the http client that the hub shares for the requests it sends to the SeLion servlets of its nodes, and to
+ * itself. Connections are pooled per route and kept alive between requests, so that probing a node or sending it an
+ * upgrade or restart command does not cost a new connection every time.<br>
+ * <br>
+ * The client can be tuned via the json config file <code>SeLionConfig.json</code> with the following settings:
+ * <ul>
+ * <li><code>hubHttpClientConnectTimeoutInMilliSec</code> - the connect timeout. Defaults to 30000.</li>
+ * <li><code>hubHttpClientSocketTimeoutInMilliSec</code> - the socket (read) timeout. Defaults to 30000.</li>
+ * <li><code>hubHttpClientKeepAliveInMilliSec</code> - how long an idle connection is kept alive, unless the node asks
+ * for less. Defaults to 60000.</li>
+ * <li><code>hubHttpClientMaxConnections</code> - the maximum number of pooled connections. Defaults to 200.</li>
+ * <li><code>hubHttpClientMaxConnectionsPerRoute</code> - the maximum number of pooled connections per node. Defaults
+ * to 4.</li>
+ * </ul>
+ * Responses must be consumed or closed, so that their connection is handed back to the pool. The client is never to be
+ * closed by its users.
+ */
+public final class HubHttpClient {
+
+    private static final SeLionGridLogger LOGGER = SeLionGridLogger.getLogger(HubHttpClient.class);
+
+    public static final String CONNECT_TIMEOUT_CONFIG_PROPERTY = "hubHttpClientConnectTimeoutInMilliSec";
+    public static final String SOCKET_TIMEOUT_CONFIG_PROPERTY = "hubHttpClientSocketTimeoutInMilliSec";
+    public static final String KEEP_ALIVE_CONFIG_PROPERTY = "hubHttpClientKeepAliveInMilliSec";
+    public static final String MAX_CONNECTIONS_CONFIG_PROPERTY = "hubHttpClientMaxConnections";
+    public static final String MAX_CONNECTIONS_PER_ROUTE_CONFIG_PROPERTY = "hubHttpClientMaxConnectionsPerRoute";
+
+    private static final int DEFAULT_TIMEOUT = 30000;
+    private static final long DEFAULT_KEEP_ALIVE = 60000;
+    private static final int DEFAULT_MAX_CONNECTIONS = 200;
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 4;
+
+    /**
+     * Connections that were idle for longer than this are checked before they are leased again.
+     */
+    private static final int VALIDATE_AFTER_INACTIVITY = 2000;
+
+    private HubHttpClient() {
+        // Utility class. So hide the constructor
+    }
+
+    private static final LazyClient CLIENT = new LazyClient(new Supplier<ConfigParser>() {
+        @Override
+        public ConfigParser get() {
+            return ConfigParser.parse();
+        }
+    });
+
+    /**
+     * @return the {@link CloseableHttpClient} that is shared by the hub.
+     * @throws ConfigParserException
+     *             if the config file cannot be read. The client is created again on the next call.
+     */
+    public static CloseableHttpClient getClient() {
+        return CLIENT.get();
+    }
+
+    /**
+     * Creates the client on first use only, so that the config file is not read before it is needed. Unlike a class
+     * initializer, a failure to read the config file is not cached, so a later call tries again instead of failing
+     * with a {@link NoClassDefFoundError} for the lifetime of the hub.
+     */
+    static final class LazyClient {
+        private final Supplier<ConfigParser> config;
+        private volatile CloseableHttpClient client;
+
+        LazyClient(Supplier<ConfigParser> config) {
+            this.config = config;
+        }
+
+        CloseableHttpClient get() {
+            CloseableHttpClient result = client;
+            if (result == null) {
+                synchronized (this) {
+                    result = client;
+                    if (result == null) {
+                        result = createClient(config.get());
+                        client = result;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    static CloseableHttpClient createClient(ConfigParser config) {
+        LOGGER.entering();
+        final int connectTimeout = config.getInt(CONNECT_TIMEOUT_CONFIG_PROPERTY, DEFAULT_TIMEOUT);
+        final int socketTimeout = config.getInt(SOCKET_TIMEOUT_CONFIG_PROPERTY, DEFAULT_TIMEOUT);
+        final long keepAlive = config.getLong(KEEP_ALIVE_CONFIG_PROPERTY, DEFAULT_KEEP_ALIVE);
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(config.getInt(MAX_CONNECTIONS_CONFIG_PROPERTY, DEFAULT_MAX_CONNECTIONS));
+        connectionManager.setDefaultMaxPerRoute(
+                config.getInt(MAX_CONNECTIONS_PER_ROUTE_CONFIG_PROPERTY, DEFAULT_MAX_CONNECTIONS_PER_ROUTE));
+        // nodes are restarted at will, so a pooled connection may well have been closed by the node in the meantime
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY);
+
+        RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(connectTimeout)
+                .setConnectionRequestTimeout(connectTimeout).setSocketTimeout(socketTimeout).build();
+
+        CloseableHttpClient client = HttpClients.custom().setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig).setKeepAliveStrategy(new CappedKeepAliveStrategy(keepAlive))
+                .evictExpiredConnections().evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS).build();
+        LOGGER.exiting(client);
+        return client;
+    }
+
+    /**
+     * Keeps a connection alive for as long as the response asks for, but never longer than the configured keep-alive.
+     */
+    static final class CappedKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+        private final long maxKeepAlive;
+
+        CappedKeepAliveStrategy(long maxKeepAlive) {
+            this.maxKeepAlive = maxKeepAlive;
+        }
+
+        @Override
+        public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+            long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return (keepAlive > 0) ? Math.min(keepAlive, maxKeepAlive) : maxKeepAlive;
+        }
+    }
+}
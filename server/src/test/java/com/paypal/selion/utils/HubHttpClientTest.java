@@ -0,0 +1,101 @@
+/*-------------------------------------------------------------------------------------------------------------------*\
+|  Copyright (C) 2017 PayPal                                                                                          |
+|                                                                                                                     |
+|  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance     |
+|  with the License.                                                                                                  |
+|                                                                                                                     |
+|  You may obtain a copy of the License at                                                                            |
+|                                                                                                                     |
+|       http://www.apache.org/licenses/LICENSE-2.0                                                                    |
+|                                                                                                                     |
+|  Unless required by applicable law or agreed to in writing, software distributed under the License is distributed   |
+|  on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for  |
+|  the specific language governing permissions and limitations under the License.                                     |
+\*-------------------------------------------------------------------------------------------------------------------*/
+
+
+package com.paypal.selion.utils;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+import java.util.function.Supplier;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.mockito.AdditionalAnswers;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.annotations.Test;
+
+import com.paypal.selion.utils.ConfigParser.ConfigParserException;
+import com.paypal.selion.utils.HubHttpClient.CappedKeepAliveStrategy;
+import com.paypal.selion.utils.HubHttpClient.LazyClient;
+
+@PrepareForTest(ConfigParser.class)
+// the client sets up an SSLContext, which has to be loaded by the system class loader
+@PowerMockIgnore({ "javax.net.ssl.*", "javax.security.*" })
+public class HubHttpClientTest extends PowerMockTestCase {
+
+    private static HttpResponse newResponse(String keepAlive) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        if (keepAlive != null) {
+            response.addHeader("Keep-Alive", keepAlive);
+        }
+        return response;
+    }
+
+    @Test
+    public void testKeepAliveDefaultsToTheCap() {
+        CappedKeepAliveStrategy strategy = new CappedKeepAliveStrategy(60000);
+        assertEquals(strategy.getKeepAliveDuration(newResponse(null), new BasicHttpContext()), 60000);
+    }
+
+    @Test
+    public void testKeepAliveOfTheResponseIsCapped() {
+        CappedKeepAliveStrategy strategy = new CappedKeepAliveStrategy(60000);
+        assertEquals(strategy.getKeepAliveDuration(newResponse("timeout=5"), new BasicHttpContext()), 5000);
+        assertEquals(strategy.getKeepAliveDuration(newResponse("timeout=300"), new BasicHttpContext()), 60000);
+    }
+
+    @Test
+    public void testClientIsCreatedAgainAfterTheConfigFailedToLoad() {
+        final ConfigParser config = mock(ConfigParser.class);
+        // every setting falls back to its default
+        when(config.getInt(anyString(), anyInt())).thenAnswer(AdditionalAnswers.returnsLastArg());
+        when(config.getLong(anyString(), anyLong())).thenAnswer(AdditionalAnswers.returnsLastArg());
+
+        LazyClient lazyClient = new LazyClient(new Supplier<ConfigParser>() {
+            private int calls;
+
+            @Override
+            public ConfigParser get() {
+                if (calls++ == 0) {
+                    throw new ConfigParserException(new IllegalStateException("config file is not there yet"));
+                }
+                return config;
+            }
+        });
+
+        try {
+            lazyClient.get();
+            fail("The config failure should have been reported.");
+        } catch (ConfigParserException e) {
+            // expected
+        }
+        CloseableHttpClient client = lazyClient.get();
+        assertNotNull(client);
+        assertSame(lazyClient.get(), client);
+    }
+}